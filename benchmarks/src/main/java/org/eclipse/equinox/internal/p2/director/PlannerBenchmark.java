@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.p2.benchmarks.SyntheticRepository;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.query.IQueryable;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the steps of the planner over a synthetic repository: the
+ * computation of the slice by the {@link Slicer}, and its encoding and
+ * resolution by the {@link Projector}. It lives in the package of the director
+ * to hand the slice over to the projector the way the {@link SimplePlanner} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlannerBenchmark {
+	private static final Map<String, String> SELECTION_CONTEXT = Map.of("osgi.os", "linux", "osgi.ws", "gtk", "osgi.arch", "x86_64"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+	@Param({"1000", "2000"})
+	public int bundles;
+
+	@Param({"false", "true"})
+	public boolean parallel;
+
+	private QueryableArray units;
+	private List<IInstallableUnit> roots;
+	private IInstallableUnit entryPoint;
+	private Slicer slicer;
+	private IQueryable<IInstallableUnit> slice;
+
+	@Setup
+	public void setUp() {
+		SyntheticRepository repository = SyntheticRepository.generate(bundles, SyntheticRepository.DEFAULT_SEED);
+		roots = repository.getRoots(5);
+		entryPoint = SyntheticRepository.createEntryPoint(roots);
+		List<IInstallableUnit> all = new ArrayList<>(repository.getUnits());
+		all.add(entryPoint);
+		units = new QueryableArray(all);
+		slicer = createSlicer();
+		slice = slicer.slice(List.of(entryPoint), new NullProgressMonitor());
+		Collection<IInstallableUnit> solution = project(slicer, slice);
+		if (solution.isEmpty())
+			throw new IllegalStateException("The synthetic repository cannot be resolved"); //$NON-NLS-1$
+	}
+
+	private Slicer createSlicer() {
+		Slicer result = new Slicer(units, SELECTION_CONTEXT, false);
+		result.setParallel(parallel);
+		return result;
+	}
+
+	private Collection<IInstallableUnit> project(Slicer sliced, IQueryable<IInstallableUnit> sliceResult) {
+		Projector projector = new Projector(sliceResult, SELECTION_CONTEXT, sliced.getNonGreedyIUs(), false);
+		projector.setSliceMatches(sliced.getSliceMatches());
+		projector.encode(entryPoint, new IInstallableUnit[0], new QueryableArray(List.of()), roots, new NullProgressMonitor());
+		IStatus status = projector.invokeSolver(new NullProgressMonitor());
+		if (status.getSeverity() == IStatus.ERROR)
+			throw new IllegalStateException(status.toString());
+		return projector.extractSolution();
+	}
+
+	@Benchmark
+	public IQueryable<IInstallableUnit> slice() {
+		return createSlicer().slice(List.of(entryPoint), new NullProgressMonitor());
+	}
+
+	@Benchmark
+	public Collection<IInstallableUnit> project() {
+		return project(slicer, slice);
+	}
+
+	@Benchmark
+	public Collection<IInstallableUnit> plan() {
+		Slicer planSlicer = createSlicer();
+		return project(planSlicer, planSlicer.slice(List.of(entryPoint), new NullProgressMonitor()));
+	}
+}
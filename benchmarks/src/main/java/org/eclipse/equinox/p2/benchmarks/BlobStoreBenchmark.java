@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.eclipse.equinox.internal.p2.artifact.repository.simple.BlobStore;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the writing of blobs of different sizes to a {@link BlobStore}
+ * in a temporary folder. Each iteration starts with an empty store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlobStoreBenchmark {
+	@Param({"1024", "65536", "1048576"})
+	public int size;
+
+	private byte[] content;
+	private Path folder;
+	private BlobStore store;
+	private long count;
+
+	@Setup(Level.Trial)
+	public void createContent() {
+		content = new byte[size];
+		new Random(SyntheticRepository.DEFAULT_SEED).nextBytes(content);
+	}
+
+	@Setup(Level.Iteration)
+	public void createStore() throws IOException {
+		folder = Files.createTempDirectory("p2-blobstore"); //$NON-NLS-1$
+		store = new BlobStore(folder.toUri(), 128);
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteStore() throws IOException {
+		try (Stream<Path> paths = Files.walk(folder)) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	@Benchmark
+	public void write() throws IOException {
+		byte[] uuid = ("artifact-" + count++).getBytes(StandardCharsets.UTF_8); //$NON-NLS-1$
+		try (OutputStream output = store.getOutputStream(uuid)) {
+			output.write(content);
+		}
+	}
+}
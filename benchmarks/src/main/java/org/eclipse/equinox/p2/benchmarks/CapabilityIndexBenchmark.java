@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
+import org.eclipse.equinox.internal.p2.metadata.index.CapabilityIndex;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the construction of a {@link CapabilityIndex} and the lookup of the
+ * candidates of requirements in it, the way a match query uses the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapabilityIndexBenchmark {
+	@Param({"1000", "10000"})
+	public int bundles;
+
+	private List<IInstallableUnit> units;
+	private List<IRequirement> requirements;
+	private CapabilityIndex index;
+
+	@Setup
+	public void setUp() {
+		SyntheticRepository repository = SyntheticRepository.generate(bundles, SyntheticRepository.DEFAULT_SEED);
+		units = repository.getUnits();
+		requirements = repository.getRequirements();
+		index = new CapabilityIndex(units.iterator());
+	}
+
+	@Benchmark
+	public CapabilityIndex createIndex() {
+		return new CapabilityIndex(units.iterator());
+	}
+
+	@Benchmark
+	public void getCandidates(Blackhole blackhole) {
+		for (IRequirement requirement : requirements) {
+			IMatchExpression<IInstallableUnit> matches = requirement.getMatches();
+			Iterator<IInstallableUnit> candidates = index.getCandidates(matches.createContext(), ExpressionFactory.THIS, matches);
+			while (candidates.hasNext())
+				blackhole.consume(candidates.next());
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.internal.p2.director.QueryableArray;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
+import org.eclipse.equinox.internal.p2.metadata.expression.parser.QLParser;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.eclipse.equinox.p2.metadata.expression.IExpression;
+import org.eclipse.equinox.p2.metadata.expression.IExpressionParser;
+import org.eclipse.equinox.p2.query.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the parsing of match expressions and queries, and their evaluation
+ * over the IUs of a synthetic repository. The match expression and the query are
+ * evaluated without the help of an index, the traversal uses the indexes of a
+ * {@link QueryableArray} like the queries of the planner do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+	private static final String MATCH_EXPRESSION = "providedCapabilities.exists(p | p.namespace == $0 && p.name == $1) && version ~= $2"; //$NON-NLS-1$
+	private static final String QUERY = "latest(x | x.id ~= /org.example.bundle1*/ && x.requirements.exists(r | r.min > 0))"; //$NON-NLS-1$
+	private static final String TRAVERSAL = "$0.traverse(parent | parent.requirements.collect(rc | select(iu | iu ~= rc)).flatten())"; //$NON-NLS-1$
+
+	@Param({"1000", "10000"})
+	public int bundles;
+
+	private IExpressionParser parser;
+	private List<IInstallableUnit> units;
+	private IQuery<IInstallableUnit> matchQuery;
+	private IQuery<IInstallableUnit> query;
+	private QueryableArray queryable;
+	private IInstallableUnit[] roots;
+
+	@Setup
+	public void setUp() {
+		parser = new QLParser(ExpressionFactory.INSTANCE);
+		SyntheticRepository repository = SyntheticRepository.generate(bundles, SyntheticRepository.DEFAULT_SEED);
+		units = repository.getUnits();
+		matchQuery = QueryUtil.createMatchQuery(MATCH_EXPRESSION, SyntheticRepository.NAMESPACE_JAVA_PACKAGE, SyntheticRepository.BUNDLE_PREFIX + "7.pkg0", new VersionRange("[1.0.0,2.0.0)")); //$NON-NLS-1$ //$NON-NLS-2$
+		query = QueryUtil.createQuery(QUERY);
+		queryable = new QueryableArray(units);
+		roots = new IInstallableUnit[] {units.get(units.size() / 2)};
+	}
+
+	@Benchmark
+	public IExpression parseMatchExpression() {
+		return parser.parse(MATCH_EXPRESSION);
+	}
+
+	@Benchmark
+	public IExpression parseQuery() {
+		return parser.parseQuery(TRAVERSAL);
+	}
+
+	@Benchmark
+	public IQueryResult<IInstallableUnit> evaluateMatchExpression() {
+		return matchQuery.perform(units.iterator());
+	}
+
+	@Benchmark
+	public IQueryResult<IInstallableUnit> evaluateQuery() {
+		return query.perform(units.iterator());
+	}
+
+	@Benchmark
+	public IQueryResult<IInstallableUnit> evaluateTraversal() {
+		return queryable.query(QueryUtil.createQuery(TRAVERSAL, (Object) roots), null);
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.io.IUDeserializer;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the loading of the IUs of a synthetic repository by the
+ * <code>MetadataParser</code>. The XML is kept in memory, so the disk does
+ * not take part in the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataParserBenchmark {
+	@Param({"1000", "10000"})
+	public int bundles;
+
+	private byte[] content;
+
+	@Setup
+	public void setUp() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		SyntheticRepository.generate(bundles, SyntheticRepository.DEFAULT_SEED).write(output);
+		content = output.toByteArray();
+	}
+
+	@Benchmark
+	public Collection<IInstallableUnit> load() throws IOException {
+		return new IUDeserializer().read(new ByteArrayInputStream(content));
+	}
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.io.*;
+import java.util.*;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.metadata.io.IUSerializer;
+
+/**
+ * Generates the installable units of a repository shaped like an Eclipse
+ * update site: bundles requiring other bundles and packages, a few optional
+ * and platform specific requirements, and features grouping the bundles.
+ * <p>
+ * The generation only depends on the size and the seed, so the benchmarks
+ * measure the same metadata on every machine without network access. Bundle
+ * <code>i</code> only requires bundles with a lower index, so the dependency
+ * graph has no cycle and every non optional requirement can be satisfied.
+ */
+public class SyntheticRepository {
+	public static final String BUNDLE_PREFIX = "org.example.bundle"; //$NON-NLS-1$
+	public static final String FEATURE_PREFIX = "org.example.feature"; //$NON-NLS-1$
+	public static final String ENTRY_POINT_ID = "org.example.entry"; //$NON-NLS-1$
+	public static final String NAMESPACE_OSGI_BUNDLE = "osgi.bundle"; //$NON-NLS-1$
+	public static final String NAMESPACE_JAVA_PACKAGE = "java.package"; //$NON-NLS-1$
+	public static final long DEFAULT_SEED = 20260101L;
+
+	private static final String[] PLATFORM_FILTERS = {"(osgi.os=linux)", "(osgi.os=win32)", "(osgi.os=macosx)"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	private static final VersionRange[] RANGES = {new VersionRange("[1.0.0,2.0.0)"), new VersionRange("[1.1.0,2.0.0)"), new VersionRange("1.0.0"), VersionRange.emptyRange}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private final List<IInstallableUnit> units = new ArrayList<>();
+	private final List<IInstallableUnit> features = new ArrayList<>();
+	private final List<IRequirement> requirements = new ArrayList<>();
+
+	private SyntheticRepository() {
+		// use generate
+	}
+
+	/**
+	 * Generates a repository of the given number of bundles, together with one
+	 * feature for every 50 bundles. Each bundle comes in one to three versions.
+	 */
+	public static SyntheticRepository generate(int bundles, long seed) {
+		SyntheticRepository repository = new SyntheticRepository();
+		Random random = new Random(seed);
+		int[] versions = new int[bundles];
+		for (int i = 0; i < bundles; i++) {
+			versions[i] = 1 + random.nextInt(3);
+			IRequirement[] bundleRequirements = repository.createBundleRequirements(random, i, versions);
+			for (int v = 0; v < versions[i]; v++)
+				repository.units.add(createBundle(i, v, random.nextInt(3), bundleRequirements));
+		}
+		for (int f = 0; f * 50 < bundles; f++) {
+			List<IRequirement> included = new ArrayList<>();
+			for (int i = f * 50; i < Math.min(bundles, (f + 1) * 50); i += 1 + random.nextInt(3))
+				included.add(MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, BUNDLE_PREFIX + i, VersionRange.emptyRange, null, false, false));
+			IInstallableUnit feature = createUnit(FEATURE_PREFIX + f + ".feature.group", Version.create("1.0.0.v2026"), new IProvidedCapability[0], included.toArray(new IRequirement[included.size()])); //$NON-NLS-1$ //$NON-NLS-2$
+			repository.features.add(feature);
+			repository.units.add(feature);
+			repository.requirements.addAll(included);
+		}
+		return repository;
+	}
+
+	private IRequirement[] createBundleRequirements(Random random, int index, int[] versions) {
+		if (index == 0)
+			return new IRequirement[0];
+		IRequirement[] result = new IRequirement[random.nextInt(7)];
+		for (int r = 0; r < result.length; r++) {
+			int target = random.nextInt(index);
+			// only ask for a 1.1 version of a bundle that has one
+			VersionRange range = RANGES[random.nextInt(RANGES.length)];
+			if (range == RANGES[1] && versions[target] == 1)
+				range = RANGES[0];
+			String filter = random.nextInt(20) == 0 ? PLATFORM_FILTERS[random.nextInt(PLATFORM_FILTERS.length)] : null;
+			boolean optional = random.nextInt(10) == 0;
+			boolean greedy = !optional || random.nextBoolean();
+			if (random.nextBoolean())
+				result[r] = MetadataFactory.createRequirement(NAMESPACE_OSGI_BUNDLE, BUNDLE_PREFIX + target, range, filter, optional, false, greedy);
+			else
+				result[r] = MetadataFactory.createRequirement(NAMESPACE_JAVA_PACKAGE, getPackage(target, 0), VersionRange.emptyRange, filter, optional, false, greedy);
+			requirements.add(result[r]);
+		}
+		return result;
+	}
+
+	private static String getPackage(int bundle, int index) {
+		return BUNDLE_PREFIX + bundle + ".pkg" + index; //$NON-NLS-1$
+	}
+
+	private static IInstallableUnit createBundle(int index, int minor, int extraPackages, IRequirement[] requirements) {
+		String id = BUNDLE_PREFIX + index;
+		Version version = Version.create("1." + minor + ".0.v2026" + (index % 100)); //$NON-NLS-1$ //$NON-NLS-2$
+		IProvidedCapability[] capabilities = new IProvidedCapability[2 + extraPackages];
+		capabilities[0] = MetadataFactory.createProvidedCapability(NAMESPACE_OSGI_BUNDLE, id, version);
+		for (int p = 0; p <= extraPackages; p++)
+			capabilities[1 + p] = MetadataFactory.createProvidedCapability(NAMESPACE_JAVA_PACKAGE, getPackage(index, p), version);
+		return createUnit(id, version, capabilities, requirements);
+	}
+
+	private static IInstallableUnit createUnit(String id, Version version, IProvidedCapability[] capabilities, IRequirement[] requirements) {
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId(id);
+		description.setVersion(version);
+		IProvidedCapability[] provided = new IProvidedCapability[capabilities.length + 1];
+		provided[0] = MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, id, version);
+		System.arraycopy(capabilities, 0, provided, 1, capabilities.length);
+		description.setCapabilities(provided);
+		description.setRequirements(requirements);
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	/**
+	 * Returns all the generated bundles and features.
+	 */
+	public List<IInstallableUnit> getUnits() {
+		return units;
+	}
+
+	/**
+	 * Returns the requirements of the generated bundles and features, in the order they were generated.
+	 */
+	public List<IRequirement> getRequirements() {
+		return requirements;
+	}
+
+	/**
+	 * Returns the last given number of features, the ones depending on the most bundles.
+	 */
+	public List<IInstallableUnit> getRoots(int count) {
+		return features.subList(Math.max(0, features.size() - count), features.size());
+	}
+
+	/**
+	 * Returns an IU requiring the given roots, the way the planner requires the
+	 * IUs of a profile change request.
+	 */
+	public static IInstallableUnit createEntryPoint(List<IInstallableUnit> roots) {
+		IRequirement[] entryRequirements = new IRequirement[roots.size()];
+		for (int i = 0; i < entryRequirements.length; i++)
+			entryRequirements[i] = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, roots.get(i).getId(), VersionRange.emptyRange, null, false, false);
+		return createUnit(ENTRY_POINT_ID, Version.create("1.0.0"), new IProvidedCapability[0], entryRequirements); //$NON-NLS-1$
+	}
+
+	/**
+	 * Writes the generated IUs in the format of the <code>units</code> element of a <code>content.xml</code>.
+	 */
+	public void write(OutputStream output) throws IOException {
+		new IUSerializer(output).write(units);
+	}
+
+	/**
+	 * Writes a repository to a file, for inspection or for use outside the benchmarks.
+	 * Arguments: the number of bundles, the output file and optionally the seed.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: SyntheticRepository <bundles> <file> [<seed>]"); //$NON-NLS-1$
+			System.exit(1);
+		}
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+		SyntheticRepository repository = generate(Integer.parseInt(args[0]), seed);
+		try (OutputStream output = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+			repository.write(output);
+		}
+		System.out.println("Wrote " + repository.getUnits().size() + " units to " + args[1]); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the parsing of versions in the formats found in repositories, and
+ * the inclusion of versions in ranges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionBenchmark {
+	private static final int COUNT = 1000;
+
+	private String[] osgiVersions;
+	private String[] rawVersions;
+	private String[] formattedVersions;
+	private Version[] versions;
+	private VersionRange[] ranges;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(SyntheticRepository.DEFAULT_SEED);
+		osgiVersions = new String[COUNT];
+		rawVersions = new String[COUNT];
+		formattedVersions = new String[COUNT];
+		versions = new Version[COUNT];
+		ranges = new VersionRange[COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			int major = random.nextInt(5);
+			int minor = random.nextInt(20);
+			int micro = random.nextInt(100);
+			osgiVersions[i] = major + "." + minor + "." + micro + ".v2026" + random.nextInt(10000) + "-1200"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			rawVersions[i] = "raw:" + major + "." + minor + "." + micro + ".'beta" + random.nextInt(10) + "'"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			formattedVersions[i] = "format(n[.n=0;[.n=0;]][d?S=M;]):" + major + "." + minor + "-rc" + random.nextInt(5); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			versions[i] = Version.parseVersion(osgiVersions[i]);
+			int low = random.nextInt(4);
+			ranges[i] = new VersionRange(Version.createOSGi(low, random.nextInt(10), 0), random.nextBoolean(), Version.createOSGi(low + 1 + random.nextInt(2), 0, 0), false);
+		}
+	}
+
+	@Benchmark
+	public void parseOSGi(Blackhole blackhole) {
+		for (String version : osgiVersions)
+			blackhole.consume(Version.parseVersion(version));
+	}
+
+	@Benchmark
+	public void parseRaw(Blackhole blackhole) {
+		for (String version : rawVersions)
+			blackhole.consume(Version.parseVersion(version));
+	}
+
+	@Benchmark
+	public void parseFormatted(Blackhole blackhole) {
+		for (String version : formattedVersions)
+			blackhole.consume(Version.parseVersion(version));
+	}
+
+	@Benchmark
+	public int isIncluded() {
+		int included = 0;
+		for (VersionRange range : ranges) {
+			for (int i = 0; i < 16; i++) {
+				if (range.isIncluded(versions[(included + i) % COUNT]))
+					included++;
+			}
+		}
+		return included;
+	}
+}
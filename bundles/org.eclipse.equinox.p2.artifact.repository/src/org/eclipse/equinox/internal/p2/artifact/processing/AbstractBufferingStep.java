@@ -43,6 +43,11 @@ public abstract class AbstractBufferingStep extends ProcessingStep {
 		stream.write(b);
 	}
 
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		getOutputStream().write(b, off, len);
+	}
+
 	protected OutputStream getOutputStream() throws IOException {
 		if (incomingStream != null)
 			return incomingStream;
@@ -14,8 +14,11 @@
 package org.eclipse.equinox.internal.p2.artifact.processors.checksum;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.equinox.internal.p2.repository.helpers.ChecksumHelper;
 import org.eclipse.equinox.internal.provisional.p2.artifact.repository.processing.ProcessingStep;
 
@@ -27,6 +30,13 @@ public abstract class MessageDigestProcessingStep extends ProcessingStep {
 	protected MessageDigest messageDigest;
 	private static final int BUFFER_SIZE = 16 * 1024;
 	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	/**
+	 * This step and the digest steps directly linked after it. The bytes written in bulk
+	 * are passed once to the destination of the last of them, and digested by all of
+	 * them while they are in the cache, instead of going through each link.
+	 */
+	private MessageDigestProcessingStep[] digestSteps;
+	private OutputStream digestStepsDestination;
 
 	@Override
 	public final void write(int b) throws IOException {
@@ -40,6 +50,33 @@ public abstract class MessageDigestProcessingStep extends ProcessingStep {
 		buffer.put((byte) b);
 	}
 
+	@Override
+	public final void write(byte[] b, int off, int len) throws IOException {
+		if (digestSteps == null)
+			collectDigestSteps();
+		digestStepsDestination.write(b, off, len);
+		for (MessageDigestProcessingStep step : digestSteps)
+			step.updateDigest(b, off, len);
+	}
+
+	private void collectDigestSteps() {
+		List<MessageDigestProcessingStep> steps = new ArrayList<>();
+		OutputStream current = this;
+		while (current instanceof MessageDigestProcessingStep step) {
+			steps.add(step);
+			current = step.getDestination();
+		}
+		digestSteps = steps.toArray(new MessageDigestProcessingStep[steps.size()]);
+		digestStepsDestination = current;
+	}
+
+	private void updateDigest(byte[] b, int off, int len) {
+		// the bytes written one at a time come first
+		if (buffer.position() > 0)
+			processBufferredBytes();
+		messageDigest.update(b, off, len);
+	}
+
 	private void processBufferredBytes() {
 		buffer.flip();
 		updateDigest();
@@ -23,6 +23,8 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryIO;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryState;
+import org.eclipse.equinox.internal.p2.repository.helpers.ConcurrentRepositoryLoader;
+import org.eclipse.equinox.internal.p2.repository.helpers.ConcurrentRepositoryLoader.Outcome;
 import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryHelper;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
@@ -72,11 +74,7 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 	CompositeArtifactRepository(IArtifactRepositoryManager manager, CompositeRepositoryState state, IProgressMonitor monitor) throws ProvisionException {
 		super(manager.getAgent(), state.getName(), state.getType(), state.getVersion(), state.getLocation(), state.getDescription(), state.getProvider(), state.getProperties());
 		this.manager = manager;
-		SubMonitor sub = SubMonitor.convert(monitor, 100 * state.getChildren().length);
-		List<URI> repositoriesToBeRemovedOnFailure = new ArrayList<>();
-		boolean failOnChildFailure = shouldFailOnChildFailure(state);
-		for (URI child : state.getChildren())
-			addChild(child, false, sub.newChild(100), failOnChildFailure, repositoriesToBeRemovedOnFailure);
+		addChildren(state.getChildren(), monitor, shouldFailOnChildFailure(state));
 	}
 
 	/**
@@ -169,6 +167,42 @@ public class CompositeArtifactRepository extends AbstractArtifactRepository impl
 		}
 	}
 
+	/*
+	 * Adds the children of a repository being loaded. The children are loaded
+	 * concurrently and added in their order, which gives their precedence.
+	 */
+	private void addChildren(URI[] children, IProgressMonitor monitor, boolean propagateException) throws ProvisionException {
+		List<URI> locations = new ArrayList<>();
+		for (URI childURI : children) {
+			URI absolute = URIUtil.makeAbsolute(childURI, getLocation());
+			if (childrenURIs.contains(childURI) || childrenURIs.contains(absolute))
+				continue;
+			childrenURIs.add(childURI);
+			locations.add(absolute);
+		}
+		List<URI> repositoriesToBeRemovedOnFailure = Collections.synchronizedList(new ArrayList<>());
+		List<Outcome<IArtifactRepository>> outcomes = new ConcurrentRepositoryLoader(ConcurrentRepositoryLoader.getMaxConcurrentCompositeLoading(getProvisioningAgent())).loadAll(locations, (location, mon) -> {
+			boolean currentLoaded = getManager().contains(location);
+			IArtifactRepository repo = load(location, mon);
+			if (!currentLoaded)
+				repositoriesToBeRemovedOnFailure.add(location);
+			return repo;
+		}, propagateException, monitor);
+		for (Outcome<IArtifactRepository> outcome : outcomes) {
+			if (outcome.getFailure() != null) {
+				//repository failed to load. fall through
+				LogHelper.log(outcome.getFailure());
+				if (propagateException) {
+					removeFromRepoManager(repositoriesToBeRemovedOnFailure);
+					String msg = NLS.bind(Messages.io_failedRead, getLocation());
+					throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_READ, msg, outcome.getFailure()));
+				}
+				continue;
+			}
+			loadedRepos.add(new ChildInfo(outcome.getRepository()));
+		}
+	}
+
 	//	public boolean addChild(URI childURI, String comparatorID) {
 	//		try {
 	//			IArtifactRepository repo = load(childURI);
@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.artifact.repository.simple;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactRequest;
+
+/**
+ * Schedules the artifact requests of one or more {@link SimpleArtifactRepository}
+ * instances onto a bounded pool of download threads.
+ * <p>
+ * All pending requests, regardless of the repository they belong to, are kept
+ * in one shared queue ordered by their download size (largest first), so that
+ * a large artifact does not end up as the last download of a run while all
+ * other threads sit idle. A worker that finds the next request blocked, either
+ * because its repository already uses all the threads it allows or because the
+ * host it lives on already has the maximum number of connections open, steals
+ * the next eligible request instead. The thread that submitted a batch helps
+ * processing its own requests while it waits for the batch to complete.
+ * </p><p>
+ * A different scheduler can be plugged in by registering a subclass as the
+ * <code>DownloadScheduler</code> service of the provisioning agent.
+ * </p>
+ */
+public class DownloadScheduler {
+
+	/**
+	 * The key for an integer property controlling the maximum number of
+	 * concurrent connections opened to the same host.
+	 */
+	public static final String PROP_MAX_CONNECTIONS_PER_HOST = "eclipse.p2.max.connections.per.host"; //$NON-NLS-1$
+
+	private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	private static DownloadScheduler defaultScheduler;
+
+	private final Object lock = new Object();
+	private final List<Task> queue = new ArrayList<>();
+	private final Map<String, Integer> connectionsPerHost = new HashMap<>();
+	private final ThreadPoolExecutor executor;
+	private long sequence = 0;
+
+	static class Batch {
+		final SimpleArtifactRepository repository;
+		final String host;
+		final int maxConcurrency;
+		final int maxConnectionsPerHost;
+		final IProgressMonitor monitor;
+		final MultiStatus overallStatus;
+		int pending;
+		int active = 0;
+
+		Batch(SimpleArtifactRepository repository, int size, int maxConcurrency, int maxConnectionsPerHost, IProgressMonitor monitor, MultiStatus overallStatus) {
+			this.repository = repository;
+			this.host = repository.getLocation().getHost();
+			this.pending = size;
+			this.maxConcurrency = maxConcurrency;
+			this.maxConnectionsPerHost = maxConnectionsPerHost;
+			this.monitor = monitor;
+			this.overallStatus = overallStatus;
+		}
+	}
+
+	static class Task implements Comparable<Task> {
+		final Batch batch;
+		final IArtifactRequest request;
+		final long size;
+		final long order;
+
+		Task(Batch batch, IArtifactRequest request, long size, long order) {
+			this.batch = batch;
+			this.request = request;
+			this.size = size;
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(Task other) {
+			int result = Long.compare(other.size, size);
+			return result != 0 ? result : Long.compare(order, other.order);
+		}
+	}
+
+	/**
+	 * Returns the scheduler shared by all repositories that do not find a
+	 * scheduler registered with their provisioning agent.
+	 */
+	public static synchronized DownloadScheduler getDefault() {
+		if (defaultScheduler == null)
+			defaultScheduler = new DownloadScheduler();
+		return defaultScheduler;
+	}
+
+	public DownloadScheduler() {
+		AtomicInteger threadCount = new AtomicInteger();
+		executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread thread = new Thread(r, "p2 download worker " + threadCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Performs the given requests against the given repository using at most
+	 * <code>maxThreads</code> threads, and waits for all of them to complete.
+	 * Problems are added to the given status.
+	 *
+	 * @return <code>false</code> if the requests were cancelled through the monitor,
+	 * <code>true</code> otherwise
+	 */
+	public boolean perform(SimpleArtifactRepository repository, IArtifactRequest[] requests, int maxThreads, IProgressMonitor monitor, MultiStatus overallStatus) {
+		if (requests.length == 0)
+			return true;
+		Batch batch = new Batch(repository, requests.length, Math.max(1, maxThreads), getMaxConnectionsPerHost(repository), monitor, overallStatus);
+		synchronized (lock) {
+			for (IArtifactRequest request : requests)
+				queue.add(new Task(batch, request, getDownloadSize(repository, request.getArtifactKey()), sequence++));
+			Collections.sort(queue);
+		}
+		int workers = Math.min(requests.length, batch.maxConcurrency) - 1;
+		ensureCapacity(workers);
+		for (int i = 0; i < workers; i++)
+			executor.execute(this::drain);
+
+		// help with our own requests while waiting for the others to complete
+		while (true) {
+			Task task;
+			synchronized (lock) {
+				if (monitor.isCanceled())
+					cancel(batch);
+				task = next(batch);
+				if (task == null) {
+					if (batch.pending == 0)
+						break;
+					try {
+						lock.wait(200);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						cancel(batch);
+					}
+					continue;
+				}
+			}
+			run(task);
+		}
+		return !monitor.isCanceled();
+	}
+
+	private void drain() {
+		while (true) {
+			Task task;
+			synchronized (lock) {
+				task = next(null);
+				if (task == null) {
+					if (queue.isEmpty())
+						return;
+					// the queued tasks are blocked by the limit of their repository or host
+					// until a running task completes
+					try {
+						lock.wait(200);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					continue;
+				}
+			}
+			run(task);
+		}
+	}
+
+	private void run(Task task) {
+		Batch batch = task.batch;
+		try {
+			if (!batch.monitor.isCanceled()) {
+				SubMonitor subMonitor = SubMonitor.convert(batch.monitor, 1);
+				subMonitor.beginTask("", 1); //$NON-NLS-1$
+				try {
+					IStatus status = batch.repository.getArtifact(task.request, subMonitor);
+					if (!status.isOK()) {
+						synchronized (batch.overallStatus) {
+							batch.overallStatus.add(status);
+						}
+					}
+				} finally {
+					subMonitor.done();
+				}
+			}
+		} finally {
+			synchronized (lock) {
+				batch.active--;
+				batch.pending--;
+				if (batch.host != null) {
+					int connections = connectionsPerHost.get(batch.host) - 1;
+					if (connections == 0)
+						connectionsPerHost.remove(batch.host);
+					else
+						connectionsPerHost.put(batch.host, connections);
+				}
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Removes and returns the largest queued task that may run now, optionally
+	 * restricted to the given batch. Must be called while holding the lock.
+	 */
+	private Task next(Batch restrictTo) {
+		for (Iterator<Task> iterator = queue.iterator(); iterator.hasNext();) {
+			Task task = iterator.next();
+			Batch batch = task.batch;
+			if (restrictTo != null && batch != restrictTo)
+				continue;
+			if (batch.active >= batch.maxConcurrency)
+				continue;
+			if (batch.host != null && connectionsPerHost.getOrDefault(batch.host, 0) >= batch.maxConnectionsPerHost)
+				continue;
+			iterator.remove();
+			batch.active++;
+			if (batch.host != null)
+				connectionsPerHost.merge(batch.host, 1, Integer::sum);
+			return task;
+		}
+		return null;
+	}
+
+	/**
+	 * Drops all queued tasks of the given batch. Must be called while holding the lock.
+	 */
+	private void cancel(Batch batch) {
+		for (Iterator<Task> iterator = queue.iterator(); iterator.hasNext();) {
+			if (iterator.next().batch == batch) {
+				iterator.remove();
+				batch.pending--;
+			}
+		}
+		lock.notifyAll();
+	}
+
+	private void ensureCapacity(int threads) {
+		synchronized (executor) {
+			if (threads > executor.getMaximumPoolSize()) {
+				executor.setMaximumPoolSize(threads);
+				executor.setCorePoolSize(threads);
+			}
+		}
+	}
+
+	/**
+	 * Returns the expected number of bytes to transfer for the given key, or
+	 * <code>-1</code> if the repository does not know.
+	 */
+	protected long getDownloadSize(SimpleArtifactRepository repository, IArtifactKey key) {
+		long size = -1;
+		for (IArtifactDescriptor descriptor : repository.getArtifactDescriptors(key)) {
+			String value = descriptor.getProperty(IArtifactDescriptor.DOWNLOAD_SIZE);
+			if (value == null)
+				continue;
+			try {
+				size = Math.max(size, Long.parseLong(value));
+			} catch (NumberFormatException e) {
+				// ignore malformed sizes
+			}
+		}
+		return size;
+	}
+
+	protected int getMaxConnectionsPerHost(SimpleArtifactRepository repository) {
+		String value = SimpleArtifactRepository.getAgentPropertyWithFallback(repository.getProvisioningAgent(), PROP_MAX_CONNECTIONS_PER_HOST);
+		if (value != null) {
+			try {
+				return Math.max(1, Integer.parseInt(value));
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return DEFAULT_MAX_CONNECTIONS_PER_HOST;
+	}
+}
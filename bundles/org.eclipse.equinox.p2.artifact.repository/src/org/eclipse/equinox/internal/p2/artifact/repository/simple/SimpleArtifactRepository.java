@@ -22,12 +22,18 @@ package org.eclipse.equinox.internal.p2.artifact.repository.simple;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import org.eclipse.core.runtime.*;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.equinox.internal.p2.artifact.processors.checksum.ChecksumUtilities;
 import org.eclipse.equinox.internal.p2.artifact.processors.checksum.ChecksumVerifier;
 import org.eclipse.equinox.internal.p2.artifact.processors.pgp.PGPSignatureVerifier;
@@ -35,6 +41,7 @@ import org.eclipse.equinox.internal.p2.artifact.repository.*;
 import org.eclipse.equinox.internal.p2.artifact.repository.Messages;
 import org.eclipse.equinox.internal.p2.core.helpers.FileUtils;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.core.metrics.IProvisioningMetrics;
 import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
 import org.eclipse.equinox.internal.p2.metadata.expression.CompoundIterator;
 import org.eclipse.equinox.internal.p2.metadata.index.IndexProvider;
@@ -66,6 +73,14 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 
 	public static final String PROPERTY_ECLIPSE_P2_MIRRORS = "eclipse.p2.mirrors"; //$NON-NLS-1$
 
+	/**
+	 * A boolean property controlling whether artifacts copied from a local
+	 * repository on the same file system are hard linked rather than copied.
+	 * Off by default since the linked files share their content, e.g. with the
+	 * bundle pool they are installed into.
+	 */
+	public static final String PROPERTY_ECLIPSE_P2_HARD_LINKS = "eclipse.p2.hardLinks"; //$NON-NLS-1$
+
 	private static final String FALSE = "false"; //$NON-NLS-1$
 
 	private static final String TRUE = "true"; //$NON-NLS-1$
@@ -97,14 +112,14 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	/**
 	 * Does this instance of the repository currently hold a lock
 	 */
-	private boolean holdsLock = false;
+	private volatile boolean holdsLock = false;
 	/**
 	 * Does this instance of the repository can be locked.
 	 * It will be initialized when initializing the location for repository
 	 */
-	private Boolean canLock = null;
+	private volatile Boolean canLock = null;
 
-	private long cacheTimestamp = 0l;
+	private volatile long cacheTimestamp = 0l;
 
 	public class ArtifactOutputStream extends OutputStream implements IStateful, IAdaptable {
 		private boolean closed;
@@ -114,6 +129,8 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		private File file;
 		private IStatus status = Status.OK_STATUS;
 		private OutputStream firstLink;
+		// the stream of the file the artifact is written to, if it is written to a single file
+		private FileOutputStream target;
 
 		public ArtifactOutputStream(OutputStream os, IArtifactDescriptor descriptor) {
 			this(os, descriptor, null);
@@ -191,6 +208,50 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			firstLink = value;
 		}
 
+		/**
+		 * Returns whether the bytes of a local file can be given to this stream with
+		 * {@link #transferFrom(FileChannel, long, long)}.
+		 */
+		boolean canTransfer() {
+			return target != null && !closed;
+		}
+
+		/**
+		 * Transfers the given range of a local file to the artifact file, letting the
+		 * operating system copy the bytes without going through the Java heap.
+		 *
+		 * @return the number of bytes transferred
+		 */
+		long transferFrom(FileChannel source, long position, long length) throws IOException {
+			destination.flush();
+			long transferred = source.transferTo(position, length, target.getChannel());
+			count += transferred;
+			return transferred;
+		}
+
+		/**
+		 * Replaces the artifact file by a hard link to the given local file when the
+		 * repository allows it and nothing was written yet.
+		 *
+		 * @return whether the artifact file is now a link to the given file
+		 */
+		boolean linkTo(File source) {
+			if (count > 0 || file == null || !TRUE.equals(getAgentPropertyWithFallback(getProvisioningAgent(), PROPERTY_ECLIPSE_P2_HARD_LINKS)))
+				return false;
+			Path link = file.toPath().resolveSibling(file.getName() + ".link"); //$NON-NLS-1$
+			try {
+				// link aside first so that the artifact file is untouched if the file system does not support it
+				Files.createLink(link, source.toPath());
+				destination.close();
+				Files.move(link, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException | UnsupportedOperationException | SecurityException e) {
+				link.toFile().delete();
+				return false;
+			}
+			count = source.length();
+			return true;
+		}
+
 		@Override
 		public <T> T getAdapter(Class<T> adapter) {
 			if (adapter.isInstance(descriptor)) {
@@ -262,20 +323,29 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 
 	static final private Integer REPOSITORY_VERSION = 1;
 	private static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
-	protected Set<SimpleArtifactDescriptor> artifactDescriptors = new HashSet<>();
+	/*
+	 * The descriptors are read without holding the lock of the repository, so that
+	 * concurrent downloads do not serialize on it. Writers hold the lock, and replace
+	 * the unmodifiable list of descriptors of a key rather than changing it, so the
+	 * lists seen by readers never change.
+	 */
+	protected volatile Set<SimpleArtifactDescriptor> artifactDescriptors = ConcurrentHashMap.newKeySet();
 	private Set<SimpleArtifactDescriptor> addedDescriptors = new HashSet<>();
 	/**
 	 * Map<IArtifactKey,List<IArtifactDescriptor>> containing the index of artifacts in the repository.
 	 */
-	private Map<IArtifactKey, List<IArtifactDescriptor>> artifactMap = new HashMap<>();
-	private transient BlobStore blobStore;
-	transient private Mapper mapper = new Mapper();
-	private KeyIndex keyIndex;
-	private boolean snapshotNeeded = false;
+	private volatile Map<IArtifactKey, List<IArtifactDescriptor>> artifactMap = new ConcurrentHashMap<>();
+	private transient volatile BlobStore blobStore;
+	transient private volatile Mapper mapper = new Mapper();
+	private volatile KeyIndex keyIndex;
 
 	private static final int DEFAULT_MAX_THREADS = 4;
 
-	protected String[][] mappingRules = DEFAULT_MAPPING_RULES;
+	private static final long DELETION_KEEP_ALIVE_SECONDS = 30;
+
+	private static ExecutorService deletionExecutor;
+
+	protected volatile String[][] mappingRules = DEFAULT_MAPPING_RULES;
 
 	private MirrorSelector mirrors;
 
@@ -322,45 +392,24 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		if (added) {
 			addedDescriptors.add(descriptor);
 		}
-		IArtifactKey key = descriptor.getArtifactKey();
-		if (snapshotNeeded) {
-			cloneAritfactMap();
-			snapshotNeeded = false;
-		}
-		List<IArtifactDescriptor> descriptors = artifactMap.get(key);
-		if (descriptors == null) {
-			descriptors = new ArrayList<>();
-			artifactMap.put(key, descriptors);
-		}
-		descriptors.add(descriptor);
+		artifactMap.compute(descriptor.getArtifactKey(), (key, descriptors) -> {
+			List<IArtifactDescriptor> result = descriptors == null ? new ArrayList<>(1) : new ArrayList<>(descriptors);
+			result.add(descriptor);
+			return Collections.unmodifiableList(result);
+		});
 		keyIndex = null;
 	}
 
 	private synchronized void unmapDescriptor(IArtifactDescriptor descriptor) {
 		addedDescriptors.remove(descriptor);
-		IArtifactKey key = descriptor.getArtifactKey();
-		List<IArtifactDescriptor> descriptors = artifactMap.get(key);
-		if (descriptors == null)
-			return;
-
-		if (snapshotNeeded) {
-			cloneAritfactMap();
-			snapshotNeeded = false;
-			descriptors = artifactMap.get(key);
-		}
-		descriptors.remove(descriptor);
-		if (descriptors.isEmpty())
-			artifactMap.remove(key);
+		artifactMap.computeIfPresent(descriptor.getArtifactKey(), (key, descriptors) -> {
+			List<IArtifactDescriptor> result = new ArrayList<>(descriptors);
+			result.remove(descriptor);
+			return result.isEmpty() ? null : Collections.unmodifiableList(result);
+		});
 		keyIndex = null;
 	}
 
-	private void cloneAritfactMap() {
-		HashMap<IArtifactKey, List<IArtifactDescriptor>> clone = new HashMap<>(artifactMap.size());
-		for (Entry<IArtifactKey, List<IArtifactDescriptor>> entry : artifactMap.entrySet())
-			clone.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-		artifactMap = clone;
-	}
-
 	public SimpleArtifactRepository(IProvisioningAgent agent, String repositoryName, URI location, Map<String, String> properties) {
 		super(agent, repositoryName, REPOSITORY_TYPE, REPOSITORY_VERSION.toString(), location, null, null, properties);
 
@@ -451,7 +500,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		}
 	}
 
-	private synchronized OutputStream addPostSteps(ProcessingStepHandler handler, IArtifactDescriptor descriptor, OutputStream destination, IProgressMonitor monitor) {
+	private OutputStream addPostSteps(ProcessingStepHandler handler, IArtifactDescriptor descriptor, OutputStream destination, IProgressMonitor monitor) {
 		monitor = IProgressMonitor.nullSafe(monitor);
 		ArrayList<ProcessingStep> steps = new ArrayList<>();
 		steps.add(new SignatureVerifier());
@@ -537,7 +586,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	@Override
-	public synchronized boolean contains(IArtifactDescriptor descriptor) {
+	public boolean contains(IArtifactDescriptor descriptor) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
@@ -546,7 +595,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	@Override
-	public synchronized boolean contains(IArtifactKey key) {
+	public boolean contains(IArtifactKey key) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
@@ -603,6 +652,85 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return result;
 	}
 
+	/*
+	 * Removes several artifacts like doRemoveArtifact does, but deletes their files
+	 * on up to getMaximumThreads() threads of the shared deletion executor first.
+	 */
+	private boolean doRemoveArtifacts(Collection<IArtifactDescriptor> descriptors) {
+		Map<IArtifactDescriptor, File> files = new HashMap<>();
+		for (IArtifactDescriptor descriptor : descriptors) {
+			SimpleArtifactDescriptor simple = descriptor instanceof SimpleArtifactDescriptor ? (SimpleArtifactDescriptor) descriptor : createInternalDescriptor(descriptor);
+			if (simple.getRepositoryProperty(SimpleArtifactDescriptor.ARTIFACT_REFERENCE) == null) {
+				File file = getArtifactFile(descriptor);
+				if (file != null)
+					files.put(descriptor, file);
+			}
+		}
+		deleteAll(new HashSet<>(files.values()));
+
+		boolean changed = false;
+		for (IArtifactDescriptor descriptor : descriptors) {
+			File file = files.get(descriptor);
+			// keep the descriptor of a file that could not be deleted
+			if (file != null && file.exists())
+				continue;
+			if (artifactDescriptors.remove(descriptor)) {
+				unmapDescriptor(descriptor);
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private void deleteAll(Collection<File> files) {
+		int threads = Math.min(files.size(), getMaximumThreads());
+		if (threads < 2) {
+			for (File file : files)
+				delete(file);
+			return;
+		}
+		// each worker takes files from the queue until it is empty
+		Queue<File> queue = new ConcurrentLinkedQueue<>(files);
+		Runnable worker = () -> {
+			File file;
+			while ((file = queue.poll()) != null)
+				delete(file);
+		};
+		ExecutorService executor = getDeletionExecutor();
+		List<Future<?>> workers = new ArrayList<>(threads);
+		for (int i = 0; i < threads; i++)
+			workers.add(executor.submit(worker));
+		try {
+			for (Future<?> future : workers)
+				future.get();
+		} catch (InterruptedException e) {
+			// the files that are left keep their descriptors
+			queue.clear();
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// delete does not throw, keep the descriptors of the files that are left
+			queue.clear();
+		}
+	}
+
+	/*
+	 * The executor shared by all repositories to delete artifact files. Its threads
+	 * end when they have been idle for a while.
+	 */
+	private static synchronized ExecutorService getDeletionExecutor() {
+		if (deletionExecutor == null) {
+			AtomicInteger threadCount = new AtomicInteger();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_MAX_THREADS, DEFAULT_MAX_THREADS, DELETION_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+				Thread thread = new Thread(r, "p2 artifact deletion " + threadCount.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.allowCoreThreadTimeOut(true);
+			deletionExecutor = executor;
+		}
+		return deletionExecutor;
+	}
+
 	protected IStatus downloadArtifact(IArtifactDescriptor descriptor, OutputStream destination, IProgressMonitor monitor) {
 		SubMonitor subMon = SubMonitor.convert(monitor, 2);
 		if (isFolderBased(descriptor)) {
@@ -612,20 +740,13 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 					return reportStatus(descriptor, destination, new Status(IStatus.ERROR, Activator.ID, NLS.bind(Messages.folder_artifact_not_file_repo, descriptor.getArtifactKey())));
 				return reportStatus(descriptor, destination, new Status(IStatus.ERROR, Activator.ID, NLS.bind(Messages.artifact_not_found, descriptor.getArtifactKey())));
 			}
-			// TODO: optimize and ensure manifest is written first
-			File zipFile = null;
+			// stream the archive to the destination, manifest first
 			long start = System.currentTimeMillis();
 			long totalArtifactSize = 0;
 			try {
-				zipFile = File.createTempFile(artifactFolder.getName(), JAR_EXTENSION, null);
-				FileUtils.zip(artifactFolder.listFiles(), null, zipFile, FileUtils.createRootPathComputer(artifactFolder));
-				FileInputStream fis = new FileInputStream(zipFile);
-				totalArtifactSize += FileUtils.copyStream(fis, true, destination, false);
+				totalArtifactSize += FileUtils.zip(artifactFolder, destination);
 			} catch (IOException e) {
 				return reportStatus(descriptor, destination, new Status(IStatus.ERROR, Activator.ID, e.getMessage(), e));
-			} finally {
-				if (zipFile != null)
-					zipFile.delete();
 			}
 			long end = System.currentTimeMillis();
 			DownloadStatus statusWithDownloadSpeed = new DownloadStatus(IStatus.OK, Activator.ID, Status.OK_STATUS.getMessage());
@@ -696,11 +817,17 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		try {
 			long start = System.currentTimeMillis();
 
-			try (FileInputStream stream = new FileInputStream(in)) {
-				int len;
-				while ((len = stream.read(buffer)) != -1) {
-					out.write(buffer, 0, len);
-					sub.worked(1);
+			if (out instanceof ArtifactOutputStream artifactStream && artifactStream.canTransfer()) {
+				// nothing needs to see the bytes, let the file system copy or link the file
+				if (!artifactStream.linkTo(in))
+					transferFileToStream(in, artifactStream, bufferSize, sub);
+			} else {
+				try (FileInputStream stream = new FileInputStream(in)) {
+					int len;
+					while ((len = stream.read(buffer)) != -1) {
+						out.write(buffer, 0, len);
+						sub.worked(1);
+					}
 				}
 			}
 			long end = System.currentTimeMillis();
@@ -714,15 +841,33 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return status;
 	}
 
+	private void transferFileToStream(File in, ArtifactOutputStream out, int bufferSize, SubMonitor monitor) throws IOException {
+		// transfer in slices to report progress, each one is still copied by the file system
+		long slice = bufferSize * 64L;
+		try (FileChannel channel = FileChannel.open(in.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			while (position < size) {
+				long transferred = out.transferFrom(channel, position, Math.min(slice, size - position));
+				if (transferred <= 0)
+					break;
+				position += transferred;
+				monitor.worked((int) (transferred / bufferSize));
+			}
+		}
+	}
+
 	private IStatus downloadArtifact(IArtifactDescriptor descriptor, URI mirrorLocation, OutputStream destination,
 			IProgressMonitor monitor) {
 		monitor = IProgressMonitor.nullSafe(monitor);
 		//Bug 340352: transport has performance overhead of 100ms and more, bypass it for local copies
 		IStatus result = Status.OK_STATUS;
+		long start = System.nanoTime();
 		if (SimpleArtifactRepositoryFactory.PROTOCOL_FILE.equals(mirrorLocation.getScheme()))
 			result = copyFileToStream(new File(mirrorLocation), destination, monitor);
 		else
 			result = getTransport().downloadArtifact(mirrorLocation, destination, descriptor, monitor);
+		recordDownload(result, System.nanoTime() - start);
 		if (mirrors != null)
 			mirrors.reportResult(mirrorLocation.toString(), result);
 		if (result.isOK() || result.getSeverity() == IStatus.CANCEL)
@@ -738,6 +883,19 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return result;
 	}
 
+	private void recordDownload(IStatus result, long nanos) {
+		IProvisioningAgent agent = getProvisioningAgent();
+		IProvisioningMetrics metrics = agent == null ? null : agent.getService(IProvisioningMetrics.class);
+		if (metrics == null || result.getSeverity() == IStatus.CANCEL)
+			return;
+		if (!result.isOK()) {
+			metrics.count(IProvisioningMetrics.DOWNLOAD_FAILURES, 1);
+			return;
+		}
+		long bytes = result instanceof DownloadStatus downloadStatus ? downloadStatus.getFileSize() : DownloadStatus.UNKNOWN_SIZE;
+		metrics.recordTransfer(getLocation().toString(), Math.max(bytes, 0), nanos);
+	}
+
 	/**
 	 * Returns an equivalent mirror location for the given artifact location.
 	 * @param baseLocation The location of the artifact in this repository
@@ -803,7 +961,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return !FALSE.equals(getAgentPropertyWithFallback(agent, PROPERTY_ECLIPSE_P2_MD5_ARTIFACT_CHECK));
 	}
 
-	private static String getAgentPropertyWithFallback(IProvisioningAgent agent, String key) {
+	static String getAgentPropertyWithFallback(IProvisioningAgent agent, String key) {
 		if (agent == null) {
 			BundleContext context = Activator.getContext();
 			if (context != null) {
@@ -858,7 +1016,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	@Override
-	public synchronized IArtifactDescriptor[] getArtifactDescriptors(IArtifactKey key) {
+	public IArtifactDescriptor[] getArtifactDescriptors(IArtifactKey key) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
@@ -896,7 +1054,6 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			return Status.CANCEL_STATUS;
 
 		final MultiStatus overallStatus = new MultiStatus(Activator.ID, IStatus.OK, NLS.bind(Messages.message_problemReadingArtifact, getLocation()), null);
-		LinkedList<IArtifactRequest> requestsPending = new LinkedList<>(Arrays.asList(requests));
 
 		int numberOfJobs = Math.min(requests.length, getMaximumThreads());
 		if (numberOfJobs <= 1 || (!isForceThreading() && isLocal())) {
@@ -913,21 +1070,10 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 				subMonitor.done();
 			}
 		} else {
-			// initialize the various jobs needed to process the get artifact requests
+			// hand the requests over to the scheduler and wait for all of them to complete
 			monitor.beginTask(NLS.bind(Messages.sar_downloading, Integer.toString(requests.length)), requests.length);
 			try {
-				DownloadJob jobs[] = new DownloadJob[numberOfJobs];
-				for (int i = 0; i < numberOfJobs; i++) {
-					jobs[i] = new DownloadJob(Messages.sar_downloadJobName + i, this, requestsPending, monitor,
-							overallStatus);
-					jobs[i].schedule();
-				}
-				// wait for all the jobs to complete
-				try {
-					Job.getJobManager().join(DownloadJob.FAMILY, null);
-				} catch (InterruptedException e) {
-					//ignore
-				}
+				getDownloadScheduler().perform(this, requests, numberOfJobs, monitor, overallStatus);
 			} finally {
 				monitor.done();
 			}
@@ -941,7 +1087,17 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			return overallStatus;
 	}
 
-	public synchronized IArtifactDescriptor getCompleteArtifactDescriptor(IArtifactKey key) {
+	/**
+	 * Returns the scheduler used for multi-threaded downloads. Clients can plug in
+	 * their own scheduler by registering it as a service with the provisioning agent.
+	 */
+	private DownloadScheduler getDownloadScheduler() {
+		IProvisioningAgent agent = getProvisioningAgent();
+		DownloadScheduler scheduler = agent == null ? null : agent.getService(DownloadScheduler.class);
+		return scheduler != null ? scheduler : DownloadScheduler.getDefault();
+	}
+
+	public IArtifactDescriptor getCompleteArtifactDescriptor(IArtifactKey key) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
@@ -957,14 +1113,14 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		return null;
 	}
 
-	public synchronized Set<SimpleArtifactDescriptor> getDescriptors() {
+	public Set<SimpleArtifactDescriptor> getDescriptors() {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
 		return artifactDescriptors;
 	}
 
-	public synchronized URI getLocation(IArtifactDescriptor descriptor) {
+	public URI getLocation(IArtifactDescriptor descriptor) {
 		// if the artifact has a uuid then use it
 		String uuid = descriptor.getProperty(ARTIFACT_UUID);
 		if (uuid != null)
@@ -1079,7 +1235,10 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 
 			// finally create and return an output stream suitably wrapped so that when it is
 			// closed the repository is updated with the descriptor
-			return new ArtifactOutputStream(new BufferedOutputStream(target), newDescriptor, outputFile);
+			ArtifactOutputStream result = new ArtifactOutputStream(new BufferedOutputStream(target), newDescriptor, outputFile);
+			if (target instanceof FileOutputStream)
+				result.target = (FileOutputStream) target;
+			return result;
 		} catch (IOException e) {
 			throw failedWrite(e);
 		}
@@ -1105,7 +1264,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		throw new ProvisionException(new Status(IStatus.ERROR, Activator.ID, ProvisionException.REPOSITORY_FAILED_WRITE, msg, e));
 	}
 
-	public synchronized String[][] getRules() {
+	public String[][] getRules() {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
@@ -1143,8 +1302,9 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	private synchronized void initializeMapper() {
-		mapper = new Mapper();
-		mapper.initialize(Activator.getContext(), mappingRules);
+		Mapper newMapper = new Mapper();
+		newMapper.initialize(Activator.getContext(), mappingRules);
+		mapper = newMapper;
 	}
 
 	private boolean isFolderBased(IArtifactDescriptor descriptor) {
@@ -1199,10 +1359,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 			}
 
 			IArtifactDescriptor[] toRemove = artifactDescriptors.toArray(new IArtifactDescriptor[artifactDescriptors.size()]);
-			boolean changed = false;
-			for (IArtifactDescriptor element : toRemove)
-				changed |= doRemoveArtifact(element);
-			if (changed)
+			if (doRemoveArtifacts(Arrays.asList(toRemove)))
 				save();
 		} finally {
 			if (lockAcquired)
@@ -1240,10 +1397,7 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 					return;
 			}
 
-			boolean changed = false;
-			for (IArtifactDescriptor descriptor : descriptors)
-				changed |= doRemoveArtifact(descriptor);
-			if (changed)
+			if (doRemoveArtifacts(Arrays.asList(descriptors)))
 				save();
 		} finally {
 			if (lockAcquired)
@@ -1266,15 +1420,15 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 					return;
 			}
 
-			boolean changed = false;
+			List<IArtifactDescriptor> toRemove = new ArrayList<>();
 			for (IArtifactKey key : keys) {
 				IArtifactDescriptor[] descriptors = getArtifactDescriptors(key);
 				for (IArtifactDescriptor descriptor : descriptors)
 					if (!removeIfAdded || addedDescriptors.remove(descriptor)) {
-						changed |= doRemoveArtifact(descriptor);
+						toRemove.add(descriptor);
 					}
 			}
-			if (changed)
+			if (doRemoveArtifacts(toRemove))
 				save();
 		} finally {
 			if (lockAcquired)
@@ -1437,11 +1591,8 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	@Override
 	public IQueryable<IArtifactDescriptor> descriptorQueryable() {
 		return (query, monitor) -> {
-			synchronized (SimpleArtifactRepository.this) {
-				snapshotNeeded = true;
-				Collection<List<IArtifactDescriptor>> descs = SimpleArtifactRepository.this.artifactMap.values();
-				return query.perform(new CompoundIterator<>(descs.iterator()));
-			}
+			Collection<List<IArtifactDescriptor>> descs = SimpleArtifactRepository.this.artifactMap.values();
+			return query.perform(new CompoundIterator<>(descs.iterator()));
 		};
 	}
 
@@ -1452,12 +1603,11 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	@Override
-	public synchronized Iterator<IArtifactKey> everything() {
+	public Iterator<IArtifactKey> everything() {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
-		snapshotNeeded = true;
-		return artifactMap.keySet().iterator();
+		return Collections.unmodifiableSet(artifactMap.keySet()).iterator();
 	}
 
 	@Override
@@ -1504,15 +1654,21 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 	}
 
 	@Override
-	public synchronized IIndex<IArtifactKey> getIndex(String memberName) {
+	public IIndex<IArtifactKey> getIndex(String memberName) {
 		if (!holdsLock() && URIUtil.isFileURI(getLocation())) {
 			load(new NullProgressMonitor());
 		}
 		if (ArtifactKey.MEMBER_ID.equals(memberName)) {
-			snapshotNeeded = true;
-			if (keyIndex == null)
-				keyIndex = new KeyIndex(artifactMap.keySet());
-			return keyIndex;
+			KeyIndex index = keyIndex;
+			if (index == null) {
+				// build the index under the lock so that a concurrent change does not leave a stale index
+				synchronized (this) {
+					if (keyIndex == null)
+						keyIndex = new KeyIndex(artifactMap.keySet());
+					index = keyIndex;
+				}
+			}
+			return index;
 		}
 		return null;
 	}
@@ -1670,53 +1826,61 @@ public class SimpleArtifactRepository extends AbstractArtifactRepository impleme
 		monitor = IProgressMonitor.nullSafe(monitor);
 
 		SimpleArtifactRepositoryFactory repositoryFactory = new SimpleArtifactRepositoryFactory();
-		IArtifactRepository repositoryOnDisk = null;
 		try {
 			SubMonitor subMonitor = SubMonitor.convert(monitor, 4);
+			long lastModified;
 			try {
 				File localFile = repositoryFactory.getLocalFile(getLocation(), subMonitor.newChild(1));
-				long lastModified = localFile.lastModified();
+				lastModified = localFile.lastModified();
+				// checked without the lock first, the repository is seldom changed on disk
 				if (lastModified <= cacheTimestamp)
 					return;
-				cacheTimestamp = lastModified;
 			} catch (Exception e) {
 				// Dont'r worry if we can't load
 				return;
 			}
-			try {
-				repositoryOnDisk = repositoryFactory.load(getLocation(), IRepositoryManager.REPOSITORY_HINT_MODIFIABLE, subMonitor.newChild(3), false);
-			} catch (Exception e) {
-				// Don't worry if we can't load
-				return;
-			}
+			reload(repositoryFactory, lastModified, subMonitor.newChild(3));
+		} finally {
+			monitor.done();
+		}
+	}
 
-			if (repositoryOnDisk != null && repositoryOnDisk instanceof SimpleArtifactRepository) {
-				setName(repositoryOnDisk.getName());
-				setType(repositoryOnDisk.getType());
-				setVersion(repositoryOnDisk.getVersion());
-				setLocation(repositoryOnDisk.getLocation()); // Will this ever change, should it?
-				setDescription(repositoryOnDisk.getDescription());
-				setProvider(repositoryOnDisk.getProvider());
-				this.mappingRules = ((SimpleArtifactRepository) repositoryOnDisk).mappingRules;
-
-				// Clear the existing properties
-				//				this.setProperties(new OrderedProperties());
-				//
-				Map<String, String> prop = repositoryOnDisk.getProperties();
-				Set<Entry<String, String>> entrySet = prop.entrySet();
-				for (Entry<String, String> entry : entrySet) {
-					doSetProperty(entry.getKey(), entry.getValue(), new NullProgressMonitor(), false);
-				}
+	private synchronized void reload(SimpleArtifactRepositoryFactory repositoryFactory, long lastModified, IProgressMonitor monitor) {
+		if (lastModified <= cacheTimestamp)
+			return;
+		cacheTimestamp = lastModified;
+		IArtifactRepository repositoryOnDisk = null;
+		try {
+			repositoryOnDisk = repositoryFactory.load(getLocation(), IRepositoryManager.REPOSITORY_HINT_MODIFIABLE, monitor, false);
+		} catch (Exception e) {
+			// Don't worry if we can't load
+			return;
+		}
 
-				//
-				this.artifactDescriptors = ((SimpleArtifactRepository) repositoryOnDisk).artifactDescriptors;
-				this.artifactMap = ((SimpleArtifactRepository) repositoryOnDisk).artifactMap;
-				this.addedDescriptors.clear();
+		if (repositoryOnDisk != null && repositoryOnDisk instanceof SimpleArtifactRepository) {
+			setName(repositoryOnDisk.getName());
+			setType(repositoryOnDisk.getType());
+			setVersion(repositoryOnDisk.getVersion());
+			setLocation(repositoryOnDisk.getLocation()); // Will this ever change, should it?
+			setDescription(repositoryOnDisk.getDescription());
+			setProvider(repositoryOnDisk.getProvider());
+			this.mappingRules = ((SimpleArtifactRepository) repositoryOnDisk).mappingRules;
+
+			// Clear the existing properties
+			//				this.setProperties(new OrderedProperties());
+			//
+			Map<String, String> prop = repositoryOnDisk.getProperties();
+			Set<Entry<String, String>> entrySet = prop.entrySet();
+			for (Entry<String, String> entry : entrySet) {
+				doSetProperty(entry.getKey(), entry.getValue(), new NullProgressMonitor(), false);
 			}
-		} finally {
-			monitor.done();
+
+			//
+			this.artifactDescriptors = ((SimpleArtifactRepository) repositoryOnDisk).artifactDescriptors;
+			this.artifactMap = ((SimpleArtifactRepository) repositoryOnDisk).artifactMap;
+			this.addedDescriptors.clear();
+			this.keyIndex = null;
 		}
-		return;
 	}
 
 	private void unlock() {
@@ -26,6 +26,18 @@ public class ZipVerifierStep extends ProcessingStep {
 	@Override
 	public void write(int b) throws IOException {
 		getDestination().write(b);
+		verify(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		getDestination().write(b, off, len);
+		// only the header is verified
+		for (int i = off; i < off + len && valid >= 0 && valid <= 3; i++)
+			verify(b[i] & 0xFF);
+	}
+
+	private void verify(int b) {
 		if (valid > 3)
 			return;
 		if (valid == -1) {
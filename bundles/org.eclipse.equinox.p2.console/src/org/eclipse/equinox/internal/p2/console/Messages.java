@@ -51,4 +51,7 @@ public class Messages extends NLS {
 	public static String Console_help_provinstall_description;
 	public static String Console_help_provremove_description;
 	public static String Console_help_provrevert_description;
+	public static String Console_help_metrics_header;
+	public static String Console_help_provmetrics_description;
+	public static String Console_no_metrics;
 }
@@ -25,6 +25,7 @@ import java.util.*;
 import java.util.Map.Entry;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.core.metrics.IProvisioningMetrics;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.engine.IProfile;
@@ -623,6 +624,21 @@ public class ProvCommandProvider implements CommandProvider {
 		}
 	}
 
+	/**
+	 * Prints the provisioning metrics of the agent as JSON, and forgets them if the
+	 * argument is "reset".
+	 */
+	public void _provmetrics(CommandInterpreter interpreter) {
+		IProvisioningMetrics metrics = agent.getService(IProvisioningMetrics.class);
+		if (metrics == null) {
+			interpreter.println(Messages.Console_no_metrics);
+			return;
+		}
+		interpreter.print(metrics.toJSON());
+		if ("reset".equals(interpreter.nextArgument())) //$NON-NLS-1$
+			metrics.reset();
+	}
+
 	/**
 	 * Handles the help command
 	 *
@@ -755,6 +771,9 @@ public class ProvCommandProvider implements CommandProvider {
 		commandsHelp.put("provinstall", Messages.Console_help_provinstall_description); //$NON-NLS-1$
 		commandsHelp.put("provremove", Messages.Console_help_provremove_description); //$NON-NLS-1$
 		commandsHelp.put("provrevert", Messages.Console_help_provrevert_description); //$NON-NLS-1$
+
+		// add commands for metrics
+		commandsHelp.put("provmetrics", Messages.Console_help_provmetrics_description); //$NON-NLS-1$
 	}
 
 	private void initializeCommandGroups() {
@@ -771,6 +790,8 @@ public class ProvCommandProvider implements CommandProvider {
 
 		commandGroups.put(Messages.Console_help_install_header,
 				new String[] { "provinstall", "provremove", "provrevert" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+		commandGroups.put(Messages.Console_help_metrics_header, new String[] { "provmetrics" }); //$NON-NLS-1$
 	}
 
 	/**
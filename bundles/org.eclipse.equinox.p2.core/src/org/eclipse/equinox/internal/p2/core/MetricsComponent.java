@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.core;
+
+import org.eclipse.equinox.internal.p2.core.metrics.IProvisioningMetrics;
+import org.eclipse.equinox.internal.p2.core.metrics.ProvisioningMetrics;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.spi.IAgentServiceFactory;
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * Factory for creating {@link IProvisioningMetrics} instances.
+ */
+@Component(service = IAgentServiceFactory.class, property = IAgentServiceFactory.PROP_CREATED_SERVICE_NAME + "="
+		+ IProvisioningMetrics.SERVICE_NAME, name = "org.eclipse.equinox.p2.core.metrics")
+public class MetricsComponent implements IAgentServiceFactory {
+	@Override
+	public Object createService(IProvisioningAgent agent) {
+		return new ProvisioningMetrics();
+	}
+
+}
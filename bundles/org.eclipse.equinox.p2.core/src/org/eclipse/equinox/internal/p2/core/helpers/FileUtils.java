@@ -279,6 +279,56 @@ public class FileUtils {
 		}
 	}
 
+	/**
+	 * Writes the content of the given folder as a zip archive to the given stream, without
+	 * going through a temporary file. The manifest, if any, is written first so that the
+	 * result can be read as a jar from the stream. The stream is not closed.
+	 * @param folder the folder whose content is archived
+	 * @param destination the stream the archive is written to
+	 * @return the number of bytes written
+	 * @throws IOException if there is an IO issue during this operation.
+	 */
+	public static long zip(File folder, OutputStream destination) throws IOException {
+		long[] written = new long[1];
+		OutputStream counter = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				destination.write(b);
+				written[0]++;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				destination.write(b, off, len);
+				written[0] += len;
+			}
+
+			@Override
+			public void close() throws IOException {
+				// leave the destination open
+				destination.flush();
+			}
+		};
+		File manifest = new File(new File(folder, "META-INF"), "MANIFEST.MF"); //$NON-NLS-1$ //$NON-NLS-2$
+		try (ZipOutputStream output = new ZipOutputStream(counter)) {
+			IPathComputer pathComputer = createRootPathComputer(folder);
+			HashSet<IPath> directoryEntries = new HashSet<>();
+			Set<File> exclusions = new HashSet<>();
+			if (manifest.isFile()) {
+				zip(output, manifest, exclusions, pathComputer, directoryEntries);
+				exclusions.add(manifest);
+			}
+			File[] children = folder.listFiles();
+			if (children != null) {
+				for (File child : children) {
+					pathComputer.reset();
+					zip(output, child, exclusions, pathComputer, directoryEntries);
+				}
+			}
+		}
+		return written[0];
+	}
+
 	/**
 	 * Writes the given file or folder to the given ZipOutputStream.  The stream is not closed, we recurse into folders
 	 * @param output - the ZipOutputStream to write into
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.core.metrics;
+
+/**
+ * Records where the time of provisioning operations goes: the duration of the
+ * phases of the engine and of the touchpoint actions, the duration of the steps
+ * of the planner, the data transferred from each repository, and the hit rates
+ * of caches. The metrics of an agent are obtained from the agent as a service,
+ * and accumulate until they are reset or the agent is stopped.
+ * <p>
+ * Implementations are thread safe and cheap enough to be called for every IU.
+ */
+public interface IProvisioningMetrics {
+	/**
+	 * The name used for obtaining a reference to the metrics service.
+	 */
+	String SERVICE_NAME = "org.eclipse.equinox.internal.p2.core.metrics.IProvisioningMetrics"; //$NON-NLS-1$
+
+	/** Prefix of the timers of the phases of the engine, followed by the phase id */
+	String ENGINE_PHASE = "engine.phase."; //$NON-NLS-1$
+	/** Prefix of the timers of the processing of one operand by a phase, followed by the phase id */
+	String ENGINE_OPERAND = "engine.operand."; //$NON-NLS-1$
+	/** Prefix of the timers of the touchpoint actions, followed by the action id */
+	String ENGINE_ACTION = "engine.action."; //$NON-NLS-1$
+	/** Timer of the computation of the slice of a request */
+	String PLANNER_SLICE = "planner.slice"; //$NON-NLS-1$
+	/** Timer of the encoding of a request for the solver */
+	String PLANNER_ENCODE = "planner.encode"; //$NON-NLS-1$
+	/** Timer of the solving of a request */
+	String PLANNER_SOLVE = "planner.solve"; //$NON-NLS-1$
+	/** Cache of the IUs matching the requirements encoded by the planner */
+	String CACHE_REQUIREMENT_MATCHES = "planner.requirementMatches"; //$NON-NLS-1$
+	/** Cache of the index files of remote repositories */
+	String CACHE_REPOSITORY_INDEX = "repository.index"; //$NON-NLS-1$
+	/** Counter of the failed artifact downloads */
+	String DOWNLOAD_FAILURES = "repository.download.failures"; //$NON-NLS-1$
+
+	/**
+	 * Records the duration of one occurrence of the timed operation of the given name.
+	 */
+	void recordTime(String name, long nanos);
+
+	/**
+	 * Adds the given amount to the counter of the given name.
+	 */
+	void count(String name, long amount);
+
+	/**
+	 * Records the transfer of the given number of bytes from the given repository.
+	 */
+	void recordTransfer(String repository, long bytes, long nanos);
+
+	/**
+	 * Records hits and misses of the cache of the given name.
+	 */
+	void recordCacheAccesses(String cache, long hits, long misses);
+
+	/**
+	 * Returns the durations recorded for the operation of the given name,
+	 * or <code>null</code> if none was recorded.
+	 */
+	LatencyHistogram getTimer(String name);
+
+	/**
+	 * Returns the value of the counter of the given name.
+	 */
+	long getCount(String name);
+
+	/**
+	 * Returns a snapshot of all the metrics as a JSON object.
+	 */
+	String toJSON();
+
+	/**
+	 * Forgets all the recorded metrics.
+	 */
+	void reset();
+}
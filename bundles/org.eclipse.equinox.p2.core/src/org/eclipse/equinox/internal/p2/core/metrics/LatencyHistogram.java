@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.core.metrics;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * The distribution of the durations of an operation. Durations are counted in
+ * buckets of powers of two nanoseconds, so percentiles are approximations
+ * within a factor of two, while the count, total, minimum and maximum are exact.
+ * This class is thread safe.
+ */
+public class LatencyHistogram {
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value) - (value == 0 ? 0 : 1));
+		count.increment();
+		total.add(value);
+		min.accumulateAndGet(value, Math::min);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getTotal() {
+		return total.sum();
+	}
+
+	public long getMin() {
+		return getCount() == 0 ? 0 : min.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getMean() {
+		long n = getCount();
+		return n == 0 ? 0 : getTotal() / n;
+	}
+
+	/**
+	 * Returns an upper bound of the given percentile of the durations, in nanoseconds.
+	 * @param percentile a number between 0 and 100
+	 */
+	public long getPercentile(double percentile) {
+		long n = 0;
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			n += counts[i];
+		}
+		if (n == 0)
+			return 0;
+		long rank = (long) Math.ceil(percentile / 100 * n);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0)
+				return Math.min(i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i + 1) - 1, getMax());
+		}
+		return getMax();
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.core.metrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The default implementation of {@link IProvisioningMetrics}, keeping the
+ * metrics in memory.
+ */
+public class ProvisioningMetrics implements IProvisioningMetrics {
+	private static class Transfer {
+		final LongAdder count = new LongAdder();
+		final LongAdder bytes = new LongAdder();
+		final LongAdder nanos = new LongAdder();
+	}
+
+	private static class CacheAccesses {
+		final LongAdder hits = new LongAdder();
+		final LongAdder misses = new LongAdder();
+	}
+
+	private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+	private final Map<String, Transfer> transfers = new ConcurrentHashMap<>();
+	private final Map<String, CacheAccesses> caches = new ConcurrentHashMap<>();
+
+	@Override
+	public void recordTime(String name, long nanos) {
+		timers.computeIfAbsent(name, n -> new LatencyHistogram()).record(nanos);
+	}
+
+	@Override
+	public void count(String name, long amount) {
+		counters.computeIfAbsent(name, n -> new LongAdder()).add(amount);
+	}
+
+	@Override
+	public void recordTransfer(String repository, long bytes, long nanos) {
+		Transfer transfer = transfers.computeIfAbsent(repository, r -> new Transfer());
+		transfer.count.increment();
+		transfer.bytes.add(Math.max(0, bytes));
+		transfer.nanos.add(Math.max(0, nanos));
+	}
+
+	@Override
+	public void recordCacheAccesses(String cache, long hits, long misses) {
+		CacheAccesses accesses = caches.computeIfAbsent(cache, c -> new CacheAccesses());
+		accesses.hits.add(hits);
+		accesses.misses.add(misses);
+	}
+
+	@Override
+	public LatencyHistogram getTimer(String name) {
+		return timers.get(name);
+	}
+
+	@Override
+	public long getCount(String name) {
+		LongAdder counter = counters.get(name);
+		return counter == null ? 0 : counter.sum();
+	}
+
+	@Override
+	public void reset() {
+		timers.clear();
+		counters.clear();
+		transfers.clear();
+		caches.clear();
+	}
+
+	@Override
+	public String toJSON() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n  \"timers\": {"); //$NON-NLS-1$
+		String separator = "\n"; //$NON-NLS-1$
+		for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(timers).entrySet()) {
+			LatencyHistogram timer = entry.getValue();
+			json.append(separator);
+			appendName(json, entry.getKey());
+			json.append("{\"count\": ").append(timer.getCount()); //$NON-NLS-1$
+			appendMillis(json, "totalMillis", timer.getTotal()); //$NON-NLS-1$
+			appendMillis(json, "minMillis", timer.getMin()); //$NON-NLS-1$
+			appendMillis(json, "meanMillis", timer.getMean()); //$NON-NLS-1$
+			appendMillis(json, "p50Millis", timer.getPercentile(50)); //$NON-NLS-1$
+			appendMillis(json, "p90Millis", timer.getPercentile(90)); //$NON-NLS-1$
+			appendMillis(json, "p99Millis", timer.getPercentile(99)); //$NON-NLS-1$
+			appendMillis(json, "maxMillis", timer.getMax()); //$NON-NLS-1$
+			json.append('}');
+			separator = ",\n"; //$NON-NLS-1$
+		}
+		json.append("\n  },\n  \"counters\": {"); //$NON-NLS-1$
+		separator = "\n"; //$NON-NLS-1$
+		for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+			json.append(separator);
+			appendName(json, entry.getKey());
+			json.append(entry.getValue().sum());
+			separator = ",\n"; //$NON-NLS-1$
+		}
+		json.append("\n  },\n  \"transfers\": {"); //$NON-NLS-1$
+		separator = "\n"; //$NON-NLS-1$
+		for (Map.Entry<String, Transfer> entry : new TreeMap<>(transfers).entrySet()) {
+			Transfer transfer = entry.getValue();
+			long bytes = transfer.bytes.sum();
+			long nanos = transfer.nanos.sum();
+			json.append(separator);
+			appendName(json, entry.getKey());
+			json.append("{\"count\": ").append(transfer.count.sum()); //$NON-NLS-1$
+			json.append(", \"bytes\": ").append(bytes); //$NON-NLS-1$
+			appendMillis(json, "totalMillis", nanos); //$NON-NLS-1$
+			json.append(", \"bytesPerSecond\": ").append(nanos == 0 ? 0 : (long) (bytes * 1e9 / nanos)); //$NON-NLS-1$
+			json.append('}');
+			separator = ",\n"; //$NON-NLS-1$
+		}
+		json.append("\n  },\n  \"caches\": {"); //$NON-NLS-1$
+		separator = "\n"; //$NON-NLS-1$
+		for (Map.Entry<String, CacheAccesses> entry : new TreeMap<>(caches).entrySet()) {
+			long hits = entry.getValue().hits.sum();
+			long misses = entry.getValue().misses.sum();
+			json.append(separator);
+			appendName(json, entry.getKey());
+			json.append("{\"hits\": ").append(hits); //$NON-NLS-1$
+			json.append(", \"misses\": ").append(misses); //$NON-NLS-1$
+			json.append(", \"hitRate\": ").append(String.format(Locale.ROOT, "%.4f", hits + misses == 0 ? 0d : (double) hits / (hits + misses))); //$NON-NLS-1$ //$NON-NLS-2$
+			json.append('}');
+			separator = ",\n"; //$NON-NLS-1$
+		}
+		json.append("\n  }\n}\n"); //$NON-NLS-1$
+		return json.toString();
+	}
+
+	private static void appendName(StringBuilder json, String name) {
+		json.append("    "); //$NON-NLS-1$
+		appendString(json, name);
+		json.append(": "); //$NON-NLS-1$
+	}
+
+	private static void appendMillis(StringBuilder json, String name, long nanos) {
+		json.append(", \"").append(name).append("\": "); //$NON-NLS-1$ //$NON-NLS-2$
+		json.append(String.format(Locale.ROOT, "%.3f", nanos / 1e6)); //$NON-NLS-1$
+	}
+
+	static void appendString(StringBuilder json, String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' :
+				case '\\' :
+					json.append('\\').append(c);
+					break;
+				case '\n' :
+					json.append("\\n"); //$NON-NLS-1$
+					break;
+				case '\r' :
+					json.append("\\r"); //$NON-NLS-1$
+					break;
+				case '\t' :
+					json.append("\\t"); //$NON-NLS-1$
+					break;
+				default :
+					if (c < 0x20)
+						json.append(String.format("\\u%04x", Integer.valueOf(c))); //$NON-NLS-1$
+					else
+						json.append(c);
+			}
+		}
+		json.append('"');
+	}
+}
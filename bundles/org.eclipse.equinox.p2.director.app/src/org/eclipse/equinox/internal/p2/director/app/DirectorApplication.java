@@ -43,6 +43,7 @@ import org.eclipse.equinox.app.IApplication;
 import org.eclipse.equinox.app.IApplicationContext;
 import org.eclipse.equinox.internal.p2.core.helpers.ServiceHelper;
 import org.eclipse.equinox.internal.p2.core.helpers.StringHelper;
+import org.eclipse.equinox.internal.p2.core.metrics.IProvisioningMetrics;
 import org.eclipse.equinox.internal.p2.director.ProfileChangeRequest;
 import org.eclipse.equinox.internal.p2.engine.EngineActivator;
 import org.eclipse.equinox.internal.p2.engine.phases.AuthorityChecker;
@@ -425,6 +426,9 @@ public class DirectorApplication implements IApplication, ProvisioningListener {
 	private static final CommandLineOption OPTION_ADD_JRE_IU = new CommandLineOption(new String[] { //
 			"-addJREIU" }, //$NON-NLS-1$
 			null, Messages.Help_Add_JRE_IU);
+	private static final CommandLineOption OPTION_METRICS_OUTPUT = new CommandLineOption(new String[] { //
+			"-metricsOutput" }, //$NON-NLS-1$
+			Messages.Help_lt_path_gt, Messages.Help_Write_metrics);
 
 	private static final Integer EXIT_ERROR = 13;
 	static private final String FLAVOR_DEFAULT = "tooling"; //$NON-NLS-1$
@@ -543,6 +547,7 @@ public class DirectorApplication implements IApplication, ProvisioningListener {
 
 	private File bundlePool = null;
 	private File destination;
+	private File metricsOutput;
 	private File sharedLocation;
 	private String flavor;
 	private boolean printHelpInfo = false;
@@ -1251,6 +1256,11 @@ public class DirectorApplication implements IApplication, ProvisioningListener {
 				continue;
 			}
 
+			if (OPTION_METRICS_OUTPUT.isOption(opt)) {
+				metricsOutput = processFileArgument(getRequiredArgument(args, ++i));
+				continue;
+			}
+
 			if (OPTION_METADATAREPOS.isOption(opt)) {
 				getURIs(metadataRepositoryLocations, getRequiredArgument(args, ++i));
 				continue;
@@ -1415,6 +1425,19 @@ public class DirectorApplication implements IApplication, ProvisioningListener {
 		}
 	}
 
+	private void writeMetrics() {
+		if (metricsOutput == null || targetAgent == null)
+			return;
+		IProvisioningMetrics metrics = targetAgent.getService(IProvisioningMetrics.class);
+		if (metrics == null)
+			return;
+		try {
+			Files.writeString(metricsOutput.toPath(), metrics.toJSON(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			log.log(new Status(ERROR, ID, NLS.bind(Messages.Unable_to_write_metrics, metricsOutput), e));
+		}
+	}
+
 	private void cleanupServices() {
 		// dispose agent, only if it is not already up and running
 		if (targetAgent != null && !targetAgentIsSelfAndUp) {
@@ -1475,6 +1498,7 @@ public class DirectorApplication implements IApplication, ProvisioningListener {
 			setSystemProperty("eclipse.exitdata", ""); //$NON-NLS-1$ //$NON-NLS-2$
 			return EXIT_ERROR;
 		} finally {
+			writeMetrics();
 			log.close();
 			cleanupRepositories();
 			cleanupServices();
@@ -1607,6 +1631,7 @@ public class DirectorApplication implements IApplication, ProvisioningListener {
 				OPTION_TRUSTED_CERTIFCATES, //
 				OPTION_HELP, //
 				OPTION_ADD_JRE_IU, //
+				OPTION_METRICS_OUTPUT, //
 		};
 
 		for (CommandLineOption allOption : allOptions) {
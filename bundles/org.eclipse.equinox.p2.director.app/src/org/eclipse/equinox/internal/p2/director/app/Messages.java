@@ -118,6 +118,8 @@ public class Messages extends NLS {
 	public static String Cant_write_in_destination;
 
 	public static String Help_Add_JRE_IU;
+	public static String Help_Write_metrics;
+	public static String Unable_to_write_metrics;
 
 	static {
 		// initialize resource bundle
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.engine.IProvisioningPlan;
+import org.eclipse.equinox.p2.engine.ProvisioningContext;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+import org.eclipse.equinox.p2.planner.IProfileChangeRequest;
+import org.eclipse.equinox.p2.query.*;
+
+/**
+ * Resolves successive change requests against the same profile and provisioning
+ * context, for example the what-if plans of an update check. The installable units
+ * available from the context, the slice computed from the requests seen so far and its
+ * encoding in the SAT solver are retained between requests. Each request only adds the
+ * constraints of its own root, guarded by assumptions, and replaces the optimization
+ * function before the solver is invoked again.
+ * <p>
+ * The slice is recomputed when a request reaches installable units outside of it, and
+ * after {@link #MAX_RETAINED_REQUESTS} requests, since the constraints of every request
+ * stay in the encoding. A request that cannot be answered from the retained encoding,
+ * because it changes the selection context, uses the user defined optimization function
+ * or has no solution, is resolved from scratch as {@link SimplePlanner#getProvisioningPlan}
+ * would, so that the explanation of a failure is the same.
+ */
+public class PlannerSession implements AutoCloseable {
+	/**
+	 * The number of requests encoded on top of the retained encoding after which it is
+	 * dropped, and built again from the next request only.
+	 */
+	public static final int MAX_RETAINED_REQUESTS = 32;
+
+	private static final String USER_DEFINED = "_internal_user_defined_"; //$NON-NLS-1$
+	private static final String ENTRY_POINT_PREFIX = "_internal_session_request_"; //$NON-NLS-1$
+
+	private final SimplePlanner planner;
+	private final IProfile profile;
+	private final ProvisioningContext context;
+
+	private Map<String, String> selectionContext;
+	private IInstallableUnit selectionContextIU;
+	private boolean considerMetaRequirements;
+	private Set<IInstallableUnit> available;
+	private RequirementMatchCache availableMatches;
+
+	private final List<IInstallableUnit> roots = new ArrayList<>();
+	private final Set<IInstallableUnit> additions = new HashSet<>();
+	private Set<IInstallableUnit> retained;
+	private Projector projector;
+	private int retainedRequests;
+
+	private int requestCount;
+	private int resolutions;
+	private int encodings;
+
+	PlannerSession(SimplePlanner planner, IProfile profile, ProvisioningContext context) {
+		this.planner = planner;
+		this.profile = profile;
+		this.context = context;
+	}
+
+	public IProfile getProfile() {
+		return profile;
+	}
+
+	/**
+	 * Computes the plan for the given request, which must be on the profile of this session.
+	 *
+	 * @see SimplePlanner#getProvisioningPlan(IProfileChangeRequest, ProvisioningContext, IProgressMonitor)
+	 */
+	public synchronized IProvisioningPlan getProvisioningPlan(IProfileChangeRequest request, IProgressMonitor monitor) {
+		IProfile requestProfile = ((ProfileChangeRequest) request).getProfile();
+		if (requestProfile != profile)
+			throw new IllegalArgumentException("The request is not on the profile of the session: " + requestProfile.getProfileId()); //$NON-NLS-1$
+		return planner.getProvisioningPlan(request, context, this, monitor);
+	}
+
+	/**
+	 * Returns the number of requests that have been answered from the retained encoding
+	 * rather than resolved from scratch.
+	 */
+	public synchronized int getRetainedResolutions() {
+		return resolutions;
+	}
+
+	/**
+	 * Returns the number of times the retained slice has been computed and encoded.
+	 */
+	public synchronized int getEncodings() {
+		return encodings;
+	}
+
+	/**
+	 * Returns whether the given projector holds the retained encoding of this session,
+	 * in which case it must not be closed after a plan has been generated from it.
+	 */
+	synchronized boolean isRetained(Projector candidate) {
+		return candidate != null && candidate == projector;
+	}
+
+	/**
+	 * Resolves the request on top of the retained encoding.
+	 *
+	 * @return the projector holding the solution, or <code>null</code> if the request
+	 * has to be resolved from scratch
+	 */
+	synchronized Projector resolve(ProfileChangeRequest request, IInstallableUnit entryPoint, IInstallableUnit[] existingRoots, Map<String, String> newSelectionContext, boolean metaRequirements, IProgressMonitor monitor) {
+		if (Tracing.DEBUG_PLANNER_PROJECTOR_ENCODING || request.getPropertiesToAdd().containsKey(USER_DEFINED))
+			return null;
+		// the planner names entry points after the current time, which requests in the same millisecond share
+		entryPoint = createEntryPoint(entryPoint);
+		if (selectionContext == null) {
+			selectionContext = newSelectionContext;
+			selectionContextIU = InstallableUnit.contextIU(newSelectionContext);
+			considerMetaRequirements = metaRequirements;
+		} else if (!selectionContext.equals(newSelectionContext) || considerMetaRequirements != metaRequirements) {
+			return null;
+		}
+
+		SubMonitor sub = SubMonitor.convert(monitor, 4);
+		if (available == null) {
+			List<IInstallableUnit> profileIUs = new ArrayList<>();
+			if (SimplePlanner.includeProfileIUs(context))
+				profile.available(QueryUtil.createIUAnyQuery(), null).forEach(profileIUs::add);
+			Collection<IInstallableUnit> units = planner.gatherAvailableInstallableUnits(profileIUs, context, sub.split(1));
+			available = new HashSet<>(units);
+			availableMatches = new RequirementMatchCache(new QueryableArray(units));
+		}
+		sub.setWorkRemaining(3);
+		// the units in the request must not change what is available to the slicer
+		if (!available.containsAll(request.getAdditions()) || !available.containsAll(request.getRemovals()))
+			return null;
+
+		if (retainedRequests >= MAX_RETAINED_REQUESTS)
+			releaseEncoding();
+		if (projector == null || !retained.containsAll(request.getAdditions()) || !isCovered(entryPoint)) {
+			if (!retain(entryPoint, request.getAdditions(), sub.split(1)))
+				return null;
+		}
+		sub.setWorkRemaining(2);
+
+		Slicer slicer = new Slicer(projector.getMatchCache(), selectionContextIU, considerMetaRequirements);
+		IQueryable<IInstallableUnit> slice = slicer.slice(List.of(entryPoint), sub.split(1));
+		if (slice == null)
+			return null;
+		Set<IInstallableUnit> requestSlice = new HashSet<>(slice.query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet());
+		requestSlice.addAll(request.getAdditions());
+		projector.encodeRequest(entryPoint, existingRoots, requestSlice, slicer.getNonGreedyIUs(), request.getAdditions());
+		retainedRequests++;
+		IStatus status = projector.invokeSolver(sub.split(1));
+		if (status.getSeverity() == IStatus.ERROR || status.getSeverity() == IStatus.CANCEL)
+			return null;
+		resolutions++;
+		return projector;
+	}
+
+	/**
+	 * Returns a copy of the given entry point with an id that is unique in this session.
+	 */
+	private IInstallableUnit createEntryPoint(IInstallableUnit entryPoint) {
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId(ENTRY_POINT_PREFIX + requestCount++);
+		description.setVersion(entryPoint.getVersion());
+		description.setRequirements(entryPoint.getRequirements().toArray(new IRequirement[0]));
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	/**
+	 * Returns whether all the units the entry point can reach directly are in the retained
+	 * slice. As the retained slice is closed under the requirements of its units, slicing
+	 * the entry point within it then gives the same result as slicing all available units.
+	 */
+	private boolean isCovered(IInstallableUnit entryPoint) {
+		for (IRequirement req : entryPoint.getRequirements()) {
+			if (!isApplicable(req.getFilter()) || !req.isGreedy() || req.getMax() == 0)
+				continue;
+			for (IInstallableUnit match : availableMatches.getMatches(req)) {
+				if (isApplicable(match.getFilter()) && !retained.contains(match))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isApplicable(IMatchExpression<IInstallableUnit> filter) {
+		return filter == null || filter.isMatch(selectionContextIU);
+	}
+
+	/**
+	 * Slices all the entry points seen so far and encodes the result.
+	 */
+	private boolean retain(IInstallableUnit entryPoint, Collection<IInstallableUnit> newAdditions, IProgressMonitor monitor) {
+		SubMonitor sub = SubMonitor.convert(monitor, 2);
+		closeProjector();
+		roots.add(entryPoint);
+		Slicer slicer = new Slicer(availableMatches, selectionContextIU, considerMetaRequirements);
+		IQueryable<IInstallableUnit> slice = slicer.slice(roots, sub.split(1));
+		if (slice == null) {
+			roots.remove(entryPoint);
+			return false;
+		}
+		additions.addAll(newAdditions);
+		retained = new HashSet<>(slice.query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet());
+		retained.removeAll(roots);
+		retained.addAll(additions);
+
+		projector = new Projector(new QueryableArray(retained), selectionContext, slicer.getNonGreedyIUs(), considerMetaRequirements);
+		projector.setSliceMatches(slicer.getSliceMatches());
+		projector.encodeRetained(profile, sub.split(1));
+		if (!projector.isRetained()) {
+			closeProjector();
+			return false;
+		}
+		retainedRequests = 0;
+		encodings++;
+		return true;
+	}
+
+	/**
+	 * Drops the retained slice and its encoding along with the entry points of the
+	 * requests encoded so far.
+	 */
+	private void releaseEncoding() {
+		closeProjector();
+		roots.clear();
+		additions.clear();
+		retained = null;
+	}
+
+	private void closeProjector() {
+		if (projector != null) {
+			projector.close();
+			projector = null;
+		}
+	}
+
+	/**
+	 * Releases the retained encoding.
+	 */
+	@Override
+	public synchronized void close() {
+		releaseEncoding();
+		available = null;
+		availableMatches = null;
+	}
+}
@@ -21,6 +21,7 @@
  ******************************************************************************/
 package org.eclipse.equinox.internal.p2.director;
 
+import java.math.BigInteger;
 import java.util.*;
 import java.util.Map.Entry;
 import org.eclipse.core.runtime.*;
@@ -33,6 +34,8 @@ import org.eclipse.equinox.p2.metadata.*;
 import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
 import org.eclipse.equinox.p2.query.*;
 import org.eclipse.osgi.util.NLS;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
 import org.sat4j.minisat.restarts.LubyRestarts;
 import org.sat4j.pb.*;
 import org.sat4j.pb.core.PBSolverResolution;
@@ -88,6 +91,17 @@ public class Projector {
 	private boolean emptyBecauseFiltered;
 	private boolean userDefinedFunction;
 
+	private RequirementMatchCache sliceMatches;
+	private RequirementMatchCache matchCache;
+
+	//Retained encoding, see encodeRetained
+	private List<IInstallableUnit> retainedUnits;
+	private Map<IInstallableUnit, List<AbstractVariable>> optionalVariablesByIU;
+	private Map<AbstractVariable, IInstallableUnit> retainedOptionalVariableOwners;
+	private List<IInstallableUnit> retiredEntryPoints;
+	private int retainedAbstractVariableCount;
+	private int retainedOptionalVariableCount;
+
 	static class AbstractVariable {
 		//		private String name;
 
@@ -106,6 +120,28 @@ public class Projector {
 		}
 	}
 
+	/**
+	 * A dependency helper whose objective function is replaced rather than extended,
+	 * so that the same constraints can be optimized for successive requests.
+	 */
+	static class RetainedDependencyHelper<T, C> extends DependencyHelper<T, C> {
+		RetainedDependencyHelper(IPBSolver solver) {
+			super(solver);
+		}
+
+		void replaceObjectiveFunction(List<WeightedObject<? extends T>> weightedObjects) {
+			IVecInt literals = new VecInt(weightedObjects.size());
+			IVec<BigInteger> coefficients = new Vec<>(weightedObjects.size());
+			for (WeightedObject<? extends T> weightedObject : weightedObjects) {
+				literals.push(getIntValue(weightedObject.thing));
+				coefficients.push(weightedObject.getWeight());
+			}
+			getSolver().setObjectiveFunction(new ObjectiveFunction(literals, coefficients));
+			// clauses learnt while bounding the previous objective no longer hold
+			getSolver().clearLearntClauses();
+		}
+	}
+
 	/**
 	 * Job for computing SAT failure explanation in the background.
 	 */
@@ -189,39 +225,7 @@ public class Projector {
 				start = System.currentTimeMillis();
 				Tracing.debug("Start projection: " + start); //$NON-NLS-1$
 			}
-			IPBSolver solver;
-			if (DEBUG_ENCODING) {
-				solver = new UserFriendlyPBStringSolver<>();
-			} else {
-				if (userDefinedFunction) {
-					PBSolverResolution mysolver = SolverFactory.newCompetPBResLongWLMixedConstraintsObjectiveExpSimp();
-					mysolver.setSimplifier(mysolver.SIMPLE_SIMPLIFICATION);
-					mysolver.setRestartStrategy(new LubyRestarts(512));
-					solver = mysolver;
-				} else {
-					solver = SolverFactory.newEclipseP2();
-				}
-			}
-			int timeout = DEFAULT_SOLVER_TIMEOUT;
-			String timeoutString = null;
-			try {
-				// allow the user to specify a longer timeout.
-				// only set the value if it is a positive integer larger than the default.
-				// see https://bugs.eclipse.org/336967
-				timeoutString = DirectorActivator.context.map(ctx -> ctx.getProperty(PROP_PROJECTOR_TIMEOUT))
-						.orElse(null);
-				if (timeoutString != null)
-					timeout = Math.max(timeout, Integer.parseInt(timeoutString));
-			} catch (Exception e) {
-				// intentionally catch all errors (npe, number format, etc)
-				// print out to syserr and fall through
-				System.err.println("Ignoring user-specified 'eclipse.p2.projector.timeout' value of: " + timeoutString); //$NON-NLS-1$
-				e.printStackTrace();
-			}
-			if (userDefinedFunction)
-				solver.setTimeoutOnConflicts(timeout / 4);
-			else
-				solver.setTimeoutOnConflicts(timeout);
+			IPBSolver solver = createSolver();
 
 			IQueryResult<IInstallableUnit> queryResult = picker.query(QueryUtil.createIUAnyQuery(), null);
 			if (DEBUG_ENCODING) {
@@ -254,6 +258,7 @@ public class Projector {
 			if (DEBUG) {
 				long stop = System.currentTimeMillis();
 				Tracing.debug("Projection complete: " + (stop - start)); //$NON-NLS-1$
+				Tracing.debug(getMatchCache().toString());
 			}
 			if (DEBUG_ENCODING) {
 				System.out.println(solver.toString());
@@ -265,6 +270,178 @@ public class Projector {
 		}
 	}
 
+	private IPBSolver createSolver() {
+		IPBSolver solver;
+		if (DEBUG_ENCODING) {
+			solver = new UserFriendlyPBStringSolver<>();
+		} else {
+			if (userDefinedFunction) {
+				PBSolverResolution mysolver = SolverFactory.newCompetPBResLongWLMixedConstraintsObjectiveExpSimp();
+				mysolver.setSimplifier(mysolver.SIMPLE_SIMPLIFICATION);
+				mysolver.setRestartStrategy(new LubyRestarts(512));
+				solver = mysolver;
+			} else {
+				solver = SolverFactory.newEclipseP2();
+			}
+		}
+		int timeout = DEFAULT_SOLVER_TIMEOUT;
+		String timeoutString = null;
+		try {
+			// allow the user to specify a longer timeout.
+			// only set the value if it is a positive integer larger than the default.
+			// see https://bugs.eclipse.org/336967
+			timeoutString = DirectorActivator.context.map(ctx -> ctx.getProperty(PROP_PROJECTOR_TIMEOUT))
+					.orElse(null);
+			if (timeoutString != null)
+				timeout = Math.max(timeout, Integer.parseInt(timeoutString));
+		} catch (Exception e) {
+			// intentionally catch all errors (npe, number format, etc)
+			// print out to syserr and fall through
+			System.err.println("Ignoring user-specified 'eclipse.p2.projector.timeout' value of: " + timeoutString); //$NON-NLS-1$
+			e.printStackTrace();
+		}
+		if (userDefinedFunction)
+			solver.setTimeoutOnConflicts(timeout / 4);
+		else
+			solver.setTimeoutOnConflicts(timeout);
+		return solver;
+	}
+
+	/**
+	 * Encodes all the IUs of the slice without an entry point. The encoding is then
+	 * reused by successive calls to {@link #encodeRequest}, which only add the
+	 * constraints of each request, guarded by assumptions, and replace the
+	 * optimization function. The user defined optimization function is not supported.
+	 */
+	public void encodeRetained(IQueryable<IInstallableUnit> installedIUs, IProgressMonitor monitor) {
+		alreadyInstalledIUs = Collections.emptyList();
+		lastState = installedIUs;
+		retainedUnits = new ArrayList<>();
+		optionalVariablesByIU = new HashMap<>();
+		retainedOptionalVariableOwners = new HashMap<>();
+		retiredEntryPoints = new ArrayList<>();
+		try {
+			long start = 0;
+			if (DEBUG) {
+				start = System.currentTimeMillis();
+				Tracing.debug("Start retained projection: " + start); //$NON-NLS-1$
+			}
+			dependencyHelper = new RetainedDependencyHelper<>(createSolver());
+			List<IInstallableUnit> iusToOrder = new ArrayList<>(picker.query(QueryUtil.createIUAnyQuery(), null).toSet());
+			iusToOrder.sort(null);
+			for (IInstallableUnit iu : iusToOrder) {
+				if (monitor.isCanceled()) {
+					result.merge(Status.CANCEL_STATUS);
+					throw new OperationCanceledException();
+				}
+				int mark = allOptionalAbstractRequirements.size();
+				processIU(iu, false);
+				retainedUnits.add(iu.unresolved());
+				if (allOptionalAbstractRequirements.size() > mark) {
+					List<AbstractVariable> optionalVariables = new ArrayList<>(allOptionalAbstractRequirements.subList(mark, allOptionalAbstractRequirements.size()));
+					optionalVariablesByIU.put(iu.unresolved(), optionalVariables);
+					for (AbstractVariable var : optionalVariables)
+						retainedOptionalVariableOwners.put(var, iu.unresolved());
+				}
+			}
+			createConstraintsForSingleton();
+			retainedAbstractVariableCount = abstractVariables.size();
+			retainedOptionalVariableCount = allOptionalAbstractRequirements.size();
+			if (DEBUG) {
+				long stop = System.currentTimeMillis();
+				Tracing.debug("Retained projection complete: " + (stop - start)); //$NON-NLS-1$
+				Tracing.debug(getMatchCache().toString());
+			}
+		} catch (IllegalStateException e) {
+			result.add(Status.error(e.getMessage(), e));
+		} catch (ContradictionException e) {
+			result.add(Status.error(Messages.Planner_Unsatisfiable_problem));
+		}
+	}
+
+	/**
+	 * Returns whether {@link #encodeRetained} succeeded and the encoding can be used for requests.
+	 */
+	public boolean isRetained() {
+		return retainedUnits != null && result.getSeverity() != IStatus.ERROR;
+	}
+
+	/**
+	 * Adds a request on top of the retained encoding. The IUs of the retained slice that
+	 * are not part of the slice of this request are excluded through an assumption, so the
+	 * solver sees the same problem as if the request had been encoded on its own.
+	 *
+	 * @param entryPointIU the IU representing the request
+	 * @param alreadyExistingRoots the roots of the profile
+	 * @param requestSlice the IUs of the retained slice reachable from the entry point
+	 * @param requestNonGreedyIUs the IUs brought in by non greedy dependencies in the request slice
+	 * @param newRoots the IUs being added by the request
+	 */
+	public void encodeRequest(IInstallableUnit entryPointIU, IInstallableUnit[] alreadyExistingRoots, Collection<IInstallableUnit> requestSlice, Set<IInstallableUnit> requestNonGreedyIUs, Collection<IInstallableUnit> newRoots) {
+		// forget what the previous request added on top of the retained encoding
+		if (entryPoint != null) {
+			retiredEntryPoints.add(entryPoint);
+			slice.remove(entryPoint.getId());
+		}
+		abstractVariables.subList(retainedAbstractVariableCount, abstractVariables.size()).clear();
+		allOptionalAbstractRequirements.subList(retainedOptionalVariableCount, allOptionalAbstractRequirements.size()).clear();
+		result = new MultiStatus(DirectorActivator.PI_DIRECTOR, IStatus.OK, Messages.Planner_Problems_resolving_plan, null);
+		assumptions = new ArrayList<>();
+		solution = null;
+		alreadyInstalledIUs = Arrays.asList(alreadyExistingRoots);
+		entryPoint = entryPointIU;
+
+		Set<IInstallableUnit> requestUnits = new HashSet<>();
+		for (IInstallableUnit iu : requestSlice)
+			requestUnits.add(iu.unresolved());
+		requestUnits.remove(entryPointIU);
+		try {
+			AbstractVariable selector = new AbstractVariable();
+			createMustHave(entryPointIU, alreadyExistingRoots);
+			assumptions.add(selector);
+			Set<AbstractVariable> requestVariables = new HashSet<>(allOptionalAbstractRequirements.subList(retainedOptionalVariableCount, allOptionalAbstractRequirements.size()));
+
+			List<Object> excluded = new ArrayList<>(retiredEntryPoints);
+			for (IInstallableUnit iu : retainedUnits) {
+				if (!requestUnits.contains(iu))
+					excluded.add(iu);
+			}
+			// a non greedy dependency can only be satisfied by IUs of the request
+			for (Entry<IInstallableUnit, AbstractVariable> nonGreedy : nonGreedyVariables.entrySet()) {
+				if (!requestUnits.contains(nonGreedy.getKey()) && !requestNonGreedyIUs.contains(nonGreedy.getKey()))
+					excluded.add(nonGreedy.getValue());
+			}
+			createNegationImplication(selector, excluded, Explanation.OPTIONAL_REQUIREMENT);
+
+			for (IInstallableUnit iu : requestNonGreedyIUs) {
+				AbstractVariable var = getNonGreedyVariable(iu);
+				List<Object> providers = new ArrayList<>();
+				for (Object provider : nonGreedyProvider.getOrDefault(var, Collections.emptyList())) {
+					if (provider == entryPointIU || requestVariables.contains(provider) || requestUnits.contains(provider) || requestUnits.contains(retainedOptionalVariableOwners.get(provider)))
+						providers.add(provider);
+				}
+				if (providers.isEmpty())
+					createNegationImplication(selector, List.of(var), new Explanation.MissingGreedyIU(iu));
+				else
+					createImplication(new Object[] {selector, var}, providers, Explanation.OPTIONAL_REQUIREMENT);
+			}
+
+			List<AbstractVariable> optionalVariables = new ArrayList<>(requestVariables);
+			Map<String, Map<Version, IInstallableUnit>> requestIUs = new HashMap<>();
+			for (IInstallableUnit iu : requestUnits) {
+				optionalVariables.addAll(optionalVariablesByIU.getOrDefault(iu, Collections.emptyList()));
+				requestIUs.computeIfAbsent(iu.getId(), id -> new HashMap<>()).put(iu.getVersion(), iu);
+			}
+			requestIUs.computeIfAbsent(entryPointIU.getId(), id -> new HashMap<>()).put(entryPointIU.getVersion(), entryPointIU);
+			List<WeightedObject<? extends Object>> weights = new OptimizationFunction(lastState, abstractVariables, optionalVariables, picker, selectionContext, requestIUs).createOptimizationFunction(entryPointIU, newRoots);
+			((RetainedDependencyHelper<Object, Explanation>) dependencyHelper).replaceObjectiveFunction(weights);
+		} catch (IllegalStateException e) {
+			result.add(Status.error(e.getMessage(), e));
+		} catch (ContradictionException e) {
+			result.add(Status.error(Messages.Planner_Unsatisfiable_problem));
+		}
+	}
+
 	private void createConstraintsForNonGreedy() throws ContradictionException {
 		for (IInstallableUnit iu : nonGreedyIUs) {
 			AbstractVariable var = getNonGreedyVariable(iu);
@@ -807,16 +984,37 @@ public class Projector {
 	 */
 	private List<IInstallableUnit> getApplicableMatches(IRequirement req) {
 		List<IInstallableUnit> target = new ArrayList<>();
-		IQueryResult<IInstallableUnit> matches = picker.query(QueryUtil.createMatchQuery(req.getMatches()), null);
+		IInstallableUnit[] matches = getMatchCache().getMatches(req);
 		for (IInstallableUnit match : matches) {
 			if (isApplicable(match)) {
 				target.add(match);
 			}
 		}
-		emptyBecauseFiltered = !matches.isEmpty() && target.isEmpty();
+		emptyBecauseFiltered = matches.length > 0 && target.isEmpty();
 		return target;
 	}
 
+	/**
+	 * Sets the matches found while slicing, so that the requirements already looked
+	 * at by the slicer are not queried again.
+	 */
+	void setSliceMatches(RequirementMatchCache sliceMatches) {
+		this.sliceMatches = sliceMatches;
+	}
+
+	/**
+	 * Returns the matches of requirements among the IUs of the problem.
+	 */
+	RequirementMatchCache getMatchCache() {
+		if (matchCache == null) {
+			if (sliceMatches == null)
+				matchCache = new RequirementMatchCache(picker);
+			else
+				matchCache = new RequirementMatchCache(sliceMatches, picker.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+		}
+		return matchCache;
+	}
+
 	//Return a new array of requirements representing the application of the patch
 	private IRequirement[][] mergeRequirements(IInstallableUnit iu, IInstallableUnitPatch patch) {
 		if (patch == null)
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.query.IQueryable;
+import org.eclipse.equinox.p2.query.QueryUtil;
+
+/**
+ * Remembers the IUs matching a requirement, so that a requirement shared by many IUs,
+ * or looked at first by the {@link Slicer} and then by the {@link Projector}, is only
+ * queried once. The matches are sorted, so the encoding does not depend on the order
+ * in which the queryable returns them.
+ * <p>
+ * A cache can be restricted to some IUs of another cache, for example to the slice
+ * computed from them, in which case the matches are taken from the other cache rather
+ * than queried again. This class is thread safe.
+ */
+public class RequirementMatchCache {
+	private static final IInstallableUnit[] NO_MATCHES = new IInstallableUnit[0];
+
+	private final IQueryable<IInstallableUnit> queryable;
+	private final RequirementMatchCache parent;
+	private Set<IInstallableUnit> units;
+	/** The IUs of a restricted cache that are not known to the parent */
+	private IQueryable<IInstallableUnit> extraUnits;
+	private final Map<IRequirement, IInstallableUnit[]> matches = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates a cache of the matches found in the given queryable.
+	 */
+	public RequirementMatchCache(IQueryable<IInstallableUnit> queryable) {
+		this.queryable = queryable;
+		this.parent = null;
+	}
+
+	/**
+	 * Creates a cache of the matches found in the given IUs, taking the matches
+	 * of the IUs known to the parent cache from it.
+	 */
+	public RequirementMatchCache(RequirementMatchCache parent, Collection<IInstallableUnit> units) {
+		this(parent, units, null);
+	}
+
+	/**
+	 * Creates a cache of the matches found in the given IUs, taking the matches from
+	 * the parent cache. Only the given extra IUs can be unknown to the parent; when they
+	 * are not given, the IUs of the parent are compared with the given ones.
+	 */
+	RequirementMatchCache(RequirementMatchCache parent, Collection<IInstallableUnit> units, Collection<IInstallableUnit> extraUnits) {
+		this.parent = parent;
+		this.units = units instanceof Set<IInstallableUnit> set ? set : new HashSet<>(units);
+		this.queryable = new QueryableArray(this.units);
+		if (extraUnits == null) {
+			Set<IInstallableUnit> parentUnits = parent.getUnits();
+			extraUnits = this.units.stream().filter(iu -> !parentUnits.contains(iu)).toList();
+		}
+		if (!extraUnits.isEmpty())
+			this.extraUnits = new QueryableArray(extraUnits);
+	}
+
+	private synchronized Set<IInstallableUnit> getUnits() {
+		if (units == null)
+			units = queryable.query(QueryUtil.ALL_UNITS, null).toUnmodifiableSet();
+		return units;
+	}
+
+	/**
+	 * Returns the IUs the matches are looked up in.
+	 */
+	public IQueryable<IInstallableUnit> getQueryable() {
+		return queryable;
+	}
+
+	/**
+	 * Returns the sorted IUs matching the given requirement. The returned array must not be modified.
+	 */
+	public IInstallableUnit[] getMatches(IRequirement requirement) {
+		IInstallableUnit[] result = matches.get(requirement);
+		if (result != null) {
+			hits.incrementAndGet();
+			return result;
+		}
+		misses.incrementAndGet();
+		return matches.computeIfAbsent(requirement, this::computeMatches);
+	}
+
+	private IInstallableUnit[] computeMatches(IRequirement requirement) {
+		Collection<IInstallableUnit> found;
+		if (parent == null) {
+			found = queryable.query(QueryUtil.createMatchQuery(requirement.getMatches()), null).toUnmodifiableSet();
+		} else {
+			found = new HashSet<>();
+			for (IInstallableUnit candidate : parent.getMatches(requirement)) {
+				if (units.contains(candidate))
+					found.add(candidate);
+			}
+			if (extraUnits != null)
+				extraUnits.query(QueryUtil.createMatchQuery(requirement.getMatches()), null).forEach(found::add);
+		}
+		if (found.isEmpty())
+			return NO_MATCHES;
+		IInstallableUnit[] result = found.toArray(new IInstallableUnit[found.size()]);
+		Arrays.sort(result);
+		return result;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	@Override
+	public String toString() {
+		String result = "Requirement matches: " + matches.size() + ", hits: " + hits.get() + ", misses: " + misses.get(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return parent == null ? result : result + " (" + parent + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -28,6 +28,7 @@ import java.util.stream.Stream;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.internal.p2.core.metrics.IProvisioningMetrics;
 import org.eclipse.equinox.internal.p2.director.Explanation.MissingIU;
 import org.eclipse.equinox.internal.p2.director.Explanation.Singleton;
 import org.eclipse.equinox.internal.p2.metadata.IRequiredCapability;
@@ -320,7 +321,7 @@ public class SimplePlanner implements IPlanner {
 		return result;
 	}
 
-	private Collection<IInstallableUnit> gatherAvailableInstallableUnits(List<IInstallableUnit> additionalSource,
+	Collection<IInstallableUnit> gatherAvailableInstallableUnits(List<IInstallableUnit> additionalSource,
 			ProvisioningContext context, IProgressMonitor monitor) {
 		Map<String, IInstallableUnit> resultsMap = new HashMap<>();
 		if (additionalSource != null) {
@@ -351,6 +352,11 @@ public class SimplePlanner implements IPlanner {
 		return resultsMap.values();
 	}
 
+	static boolean includeProfileIUs(ProvisioningContext context) {
+		return context == null || context.getProperty(INCLUDE_PROFILE_IUS) == null
+				|| context.getProperty(INCLUDE_PROFILE_IUS).equalsIgnoreCase(Boolean.TRUE.toString());
+	}
+
 	private static boolean hasHigherFidelity(IInstallableUnit iu, IInstallableUnit currentIU) {
 		return Boolean.parseBoolean(currentIU.getProperty(IInstallableUnit.PROP_PARTIAL_IU))
 				&& !Boolean.parseBoolean(iu.getProperty(IInstallableUnit.PROP_PARTIAL_IU));
@@ -388,6 +394,11 @@ public class SimplePlanner implements IPlanner {
 	 */
 	private Object getSolutionFor(ProfileChangeRequest profileChangeRequest, ProvisioningContext context,
 			IProgressMonitor monitor) {
+		return getSolutionFor(profileChangeRequest, context, null, monitor);
+	}
+
+	private Object getSolutionFor(ProfileChangeRequest profileChangeRequest, ProvisioningContext context,
+			PlannerSession session, IProgressMonitor monitor) {
 		SubMonitor sub = SubMonitor.convert(monitor, ExpandWork);
 		sub.setTaskName(Messages.Director_Task_Resolving_Dependencies);
 		try {
@@ -398,19 +409,32 @@ public class SimplePlanner implements IPlanner {
 			Map<String, String> newSelectionContext = createSelectionContext(
 					profileChangeRequest.getProfileProperties());
 
+			if (session != null) {
+				// requests the retained encoding cannot answer exactly are resolved from scratch
+				Projector projector = session.resolve(profileChangeRequest, (IInstallableUnit) updatedPlan[0],
+						(IInstallableUnit[]) updatedPlan[1], newSelectionContext,
+						satisfyMetaRequirements(profileChangeRequest.getProfileProperties()),
+						sub.newChild(ExpandWork / 4));
+				if (projector != null)
+					return projector;
+			}
+
 			List<IInstallableUnit> extraIUs = new ArrayList<>(profileChangeRequest.getAdditions());
 			extraIUs.addAll(profileChangeRequest.getRemovals());
-			if (context == null || context.getProperty(INCLUDE_PROFILE_IUS) == null
-					|| context.getProperty(INCLUDE_PROFILE_IUS).equalsIgnoreCase(Boolean.TRUE.toString())) {
+			if (includeProfileIUs(context)) {
 				profile.available(QueryUtil.createIUAnyQuery(), null).forEach(extraIUs::add);
 			}
 
 			Collection<IInstallableUnit> availableIUs = gatherAvailableInstallableUnits(extraIUs, context,
 					sub.newChild(ExpandWork / 4));
+			IProvisioningMetrics metrics = agent.getService(IProvisioningMetrics.class);
+			long start = System.nanoTime();
 			Slicer slicer = new Slicer(new QueryableArray(availableIUs), newSelectionContext,
 					satisfyMetaRequirements(profileChangeRequest.getProfileProperties()));
 			IQueryable<IInstallableUnit> slice = slicer.slice(List.of((IInstallableUnit) updatedPlan[0]),
 					sub.newChild(ExpandWork / 4));
+			if (metrics != null)
+				metrics.recordTime(IProvisioningMetrics.PLANNER_SLICE, System.nanoTime() - start);
 			if (slice == null) {
 				IProvisioningPlan plan = engine.createPlan(profile, context);
 				plan.setStatus(slicer.getStatus());
@@ -419,11 +443,29 @@ public class SimplePlanner implements IPlanner {
 			slice = new CompoundQueryable<>(List.of(slice, new QueryableArray(profileChangeRequest.getAdditions())));
 			Projector projector = new Projector(slice, newSelectionContext, slicer.getNonGreedyIUs(),
 					satisfyMetaRequirements(profileChangeRequest.getProfileProperties()));
+			projector.setSliceMatches(slicer.getSliceMatches());
 			projector.setUserDefined(profileChangeRequest.getPropertiesToAdd().containsKey("_internal_user_defined_")); //$NON-NLS-1$
+			start = System.nanoTime();
 			projector.encode((IInstallableUnit) updatedPlan[0], (IInstallableUnit[]) updatedPlan[1], profile,
 					profileChangeRequest.getAdditions(), sub.newChild(ExpandWork / 4));
+			if (metrics != null) {
+				metrics.recordTime(IProvisioningMetrics.PLANNER_ENCODE, System.nanoTime() - start);
+				RequirementMatchCache matches = projector.getMatchCache();
+				RequirementMatchCache sliceMatches = slicer.getSliceMatches();
+				long hits = matches.getHits();
+				long misses = matches.getMisses();
+				if (sliceMatches != null) {
+					// the misses of the projector are looked up in the slice matches and counted there
+					hits += sliceMatches.getHits();
+					misses = sliceMatches.getMisses();
+				}
+				metrics.recordCacheAccesses(IProvisioningMetrics.CACHE_REQUIREMENT_MATCHES, hits, misses);
+			}
 
+			start = System.nanoTime();
 			IStatus s = projector.invokeSolver(sub.newChild(ExpandWork / 4));
+			if (metrics != null)
+				metrics.recordTime(IProvisioningMetrics.PLANNER_SOLVE, System.nanoTime() - start);
 			switch (s.getSeverity()) {
 			case CANCEL: {
 				IProvisioningPlan plan = engine.createPlan(profile, context);
@@ -481,12 +523,25 @@ public class SimplePlanner implements IPlanner {
 	@Override
 	public IProvisioningPlan getProvisioningPlan(IProfileChangeRequest request, ProvisioningContext context,
 			IProgressMonitor monitor) {
+		return getProvisioningPlan(request, context, null, monitor);
+	}
+
+	/**
+	 * Returns a session that resolves successive requests against the given profile
+	 * while retaining the slice and its encoding, see {@link PlannerSession}.
+	 */
+	public PlannerSession createSession(IProfile profile, ProvisioningContext context) {
+		return new PlannerSession(this, profile, context);
+	}
+
+	IProvisioningPlan getProvisioningPlan(IProfileChangeRequest request, ProvisioningContext context,
+			PlannerSession session, IProgressMonitor monitor) {
 		ProfileChangeRequest pcr = (ProfileChangeRequest) request;
 		SubMonitor sub = SubMonitor.convert(monitor, ExpandWork);
 		sub.setTaskName(Messages.Director_Task_Resolving_Dependencies);
 		try {
 			// Get the solution for the initial request
-			Object resolutionResult = getSolutionFor(pcr, context, sub.newChild(ExpandWork / 2));
+			Object resolutionResult = getSolutionFor(pcr, context, session, sub.newChild(ExpandWork / 2));
 			// a return value of a plan indicates failure when resolving so return.
 			if (resolutionResult instanceof IProvisioningPlan plan) {
 				return plan;
@@ -499,7 +554,8 @@ public class SimplePlanner implements IPlanner {
 			newState = AttachmentHelper.attachFragments(newState.stream(), projector.getFragmentAssociation());
 
 			IProvisioningPlan temporaryPlan = generatePlan(projector, newState, pcr, context);
-			projector.close();
+			if (session == null || !session.isRetained(projector))
+				projector.close();
 
 			// Create a plan for installing necessary pieces to complete the installation
 			// (e.g touchpoint actions)
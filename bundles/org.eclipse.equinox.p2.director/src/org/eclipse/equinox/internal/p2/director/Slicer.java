@@ -16,6 +16,7 @@
 package org.eclipse.equinox.internal.p2.director;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
@@ -27,29 +28,60 @@ import org.eclipse.equinox.p2.query.*;
 import org.eclipse.osgi.util.NLS;
 
 public class Slicer {
+	/**
+	 * The name of a Java system property enabling the parallel expansion of the slice.
+	 */
+	public static final String PROP_PARALLEL = "eclipse.p2.slicer.parallel"; //$NON-NLS-1$
 	private static boolean DEBUG = false;
-	private final IQueryable<IInstallableUnit> possibilites;
 	private final boolean considerMetaRequirements;
 	protected final IInstallableUnit selectionContext;
 	/** The IUs that have been considered to be part of the problem */
-	private final Map<String, Map<Version, IInstallableUnit>> slice = new HashMap<>();
+	private final Map<String, Map<Version, IInstallableUnit>> slice = new ConcurrentHashMap<>();
 	private final MultiStatus result = new MultiStatus(Slicer.class, 0, Messages.Planner_Problems_resolving_plan);
+	private final RequirementMatchCache matches;
+	private RequirementMatchCache sliceMatches;
+	private boolean parallel = DirectorActivator.context.map(ctx -> Boolean.parseBoolean(ctx.getProperty(PROP_PARALLEL))).orElse(Boolean.FALSE);
 
+	private Collection<IInstallableUnit> roots;
 	private Queue<IInstallableUnit> toProcess;
 	private Set<IInstallableUnit> considered; // IUs to add to the slice
 	private final Set<IInstallableUnit> nonGreedyIUs = new HashSet<>(); // IUs that are brought in by non greedy dependencies
 
+	/**
+	 * The IUs and problems found while processing one IU.
+	 */
+	private static class Expansion {
+		final List<IInstallableUnit> added = new ArrayList<>();
+		final List<IStatus> problems = new ArrayList<>();
+	}
+
 	public Slicer(IQueryable<IInstallableUnit> input, Map<String, String> context, boolean considerMetaRequirements) {
 		this(input, InstallableUnit.contextIU(context), considerMetaRequirements);
 	}
 
 	public Slicer(IQueryable<IInstallableUnit> possibilites, IInstallableUnit selectionContext,
 			boolean considerMetaRequirements) {
-		this.possibilites = possibilites;
+		this(new RequirementMatchCache(possibilites), selectionContext, considerMetaRequirements);
+	}
+
+	/**
+	 * Creates a slicer that looks up the matches of requirements in the given cache.
+	 */
+	Slicer(RequirementMatchCache matches, IInstallableUnit selectionContext, boolean considerMetaRequirements) {
+		this.matches = matches;
 		this.selectionContext = selectionContext;
 		this.considerMetaRequirements = considerMetaRequirements;
 	}
 
+	/**
+	 * Sets whether the requirements of the IUs found at the same distance from the roots
+	 * are expanded in parallel. The resulting slice does not depend on this setting.
+	 * The default is given by the {@value #PROP_PARALLEL} property.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	public IQueryable<IInstallableUnit> slice(Collection<IInstallableUnit> ius, IProgressMonitor monitor) {
 		monitor = IProgressMonitor.nullSafe(monitor);
 		try {
@@ -59,14 +91,19 @@ public class Slicer {
 				System.out.println("Start slicing: " + start); //$NON-NLS-1$
 			}
 			validateInput(ius);
-			considered = new HashSet<>(ius);
-			toProcess = new LinkedList<>(considered);
-			while (!toProcess.isEmpty()) {
-				if (monitor.isCanceled()) {
-					result.merge(Status.CANCEL_STATUS);
-					throw new OperationCanceledException();
+			roots = ius;
+			if (parallel) {
+				sliceInParallel(ius, monitor);
+			} else {
+				considered = new HashSet<>(ius);
+				toProcess = new LinkedList<>(considered);
+				while (!toProcess.isEmpty()) {
+					if (monitor.isCanceled()) {
+						result.merge(Status.CANCEL_STATUS);
+						throw new OperationCanceledException();
+					}
+					processIU(toProcess.remove());
 				}
-				processIU(toProcess.remove());
 			}
 			computeNonGreedyIUs();
 			if (DEBUG) {
@@ -85,9 +122,45 @@ public class Slicer {
 		return new QueryableArray(considered);
 	}
 
+	/**
+	 * Expands the slice one level at a time, processing the IUs of a level in parallel.
+	 * The IUs of the next level are sorted and the problems are reported in the order
+	 * of the level, so the outcome is the same as for a sequential expansion.
+	 */
+	private void sliceInParallel(Collection<IInstallableUnit> ius, IProgressMonitor monitor) {
+		Set<IInstallableUnit> seen = ConcurrentHashMap.newKeySet();
+		seen.addAll(ius);
+		List<IInstallableUnit> ordered = new ArrayList<>(seen);
+		List<IInstallableUnit> level = new ArrayList<>(seen);
+		level.sort(null);
+		while (!level.isEmpty()) {
+			if (monitor.isCanceled()) {
+				result.merge(Status.CANCEL_STATUS);
+				throw new OperationCanceledException();
+			}
+			IProgressMonitor pm = monitor;
+			List<Expansion> expansions = level.parallelStream().map(iu -> {
+				Expansion expansion = new Expansion();
+				if (!pm.isCanceled())
+					expand(iu, seen, expansion);
+				return expansion;
+			}).toList();
+			List<IInstallableUnit> next = new ArrayList<>();
+			for (Expansion expansion : expansions) {
+				next.addAll(expansion.added);
+				expansion.problems.forEach(result::add);
+			}
+			next.sort(null);
+			ordered.addAll(next);
+			level = next;
+		}
+		considered = new LinkedHashSet<>(ordered);
+	}
+
 	private void computeNonGreedyIUs() {
-		IQueryable<IInstallableUnit> queryable = new QueryableArray(considered);
-		for (IInstallableUnit iu : queryable.query(QueryUtil.ALL_UNITS, new NullProgressMonitor())) {
+		// apart from the roots, all the IUs of the slice have been found in the cache
+		sliceMatches = new RequirementMatchCache(matches, considered, roots);
+		for (IInstallableUnit iu : considered) {
 			iu = iu.unresolved();
 			Collection<IRequirement> reqs = getRequirements(iu);
 			for (IRequirement req : reqs) {
@@ -95,8 +168,7 @@ public class Slicer {
 					continue;
 				}
 				if (!isGreedy(iu, req)) {
-					nonGreedyIUs.addAll(
-							queryable.query(QueryUtil.createMatchQuery(req.getMatches()), null).toUnmodifiableSet());
+					Collections.addAll(nonGreedyIUs, sliceMatches.getMatches(req));
 				}
 			}
 		}
@@ -133,8 +205,15 @@ public class Slicer {
 	}
 
 	protected void processIU(IInstallableUnit iu) {
+		Expansion expansion = new Expansion();
+		expand(iu, considered, expansion);
+		toProcess.addAll(expansion.added);
+		expansion.problems.forEach(result::add);
+	}
+
+	private void expand(IInstallableUnit iu, Set<IInstallableUnit> seen, Expansion expansion) {
 		iu = iu.unresolved();
-		Map<Version, IInstallableUnit> iuSlice = slice.computeIfAbsent(iu.getId(), i -> new HashMap<>());
+		Map<Version, IInstallableUnit> iuSlice = slice.computeIfAbsent(iu.getId(), i -> new ConcurrentHashMap<>());
 		iuSlice.put(iu.getVersion(), iu);
 		if (!isApplicable(iu)) {
 			return;
@@ -142,7 +221,7 @@ public class Slicer {
 		Collection<IRequirement> reqs = getRequirements(iu);
 		for (IRequirement req : reqs) {
 			if (isApplicable(iu, req) && isGreedy(iu, req)) {
-				expandRequirement(iu, req);
+				expandRequirement(iu, req, seen, expansion);
 			}
 		}
 	}
@@ -183,20 +262,19 @@ public class Slicer {
 		return aggregatedRequirements;
 	}
 
-	private void expandRequirement(IInstallableUnit iu, IRequirement req) {
+	private void expandRequirement(IInstallableUnit iu, IRequirement req, Set<IInstallableUnit> seen, Expansion expansion) {
 		if (req.getMax() == 0) {
 			return;
 		}
-		IQueryResult<IInstallableUnit> matches = possibilites.query(QueryUtil.createMatchQuery(req.getMatches()), null);
 		int validMatches = 0;
-		for (IInstallableUnit match : matches) {
+		for (IInstallableUnit match : matches.getMatches(req)) {
 			if (!isApplicable(match)) {
 				continue;
 			}
 			validMatches++;
 			Map<Version, IInstallableUnit> iuSlice = slice.get(match.getId());
-			if ((iuSlice == null || !iuSlice.containsKey(match.getVersion())) && considered.add(match)) {
-				toProcess.add(match);
+			if ((iuSlice == null || !iuSlice.containsKey(match.getVersion())) && seen.add(match)) {
+				expansion.added.add(match);
 			}
 		}
 		if (validMatches == 0) {
@@ -205,7 +283,7 @@ public class Slicer {
 					System.out.println("No IU found to satisfy optional dependency of " + iu + " on req " + req); //$NON-NLS-1$//$NON-NLS-2$
 				}
 			} else {
-				result.add(Status.warning(NLS.bind(Messages.Planner_Unsatisfied_dependency, iu, req)));
+				expansion.problems.add(Status.warning(NLS.bind(Messages.Planner_Unsatisfied_dependency, iu, req)));
 			}
 		}
 	}
@@ -213,4 +291,12 @@ public class Slicer {
 	Set<IInstallableUnit> getNonGreedyIUs() {
 		return nonGreedyIUs;
 	}
+
+	/**
+	 * Returns the matches of requirements within the last computed slice, so that
+	 * the projector can reuse the matches found while slicing.
+	 */
+	RequirementMatchCache getSliceMatches() {
+		return sliceMatches;
+	}
 }
@@ -16,6 +16,8 @@ package org.eclipse.equinox.internal.p2.engine;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.engine.phases.Collect;
@@ -30,6 +32,22 @@ import org.eclipse.equinox.p2.repository.artifact.IArtifactRequest;
 import org.eclipse.osgi.util.NLS;
 
 public class DownloadManager {
+	/**
+	 * The key for a boolean property controlling whether artifacts are fetched
+	 * from all repositories containing them at the same time, instead of one
+	 * repository after the other. The property is looked up in the provisioning
+	 * context first and then in the agent.
+	 */
+	public static final String PROP_CONCURRENT_FETCH = "org.eclipse.equinox.p2.engine.download.concurrent"; //$NON-NLS-1$
+
+	/**
+	 * The key for an integer property controlling how many repositories are
+	 * fetched from at the same time when {@link #PROP_CONCURRENT_FETCH} is set.
+	 */
+	public static final String PROP_MAX_CONCURRENT_REPOSITORIES = "org.eclipse.equinox.p2.engine.download.maxRepositories"; //$NON-NLS-1$
+
+	private static final int DEFAULT_MAX_CONCURRENT_REPOSITORIES = 8;
+
 	private ProvisioningContext provContext = null;
 	ArrayList<IArtifactRequest> requestsToProcess = new ArrayList<>();
 	private IProvisioningAgent agent = null;
@@ -105,7 +123,12 @@ public class DownloadManager {
 			IArtifactRepository[] repositories = getArtifactRepositories(subMonitor);
 			if (repositories.length == 0)
 				return new Status(IStatus.ERROR, EngineActivator.ID, Messages.download_no_repository, new Exception(Collect.NO_ARTIFACT_REPOSITORIES_AVAILABLE));
-			fetch(repositories, subMonitor.newChild(500));
+			if (isConcurrentFetch()) {
+				IStatus fetchStatus = new ConcurrentFetch(repositories).fetch(subMonitor.newChild(500));
+				if (!fetchStatus.isOK())
+					return fetchStatus;
+			} else
+				fetch(repositories, subMonitor.newChild(500));
 			return overallStatus(monitor, repositories);
 		} finally {
 			subMonitor.done();
@@ -143,6 +166,194 @@ public class DownloadManager {
 		}
 	}
 
+	private boolean isConcurrentFetch() {
+		String value = provContext.getProperty(PROP_CONCURRENT_FETCH);
+		if (value == null)
+			value = agent.getProperty(PROP_CONCURRENT_FETCH);
+		return Boolean.parseBoolean(value);
+	}
+
+	private int getMaxConcurrentRepositories() {
+		String value = provContext.getProperty(PROP_MAX_CONCURRENT_REPOSITORIES);
+		if (value == null)
+			value = agent.getProperty(PROP_MAX_CONCURRENT_REPOSITORIES);
+		if (value != null) {
+			try {
+				return Math.max(1, Integer.parseInt(value));
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return DEFAULT_MAX_CONCURRENT_REPOSITORIES;
+	}
+
+	/**
+	 * Fetches the pending requests from all repositories at the same time. Every
+	 * request is assigned to one of the repositories containing its artifact,
+	 * preferring local repositories and otherwise the least loaded one. When a
+	 * repository fails to deliver an artifact the request moves on to the next
+	 * candidate right away, while the other repositories keep downloading.
+	 */
+	private class ConcurrentFetch {
+		private final IArtifactRepository[] repositories;
+		private final Map<IArtifactRequest, List<IArtifactRepository>> candidates = new HashMap<>();
+		private final Map<IArtifactRepository, List<IArtifactRequest>> queues = new HashMap<>();
+		private final Map<IArtifactRepository, Integer> inFlight = new HashMap<>();
+		private final Set<IArtifactRepository> active = new HashSet<>();
+		private ExecutorService executor;
+		private volatile boolean canceled = false;
+		private int completed = 0;
+		private Throwable failure;
+
+		ConcurrentFetch(IArtifactRepository[] repositories) {
+			this.repositories = repositories;
+		}
+
+		/**
+		 * Fetches the requests and returns an error if a download failed unexpectedly.
+		 */
+		IStatus fetch(IProgressMonitor mon) {
+			SubMonitor monitor = SubMonitor.convert(mon, requestsToProcess.size());
+			Set<IArtifactRepository> involved = new HashSet<>();
+			for (IArtifactRequest request : requestsToProcess) {
+				List<IArtifactRepository> containing = new ArrayList<>();
+				for (IArtifactRepository repository : repositories) {
+					if (repository.contains(request.getArtifactKey()))
+						containing.add(repository);
+				}
+				involved.addAll(containing);
+				candidates.put(request, containing);
+			}
+			if (involved.isEmpty())
+				return Status.OK_STATUS;
+
+			executor = Executors.newFixedThreadPool(Math.min(involved.size(), getMaxConcurrentRepositories()), r -> {
+				Thread thread = new Thread(r, "p2 repository download"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+			try {
+				synchronized (this) {
+					for (IArtifactRequest request : requestsToProcess)
+						assign(request);
+					int reported = 0;
+					while (!active.isEmpty()) {
+						if (monitor.isCanceled())
+							canceled = true;
+						try {
+							wait(100);
+						} catch (InterruptedException e) {
+							canceled = true;
+						}
+						monitor.worked(completed - reported);
+						reported = completed;
+					}
+				}
+			} finally {
+				executor.shutdown();
+			}
+			filterUnfetched();
+			synchronized (this) {
+				return failure == null ? Status.OK_STATUS : new Status(IStatus.ERROR, EngineActivator.ID, failure.getMessage(), failure);
+			}
+		}
+
+		/**
+		 * Hands the request to the next candidate repository. Must be called while holding the lock.
+		 */
+		private void assign(IArtifactRequest request) {
+			List<IArtifactRepository> remaining = candidates.get(request);
+			if (remaining == null || remaining.isEmpty() || canceled)
+				return;
+			IArtifactRepository target = remaining.get(0);
+			if (!isLocal(target)) {
+				// spread remote downloads over the least loaded repositories
+				for (IArtifactRepository candidate : remaining) {
+					if (getLoad(candidate) < getLoad(target))
+						target = candidate;
+				}
+			}
+			IArtifactRepository repository = target;
+			remaining.remove(repository);
+			queues.computeIfAbsent(repository, r -> new ArrayList<>()).add(request);
+			if (active.add(repository))
+				executor.execute(() -> drain(repository));
+		}
+
+		private boolean isLocal(IArtifactRepository repository) {
+			return "file".equals(repository.getLocation().getScheme()); //$NON-NLS-1$
+		}
+
+		private int getLoad(IArtifactRepository repository) {
+			List<IArtifactRequest> queue = queues.get(repository);
+			return (queue == null ? 0 : queue.size()) + inFlight.getOrDefault(repository, 0);
+		}
+
+		private void drain(IArtifactRepository repository) {
+			IProgressMonitor cancelMonitor = new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return canceled;
+				}
+			};
+			boolean drained = false;
+			try {
+				while (true) {
+					IArtifactRequest[] batch;
+					synchronized (this) {
+						List<IArtifactRequest> queue = queues.get(repository);
+						if (canceled || queue.isEmpty()) {
+							active.remove(repository);
+							notifyAll();
+							drained = true;
+							return;
+						}
+						batch = queue.toArray(new IArtifactRequest[queue.size()]);
+						queue.clear();
+						inFlight.put(repository, batch.length);
+					}
+					IStatus dlStatus;
+					try {
+						publishDownloadEvent(new CollectEvent(CollectEvent.TYPE_REPOSITORY_START, repository, provContext, batch));
+						dlStatus = repository.getArtifacts(batch, cancelMonitor);
+						publishDownloadEvent(new CollectEvent(CollectEvent.TYPE_REPOSITORY_END, repository, provContext, batch));
+					} catch (RuntimeException e) {
+						dlStatus = new Status(IStatus.ERROR, EngineActivator.ID, e.getMessage(), e);
+					}
+					synchronized (this) {
+						inFlight.remove(repository);
+						if (dlStatus.getSeverity() == IStatus.CANCEL)
+							canceled = true;
+						for (IArtifactRequest request : batch) {
+							IStatus result = request.getResult();
+							if (result != null && result.isOK())
+								completed++;
+							else
+								assign(request);
+						}
+						notifyAll();
+					}
+				}
+			} catch (RuntimeException | Error e) {
+				synchronized (this) {
+					if (failure == null)
+						failure = e;
+				}
+				throw e;
+			} finally {
+				if (!drained) {
+					// an error escaped, stop the whole fetch rather than leave fetch() waiting for this repository
+					synchronized (this) {
+						inFlight.remove(repository);
+						active.remove(repository);
+						canceled = true;
+						notifyAll();
+					}
+				}
+			}
+		}
+	}
+
 	private void publishDownloadEvent(CollectEvent event) {
 		IProvisioningEventBus bus = agent.getService(IProvisioningEventBus.class);
 		if (bus != null)
@@ -117,6 +117,7 @@ public class Messages extends NLS {
 
 	public static String SimpleProfileRegistry_Bad_profile_location;
 	public static String SimpleProfileRegistry_CannotRemoveCurrentSnapshot;
+	public static String SimpleProfileRegistry_CannotRemoveState;
 	public static String SimpleProfileRegistry_Parser_Error_Parsing_Registry;
 	public static String SimpleProfileRegistry_Parser_Has_Incompatible_Version;
 	public static String SimpleProfileRegistry_Profile_in_use;
@@ -125,6 +126,7 @@ public class Messages extends NLS {
 	public static String SimpleProfileRegistry_States_Error_Reading_File;
 	public static String SimpleProfileRegistry_States_Error_Writing_File;
 	public static String SimpleProfileRegistry_state_not_found;
+	public static String SimpleProfileRegistry_State_base_not_found;
 
 	public static String SurrogateProfileHandler_1;
 
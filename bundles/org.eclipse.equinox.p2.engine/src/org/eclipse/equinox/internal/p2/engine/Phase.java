@@ -17,6 +17,7 @@ package org.eclipse.equinox.internal.p2.engine;
 import java.util.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.core.metrics.IProvisioningMetrics;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.engine.ProvisioningContext;
@@ -87,6 +88,17 @@ public abstract class Phase {
 	}
 
 	void perform(MultiStatus status, EngineSession session, Operand[] operands, IProgressMonitor monitor) {
+		IProvisioningMetrics metrics = session.getAgent().getService(IProvisioningMetrics.class);
+		long start = System.nanoTime();
+		try {
+			doPerform(status, session, operands, monitor);
+		} finally {
+			if (metrics != null)
+				metrics.recordTime(IProvisioningMetrics.ENGINE_PHASE + phaseId, System.nanoTime() - start);
+		}
+	}
+
+	private void doPerform(MultiStatus status, EngineSession session, Operand[] operands, IProgressMonitor monitor) {
 		SubMonitor subMonitor = SubMonitor.convert(monitor, prePerformWork + mainPerformWork + postPerformWork);
 		session.recordPhaseEnter(this);
 		broadcastPhaseEvent(session, operands, PhaseEvent.TYPE_START);
@@ -124,6 +136,7 @@ public abstract class Phase {
 
 	private void mainPerform(MultiStatus status, EngineSession session, Operand[] operands, SubMonitor subMonitor) {
 		IProfile profile = session.getProfile();
+		IProvisioningMetrics metrics = session.getAgent().getService(IProvisioningMetrics.class);
 		subMonitor.beginTask(null, operands.length);
 		for (int i = 0; i < operands.length; i++) {
 			subMonitor.setWorkRemaining(operands.length - i);
@@ -143,6 +156,7 @@ public abstract class Phase {
 			if (!isApplicable(operand))
 				continue;
 
+			long operandStart = System.nanoTime();
 			session.recordOperandStart(operand);
 			List<ProvisioningAction> actions = getActions(operand);
 			operandParameters = new HashMap<>(phaseParameters);
@@ -181,6 +195,7 @@ public abstract class Phase {
 					parameters = Collections.unmodifiableMap(parameters);
 
 					IStatus actionStatus = null;
+					long actionStart = System.nanoTime();
 					try {
 						session.recordActionExecute(action, parameters);
 						actionStatus = action.execute(parameters);
@@ -196,6 +211,9 @@ public abstract class Phase {
 							throw e;
 						// Catch linkage errors as these are generally recoverable but let other Errors propagate (see bug 222001)
 						actionStatus = new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.forced_action_execute_error, action.getClass().getName()), e);
+					} finally {
+						if (metrics != null)
+							metrics.recordTime(IProvisioningMetrics.ENGINE_ACTION + getActionName(action), System.nanoTime() - actionStart);
 					}
 					if (forced && actionStatus != null && actionStatus.matches(IStatus.ERROR)) {
 						MultiStatus result = new MultiStatus(EngineActivator.ID, IStatus.ERROR, getProblemMessage(), null);
@@ -214,10 +232,18 @@ public abstract class Phase {
 				return;
 			operandParameters = null;
 			session.recordOperandEnd(operand);
+			if (metrics != null)
+				metrics.recordTime(IProvisioningMetrics.ENGINE_OPERAND + phaseId, System.nanoTime() - operandStart);
 			subMonitor.worked(1);
 		}
 	}
 
+	private static String getActionName(ProvisioningAction action) {
+		if (action instanceof ParameterizedProvisioningAction parameterizedAction)
+			action = parameterizedAction.getAction();
+		return action.getClass().getName();
+	}
+
 	private IStatus initializeTouchpointParameters(IProfile profile, Operand operand, Touchpoint touchpoint, IProgressMonitor monitor) {
 		if (touchpointToTouchpointOperandParameters.containsKey(touchpoint))
 			return Status.OK_STATUS;
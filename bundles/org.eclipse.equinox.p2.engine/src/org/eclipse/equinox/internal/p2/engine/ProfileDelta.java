@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.util.*;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.query.QueryUtil;
+
+/**
+ * The changes turning a state of a profile back into an older state of the same
+ * profile. The profile registry keeps the latest state of a profile as a full
+ * snapshot and can store the older states as such deltas, each one relative to
+ * the next newer state.
+ */
+public class ProfileDelta {
+
+	private final String profileId;
+	private final long timestamp;
+	private final long baseTimestamp;
+	private final Map<String, String> properties;
+	private final Collection<IInstallableUnit> addedUnits;
+	private final Collection<IVersionedId> removedUnits;
+	private final Map<IVersionedId, Map<String, String>> unitProperties;
+
+	/**
+	 * Creates a delta from the state with the given base timestamp to the state with the
+	 * given timestamp.
+	 *
+	 * @param properties all the properties of the profile in the resulting state
+	 * @param addedUnits the IUs of the resulting state missing from the base state
+	 * @param removedUnits the IUs of the base state missing from the resulting state
+	 * @param unitProperties the properties of the IUs in the resulting state that
+	 * differ from the base state
+	 */
+	public ProfileDelta(String profileId, long timestamp, long baseTimestamp, Map<String, String> properties, Collection<IInstallableUnit> addedUnits, Collection<IVersionedId> removedUnits, Map<IVersionedId, Map<String, String>> unitProperties) {
+		this.profileId = profileId;
+		this.timestamp = timestamp;
+		this.baseTimestamp = baseTimestamp;
+		this.properties = properties;
+		this.addedUnits = addedUnits;
+		this.removedUnits = removedUnits;
+		this.unitProperties = unitProperties;
+	}
+
+	/**
+	 * Computes the delta turning the given base state of a profile into the given
+	 * state.
+	 */
+	public static ProfileDelta compute(IProfile profile, IProfile base) {
+		Set<IInstallableUnit> units = profile.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+		Set<IInstallableUnit> baseUnits = base.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+		List<IInstallableUnit> added = new ArrayList<>();
+		Map<IVersionedId, Map<String, String>> unitProperties = new LinkedHashMap<>();
+		for (IInstallableUnit iu : units) {
+			Map<String, String> iuProperties = profile.getInstallableUnitProperties(iu);
+			if (!baseUnits.contains(iu)) {
+				added.add(iu);
+				if (!iuProperties.isEmpty())
+					unitProperties.put(new VersionedId(iu.getId(), iu.getVersion()), iuProperties);
+			} else if (!iuProperties.equals(base.getInstallableUnitProperties(iu))) {
+				unitProperties.put(new VersionedId(iu.getId(), iu.getVersion()), iuProperties);
+			}
+		}
+		List<IVersionedId> removed = new ArrayList<>();
+		for (IInstallableUnit iu : baseUnits) {
+			if (!units.contains(iu))
+				removed.add(new VersionedId(iu.getId(), iu.getVersion()));
+		}
+		return new ProfileDelta(profile.getProfileId(), profile.getTimestamp(), base.getTimestamp(), profile.getProperties(), added, removed, unitProperties);
+	}
+
+	/**
+	 * Turns the given profile, which must be in the base state of this delta, into
+	 * the state described by this delta.
+	 */
+	public void applyTo(Profile profile) {
+		profile.clearLocalProperties();
+		profile.addProperties(properties);
+		if (!removedUnits.isEmpty()) {
+			Map<IVersionedId, IInstallableUnit> units = new HashMap<>();
+			for (IInstallableUnit iu : profile.query(QueryUtil.createIUAnyQuery(), null))
+				units.put(new VersionedId(iu.getId(), iu.getVersion()), iu);
+			for (IVersionedId removed : removedUnits) {
+				IInstallableUnit iu = units.get(new VersionedId(removed.getId(), removed.getVersion()));
+				if (iu != null) {
+					profile.removeInstallableUnit(iu);
+					profile.clearInstallableUnitProperties(iu);
+				}
+			}
+		}
+		for (IInstallableUnit iu : addedUnits)
+			profile.addInstallableUnit(iu);
+		if (!unitProperties.isEmpty()) {
+			for (IInstallableUnit iu : profile.query(QueryUtil.createIUAnyQuery(), null)) {
+				Map<String, String> iuProperties = unitProperties.get(new VersionedId(iu.getId(), iu.getVersion()));
+				if (iuProperties != null) {
+					profile.clearInstallableUnitProperties(iu);
+					profile.addInstallableUnitProperties(iu, iuProperties);
+				}
+			}
+		}
+		profile.setTimestamp(timestamp);
+		profile.setChanged(false);
+	}
+
+	public String getProfileId() {
+		return profileId;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public long getBaseTimestamp() {
+		return baseTimestamp;
+	}
+
+	public Map<String, String> getProperties() {
+		return properties;
+	}
+
+	public Collection<IInstallableUnit> getAddedUnits() {
+		return addedUnits;
+	}
+
+	public Collection<IVersionedId> getRemovedUnits() {
+		return removedUnits;
+	}
+
+	public Map<IVersionedId, Map<String, String>> getUnitProperties() {
+		return unitProperties;
+	}
+}
@@ -14,12 +14,10 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.engine;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 import javax.xml.parsers.SAXParserFactory;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataParser;
-import org.eclipse.equinox.p2.metadata.IInstallableUnit;
-import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.*;
 import org.xml.sax.Attributes;
 
 /**
@@ -190,4 +188,145 @@ public abstract class ProfileParser extends MetadataParser implements ProfileXML
 			}
 		}
 	}
+
+	protected class ProfileDeltaHandler extends RootHandler {
+
+		private final String[] required = new String[] {ID_ATTRIBUTE, TIMESTAMP_ATTRIBUTE, BASE_TIMESTAMP_ATTRIBUTE};
+
+		private String profileId;
+		private long timestamp;
+		private long baseTimestamp;
+		private PropertiesHandler propertiesHandler;
+		private InstallableUnitsHandler unitsHandler;
+		private RemovedUnitsHandler removedUnitsHandler;
+		private final Map<IVersionedId, Map<String, String>> unitProperties = new LinkedHashMap<>();
+
+		@Override
+		protected void handleRootAttributes(Attributes attributes) {
+			String[] values = parseRequiredAttributes(attributes, required);
+			profileId = values[0];
+			timestamp = parseTimestamp(TIMESTAMP_ATTRIBUTE, values[1]);
+			baseTimestamp = parseTimestamp(BASE_TIMESTAMP_ATTRIBUTE, values[2]);
+		}
+
+		private long parseTimestamp(String attribute, String value) {
+			try {
+				return Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				invalidAttributeValue(PROFILE_DELTA_ELEMENT, attribute, value, e);
+				return 0;
+			}
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (PROPERTIES_ELEMENT.equals(name)) {
+				if (propertiesHandler == null) {
+					propertiesHandler = new PropertiesHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else if (INSTALLABLE_UNITS_ELEMENT.equals(name)) {
+				if (unitsHandler == null) {
+					unitsHandler = new InstallableUnitsHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else if (REMOVED_UNITS_ELEMENT.equals(name)) {
+				if (removedUnitsHandler == null) {
+					removedUnitsHandler = new RemovedUnitsHandler(this);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else if (IUS_PROPERTIES_ELEMENT.equals(name)) {
+				new DeltaIUsPropertiesHandler(this, unitProperties);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+
+		public ProfileDelta getProfileDelta() {
+			Map<String, String> properties = propertiesHandler == null ? Collections.emptyMap() : propertiesHandler.getProperties();
+			Collection<IInstallableUnit> addedUnits = unitsHandler == null ? Collections.emptyList() : Arrays.asList(unitsHandler.getUnits());
+			Collection<IVersionedId> removedUnits = removedUnitsHandler == null ? Collections.emptyList() : removedUnitsHandler.getUnits();
+			return new ProfileDelta(profileId, timestamp, baseTimestamp, properties, addedUnits, removedUnits, unitProperties);
+		}
+	}
+
+	protected class RemovedUnitsHandler extends AbstractHandler {
+
+		private final List<IVersionedId> units = new ArrayList<>();
+
+		public RemovedUnitsHandler(AbstractHandler parentHandler) {
+			super(parentHandler, REMOVED_UNITS_ELEMENT);
+		}
+
+		public List<IVersionedId> getUnits() {
+			return units;
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (name.equals(INSTALLABLE_UNIT_ELEMENT)) {
+				units.add(parseVersionedId(name, attributes));
+				new IgnoringHandler(this);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+	}
+
+	protected class DeltaIUsPropertiesHandler extends AbstractHandler {
+
+		private final Map<IVersionedId, Map<String, String>> unitProperties;
+
+		public DeltaIUsPropertiesHandler(AbstractHandler parentHandler, Map<IVersionedId, Map<String, String>> unitProperties) {
+			super(parentHandler, IUS_PROPERTIES_ELEMENT);
+			this.unitProperties = unitProperties;
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (name.equals(IU_PROPERTIES_ELEMENT)) {
+				new DeltaIUPropertiesHandler(this, parseVersionedId(name, attributes), unitProperties);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+	}
+
+	protected class DeltaIUPropertiesHandler extends AbstractHandler {
+
+		private final IVersionedId unit;
+		private final Map<IVersionedId, Map<String, String>> unitProperties;
+		private PropertiesHandler propertiesHandler;
+
+		public DeltaIUPropertiesHandler(AbstractHandler parentHandler, IVersionedId unit, Map<IVersionedId, Map<String, String>> unitProperties) {
+			super(parentHandler, IU_PROPERTIES_ELEMENT);
+			this.unit = unit;
+			this.unitProperties = unitProperties;
+		}
+
+		@Override
+		protected void finished() {
+			if (isValidXML() && propertiesHandler != null)
+				unitProperties.put(unit, propertiesHandler.getProperties());
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (name.equals(PROPERTIES_ELEMENT)) {
+				propertiesHandler = new PropertiesHandler(this, attributes);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+	}
+
+	IVersionedId parseVersionedId(String element, Attributes attributes) {
+		String id = attributes.getValue(ID_ATTRIBUTE);
+		checkRequiredAttribute(element, ID_ATTRIBUTE, id);
+		Version version = checkVersion(element, VERSION_ATTRIBUTE, attributes.getValue(VERSION_ATTRIBUTE));
+		return new VersionedId(id, version);
+	}
 }
@@ -18,6 +18,7 @@ import java.util.*;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataWriter;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IVersionedId;
 import org.eclipse.equinox.p2.query.QueryUtil;
 
 public class ProfileWriter extends MetadataWriter implements ProfileXMLConstants {
@@ -45,6 +46,58 @@ public class ProfileWriter extends MetadataWriter implements ProfileXMLConstants
 		flush();
 	}
 
+	/**
+	 * Writes a delta between two states of a profile. Unlike in a profile, the properties
+	 * are written even when empty, as they replace the ones of the base state.
+	 */
+	public void writeProfileDelta(ProfileDelta delta) {
+		start(PROFILE_DELTA_ELEMENT);
+		attribute(ID_ATTRIBUTE, delta.getProfileId());
+		attribute(TIMESTAMP_ATTRIBUTE, Long.toString(delta.getTimestamp()));
+		attribute(BASE_TIMESTAMP_ATTRIBUTE, Long.toString(delta.getBaseTimestamp()));
+		writeDeltaProperties(delta.getProperties());
+		Collection<IInstallableUnit> addedUnits = delta.getAddedUnits();
+		if (!addedUnits.isEmpty())
+			writeInstallableUnits(addedUnits.iterator(), addedUnits.size());
+		Collection<IVersionedId> removedUnits = delta.getRemovedUnits();
+		if (!removedUnits.isEmpty()) {
+			start(REMOVED_UNITS_ELEMENT);
+			attribute(COLLECTION_SIZE_ATTRIBUTE, removedUnits.size());
+			for (IVersionedId removed : removedUnits) {
+				start(INSTALLABLE_UNIT_ELEMENT);
+				attribute(ID_ATTRIBUTE, removed.getId());
+				attribute(VERSION_ATTRIBUTE, removed.getVersion().toString());
+				end(INSTALLABLE_UNIT_ELEMENT);
+			}
+			end(REMOVED_UNITS_ELEMENT);
+		}
+		Map<IVersionedId, Map<String, String>> unitProperties = delta.getUnitProperties();
+		if (!unitProperties.isEmpty()) {
+			start(IUS_PROPERTIES_ELEMENT);
+			attribute(COLLECTION_SIZE_ATTRIBUTE, unitProperties.size());
+			for (Map.Entry<IVersionedId, Map<String, String>> entry : unitProperties.entrySet()) {
+				start(IU_PROPERTIES_ELEMENT);
+				attribute(ID_ATTRIBUTE, entry.getKey().getId());
+				attribute(VERSION_ATTRIBUTE, entry.getKey().getVersion().toString());
+				writeDeltaProperties(entry.getValue());
+				end(IU_PROPERTIES_ELEMENT);
+			}
+			end(IUS_PROPERTIES_ELEMENT);
+		}
+		end(PROFILE_DELTA_ELEMENT);
+		flush();
+	}
+
+	private void writeDeltaProperties(Map<String, String> properties) {
+		if (!properties.isEmpty()) {
+			writeProperties(properties);
+			return;
+		}
+		start(PROPERTIES_ELEMENT);
+		attribute(COLLECTION_SIZE_ATTRIBUTE, 0);
+		end(PROPERTIES_ELEMENT);
+	}
+
 	private void writeInstallableUnitsProperties(Iterator<IInstallableUnit> it, int size, IProfile profile) {
 		if (size == 0)
 			return;
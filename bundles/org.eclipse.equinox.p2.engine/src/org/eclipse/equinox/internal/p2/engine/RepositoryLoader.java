@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.net.URI;
+import java.util.*;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.equinox.internal.p2.repository.helpers.ConcurrentRepositoryLoader;
+import org.eclipse.equinox.internal.p2.repository.helpers.ConcurrentRepositoryLoader.Loader;
+import org.eclipse.equinox.internal.p2.repository.helpers.ConcurrentRepositoryLoader.Outcome;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.engine.ProvisioningContext;
+
+/**
+ * Loads the repositories of a provisioning context, several of them at the same
+ * time. The result only depends on the locations and on which of them can be
+ * loaded, not on the order in which the loads complete.
+ */
+public class RepositoryLoader {
+	/**
+	 * The key for an integer property controlling how many repositories a
+	 * provisioning context loads at the same time. A value of 1 loads the
+	 * repositories one after the other. The property is looked up in the
+	 * provisioning context first and then in the agent.
+	 */
+	public static final String PROP_MAX_CONCURRENT_LOADS = "org.eclipse.equinox.p2.engine.repositoryLoad.maxConcurrent"; //$NON-NLS-1$
+
+	private static final int DEFAULT_MAX_CONCURRENT_LOADS = 4;
+
+	private final ConcurrentRepositoryLoader loader;
+
+	public RepositoryLoader(ProvisioningContext context, IProvisioningAgent agent) {
+		this.loader = new ConcurrentRepositoryLoader(getMaxConcurrentLoads(context, agent));
+	}
+
+	private static int getMaxConcurrentLoads(ProvisioningContext context, IProvisioningAgent agent) {
+		String value = context.getProperty(PROP_MAX_CONCURRENT_LOADS);
+		if (value == null)
+			value = agent.getProperty(PROP_MAX_CONCURRENT_LOADS);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return DEFAULT_MAX_CONCURRENT_LOADS;
+	}
+
+	/**
+	 * Loads the repositories at the given locations and returns them by location, in
+	 * the order of the locations. The locations that cannot be loaded are added to
+	 * the failed locations instead.
+	 */
+	public <R> Map<URI, R> loadAll(Collection<URI> locations, Loader<R> repositoryLoader, Set<URI> failed, IProgressMonitor monitor) {
+		Map<URI, R> result = new LinkedHashMap<>();
+		for (Outcome<R> outcome : loader.loadAll(new ArrayList<>(locations), repositoryLoader, false, monitor)) {
+			if (outcome.getFailure() == null)
+				result.put(outcome.getLocation(), outcome.getRepository());
+			else
+				failed.add(outcome.getLocation());
+		}
+		return result;
+	}
+}
@@ -20,6 +20,8 @@ package org.eclipse.equinox.internal.p2.engine;
 import java.io.*;
 import java.lang.ref.SoftReference;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.zip.GZIPInputStream;
@@ -47,10 +49,41 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	private static final String SIMPLE_PROFILE_REGISTRY_INTERNAL = "_simpleProfileRegistry_internal_"; //$NON-NLS-1$
 	private static final String PROFILE_REGISTRY = "profile registry"; //$NON-NLS-1$
 	private static final String PROFILE_PROPERTIES_FILE = "state.properties"; //$NON-NLS-1$
+	private static final String PARENTS_FILE = "parents.properties"; //$NON-NLS-1$
 
 	private static final String PROFILE_EXT = ".profile"; //$NON-NLS-1$
 	private static final String PROFILE_GZ_EXT = ".profile.gz"; //$NON-NLS-1$
+	private static final String PROFILE_DELTA_EXT = ".profile.delta.gz"; //$NON-NLS-1$
+	private static final String TEMP_EXT = ".tmp"; //$NON-NLS-1$
 	public static final String DEFAULT_STORAGE_DIR = "profileRegistry"; //$NON-NLS-1$
+
+	/**
+	 * Agent property controlling whether profiles are only read when they are first
+	 * requested, rather than all at once when any profile is requested.
+	 */
+	public static final String PROP_LAZY_LOADING = "org.eclipse.equinox.p2.engine.profileRegistry.lazy"; //$NON-NLS-1$
+
+	/**
+	 * Agent property giving the number of profiles kept in memory when
+	 * {@link #PROP_LAZY_LOADING} is set.
+	 */
+	public static final String PROP_CACHE_SIZE = "org.eclipse.equinox.p2.engine.profileRegistry.cacheSize"; //$NON-NLS-1$
+	private static final int DEFAULT_CACHE_SIZE = 8;
+
+	/**
+	 * Agent property controlling whether the older states of a profile are stored as
+	 * deltas to the next newer state rather than as full snapshots. The current state
+	 * is always a full snapshot.
+	 */
+	public static final String PROP_HISTORY_DELTAS = "org.eclipse.equinox.p2.engine.profileRegistry.deltas"; //$NON-NLS-1$
+
+	/**
+	 * Agent property giving how often an older state is kept as a full snapshot when
+	 * {@link #PROP_HISTORY_DELTAS} is set, which bounds the number of deltas applied
+	 * to read a state.
+	 */
+	public static final String PROP_CHECKPOINT_INTERVAL = "org.eclipse.equinox.p2.engine.profileRegistry.checkpointInterval"; //$NON-NLS-1$
+	private static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
 	private static final String DATA_EXT = ".data"; //$NON-NLS-1$
 
 	//Internal constant used to keep track of the newly created timestamp
@@ -64,6 +97,12 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	 * Reference to Map of String(Profile id)->Profile.
 	 */
 	private SoftReference<Map<String, Profile>> profiles;
+	/**
+	 * The profiles read on demand, used instead of {@link #profiles} in lazy mode.
+	 */
+	private LazyProfileMap lazyProfiles;
+	private final boolean lazy;
+	private final int cacheSize;
 	private Map<String, ProfileLock> profileLocks = new HashMap<>();
 
 	private String self;
@@ -84,12 +123,23 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	}
 
 	public SimpleProfileRegistry(IProvisioningAgent agent, File registryDirectory, ISurrogateProfileHandler handler, boolean updateSelfProfile) {
+		this(agent, registryDirectory, handler, updateSelfProfile, Boolean.parseBoolean(EngineActivator.getProperty(PROP_LAZY_LOADING, agent)), getCacheSize(agent));
+	}
+
+	/**
+	 * Creates a registry that reads the profiles when they are first requested if
+	 * <code>lazy</code> is set, keeping at most <code>cacheSize</code> of them in
+	 * memory, rather than reading all of them at once.
+	 */
+	public SimpleProfileRegistry(IProvisioningAgent agent, File registryDirectory, ISurrogateProfileHandler handler, boolean updateSelfProfile, boolean lazy, int cacheSize) {
 		this.agent = agent;
 		store = registryDirectory;
 		surrogateProfileHandler = handler;
 		Assert.isNotNull(store, "Profile registry requires a directory"); //$NON-NLS-1$
 		findSelf();
 		this.updateSelfProfile = updateSelfProfile;
+		this.lazy = lazy;
+		this.cacheSize = Math.max(1, cacheSize);
 	}
 
 	/**
@@ -200,7 +250,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (SELF.equals(id))
 			id = self;
 
-		if (profiles != null) {
+		if (lazy || profiles != null) {
 			IProfile profile = getProfile(id);
 			if (profile != null && profile.getTimestamp() == timestamp)
 				return profile;
@@ -214,7 +264,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (!profileFile.exists()) {
 			profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_EXT);
 			if (!profileFile.exists())
-				return null;
+				return restoreState(id, profileDirectory, timestamp);
 		}
 
 		Parser parser = new Parser(EngineActivator.ID);
@@ -238,7 +288,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (!profileDirectory.isDirectory())
 			return new long[0];
 
-		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_EXT) || pathname.getName().endsWith(PROFILE_GZ_EXT)) && pathname.isFile() && !pathname.getName().startsWith("._")); //$NON-NLS-1$
+		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_EXT) || pathname.getName().endsWith(PROFILE_GZ_EXT) || pathname.getName().endsWith(PROFILE_DELTA_EXT)) && pathname.isFile() && !pathname.getName().startsWith("._")); //$NON-NLS-1$
 
 		long[] timestamps = new long[profileFiles.length];
 		for (int i = 0; i < profileFiles.length; i++) {
@@ -372,6 +422,14 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	 * Returns an initialized map of String(Profile id)->Profile.
 	 */
 	protected Map<String, Profile> getProfileMap() {
+		if (lazy) {
+			if (lazyProfiles == null) {
+				lazyProfiles = new LazyProfileMap(cacheSize);
+				if (updateSelfProfile && self != null && lazyProfiles.containsKey(self))
+					updateSelfProfile(lazyProfiles);
+			}
+			return lazyProfiles;
+		}
 		if (profiles != null) {
 			Map<String, Profile> result = profiles.get();
 			if (result != null)
@@ -397,6 +455,8 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		ProfileLock lock = profileLocks.get(id);
 		lock.checkLocked();
 
+		// keep the state being replaced to turn its snapshot into a delta
+		Profile previous = isDeltaHistory() ? current.snapshot() : null;
 		current.clearLocalProperties();
 		current.clearInstallableUnits();
 
@@ -409,6 +469,8 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 				current.addInstallableUnitProperties(iu, iuProperties);
 		}
 		saveProfile(current);
+		if (previous != null && previous.getTimestamp() != current.getTimestamp())
+			storeAsDelta(previous, current);
 		profile.clearOrphanedInstallableUnitProperties();
 		profile.setTimestamp(current.getTimestamp());
 		broadcastChangeEvent(id, IProfileEvent.CHANGED);
@@ -459,18 +521,20 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (profile == null)
 			return;
 
-		List<String> subProfileIds = profile.getSubProfileIds();
+		// removing a sub profile detaches it from this profile
+		List<String> subProfileIds = new ArrayList<>(profile.getSubProfileIds());
 		for (String subProfileId : subProfileIds) {
 			removeProfile(subProfileId);
 		}
-		internalLockProfile(profile);
-		// The above call recursively locked the parent(s). So save it away to rewind the locking process.
+		// Detaching the profile changes the sub profiles of its parent, so lock it as well.
 		IProfile savedParent = profile.getParentProfile();
+		if (savedParent != null)
+			internalLockProfile(savedParent);
+		internalLockProfile(profile);
 		try {
 			profile.setParent(null);
 		} finally {
 			internalUnlockProfile(profile);
-			// The above call will not recurse since parent is now null. So do it explicitly.
 			if (savedParent != null) {
 				internalUnlockProfile(savedParent);
 			}
@@ -488,7 +552,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (SELF.equals(id))
 			id = self;
 
-		if (profiles != null) {
+		if (lazy || profiles != null) {
 			IProfile profile = getProfile(id);
 			if (profile != null && profile.getTimestamp() == timestamp)
 				throw new ProvisionException(
@@ -502,9 +566,14 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		File profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_GZ_EXT);
 		if (!profileFile.exists()) {
 			profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_EXT);
-			if (!profileFile.exists())
-				return;
+			if (!profileFile.exists()) {
+				profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_DELTA_EXT);
+				if (!profileFile.exists())
+					return;
+			}
 		}
+		if (!rebaseOlderState(id, profileDirectory, timestamp))
+			throw new ProvisionException(NLS.bind(Messages.SimpleProfileRegistry_CannotRemoveState, timestamp, id));
 		FileUtils.deleteAll(profileFile);
 		// Ignore the return value here. If there was a problem removing the profile state
 		// properties we don't want to fail the whole operation since the profile state itself
@@ -564,6 +633,398 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		return parser.getProfileMap();
 	}
 
+	private boolean isDeltaHistory() {
+		return Boolean.parseBoolean(EngineActivator.getProperty(PROP_HISTORY_DELTAS, agent));
+	}
+
+	private int getCheckpointInterval() {
+		String value = EngineActivator.getProperty(PROP_CHECKPOINT_INTERVAL, agent);
+		if (value != null) {
+			try {
+				return Math.max(1, Integer.parseInt(value));
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return DEFAULT_CHECKPOINT_INTERVAL;
+	}
+
+	private static boolean isDelta(File file) {
+		return file.getName().endsWith(PROFILE_DELTA_EXT);
+	}
+
+	/**
+	 * Returns the files of the states of a profile, full snapshots or deltas, by timestamp.
+	 */
+	private TreeMap<Long, File> getHistory(File profileDirectory) {
+		TreeMap<Long, File> history = new TreeMap<>();
+		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_EXT) || pathname.getName().endsWith(PROFILE_GZ_EXT) || pathname.getName().endsWith(PROFILE_DELTA_EXT)) && pathname.isFile() && !pathname.getName().startsWith("._")); //$NON-NLS-1$
+		if (profileFiles == null)
+			return history;
+		for (File profileFile : profileFiles) {
+			String fileName = profileFile.getName();
+			try {
+				long timestamp = Long.parseLong(fileName.substring(0, fileName.indexOf(PROFILE_EXT)));
+				// a full snapshot wins over a delta left behind by an interrupted write
+				File existing = history.get(timestamp);
+				if (existing == null || (!isDelta(profileFile) && (isDelta(existing) || fileName.endsWith(PROFILE_GZ_EXT))))
+					history.put(timestamp, profileFile);
+			} catch (NumberFormatException e) {
+				// ignore
+			}
+		}
+		return history;
+	}
+
+	/**
+	 * Reads a state of a profile stored as a delta, by applying the deltas from the
+	 * closest newer full snapshot back to the given timestamp.
+	 */
+	private Profile restoreState(String id, File profileDirectory, long timestamp) {
+		File file = new File(profileDirectory, Long.toString(timestamp) + PROFILE_DELTA_EXT);
+		if (!file.exists())
+			return null;
+
+		TreeMap<Long, File> history = getHistory(profileDirectory);
+		List<ProfileDelta> deltas = new ArrayList<>();
+		Parser parser = new Parser(EngineActivator.ID);
+		try {
+			while (file != null && isDelta(file)) {
+				ProfileDelta delta = parser.parseDelta(file);
+				deltas.add(delta);
+				// a delta is always based on a newer state
+				file = delta.getBaseTimestamp() > delta.getTimestamp() ? history.get(delta.getBaseTimestamp()) : null;
+			}
+			if (file == null) {
+				LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.SimpleProfileRegistry_State_base_not_found, timestamp, id)));
+				return null;
+			}
+			parser.parse(file);
+		} catch (IOException e) {
+			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, file), e));
+			return null;
+		}
+		Profile profile = parser.getProfileMap().get(id);
+		if (profile == null)
+			return null;
+		for (int i = deltas.size() - 1; i >= 0; i--)
+			deltas.get(i).applyTo(profile);
+		return profile;
+	}
+
+	/**
+	 * Replaces the full snapshot of the given state of a profile with a delta to the
+	 * given newer state, unless the snapshot is kept as a checkpoint of the history.
+	 */
+	private void storeAsDelta(Profile state, Profile base) {
+		File profileDirectory = getProfileFolder(state.getProfileId());
+		TreeMap<Long, File> history = getHistory(profileDirectory);
+		File stateFile = history.get(state.getTimestamp());
+		if (stateFile == null || isDelta(stateFile))
+			return;
+
+		int deltas = 0;
+		for (File olderFile : history.headMap(state.getTimestamp(), false).descendingMap().values()) {
+			if (!isDelta(olderFile))
+				break;
+			deltas++;
+		}
+		if (deltas + 1 >= getCheckpointInterval())
+			return;
+
+		File deltaFile = new File(profileDirectory, Long.toString(state.getTimestamp()) + PROFILE_DELTA_EXT);
+		if (writeDelta(ProfileDelta.compute(state, base), deltaFile))
+			stateFile.delete();
+	}
+
+	/**
+	 * Rewrites the state preceding the given one when it is a delta to it, before the
+	 * given state is removed. The preceding state becomes a delta to the state the
+	 * removed one is based on, or a full snapshot when the removed state is one.
+	 */
+	private boolean rebaseOlderState(String id, File profileDirectory, long timestamp) {
+		TreeMap<Long, File> history = getHistory(profileDirectory);
+		Entry<Long, File> older = history.lowerEntry(timestamp);
+		if (older == null || !isDelta(older.getValue()))
+			return true;
+
+		Profile state = restoreState(id, profileDirectory, older.getKey());
+		if (state == null)
+			return false;
+		File olderFile = older.getValue();
+		Entry<Long, File> newer = history.higherEntry(timestamp);
+		if (isDelta(history.get(timestamp)) && newer != null) {
+			IProfile base = getProfile(id, newer.getKey());
+			File tempFile = new File(profileDirectory, olderFile.getName() + TEMP_EXT);
+			if (base != null && writeDelta(ProfileDelta.compute(state, base), tempFile)) {
+				try {
+					Files.move(tempFile.toPath(), olderFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+					return true;
+				} catch (IOException e) {
+					tempFile.delete();
+					LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, id), e));
+				}
+			}
+		}
+
+		File snapshotFile = new File(profileDirectory, Long.toString(older.getKey()) + PROFILE_GZ_EXT);
+		try (OutputStream os = new GZIPOutputStream(new FileOutputStream(snapshotFile))) {
+			new Writer(os).writeProfile(state);
+		} catch (IOException e) {
+			snapshotFile.delete();
+			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, id), e));
+			return false;
+		}
+		olderFile.delete();
+		return true;
+	}
+
+	private boolean writeDelta(ProfileDelta delta, File deltaFile) {
+		if (DebugHelper.DEBUG_PROFILE_REGISTRY)
+			DebugHelper.debug(PROFILE_REGISTRY, "Saving profile delta to: " + deltaFile.getAbsolutePath()); //$NON-NLS-1$
+
+		try (OutputStream os = new GZIPOutputStream(new FileOutputStream(deltaFile))) {
+			new Writer(os).writeProfileDelta(delta);
+			return true;
+		} catch (IOException e) {
+			deltaFile.delete();
+			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, delta.getProfileId()), e));
+			return false;
+		}
+	}
+
+	private static int getCacheSize(IProvisioningAgent agent) {
+		String value = EngineActivator.getProperty(PROP_CACHE_SIZE, agent);
+		if (value != null) {
+			try {
+				return Math.max(1, Integer.parseInt(value));
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return DEFAULT_CACHE_SIZE;
+	}
+
+	/**
+	 * A map of the profiles of the registry that only knows their ids and latest
+	 * files up front, from the listings of the profile directories. A profile is
+	 * parsed when it is first requested, and the least recently used profiles are
+	 * dropped when there are more than the given number in memory. They are read
+	 * again from disk when needed, like all the profiles are once the soft reference
+	 * of the regular mode is cleared. A profile is read along with its parent and
+	 * its sub profiles, and profiles with a parent or sub profiles are kept in
+	 * memory. The parent of each profile is kept in the parents file of the
+	 * registry along with the latest file it was read from, so only the root
+	 * elements of the profiles written since are parsed to find the sub profiles.
+	 */
+	private class LazyProfileMap extends AbstractMap<String, Profile> {
+		private final Map<String, File> profileDirectories = new HashMap<>();
+		private final LinkedHashMap<String, Profile> cache = new LinkedHashMap<>(16, 0.75f, true);
+		private final int cacheSize;
+		private Map<String, List<String>> subProfileIds;
+
+		LazyProfileMap(int cacheSize) {
+			this.cacheSize = cacheSize;
+			if (store == null || !store.isDirectory())
+				throw new IllegalStateException(NLS.bind(Messages.reg_dir_not_available, store));
+			File[] directories = store.listFiles((FileFilter) pathname -> pathname.getName().endsWith(PROFILE_EXT) && pathname.isDirectory());
+			if (directories == null)
+				return;
+			for (File directory : directories) {
+				if (findLatestProfileFile(directory) == null)
+					continue;
+				String directoryName = directory.getName();
+				profileDirectories.put(unescape(directoryName.substring(0, directoryName.lastIndexOf(PROFILE_EXT))), directory);
+			}
+		}
+
+		@Override
+		public Profile get(Object key) {
+			if (!(key instanceof String))
+				return null;
+			String profileId = (String) key;
+			Profile profile = cache.get(profileId);
+			if (profile != null || !profileDirectories.containsKey(profileId))
+				return profile;
+			profile = load(profileId, profileDirectories.get(profileId));
+			if (profile != null) {
+				put(profileId, profile);
+				for (String subProfileId : getSubProfileIds(profileId))
+					get(subProfileId);
+			}
+			return profile;
+		}
+
+		/**
+		 * Returns the ids of the profiles whose latest file names the given profile as
+		 * their parent.
+		 */
+		private List<String> getSubProfileIds(String profileId) {
+			if (subProfileIds == null)
+				subProfileIds = readSubProfileIds();
+			return subProfileIds.getOrDefault(profileId, Collections.emptyList());
+		}
+
+		private Map<String, List<String>> readSubProfileIds() {
+			File parentsFile = new File(store, PARENTS_FILE);
+			Properties known = new Properties();
+			if (parentsFile.isFile()) {
+				try (InputStream input = new BufferedInputStream(new FileInputStream(parentsFile))) {
+					known.load(input);
+				} catch (IOException | IllegalArgumentException e) {
+					// parse all the profiles again
+					known.clear();
+				}
+			}
+			Map<String, List<String>> result = new HashMap<>();
+			Properties parents = new Properties();
+			Parser parser = null;
+			for (Entry<String, File> entry : profileDirectories.entrySet()) {
+				File profileFile = findLatestProfileFile(entry.getValue());
+				if (profileFile == null)
+					continue;
+				// the name and the modification time of the file the parent was read from
+				String stamp = profileFile.getName() + ':' + profileFile.lastModified() + '/';
+				String value = known.getProperty(entry.getKey());
+				String parentId;
+				if (value != null && value.startsWith(stamp)) {
+					parentId = value.substring(stamp.length());
+				} else {
+					if (parser == null)
+						parser = new Parser(EngineActivator.ID);
+					try {
+						parentId = parser.parseParentId(profileFile);
+					} catch (IOException e) {
+						LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, entry.getValue()), e));
+						continue;
+					}
+					if (parentId == null)
+						parentId = ""; //$NON-NLS-1$
+				}
+				parents.setProperty(entry.getKey(), stamp + parentId);
+				if (!parentId.isEmpty())
+					result.computeIfAbsent(parentId, id -> new ArrayList<>()).add(entry.getKey());
+			}
+			if (!parents.equals(known))
+				writeParents(parentsFile, parents);
+			return result;
+		}
+
+		private void writeParents(File parentsFile, Properties parents) {
+			File tempFile = null;
+			try {
+				tempFile = Files.createTempFile(store.toPath(), PARENTS_FILE, TEMP_EXT).toFile();
+				try (OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+					parents.store(output, null);
+				}
+				Files.move(tempFile.toPath(), parentsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				// the profiles are parsed again the next time
+				if (tempFile != null)
+					tempFile.delete();
+			}
+		}
+
+		private Profile load(String profileId, File profileDirectory) {
+			ProfileLock lock = profileLocks.get(profileId);
+			if (lock == null) {
+				lock = new ProfileLock(SimpleProfileRegistry.this, profileDirectory);
+				profileLocks.put(profileId, lock);
+			}
+			Parser parser = new Parser(EngineActivator.ID);
+			boolean locked = false;
+			if (lock.processHoldsLock() || (locked = lock.lock())) {
+				try {
+					File profileFile = findLatestProfileFile(profileDirectory);
+					if (profileFile == null)
+						return null;
+					if (DebugHelper.DEBUG_PROFILE_REGISTRY)
+						DebugHelper.debug(PROFILE_REGISTRY, "Reading profile from: " + profileFile.getAbsolutePath()); //$NON-NLS-1$
+					parser.parse(profileFile);
+				} catch (IOException e) {
+					LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, profileDirectory), e));
+					return null;
+				} finally {
+					if (locked)
+						lock.unlock();
+				}
+			} else {
+				// could not lock the profile, so add a place holder
+				parser.addProfilePlaceHolder(profileId);
+			}
+			ProfileParser.ProfileHandler handler = parser.getProfileHandlers().get(profileId);
+			if (handler == null)
+				return null;
+			Map<String, Profile> profileMap = new HashMap<>();
+			String parentId = handler.getParentId();
+			if (parentId != null) {
+				Profile parent = get(parentId);
+				// reading the parent reads its sub profiles, this one included
+				Profile profile = cache.get(profileId);
+				if (profile != null)
+					return profile;
+				if (parent != null)
+					profileMap.put(parentId, parent);
+			}
+			parser.addProfile(profileId, profileMap);
+			return profileMap.get(profileId);
+		}
+
+		@Override
+		public Profile put(String profileId, Profile profile) {
+			profileDirectories.put(profileId, getProfileFolder(profileId));
+			Profile previous = cache.put(profileId, profile);
+			if (cache.size() > cacheSize) {
+				for (Iterator<Profile> iterator = cache.values().iterator(); iterator.hasNext() && cache.size() > cacheSize;) {
+					Profile candidate = iterator.next();
+					if (candidate != profile && candidate.isRootProfile() && !candidate.hasSubProfiles())
+						iterator.remove();
+				}
+			}
+			return previous;
+		}
+
+		@Override
+		public Profile remove(Object key) {
+			profileDirectories.remove(key);
+			if (subProfileIds != null) {
+				subProfileIds.remove(key);
+				for (List<String> ids : subProfileIds.values())
+					ids.remove(key);
+			}
+			return cache.remove(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return profileDirectories.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return profileDirectories.size();
+		}
+
+		/**
+		 * Reads all the profiles and returns them, some of them may be dropped from
+		 * memory again once they are no longer referenced.
+		 */
+		private Map<String, Profile> loadAll() {
+			Map<String, Profile> result = new LinkedHashMap<>();
+			for (String profileId : new ArrayList<>(profileDirectories.keySet())) {
+				Profile profile = get(profileId);
+				if (profile != null)
+					result.put(profileId, profile);
+			}
+			return result;
+		}
+
+		@Override
+		public Set<Entry<String, Profile>> entrySet() {
+			return Collections.unmodifiableMap(loadAll()).entrySet();
+		}
+	}
+
 	private File findLatestProfileFile(File profileDirectory) {
 		File latest = null;
 		long latestTimestamp = 0;
@@ -723,13 +1184,35 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		}
 
 		public void parse(File file) throws IOException {
-			InputStream is;
-			if (file.getName().endsWith(PROFILE_GZ_EXT)) {
-				is = new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)));
-			} else { // backward compatibility. SimpleProfileRegistry doesn't write non-gzipped profiles any more.
-				is = new BufferedInputStream(new FileInputStream(file));
+			parse(openProfileFile(file));
+		}
+
+		private InputStream openProfileFile(File file) throws IOException {
+			if (file.getName().endsWith(PROFILE_GZ_EXT))
+				return new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)));
+			// backward compatibility. SimpleProfileRegistry doesn't write non-gzipped profiles any more.
+			return new BufferedInputStream(new FileInputStream(file));
+		}
+
+		/**
+		 * Reads the root element of the given profile file only, and returns the id of
+		 * the parent profile recorded there or <code>null</code> if there is none.
+		 */
+		public synchronized String parseParentId(File file) throws IOException {
+			this.status = null;
+			ParentIdHandler parentIdHandler = new ParentIdHandler();
+			try (InputStream stream = openProfileFile(file)) {
+				XMLReader reader = getParser().getXMLReader();
+				reader.setContentHandler(new ProfileDocHandler(PROFILE_ELEMENT, parentIdHandler));
+				reader.parse(new InputSource(stream));
+			} catch (SAXException e) {
+				// the handler stops the parsing at the first element below the root
+				if (!parentIdHandler.complete)
+					throw new IOException(e.getMessage(), e);
+			} catch (ParserConfigurationException e) {
+				throw new IOException(e.getMessage(), e);
 			}
-			parse(is);
+			return parentIdHandler.parentId;
 		}
 
 		public synchronized void parse(InputStream stream) throws IOException {
@@ -755,6 +1238,21 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			}
 		}
 
+		public synchronized ProfileDelta parseDelta(File file) throws IOException {
+			this.status = null;
+			try (InputStream stream = new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)))) {
+				XMLReader reader = getParser().getXMLReader();
+				ProfileDeltaHandler deltaHandler = new ProfileDeltaHandler();
+				reader.setContentHandler(new ProfileDocHandler(PROFILE_DELTA_ELEMENT, deltaHandler));
+				reader.parse(new InputSource(stream));
+				if (!isValidXML())
+					throw new IOException(NLS.bind(Messages.error_parsing_profile, file));
+				return deltaHandler.getProfileDelta();
+			} catch (SAXException | ParserConfigurationException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+
 		@Override
 		protected Object getRootObject() {
 			return this;
@@ -803,6 +1301,22 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			profileMap.put(profileId, profile);
 		}
 
+		private final class ParentIdHandler extends RootHandler {
+			String parentId;
+			boolean complete;
+
+			@Override
+			protected void handleRootAttributes(Attributes attributes) {
+				parentId = parseOptionalAttribute(attributes, PARENT_ID_ATTRIBUTE);
+				complete = true;
+			}
+
+			@Override
+			public void startElement(String name, Attributes attributes) throws SAXException {
+				throw new SAXException(name);
+			}
+		}
+
 		private final class ProfileDocHandler extends DocHandler {
 
 			public ProfileDocHandler(String rootName, RootHandler rootHandler) {
@@ -915,8 +1429,8 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (id == null)
 			return false;
 
-		// check profiles to avoid restoring the profile registry
-		if (profiles != null)
+		// check profiles to avoid restoring the profile registry, the lazy mode only reads the one profile
+		if (lazy || profiles != null)
 			if (getProfile(id) != null)
 				return true;
 
@@ -929,6 +1443,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 
 	public synchronized void resetProfiles() {
 		profiles = null;
+		lazyProfiles = null;
 	}
 
 	public synchronized void unlockProfile(IProfile profile) {
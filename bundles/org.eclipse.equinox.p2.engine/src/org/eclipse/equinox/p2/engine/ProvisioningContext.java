@@ -20,6 +20,9 @@ import java.net.URI;
 import java.util.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.engine.DebugHelper;
+import org.eclipse.equinox.internal.p2.engine.RepositoryLoader;
+import org.eclipse.equinox.internal.p2.metadata.index.MergedQueryable;
+import org.eclipse.equinox.internal.p2.repository.helpers.ConcurrentRepositoryLoader;
 import org.eclipse.equinox.internal.p2.repository.Transport;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
@@ -185,8 +188,15 @@ public class ProvisioningContext {
 		URI[] repositories = artifactRepositories == null ? repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_ALL) : artifactRepositories;
 		Arrays.sort(repositories, LOCAL_FIRST_COMPARATOR);
 
+		boolean followReferences = referencedArtifactRepositories != null && referencedArtifactRepositories.size() > 0 && shouldFollowArtifactReferences();
+		SubMonitor sub = SubMonitor.convert(monitor, repositories.length + 2);
+		// load all the repositories up front, the loops below only pick them up in order
+		List<URI> locations = new ArrayList<>(Arrays.asList(repositories));
+		if (followReferences)
+			locations.addAll(referencedArtifactRepositories.values());
+		preloadRepositories(locations, repoManager::loadRepository, loadedArtifactRepositories, failedArtifactRepositories, sub.split(1));
+
 		List<IArtifactRepository> repos = new ArrayList<>();
-		SubMonitor sub = SubMonitor.convert(monitor, repositories.length + 1);
 		for (URI location : repositories) {
 			getLoadedRepository(location, repoManager, repos, sub.split(1));
 			// Remove this URI from the list of extra references if it is there.
@@ -195,7 +205,7 @@ public class ProvisioningContext {
 			}
 		}
 		// Are there any extra artifact repository references to consider?
-		if (referencedArtifactRepositories != null && referencedArtifactRepositories.size() > 0 && shouldFollowArtifactReferences()) {
+		if (followReferences && referencedArtifactRepositories.size() > 0) {
 			SubMonitor innerSub = SubMonitor.convert(sub.split(1), referencedArtifactRepositories.size());
 			for (URI referencedURI : referencedArtifactRepositories.values()) {
 				getLoadedRepository(referencedURI, repoManager, repos, innerSub.split(1));
@@ -227,7 +237,8 @@ public class ProvisioningContext {
 		URI[] repositories = metadataRepositories == null ? repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_ALL) : metadataRepositories;
 
 		Map<String, IMetadataRepository> repos = new HashMap<>();
-		SubMonitor sub = SubMonitor.convert(monitor, repositories.length);
+		SubMonitor sub = SubMonitor.convert(monitor, repositories.length + 1);
+		preloadMetadataRepositories(repoManager, repositories, shouldFollowReferences(), sub.split(1));
 
 		// Clear out the list of remembered artifact repositories
 		referencedArtifactRepositories = new HashMap<>();
@@ -237,6 +248,52 @@ public class ProvisioningContext {
 		return new HashSet<>(repos.values());
 	}
 
+	/**
+	 * Loads the given repositories and, when following references, the metadata
+	 * repositories they reference, one level of references at a time. The repositories
+	 * of a level are loaded concurrently.
+	 */
+	private void preloadMetadataRepositories(IMetadataRepositoryManager manager, URI[] repositories, boolean followMetadataRepoReferences, IProgressMonitor monitor) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 10);
+		Set<URI> visited = new HashSet<>();
+		Set<URI> level = new LinkedHashSet<>(Arrays.asList(repositories));
+		while (!level.isEmpty()) {
+			visited.addAll(level);
+			preloadRepositories(level, manager::loadRepository, loadedMetadataRepositories, failedMetadataRepositories, subMonitor.split(1));
+			subMonitor.setWorkRemaining(10);
+			if (!followMetadataRepoReferences)
+				return;
+			Set<URI> next = new LinkedHashSet<>();
+			for (URI location : level) {
+				IMetadataRepository repository = loadedMetadataRepositories.get(location);
+				if (repository == null)
+					continue;
+				for (IRepositoryReference ref : repository.getReferences()) {
+					try {
+						if (ref.getType() == IRepository.TYPE_METADATA && !visited.contains(ref.getLocation()) && isEnabled(manager, ref))
+							next.add(ref.getLocation());
+					} catch (IllegalArgumentException e) {
+						// invalid location, skipped like when the references are followed
+					}
+				}
+			}
+			level = next;
+		}
+	}
+
+	/**
+	 * Loads the repositories at the given locations that are neither loaded nor known
+	 * to fail, concurrently, and records the outcome.
+	 */
+	private <R> void preloadRepositories(Collection<URI> locations, ConcurrentRepositoryLoader.Loader<R> loader, Map<URI, R> loaded, Set<URI> failed, IProgressMonitor monitor) {
+		Set<URI> toLoad = new LinkedHashSet<>();
+		for (URI location : locations) {
+			if (location != null && !loaded.containsKey(location) && !failed.contains(location))
+				toLoad.add(location);
+		}
+		loaded.putAll(new RepositoryLoader(this, agent).loadAll(toLoad, loader, failed, monitor));
+	}
+
 	private void loadMetadataRepository(IMetadataRepositoryManager manager, URI location,
 			Map<String, IMetadataRepository> repos, boolean followMetadataRepoReferences, IProgressMonitor monitor) {
 		// if we've already processed this repo, don't do it again.  This keeps us from getting
@@ -297,6 +354,13 @@ public class ProvisioningContext {
 		return Boolean.parseBoolean(getProperty(FOLLOW_ARTIFACT_REPOSITORY_REFERENCES));
 	}
 
+	private boolean shouldMergeMetadata() {
+		String value = getProperty(MergedQueryable.PROP_MERGED_INDEX);
+		if (value == null)
+			value = agent.getProperty(MergedQueryable.PROP_MERGED_INDEX);
+		return Boolean.parseBoolean(value);
+	}
+
 	/**
 	 * Returns a queryable that can be used to obtain any metadata (installable units)
 	 * that are needed for the provisioning operation.
@@ -314,7 +378,10 @@ public class ProvisioningContext {
 	 * @see #FOLLOW_REPOSITORY_REFERENCES
 	 */
 	public IQueryable<IInstallableUnit> getMetadata(IProgressMonitor monitor) {
-		return QueryUtil.compoundQueryable(getLoadedMetadataRepositories(monitor));
+		Set<IMetadataRepository> repositories = getLoadedMetadataRepositories(monitor);
+		if (shouldMergeMetadata())
+			return new MergedQueryable(repositories);
+		return QueryUtil.compoundQueryable(repositories);
 	}
 
 	/**
@@ -379,42 +446,36 @@ public class ProvisioningContext {
 
 	private <T, R extends IRepository<T>> Map<URI, R> getAllLoadedRepositories(IRepositoryManager<T> manager,
 			Map<URI, R> loadedRepositories, Set<URI> failedRepositories, IProgressMonitor monitor) {
-		SubMonitor subMonitor = SubMonitor.convert(monitor, loadedRepositories.size());
 		var allLoadedRepositories = new HashMap<>(loadedRepositories);
-		for (var repository : loadedRepositories.values()) {
-			loadComposites(manager, repository, allLoadedRepositories, failedRepositories, subMonitor.split(1));
-		}
+		loadComposites(manager, loadedRepositories.values(), allLoadedRepositories, failedRepositories, monitor);
 		return allLoadedRepositories;
 	}
 
-	private <T, R extends IRepository<T>> void loadComposites(IRepositoryManager<T> manager, R repository,
+	/**
+	 * Loads the children of the given composite repositories, transitively, one level
+	 * of children at a time. The children of a level are loaded concurrently.
+	 */
+	private <T, R extends IRepository<T>> void loadComposites(IRepositoryManager<T> manager, Collection<R> repositories,
 			Map<URI, R> repos, Set<URI> failedRepositories, IProgressMonitor monitor) {
-		if (repository instanceof ICompositeRepository<?> composite) {
-			List<URI> children = composite.getChildren();
-			SubMonitor subMonitor = SubMonitor.convert(monitor, children.size());
-			for (var location : children) {
-				loadRepository(manager, location, repos, failedRepositories, subMonitor.split(1));
-			}
-		}
-	}
-
-	private <T, R extends IRepository<T>> void loadRepository(IRepositoryManager<T> manager, URI location,
-			Map<URI, R> repos, Set<URI> failedRepositories,
-			IProgressMonitor monitor) {
-		SubMonitor subMonitor = SubMonitor.convert(monitor, 2);
-
-		if (failedMetadataRepositories.contains(location)) {
-			return;
-		}
-		if (!repos.containsKey(location)) { // A previous attempt may have failed
-			try {
-				@SuppressWarnings("unchecked")
-				R repository = (R) manager.loadRepository(location, subMonitor.split(1));
-				repos.put(location, repository);
-				loadComposites(manager, repository, repos, failedRepositories, subMonitor.split(1));
-			} catch (ProvisionException e) {
-				failedMetadataRepositories.add(location);
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 10);
+		Collection<R> level = repositories;
+		while (!level.isEmpty()) {
+			Set<URI> children = new LinkedHashSet<>();
+			for (R repository : level) {
+				if (repository instanceof ICompositeRepository<?> composite) {
+					for (URI location : composite.getChildren()) {
+						// already loaded children are skipped, which also breaks cycles
+						if (!repos.containsKey(location) && !failedRepositories.contains(location))
+							children.add(location);
+					}
+				}
 			}
+			@SuppressWarnings("unchecked")
+			ConcurrentRepositoryLoader.Loader<R> loader = (location, mon) -> (R) manager.loadRepository(location, mon);
+			Map<URI, R> loaded = new RepositoryLoader(this, agent).loadAll(children, loader, failedRepositories, subMonitor.split(1));
+			subMonitor.setWorkRemaining(10);
+			repos.putAll(loaded);
+			level = loaded.values();
 		}
 	}
 
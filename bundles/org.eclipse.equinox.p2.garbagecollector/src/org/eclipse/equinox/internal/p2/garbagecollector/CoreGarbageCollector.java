@@ -13,11 +13,9 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.garbagecollector;
 
-import java.util.*;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
-import org.eclipse.equinox.p2.query.*;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
 
 /**
@@ -35,15 +33,25 @@ public class CoreGarbageCollector {
 	 * in aRepository that are not mapped to by an IArtifactKey in markSet
 	 */
 	public synchronized void clean(IArtifactKey[] markSet, final IArtifactRepository aRepository) {
-		Set<IArtifactKey> set = new HashSet<>(Arrays.asList(markSet));
-		//this query will match all artifact keys that are not in the given set
-		IQuery<IArtifactKey> query = QueryUtil.createQuery(IArtifactKey.class, "unique($0)", set); //$NON-NLS-1$
+		KeyBitmap bitmap = new KeyBitmap(aRepository);
+		bitmap.mark(markSet);
+		clean(bitmap);
+	}
+
+	/**
+	 * Removes all artifacts of the repository of the given bitmap whose key is not
+	 * marked. The artifacts are removed in a single batch.
+	 */
+	public synchronized void clean(KeyBitmap bitmap) {
+		IArtifactKey[] unmarkedKeys = bitmap.getUnmarkedKeys();
+		if (unmarkedKeys.length == 0)
+			return;
+		IArtifactRepository aRepository = bitmap.getRepository();
 		aRepository.executeBatch(monitor -> {
-			for (IArtifactKey key : aRepository.query(query, null)) {
-				aRepository.removeDescriptor(key, new NullProgressMonitor());
-				if (DEBUG) {
+			aRepository.removeDescriptors(unmarkedKeys, new NullProgressMonitor());
+			if (DEBUG) {
+				for (IArtifactKey key : unmarkedKeys)
 					Tracing.debug("Key removed:" + key); //$NON-NLS-1$
-				}
 			}
 		}, new NullProgressMonitor());
 	}
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.garbagecollector;
 
+import java.net.URI;
 import java.util.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.preferences.*;
@@ -24,8 +25,6 @@ import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.spi.IAgentService;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.engine.IProfileRegistry;
-import org.eclipse.equinox.p2.metadata.IArtifactKey;
-import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
 import org.osgi.service.prefs.Preferences;
 
 /**
@@ -76,6 +75,7 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 	}
 
 	private static final String ATTRIBUTE_CLASS = "class"; //$NON-NLS-1$
+	private static final String ATTRIBUTE_CACHEABLE = "cacheable"; //$NON-NLS-1$
 
 	private static final String PT_MARKSET = GarbageCollectorHelper.ID + ".marksetproviders"; //$NON-NLS-1$
 	final IProvisioningAgent agent;
@@ -84,23 +84,56 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 	String uninstallEventProfileId = null;
 
 	/**
-	 * Maps IArtifactRepository objects to their respective "marked set" of IArtifactKeys
+	 * Maps the locations of the IArtifactRepository objects to their respective "marked set" of IArtifactKeys
 	 */
-	private Map<IArtifactRepository, Collection<IArtifactKey>> markSet;
+	private Map<URI, KeyBitmap> markSet;
 
-	public GarbageCollector(IProvisioningAgent agent) {
-		this.agent = agent;
+	/**
+	 * The MarkSets of the registered profiles, by provider and profile id. Only the
+	 * providers declared as cacheable are cached, and an entry is used again as long
+	 * as the profile timestamp does not change.
+	 */
+	private final Map<String, CachedMarkSets> markSetCache = new HashMap<>();
+
+	private static final class CachedMarkSets {
+		final long timestamp;
+		final MarkSet[] markSets;
+
+		CachedMarkSets(long timestamp, MarkSet[] markSets) {
+			this.timestamp = timestamp;
+			this.markSets = markSets;
+		}
 	}
 
-	private void addKeys(Collection<IArtifactKey> keyList, IArtifactKey[] keyArray) {
-		for (IArtifactKey element : keyArray)
-			keyList.add(element);
+	public GarbageCollector(IProvisioningAgent agent) {
+		this.agent = agent;
 	}
 
-	private void contributeMarkSets(IConfigurationElement runAttribute, IProfile profile, boolean addRepositories) {
+	private MarkSet[] getMarkSets(IConfigurationElement runAttribute, IProfile profile) {
 		ParameterizedSafeRunnable providerExecutor = new ParameterizedSafeRunnable(runAttribute, profile);
 		SafeRunner.run(providerExecutor);
-		MarkSet[] aProfileMarkSets = providerExecutor.getResult();
+		return providerExecutor.getResult();
+	}
+
+	/*
+	 * A provider declares with the cacheable attribute that its MarkSets only depend
+	 * on the profile. The MarkSets of the other providers are computed every time.
+	 */
+	private MarkSet[] getCachedMarkSets(IConfigurationElement runAttribute, IProfile profile, Set<String> usedEntries) {
+		if (!Boolean.parseBoolean(runAttribute.getAttribute(ATTRIBUTE_CACHEABLE)))
+			return getMarkSets(runAttribute, profile);
+		String key = runAttribute.getContributor().getName() + '/' + runAttribute.getAttribute(ATTRIBUTE_CLASS) + '/' + profile.getProfileId();
+		usedEntries.add(key);
+		CachedMarkSets cached = markSetCache.get(key);
+		if (cached != null && cached.timestamp == profile.getTimestamp())
+			return cached.markSets;
+		MarkSet[] aProfileMarkSets = getMarkSets(runAttribute, profile);
+		if (aProfileMarkSets != null)
+			markSetCache.put(key, new CachedMarkSets(profile.getTimestamp(), aProfileMarkSets));
+		return aProfileMarkSets;
+	}
+
+	private void contributeMarkSets(MarkSet[] aProfileMarkSets, boolean addRepositories) {
 		if (aProfileMarkSets == null || aProfileMarkSets.length == 0 || aProfileMarkSets[0] == null)
 			return;
 
@@ -108,15 +141,16 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 			if (aProfileMarkSet == null) {
 				continue;
 			}
-			Collection<IArtifactKey> keys = markSet.get(aProfileMarkSet.getRepo());
+			URI location = aProfileMarkSet.getRepo().getLocation();
+			KeyBitmap keys = markSet.get(location);
 			if (keys == null) {
 				if (addRepositories) {
-					keys = new HashSet<>();
-					markSet.put(aProfileMarkSet.getRepo(), keys);
-					addKeys(keys, aProfileMarkSet.getKeys());
+					keys = new KeyBitmap(aProfileMarkSet.getRepo());
+					markSet.put(location, keys);
+					keys.mark(aProfileMarkSet.getKeys());
 				}
 			} else {
-				addKeys(keys, aProfileMarkSet.getKeys());
+				keys.mark(aProfileMarkSet.getKeys());
 			}
 		}
 	}
@@ -133,11 +167,8 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 	}
 
 	private void invokeCoreGC() {
-		for (IArtifactRepository nextRepo : markSet.keySet()) {
-			IArtifactKey[] keys = markSet.get(nextRepo).toArray(new IArtifactKey[0]);
-			MarkSet aMarkSet = new MarkSet(keys, nextRepo);
-			new CoreGarbageCollector().clean(aMarkSet.getKeys(), aMarkSet.getRepo());
-		}
+		for (KeyBitmap keys : markSet.values())
+			new CoreGarbageCollector().clean(keys);
 	}
 
 	@Override
@@ -160,7 +191,7 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 		}
 	}
 
-	public void runGC(IProfile profile) {
+	public synchronized void runGC(IProfile profile) {
 		markSet = new HashMap<>();
 		if (!traverseMainProfile(profile))
 			return;
@@ -196,25 +227,38 @@ public class GarbageCollector implements SynchronousProvisioningListener, IAgent
 			if (configElt == null || !(configElt.getName().equals("run"))) { //$NON-NLS-1$
 				continue;
 			}
-			contributeMarkSets(configElt, profile, true);
+			contributeMarkSets(getMarkSets(configElt, profile), true);
 		}
 		return true;
 	}
 
+	/*
+	 * The MarkSets of the profiles that did not change since the previous run come
+	 * from the cache when their provider is cacheable. The running profile is always
+	 * traversed again because its MarkSets also depend on what is running.
+	 */
 	private void traverseRegisteredProfiles() {
 		IExtensionRegistry registry = RegistryFactory.getRegistry();
 		IConfigurationElement[] configElts = registry.getConfigurationElementsFor(PT_MARKSET);
+		IProfileRegistry profileRegistry = agent.getService(IProfileRegistry.class);
+		if (profileRegistry == null)
+			return;
+		IProfile[] registeredProfiles = profileRegistry.getProfiles();
+		IProfile runningProfile = profileRegistry.getProfile(IProfileRegistry.SELF);
+		String runningProfileId = runningProfile == null ? null : runningProfile.getProfileId();
+		Set<String> usedEntries = new HashSet<>();
 		for (IConfigurationElement configElt : configElts) {
 			if (configElt == null || !(configElt.getName().equals("run"))) { //$NON-NLS-1$
 				continue;
 			}
-			IProfileRegistry profileRegistry = agent.getService(IProfileRegistry.class);
-			if (profileRegistry == null)
-				return;
-			IProfile[] registeredProfiles = profileRegistry.getProfiles();
 			for (IProfile registeredProfile : registeredProfiles) {
-				contributeMarkSets(configElt, registeredProfile, false);
+				if (registeredProfile.getProfileId().equals(runningProfileId))
+					contributeMarkSets(getMarkSets(configElt, registeredProfile), false);
+				else
+					contributeMarkSets(getCachedMarkSets(configElt, registeredProfile, usedEntries), false);
 			}
 		}
+		// forget the removed profiles
+		markSetCache.keySet().retainAll(usedEntries);
 	}
 }
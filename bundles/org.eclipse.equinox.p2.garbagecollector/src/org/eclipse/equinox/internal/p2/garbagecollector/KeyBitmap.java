@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.garbagecollector;
+
+import java.util.*;
+import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.repository.artifact.ArtifactKeyQuery;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
+
+/**
+ * The artifact keys of a repository, numbered in the order of an ordinal table,
+ * and a bitmap of the keys that are marked as still in use. Marking the keys of
+ * several profiles only sets bits, and the unmarked keys are the ones to remove.
+ */
+public class KeyBitmap {
+	private final IArtifactRepository repository;
+	private final IArtifactKey[] keys;
+	private final Map<IArtifactKey, Integer> ordinals;
+	private final BitSet marks;
+
+	public KeyBitmap(IArtifactRepository repository) {
+		this.repository = repository;
+		keys = repository.query(ArtifactKeyQuery.ALL_KEYS, null).toArray(IArtifactKey.class);
+		ordinals = new HashMap<>(keys.length * 4 / 3 + 1);
+		for (int i = 0; i < keys.length; i++)
+			ordinals.put(keys[i], Integer.valueOf(i));
+		marks = new BitSet(keys.length);
+	}
+
+	public IArtifactRepository getRepository() {
+		return repository;
+	}
+
+	/**
+	 * Marks the given keys. The keys that are not in the repository are ignored.
+	 */
+	public void mark(IArtifactKey[] markedKeys) {
+		for (IArtifactKey key : markedKeys) {
+			Integer ordinal = ordinals.get(key);
+			if (ordinal != null)
+				marks.set(ordinal.intValue());
+		}
+	}
+
+	/**
+	 * Returns the keys of the repository that are not marked.
+	 */
+	public IArtifactKey[] getUnmarkedKeys() {
+		IArtifactKey[] result = new IArtifactKey[keys.length - marks.cardinality()];
+		int count = 0;
+		for (int i = marks.nextClearBit(0); i < keys.length; i = marks.nextClearBit(i + 1))
+			result[count++] = keys[i];
+		return result;
+	}
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository;
+
+import java.net.URI;
+import java.util.*;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.equinox.internal.p2.core.helpers.CollectionUtils;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.TranslationSupport;
+import org.eclipse.equinox.internal.p2.metadata.index.*;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataReader;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.KeyWithLocale;
+import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
+import org.eclipse.equinox.p2.metadata.expression.IExpression;
+import org.eclipse.equinox.p2.metadata.index.IIndex;
+import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
+import org.eclipse.equinox.p2.query.IQuery;
+import org.eclipse.equinox.p2.query.IQueryResult;
+import org.eclipse.equinox.p2.repository.IRepositoryReference;
+import org.eclipse.equinox.p2.repository.metadata.spi.AbstractMetadataRepository;
+
+/**
+ * A read-only metadata repository backed by a binary content file, see
+ * {@link BinaryMetadataReader}. Installable units are only decoded when a
+ * query needs them; queries on the id of a unit are answered from the unit
+ * index of the file, and capability queries from its capability table, without
+ * decoding any other unit.
+ */
+public class BinaryMetadataRepository extends AbstractMetadataRepository implements IIndexProvider<IInstallableUnit> {
+
+	private final BinaryMetadataReader reader;
+	private Collection<IRepositoryReference> references = Collections.emptyList();
+	private IIndex<IInstallableUnit> idIndex;
+	private IIndex<IInstallableUnit> capabilityIndex;
+	private TranslationSupport translationSupport;
+
+	/**
+	 * Index on the id of installable units that only decodes the matching units.
+	 */
+	private class UnitIdIndex extends Index<IInstallableUnit> {
+		@Override
+		public Iterator<IInstallableUnit> getCandidates(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
+			Object queriedKeys = getQueriedIDs(ctx, variable, InstallableUnit.MEMBER_ID, booleanExpr, null);
+			if (queriedKeys == null)
+				return null;
+
+			if (queriedKeys instanceof Collection<?>) {
+				HashSet<IInstallableUnit> collector = new HashSet<>();
+				for (Object key : (Collection<?>) queriedKeys)
+					collector.addAll(getUnits((String) key));
+				return collector.iterator();
+			}
+			return getUnits((String) queriedKeys).iterator();
+		}
+	}
+
+	/**
+	 * Index on the provided capabilities of installable units that only decodes the
+	 * units providing a queried capability name or namespace.
+	 */
+	private class UnitCapabilityIndex extends CapabilityIndex {
+		@Override
+		protected Object getUnitsByName(String name) {
+			return getUnits(reader.getUnitIndexesByCapabilityName(name));
+		}
+
+		@Override
+		protected Object getUnitsByNamespace(String namespace) {
+			return getUnits(reader.getUnitIndexesByCapabilityNamespace(namespace));
+		}
+	}
+
+	public BinaryMetadataRepository(IProvisioningAgent agent, URI location, BinaryMetadataReader reader) {
+		super(agent);
+		this.reader = reader;
+		RepositoryState state = reader.getRepositoryState();
+		state.Location = location;
+		initialize(state);
+	}
+
+	@Override
+	public synchronized void initialize(RepositoryState state) {
+		setName(state.Name);
+		setType(state.Type);
+		setVersion(state.Version == null ? null : state.Version.toString());
+		setProvider(state.Provider);
+		setDescription(state.Description);
+		setLocation(state.Location);
+		setProperties(state.Properties);
+		this.references = CollectionUtils.unmodifiableList(state.Repositories);
+	}
+
+	@Override
+	public Collection<IRepositoryReference> getReferences() {
+		return references;
+	}
+
+	@Override
+	public boolean isModifiable() {
+		return false;
+	}
+
+	@Override
+	public IQueryResult<IInstallableUnit> query(IQuery<IInstallableUnit> query, IProgressMonitor monitor) {
+		return IndexProvider.query(this, query, monitor);
+	}
+
+	@Override
+	public boolean contains(IInstallableUnit element) {
+		return getUnits(element.getId()).contains(element);
+	}
+
+	List<IInstallableUnit> getUnits(String id) {
+		return getUnits(reader.getUnitIndexes(id));
+	}
+
+	private List<IInstallableUnit> getUnits(int[] indexes) {
+		List<IInstallableUnit> result = new ArrayList<>(indexes.length);
+		for (int index : indexes)
+			result.add(reader.getUnit(index));
+		return result;
+	}
+
+	@Override
+	public synchronized IIndex<IInstallableUnit> getIndex(String memberName) {
+		if (InstallableUnit.MEMBER_ID.equals(memberName)) {
+			if (idIndex == null)
+				idIndex = new UnitIdIndex();
+			return idIndex;
+		}
+
+		if (InstallableUnit.MEMBER_PROVIDED_CAPABILITIES.equals(memberName)) {
+			if (capabilityIndex == null)
+				capabilityIndex = new UnitCapabilityIndex();
+			return capabilityIndex;
+		}
+		return null;
+	}
+
+	@Override
+	public synchronized Object getManagedProperty(Object client, String memberName, Object key) {
+		if (!(client instanceof IInstallableUnit))
+			return null;
+		IInstallableUnit iu = (IInstallableUnit) client;
+		if (InstallableUnit.MEMBER_TRANSLATED_PROPERTIES.equals(memberName)) {
+			if (translationSupport == null)
+				translationSupport = new TranslationSupport(this);
+			return key instanceof KeyWithLocale ? translationSupport.getIUProperty(iu, (KeyWithLocale) key) : translationSupport.getIUProperty(iu, key.toString());
+		}
+		return null;
+	}
+
+	@Override
+	public Iterator<IInstallableUnit> everything() {
+		return new Iterator<>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < reader.getUnitCount();
+			}
+
+			@Override
+			public IInstallableUnit next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return reader.getUnit(next++);
+			}
+		};
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataReader;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.repository.IRepositoryManager;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.repository.metadata.spi.MetadataRepositoryFactory;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Loads the binary <code>content.p2b</code> file that {@link LocalMetadataRepository}
+ * writes next to its XML content when the {@link LocalMetadataRepository#PROP_BINARY}
+ * property is set. The file is memory mapped and the resulting repository is read-only,
+ * so loads that ask for a modifiable repository fall through to the XML content.
+ */
+public class BinaryMetadataRepositoryFactory extends MetadataRepositoryFactory {
+	public static final String REPOSITORY_FILENAME = "content.p2b"; //$NON-NLS-1$
+	private static final String PROTOCOL_FILE = "file"; //$NON-NLS-1$
+	private static final boolean IS_WINDOWS = File.separatorChar == '\\';
+	private static final String[] TEXT_FILENAMES = {"content.xml", "content.jar", "content.xml.xz"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	@Override
+	public IMetadataRepository create(URI location, String name, String type, Map<String, String> properties) {
+		// binary repositories are only ever written along with a local repository
+		return null;
+	}
+
+	/**
+	 * Returns the binary file of the metadata repository at the given location.
+	 * Only local repositories write binary content, so remote locations are not
+	 * probed for it.
+	 */
+	private File getLocalFile(URI location) throws ProvisionException {
+		if (PROTOCOL_FILE.equals(location.getScheme())) {
+			File localFile = URIUtil.toFile(URIUtil.append(location, REPOSITORY_FILENAME));
+			if (localFile != null && localFile.exists())
+				return localFile;
+		}
+		String msg = NLS.bind(Messages.io_failedRead, location);
+		throw new ProvisionException(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_NOT_FOUND, msg, null));
+	}
+
+	/**
+	 * Returns whether the textual content next to a local binary file has been
+	 * written after it, for example by a tool that does not know about the binary file.
+	 */
+	private static boolean isStale(File binaryFile) {
+		for (String name : TEXT_FILENAMES) {
+			File textFile = new File(binaryFile.getParentFile(), name);
+			if (textFile.lastModified() > binaryFile.lastModified())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the content of the given binary file. The file is memory mapped, except on
+	 * Windows where it is read into memory instead: a mapping cannot be released there
+	 * and keeps the file locked, so it could not be replaced or deleted, for as long as
+	 * the buffer is referenced.
+	 */
+	static ByteBuffer readContent(FileChannel channel) throws IOException {
+		if (!IS_WINDOWS)
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0)
+				throw new EOFException();
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	@Override
+	public IMetadataRepository load(URI location, int flags, IProgressMonitor monitor) throws ProvisionException {
+		if ((flags & IRepositoryManager.REPOSITORY_HINT_MODIFIABLE) > 0)
+			return null;
+		long time = 0;
+		final String debugMsg = "Loading binary metadata repository "; //$NON-NLS-1$
+		if (Tracing.DEBUG_METADATA_PARSING) {
+			Tracing.debug(debugMsg + location);
+			time = -System.currentTimeMillis();
+		}
+		try {
+			File localFile = getLocalFile(location);
+			if (isStale(localFile))
+				return null;
+			BinaryMetadataReader reader;
+			try (FileChannel channel = FileChannel.open(localFile.toPath(), StandardOpenOption.READ)) {
+				reader = new BinaryMetadataReader(readContent(channel));
+			} catch (IOException e) {
+				// an unknown format version or a damaged file, let the textual content be used instead
+				LogHelper.log(new Status(IStatus.WARNING, Constants.ID, ProvisionException.REPOSITORY_FAILED_READ, NLS.bind(Messages.io_failedRead, location), e));
+				return null;
+			}
+			IMetadataRepository result = new BinaryMetadataRepository(getAgent(), location, reader);
+			if (Tracing.DEBUG_METADATA_PARSING) {
+				time += System.currentTimeMillis();
+				Tracing.debug(debugMsg + "time (ms): " + time); //$NON-NLS-1$
+			}
+			return result;
+		} finally {
+			if (monitor != null)
+				monitor.done();
+		}
+	}
+}
@@ -21,8 +21,11 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.metadata.index.MergedQueryable;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryIO;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryState;
+import org.eclipse.equinox.internal.p2.repository.helpers.ConcurrentRepositoryLoader;
+import org.eclipse.equinox.internal.p2.repository.helpers.ConcurrentRepositoryLoader.Outcome;
 import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryHelper;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -57,6 +60,8 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 	private List<IMetadataRepository> loadedRepos = new ArrayList<>();
 	private IMetadataRepositoryManager manager;
 	private IPool<IInstallableUnit> iuPool = new WeakPool<>();
+	// the merged view over the loaded repositories, when the merged index is enabled
+	private MergedQueryable mergedRepos;
 
 	/**
 	 * Create a Composite repository in memory.
@@ -86,12 +91,7 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 	CompositeMetadataRepository(IMetadataRepositoryManager manager, CompositeRepositoryState state, IProgressMonitor monitor) throws ProvisionException {
 		super(manager.getAgent(), state.getName(), state.getType(), state.getVersion(), state.getLocation(), state.getDescription(), state.getProvider(), state.getProperties());
 		this.manager = manager;
-		SubMonitor sub = SubMonitor.convert(monitor, 100 * state.getChildren().length);
-		List<URI> repositoriesToBeRemovedOnFailure = new ArrayList<>();
-		boolean failOnChildFailure = shouldFailOnChildFailure(state);
-		for (URI child : state.getChildren())
-			addChild(child, false, sub.newChild(100), failOnChildFailure, repositoriesToBeRemovedOnFailure);
-
+		addChildren(state.getChildren(), monitor, shouldFailOnChildFailure(state));
 	}
 
 	CompositeMetadataRepository(IMetadataRepositoryManager manager, URI location, String name, Map<String, String> properties) {
@@ -125,7 +125,7 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 			monitor = new NullProgressMonitor();
 		try {
 			// Query all the all the repositories this composite repo contains
-			IQueryable<IInstallableUnit> queryable = QueryUtil.compoundQueryable(loadedRepos);
+			IQueryable<IInstallableUnit> queryable = getQueryable();
 			return queryable.query(query, monitor);
 		} finally {
 			if (monitor != null)
@@ -170,6 +170,7 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 			currentRepo.compress(iuPool); // Share IUs across this CompositeMetadataRepository
 			// we successfully loaded the repo so remember it
 			loadedRepos.add(currentRepo);
+			mergedRepos = null;
 
 		} catch (ProvisionException e) {
 			//repository failed to load. fall through
@@ -182,6 +183,52 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 		}
 	}
 
+	/*
+	 * Adds the children of a repository being loaded. The children are loaded
+	 * concurrently and added in their order, which gives their precedence in queries.
+	 */
+	private void addChildren(URI[] children, IProgressMonitor monitor, boolean propagateException) throws ProvisionException {
+		List<URI> locations = new ArrayList<>();
+		for (URI childURI : children) {
+			URI absolute = URIUtil.makeAbsolute(childURI, getLocation());
+			if (childrenURIs.contains(childURI) || childrenURIs.contains(absolute))
+				continue;
+			// always add the URI to the list of child URIs (even if we can't load it later)
+			childrenURIs.add(childURI);
+			locations.add(absolute);
+		}
+		List<URI> repositoriesToBeRemovedOnFailure = Collections.synchronizedList(new ArrayList<>());
+		List<Outcome<IMetadataRepository>> outcomes = new ConcurrentRepositoryLoader(ConcurrentRepositoryLoader.getMaxConcurrentCompositeLoading(getProvisioningAgent())).loadAll(locations, (location, mon) -> {
+			boolean currentLoaded = getManager().contains(location);
+			IMetadataRepository currentRepo = getManager().loadRepository(location, mon);
+			if (!currentLoaded) {
+				//set enabled to false so repositories do not polled twice
+				getManager().setEnabled(location, false);
+				//set repository to system to hide from users
+				getManager().setRepositoryProperty(location, IRepository.PROP_SYSTEM, String.valueOf(true));
+				repositoriesToBeRemovedOnFailure.add(location);
+			}
+			return currentRepo;
+		}, propagateException, monitor);
+		for (Outcome<IMetadataRepository> outcome : outcomes) {
+			if (outcome.getFailure() != null) {
+				//repository failed to load. fall through
+				LogHelper.log(outcome.getFailure());
+				if (propagateException) {
+					removeFromRepoManager(repositoriesToBeRemovedOnFailure);
+					String msg = NLS.bind(Messages.io_failedRead, getLocation());
+					throw new ProvisionException(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_READ, msg, outcome.getFailure()));
+				}
+				continue;
+			}
+			IMetadataRepository currentRepo = outcome.getRepository();
+			currentRepo.compress(iuPool); // Share IUs across this CompositeMetadataRepository
+			// we successfully loaded the repo so remember it
+			loadedRepos.add(currentRepo);
+			mergedRepos = null;
+		}
+	}
+
 	@Override
 	public void addChild(URI childURI) {
 		try {
@@ -210,8 +257,10 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 					break;
 				}
 			}
-			if (found != null)
+			if (found != null) {
 				loadedRepos.remove(found);
+				mergedRepos = null;
+			}
 			save();
 		}
 	}
@@ -220,6 +269,7 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 	public void removeAllChildren() {
 		childrenURIs.clear();
 		loadedRepos.clear();
+		mergedRepos = null;
 		save();
 	}
 
@@ -337,10 +387,22 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 		setProperties(state.Properties);
 	}
 
+	/*
+	 * Returns a queryable over the loaded repositories. When the merged index is
+	 * enabled, the same merged queryable is used until the children change.
+	 */
+	private IQueryable<IInstallableUnit> getQueryable() {
+		if (!Boolean.parseBoolean(getProvisioningAgent().getProperty(MergedQueryable.PROP_MERGED_INDEX)))
+			return QueryUtil.compoundQueryable(loadedRepos);
+		if (mergedRepos == null)
+			mergedRepos = new MergedQueryable(loadedRepos);
+		return mergedRepos;
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public IIndex<IInstallableUnit> getIndex(String memberName) {
-		IQueryable<IInstallableUnit> queryable = QueryUtil.compoundQueryable(loadedRepos);
+		IQueryable<IInstallableUnit> queryable = getQueryable();
 		if (queryable instanceof IIndexProvider<?>) {
 			return ((IIndexProvider<IInstallableUnit>) queryable).getIndex(memberName);
 		}
@@ -350,7 +412,7 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 	@Override
 	@SuppressWarnings("unchecked")
 	public Iterator<IInstallableUnit> everything() {
-		IQueryable<IInstallableUnit> queryable = QueryUtil.compoundQueryable(loadedRepos);
+		IQueryable<IInstallableUnit> queryable = getQueryable();
 		if (queryable instanceof IIndexProvider<?>) {
 			return ((IIndexProvider<IInstallableUnit>) queryable).everything();
 		}
@@ -360,7 +422,7 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 	@Override
 	@SuppressWarnings("unchecked")
 	public Object getManagedProperty(Object client, String memberName, Object key) {
-		IQueryable<IInstallableUnit> queryable = QueryUtil.compoundQueryable(loadedRepos);
+		IQueryable<IInstallableUnit> queryable = getQueryable();
 		if (queryable instanceof IIndexProvider<?>) {
 			return ((IIndexProvider<IInstallableUnit>) queryable).getManagedProperty(client, memberName, key);
 		}
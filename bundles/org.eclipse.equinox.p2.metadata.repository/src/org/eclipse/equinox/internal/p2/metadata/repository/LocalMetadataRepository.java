@@ -17,6 +17,8 @@ package org.eclipse.equinox.internal.p2.metadata.repository;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
@@ -24,6 +26,7 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.metadata.*;
 import org.eclipse.equinox.internal.p2.metadata.index.*;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataWriter;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.internal.provisional.p2.repository.RepositoryEvent;
 import org.eclipse.equinox.p2.core.*;
@@ -44,11 +47,18 @@ import org.eclipse.equinox.p2.repository.metadata.spi.AbstractMetadataRepository
  */
 public class LocalMetadataRepository extends AbstractMetadataRepository implements IIndexProvider<IInstallableUnit> {
 
+	/**
+	 * Repository property that, when set to <code>"true"</code>, causes a binary copy of
+	 * the content to be written next to the XML content, see {@link BinaryMetadataRepositoryFactory}.
+	 */
+	public static final String PROP_BINARY = "p2.binary"; //$NON-NLS-1$
+
 	private static final String CONTENT_FILENAME = "content"; //$NON-NLS-1$
 	private static final String REPOSITORY_TYPE = LocalMetadataRepository.class.getName();
 	private static final Integer REPOSITORY_VERSION = 1;
 	private static final String JAR_EXTENSION = ".jar"; //$NON-NLS-1$
 	private static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
+	private static final String BINARY_EXTENSION = ".p2b"; //$NON-NLS-1$
 
 	protected IUMap units = new IUMap();
 	protected final Set<IRepositoryReference> repositories = new LinkedHashSet<>();
@@ -57,6 +67,8 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 	private TranslationSupport translationSupport;
 	private boolean snapshotNeeded = false;
 	private boolean disableSave = false;
+	// whether the units are the ones read from disk, only those have their capability index persisted
+	private boolean unitsLoaded = false;
 
 	private static File getActualLocation(URI location, String extension) {
 		File spec = URIUtil.toFile(location);
@@ -77,6 +89,14 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		return getActualLocation(location, XML_EXTENSION);
 	}
 
+	/**
+	 * Returns the file holding the content of this repository, compressed or not.
+	 */
+	private File getContentFile() {
+		File jarFile = getActualLocation(getLocation(), JAR_EXTENSION);
+		return jarFile.exists() ? jarFile : getActualLocation(getLocation());
+	}
+
 	/**
 	 * This no argument constructor is called when restoring an existing repository.
 	 */
@@ -108,6 +128,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		}
 		units.addAll(installableUnits);
 		capabilityIndex = null; // Generated, not backed by units
+		unitsLoaded = false;
 		save();
 	}
 
@@ -146,7 +167,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		if (InstallableUnit.MEMBER_PROVIDED_CAPABILITIES.equals(memberName)) {
 			snapshotNeeded = true;
 			if (capabilityIndex == null)
-				capabilityIndex = new CapabilityIndex(units.iterator());
+				capabilityIndex = unitsLoaded ? PersistentCapabilityIndex.getIndex(getProvisioningAgent(), this, units, getContentFile()) : new CapabilityIndex(units.iterator());
 			return capabilityIndex;
 		}
 		return null;
@@ -176,6 +197,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			setLocation(state.Location);
 			setProperties(state.Properties);
 			this.units.addAll(state.Units);
+			this.unitsLoaded = true;
 			this.repositories.addAll(Arrays.asList(state.Repositories));
 		}
 		publishRepositoryReferences();
@@ -237,6 +259,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		} else
 			units.clear();
 		capabilityIndex = null; // Generated, not backed by units.
+		unitsLoaded = false;
 		save();
 	}
 
@@ -252,6 +275,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			}
 			units.removeAll(installableUnits);
 			capabilityIndex = null; // Generated, not backed by units.
+			unitsLoaded = false;
 		}
 		if (changed)
 			save();
@@ -297,11 +321,36 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			}
 			super.setProperty(IRepository.PROP_TIMESTAMP, Long.toString(System.currentTimeMillis()), new NullProgressMonitor());
 			new MetadataRepositoryIO(getProvisioningAgent()).write(this, output);
+			saveBinary();
 		} catch (IOException e) {
 			LogHelper.log(new Status(IStatus.ERROR, Constants.ID, ProvisionException.REPOSITORY_FAILED_WRITE, "Error saving metadata repository: " + getLocation(), e)); //$NON-NLS-1$
 		}
 	}
 
+	/**
+	 * Writes the binary copy of the content if the repository asks for one, or removes
+	 * a binary copy left over from before, so that it never shadows newer XML content.
+	 */
+	private void saveBinary() throws IOException {
+		File binaryFile = getActualLocation(getLocation(), BINARY_EXTENSION);
+		if (!"true".equalsIgnoreCase(getProperty(PROP_BINARY))) { //$NON-NLS-1$
+			// a binary copy that cannot be removed is older than the XML content, so it is not loaded
+			if (binaryFile.exists() && !binaryFile.delete())
+				LogHelper.log(new Status(IStatus.WARNING, Constants.ID, ProvisionException.REPOSITORY_FAILED_WRITE, "Unable to delete binary metadata: " + binaryFile, null)); //$NON-NLS-1$
+			return;
+		}
+		// replace the file rather than overwrite it, a repository loaded from it may still map it
+		File tempFile = new File(binaryFile.getParentFile(), binaryFile.getName() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (OutputStream output = new FileOutputStream(tempFile)) {
+				new BinaryMetadataWriter(output).write(this);
+			}
+			Files.move(tempFile.toPath(), binaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+	}
+
 	@Override
 	public String setProperty(String key, String newValue, IProgressMonitor monitor) {
 		try {
@@ -14,6 +14,7 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.metadata.repository;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Map;
 import org.eclipse.core.runtime.*;
@@ -87,6 +88,30 @@ public class MetadataRepositoryManager extends AbstractRepositoryManager<IInstal
 		return properties.getMetadataFactorySearchOrder();
 	}
 
+	/**
+	 * In addition to the default ordering, moves the binary content file of a
+	 * local repository to the front when it exists, as it is much cheaper to load
+	 * than any of the textual forms. An order given by the p2.index file of the
+	 * repository is left as it is.
+	 */
+	@Override
+	protected String[] sortSuffixes(String[] suffixes, URI location, String[] preferredOrder) {
+		String[] result = super.sortSuffixes(suffixes, location, preferredOrder);
+		if (!"file".equals(location.getScheme()) || (preferredOrder != null && preferredOrder.length > 0)) //$NON-NLS-1$
+			return result;
+		for (int i = 1; i < result.length; i++) {
+			if (BinaryMetadataRepositoryFactory.REPOSITORY_FILENAME.equals(result[i])) {
+				File binaryFile = URIUtil.toFile(URIUtil.append(location, BinaryMetadataRepositoryFactory.REPOSITORY_FILENAME));
+				if (binaryFile != null && binaryFile.exists()) {
+					System.arraycopy(result, 0, result, 1, i);
+					result[0] = BinaryMetadataRepositoryFactory.REPOSITORY_FILENAME;
+				}
+				break;
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Restores metadata repositories specified as system properties.
 	 */
@@ -107,9 +132,29 @@ public class MetadataRepositoryManager extends AbstractRepositoryManager<IInstal
 
 	@Override
 	public IMetadataRepository loadRepository(URI location, int flags, IProgressMonitor monitor) throws ProvisionException {
+		if ((flags & REPOSITORY_HINT_MODIFIABLE) > 0)
+			forgetBinaryRepository(location);
 		return (IMetadataRepository) loadRepository(location, monitor, null, flags);
 	}
 
+	/**
+	 * Drops a binary repository loaded from the given location, so that a load that
+	 * asks for a modifiable repository reads the textual content instead of getting
+	 * the read-only repository back.
+	 */
+	private void forgetBinaryRepository(URI location) {
+		if (!(basicGetRepository(location) instanceof BinaryMetadataRepository))
+			return;
+		synchronized (repositoryLock) {
+			for (RepositoryInfo<IInstallableUnit> info : repositories.values()) {
+				if (URIUtil.sameURI(info.location, location)) {
+					info.repository = null;
+					info.suffix = null;
+				}
+			}
+		}
+	}
+
 	@Override
 	public IMetadataRepository refreshRepository(URI location, IProgressMonitor monitor) throws ProvisionException {
 		return (IMetadataRepository) basicRefreshRepository(location, monitor);
@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.internal.p2.metadata.IUMap;
+import org.eclipse.equinox.internal.p2.metadata.index.CapabilityIndex;
+import org.eclipse.equinox.internal.p2.repository.CacheManager;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
+import org.eclipse.equinox.p2.metadata.expression.IExpression;
+import org.eclipse.equinox.p2.metadata.index.IIndex;
+import org.eclipse.equinox.p2.repository.IRepository;
+
+/**
+ * A {@link CapabilityIndex} that is persisted in the cache directory of the
+ * {@link CacheManager} so that it does not have to be rebuilt from the provided
+ * capabilities of every unit each time a repository is loaded. The file is memory
+ * mapped and maps capability names and namespaces to unit ordinals; a unit is
+ * only looked up in the {@link IUMap} of the repository once a query hits it.
+ * <p>
+ * The file is keyed by the {@link IRepository#PROP_TIMESTAMP timestamp} of the
+ * repository and, for local repositories, the size and modification time of the
+ * content file. When the key does not match the file is rewritten, and when a unit
+ * recorded in the file cannot be found the index is rebuilt in memory.
+ */
+public class PersistentCapabilityIndex extends CapabilityIndex {
+	private static final String CACHE_PREFIX = "capabilities"; //$NON-NLS-1$
+	private static final int MAGIC = 0x70326369;
+	private static final int FORMAT_VERSION = 3;
+
+	// header layout, all values are big endian ints
+	private static final int UNIT_COUNT = 8;
+	private static final int STAMP_OFFSET = 12;
+	private static final int UNITS_OFFSET = 16;
+	private static final int NAME_TABLE_OFFSET = 20;
+	private static final int NAME_TABLE_SIZE = 24;
+	private static final int NAMESPACE_TABLE_OFFSET = 28;
+	private static final int NAMESPACE_TABLE_SIZE = 32;
+	private static final int HEADER_SIZE = 36;
+
+	private final ByteBuffer buffer;
+	private final IUMap units;
+	private final File file;
+	// units and lookup results are only ever computed to the same value, so they are kept without locking
+	private final IInstallableUnit[] resolved;
+	private final Map<String, Object> unitsByName = new ConcurrentHashMap<>();
+	private final Map<String, Object> unitsByNamespace = new ConcurrentHashMap<>();
+	private volatile CapabilityIndex fallback;
+
+	/**
+	 * Thrown when the file refers to a unit that is not in the repository.
+	 */
+	private static class StaleIndexException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * A growable list of unit ordinals.
+	 */
+	private static class Postings {
+		int[] ordinals = new int[1];
+		int size;
+
+		void add(int ordinal) {
+			// units are added in order, so a unit providing several capabilities of the same name is only seen in a row
+			if (size > 0 && ordinals[size - 1] == ordinal)
+				return;
+			if (size == ordinals.length)
+				ordinals = Arrays.copyOf(ordinals, size * 2);
+			ordinals[size++] = ordinal;
+		}
+	}
+
+	private PersistentCapabilityIndex(ByteBuffer buffer, IUMap units, File file) {
+		this.buffer = buffer;
+		this.units = units;
+		this.file = file;
+		this.resolved = new IInstallableUnit[buffer.getInt(UNIT_COUNT)];
+	}
+
+	/**
+	 * Returns a capability index for the given units of a repository. The index is
+	 * read from the cache directory if it is up to date with the repository, and
+	 * written there otherwise. The in-memory {@link CapabilityIndex} is used when the
+	 * repository has no timestamp or the cache directory cannot be used.
+	 *
+	 * @param content the local file the units were read from, or <code>null</code>
+	 */
+	public static IIndex<IInstallableUnit> getIndex(IProvisioningAgent agent, IRepository<IInstallableUnit> repository, IUMap units, File content) {
+		String timestamp = repository.getProperty(IRepository.PROP_TIMESTAMP);
+		CacheManager cache = agent == null ? null : agent.getService(CacheManager.class);
+		if (timestamp == null || cache == null || repository.getLocation() == null)
+			return new CapabilityIndex(units.iterator());
+
+		File file;
+		try {
+			file = cache.getDerivedCacheFile(repository.getLocation(), CACHE_PREFIX);
+		} catch (RuntimeException e) {
+			// no agent data area to keep the index in
+			return new CapabilityIndex(units.iterator());
+		}
+		String stamp = content == null ? timestamp : timestamp + '/' + content.length() + '/' + content.lastModified();
+		PersistentCapabilityIndex index = open(file, units, stamp);
+		if (index != null) {
+			if (Tracing.DEBUG_METADATA_PARSING)
+				Tracing.debug("Using persisted capability index for " + repository.getLocation()); //$NON-NLS-1$
+			return index;
+		}
+		List<IInstallableUnit> ordered = new ArrayList<>();
+		units.iterator().forEachRemaining(ordered::add);
+		try {
+			write(file, ordered, stamp);
+		} catch (IOException e) {
+			// the cache is an optimization only
+			return new CapabilityIndex(ordered.iterator());
+		}
+		index = open(file, units, stamp);
+		return index != null ? index : new CapabilityIndex(ordered.iterator());
+	}
+
+	private static PersistentCapabilityIndex open(File file, IUMap units, String stamp) {
+		if (!file.isFile())
+			return null;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+				return null;
+			ByteBuffer buffer = BinaryMetadataRepositoryFactory.readContent(channel);
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION)
+				return null;
+			if (!stamp.equals(readString(buffer, buffer.getInt(STAMP_OFFSET))))
+				return null;
+			return new PersistentCapabilityIndex(buffer, units, file);
+		} catch (IOException | RuntimeException e) {
+			// a damaged or truncated file is rebuilt
+			return null;
+		}
+	}
+
+	private static String readString(ByteBuffer buffer, int offset) {
+		byte[] bytes = new byte[buffer.getInt(offset)];
+		buffer.get(offset + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void write(File file, List<IInstallableUnit> ordered, String stamp) throws IOException {
+		Map<String, Postings> names = new HashMap<>();
+		Map<String, Postings> namespaces = new HashMap<>();
+		for (int ordinal = 0; ordinal < ordered.size(); ordinal++) {
+			for (IProvidedCapability capability : ordered.get(ordinal).getProvidedCapabilities()) {
+				names.computeIfAbsent(capability.getName(), name -> new Postings()).add(ordinal);
+				namespaces.computeIfAbsent(capability.getNamespace(), namespace -> new Postings()).add(ordinal);
+			}
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		Map<String, Integer> strings = new HashMap<>();
+		out.write(new byte[HEADER_SIZE]);
+		int stampOffset = writeString(out, strings, stamp);
+		int[] unitStrings = new int[ordered.size() * 2];
+		for (int i = 0; i < ordered.size(); i++) {
+			unitStrings[i * 2] = writeString(out, strings, ordered.get(i).getId());
+			unitStrings[i * 2 + 1] = writeString(out, strings, ordered.get(i).getVersion().toString());
+		}
+		int unitsOffset = out.size();
+		for (int offset : unitStrings)
+			out.writeInt(offset);
+		int[] nameTable = writeTable(out, strings, names);
+		int[] namespaceTable = writeTable(out, strings, namespaces);
+		out.flush();
+
+		ByteBuffer result = ByteBuffer.wrap(bytes.toByteArray());
+		result.putInt(0, MAGIC);
+		result.putInt(4, FORMAT_VERSION);
+		result.putInt(UNIT_COUNT, ordered.size());
+		result.putInt(STAMP_OFFSET, stampOffset);
+		result.putInt(UNITS_OFFSET, unitsOffset);
+		result.putInt(NAME_TABLE_OFFSET, nameTable[0]);
+		result.putInt(NAME_TABLE_SIZE, nameTable[1]);
+		result.putInt(NAMESPACE_TABLE_OFFSET, namespaceTable[0]);
+		result.putInt(NAMESPACE_TABLE_SIZE, namespaceTable[1]);
+
+		// write next to the target and move it in place, so readers never see a partial file
+		file.getParentFile().mkdirs();
+		File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile()); //$NON-NLS-1$
+		try {
+			Files.write(temp.toPath(), result.array());
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	private static int writeString(DataOutputStream out, Map<String, Integer> strings, String value) throws IOException {
+		Integer offset = strings.get(value);
+		if (offset != null)
+			return offset;
+		offset = out.size();
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+		strings.put(value, offset);
+		return offset;
+	}
+
+	/**
+	 * Writes the entries of the given map followed by an open addressing hash table
+	 * of (key hash, entry offset) slots, and returns the offset and size of the table.
+	 */
+	private static int[] writeTable(DataOutputStream out, Map<String, Integer> strings, Map<String, Postings> entries) throws IOException {
+		int tableSize = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+		int[] slots = new int[tableSize * 2];
+		for (Map.Entry<String, Postings> entry : entries.entrySet()) {
+			int keyOffset = writeString(out, strings, entry.getKey());
+			int entryOffset = out.size();
+			Postings postings = entry.getValue();
+			out.writeInt(keyOffset);
+			out.writeInt(postings.size);
+			for (int i = 0; i < postings.size; i++)
+				out.writeInt(postings.ordinals[i]);
+
+			int hash = entry.getKey().hashCode();
+			int slot = hash & (tableSize - 1);
+			while (slots[slot * 2 + 1] != 0)
+				slot = (slot + 1) & (tableSize - 1);
+			slots[slot * 2] = hash;
+			slots[slot * 2 + 1] = entryOffset;
+		}
+		int tableOffset = out.size();
+		for (int value : slots)
+			out.writeInt(value);
+		return new int[] {tableOffset, tableSize};
+	}
+
+	@Override
+	protected Object getUnitsByName(String name) {
+		Object result = unitsByName.get(name);
+		if (result == null) {
+			result = lookup(buffer.getInt(NAME_TABLE_OFFSET), buffer.getInt(NAME_TABLE_SIZE), name);
+			unitsByName.put(name, result);
+		}
+		return result;
+	}
+
+	@Override
+	protected Object getUnitsByNamespace(String namespace) {
+		Object result = unitsByNamespace.get(namespace);
+		if (result == null) {
+			result = lookup(buffer.getInt(NAMESPACE_TABLE_OFFSET), buffer.getInt(NAMESPACE_TABLE_SIZE), namespace);
+			unitsByNamespace.put(namespace, result);
+		}
+		return result;
+	}
+
+	private Object lookup(int tableOffset, int tableSize, String key) {
+		int hash = key.hashCode();
+		for (int slot = hash & (tableSize - 1);; slot = (slot + 1) & (tableSize - 1)) {
+			int position = tableOffset + slot * 8;
+			int entry = buffer.getInt(position + 4);
+			if (entry == 0)
+				return Collections.emptyList();
+			if (buffer.getInt(position) != hash || !key.equals(readString(buffer, buffer.getInt(entry))))
+				continue;
+			int count = buffer.getInt(entry + 4);
+			if (count == 1)
+				return resolve(buffer.getInt(entry + 8));
+			IInstallableUnit[] result = new IInstallableUnit[count];
+			for (int i = 0; i < count; i++)
+				result[i] = resolve(buffer.getInt(entry + 8 + i * 4));
+			return Collections.unmodifiableList(Arrays.asList(result));
+		}
+	}
+
+	private IInstallableUnit resolve(int ordinal) {
+		IInstallableUnit iu = resolved[ordinal];
+		if (iu == null) {
+			int position = buffer.getInt(UNITS_OFFSET) + ordinal * 8;
+			String id = readString(buffer, buffer.getInt(position));
+			Version version = Version.create(readString(buffer, buffer.getInt(position + 4)));
+			iu = units.get(id, version);
+			if (iu == null)
+				throw new StaleIndexException();
+			resolved[ordinal] = iu;
+		}
+		return iu;
+	}
+
+	@Override
+	public Iterator<IInstallableUnit> getCandidates(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
+		CapabilityIndex current = fallback;
+		if (current == null) {
+			try {
+				return super.getCandidates(ctx, variable, booleanExpr);
+			} catch (StaleIndexException e) {
+				// the file does not describe these units after all
+				synchronized (this) {
+					if (fallback == null) {
+						fallback = new CapabilityIndex(units.iterator());
+						file.delete();
+					}
+					current = fallback;
+				}
+			}
+		}
+		return current.getCandidates(ctx, variable, booleanExpr);
+	}
+}
@@ -122,7 +122,7 @@ public class URLMetadataRepository extends AbstractMetadataRepository implements
 
 		if (InstallableUnit.MEMBER_PROVIDED_CAPABILITIES.equals(memberName)) {
 			if (capabilityIndex == null)
-				capabilityIndex = new CapabilityIndex(units.iterator());
+				capabilityIndex = PersistentCapabilityIndex.getIndex(getProvisioningAgent(), this, units, null);
 			return capabilityIndex;
 		}
 		return null;
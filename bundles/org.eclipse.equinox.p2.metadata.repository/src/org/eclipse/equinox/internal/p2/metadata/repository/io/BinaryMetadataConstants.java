@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository.io;
+
+/**
+ * Constants describing the layout of a binary metadata repository file.
+ * <p>
+ * The file starts with a fixed size header holding the magic number, the format
+ * version and the location of each section. All integers are big-endian, all
+ * offsets are absolute positions in the file. Strings, versions, version ranges
+ * and requirements are stored once in pooled tables and referenced by their index
+ * everywhere else, <code>-1</code> standing for <code>null</code>. The unit index
+ * holds the id, version and record offset of every installable unit so units can
+ * be located without decoding any of them, and the capability table lists the
+ * namespace and name of every provided capability along with the position of its
+ * unit, so capability queries do not decode units that cannot match.
+ * </p>
+ * <pre>
+ * header       magic, format version, (count, offset) of strings, versions, ranges,
+ *              requirements, offset of the repository record, unit count, index offset,
+ *              (count, offset) of capabilities
+ * strings      int[count + 1] relative offsets, followed by the UTF-8 bytes
+ * versions     int[count] string index of the original version text
+ * ranges       int[count] string index of the range text
+ * requirements int[count] record offsets, followed by the records
+ * repository   name, type, version, provider, description, properties, references
+ * index        int[count][3] id string index, version index, record offset
+ * capabilities int[count][3] namespace string index, name string index, unit position
+ * units        one record per installable unit
+ * </pre>
+ */
+public interface BinaryMetadataConstants {
+
+	int MAGIC = 0x70326D62; // "p2mb"
+	int FORMAT_VERSION = 2;
+
+	int HEADER_SIZE = 15 * 4;
+	int INDEX_ENTRY_SIZE = 3 * 4;
+	int CAPABILITY_ENTRY_SIZE = 3 * 4;
+
+	// unit kinds
+	byte UNIT = 0;
+	byte UNIT_FRAGMENT = 1;
+	byte UNIT_PATCH = 2;
+
+	// requirement kinds
+	byte REQUIREMENT_RANGE = 0;
+	byte REQUIREMENT_PROPERTIES = 1;
+	byte REQUIREMENT_EXPRESSION = 2;
+
+	// provided capability property types
+	byte PROPERTY_STRING = 0;
+	byte PROPERTY_INTEGER = 1;
+	byte PROPERTY_LONG = 2;
+	byte PROPERTY_FLOAT = 3;
+	byte PROPERTY_DOUBLE = 4;
+	byte PROPERTY_BYTE = 5;
+	byte PROPERTY_SHORT = 6;
+	byte PROPERTY_CHARACTER = 7;
+	byte PROPERTY_BOOLEAN = 8;
+	byte PROPERTY_VERSION = 9;
+	byte PROPERTY_LIST = 10;
+}
@@ -0,0 +1,524 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository.io;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.repository.Messages;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.*;
+import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+import org.eclipse.equinox.p2.repository.IRepositoryReference;
+import org.eclipse.equinox.p2.repository.metadata.spi.AbstractMetadataRepository.RepositoryState;
+import org.eclipse.equinox.p2.repository.spi.RepositoryReference;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Reads a metadata repository written by {@link BinaryMetadataWriter}.
+ * <p>
+ * The reader works directly on the given buffer, which is typically a memory
+ * mapped file. Only the header is read up front; strings, versions, ranges,
+ * requirements and installable units are decoded the first time they are asked
+ * for and are then shared by everything referencing them.
+ * </p>
+ */
+public class BinaryMetadataReader implements BinaryMetadataConstants {
+
+	private final ByteBuffer buffer;
+
+	private final int stringsOffset;
+	private final int stringData;
+	private final int versionsOffset;
+	private final int rangesOffset;
+	private final int requirementsOffset;
+	private final int repositoryOffset;
+	private final int indexOffset;
+	private final int capabilityCount;
+	private final int capabilitiesOffset;
+
+	private final String[] strings;
+	private final Version[] versions;
+	private final VersionRange[] ranges;
+	private final IRequirement[] requirements;
+	private final IInstallableUnit[] units;
+	private Map<String, int[]> unitsById;
+	private Map<String, int[]> unitsByCapabilityName;
+	private Map<String, int[]> unitsByCapabilityNamespace;
+
+	/**
+	 * A position in the buffer that advances as values are read from it.
+	 */
+	private class Cursor {
+		private int position;
+
+		Cursor(int position) {
+			this.position = position;
+		}
+
+		byte readByte() {
+			return buffer.get(position++);
+		}
+
+		boolean readBoolean() {
+			return readByte() != 0;
+		}
+
+		int readInt() {
+			int value = buffer.getInt(position);
+			position += 4;
+			return value;
+		}
+
+		String readString() {
+			return string(readInt());
+		}
+
+		Version readVersion() {
+			return version(readInt());
+		}
+
+		VersionRange readRange() {
+			return range(readInt());
+		}
+
+		IRequirement readRequirement() {
+			return requirement(readInt());
+		}
+
+		IRequirement[] readRequirements() {
+			IRequirement[] result = new IRequirement[readInt()];
+			for (int i = 0; i < result.length; i++)
+				result[i] = readRequirement();
+			return result;
+		}
+
+		URI readURI() {
+			String value = readString();
+			return value == null ? null : URI.create(value);
+		}
+	}
+
+	/**
+	 * Creates a reader for the given buffer.
+	 * @throws IOException if the buffer does not hold a binary metadata repository
+	 * of a supported format version
+	 */
+	public BinaryMetadataReader(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException(Messages.io_parseError);
+		int formatVersion = buffer.getInt(4);
+		if (formatVersion != FORMAT_VERSION)
+			throw new IOException(NLS.bind(Messages.io_IncompatibleVersion, formatVersion, FORMAT_VERSION));
+		Cursor header = new Cursor(8);
+		strings = new String[header.readInt()];
+		stringsOffset = header.readInt();
+		stringData = stringsOffset + 4 * (strings.length + 1);
+		versions = new Version[header.readInt()];
+		versionsOffset = header.readInt();
+		ranges = new VersionRange[header.readInt()];
+		rangesOffset = header.readInt();
+		requirements = new IRequirement[header.readInt()];
+		requirementsOffset = header.readInt();
+		repositoryOffset = header.readInt();
+		units = new IInstallableUnit[header.readInt()];
+		indexOffset = header.readInt();
+		capabilityCount = header.readInt();
+		capabilitiesOffset = header.readInt();
+	}
+
+	/**
+	 * Returns the state of the repository, without its installable units, which
+	 * are available through {@link #getUnit(int)}.
+	 */
+	public synchronized RepositoryState getRepositoryState() {
+		Cursor cursor = new Cursor(repositoryOffset);
+		RepositoryState state = new RepositoryState();
+		state.Name = cursor.readString();
+		state.Type = cursor.readString();
+		String version = cursor.readString();
+		state.Version = version == null ? null : Version.create(version);
+		state.Provider = cursor.readString();
+		state.Description = cursor.readString();
+		state.Properties = readProperties(cursor);
+		state.Repositories = new IRepositoryReference[cursor.readInt()];
+		for (int i = 0; i < state.Repositories.length; i++) {
+			URI location = cursor.readURI();
+			String nickname = cursor.readString();
+			int type = cursor.readInt();
+			int options = cursor.readInt();
+			state.Repositories[i] = new RepositoryReference(location, nickname, type, options);
+		}
+		return state;
+	}
+
+	public int getUnitCount() {
+		return units.length;
+	}
+
+	/**
+	 * Returns the id of the unit at the given position without decoding the unit.
+	 */
+	public synchronized String getUnitId(int index) {
+		return string(buffer.getInt(indexOffset + index * INDEX_ENTRY_SIZE));
+	}
+
+	/**
+	 * Returns the positions of all units with the given id.
+	 */
+	public synchronized int[] getUnitIndexes(String id) {
+		if (unitsById == null) {
+			Map<String, int[]> result = new HashMap<>();
+			for (int i = 0; i < units.length; i++) {
+				String unitId = getUnitId(i);
+				int[] previous = result.get(unitId);
+				if (previous == null) {
+					result.put(unitId, new int[] {i});
+				} else {
+					int[] indexes = Arrays.copyOf(previous, previous.length + 1);
+					indexes[previous.length] = i;
+					result.put(unitId, indexes);
+				}
+			}
+			unitsById = result;
+		}
+		int[] result = unitsById.get(id);
+		return result == null ? new int[0] : result;
+	}
+
+	/**
+	 * Returns the positions of all units providing a capability with the given
+	 * name, without decoding any unit.
+	 */
+	public synchronized int[] getUnitIndexesByCapabilityName(String name) {
+		if (unitsByCapabilityName == null)
+			readCapabilities();
+		int[] result = unitsByCapabilityName.get(name);
+		return result == null ? new int[0] : result;
+	}
+
+	/**
+	 * Returns the positions of all units providing a capability in the given
+	 * namespace, without decoding any unit.
+	 */
+	public synchronized int[] getUnitIndexesByCapabilityNamespace(String namespace) {
+		if (unitsByCapabilityNamespace == null)
+			readCapabilities();
+		int[] result = unitsByCapabilityNamespace.get(namespace);
+		return result == null ? new int[0] : result;
+	}
+
+	private void readCapabilities() {
+		Map<String, int[]> byName = new HashMap<>();
+		Map<String, int[]> byNamespace = new HashMap<>();
+		Cursor cursor = new Cursor(capabilitiesOffset);
+		for (int i = 0; i < capabilityCount; i++) {
+			String namespace = cursor.readString();
+			String name = cursor.readString();
+			int index = cursor.readInt();
+			addUnitIndex(byNamespace, namespace, index);
+			addUnitIndex(byName, name, index);
+		}
+		byName.replaceAll(BinaryMetadataReader::trimUnitIndexes);
+		byNamespace.replaceAll(BinaryMetadataReader::trimUnitIndexes);
+		unitsByCapabilityName = byName;
+		unitsByCapabilityNamespace = byNamespace;
+	}
+
+	/**
+	 * Adds a unit position to the positions kept for the given key. The first
+	 * element of the kept array is the number of positions that follow it.
+	 */
+	private static void addUnitIndex(Map<String, int[]> map, String key, int index) {
+		int[] indexes = map.get(key);
+		if (indexes == null) {
+			map.put(key, new int[] {1, index});
+			return;
+		}
+		int size = indexes[0];
+		// the capabilities of a unit are written in a row
+		if (indexes[size] == index)
+			return;
+		if (size + 1 == indexes.length) {
+			indexes = Arrays.copyOf(indexes, indexes.length * 2);
+			map.put(key, indexes);
+		}
+		indexes[++size] = index;
+		indexes[0] = size;
+	}
+
+	private static int[] trimUnitIndexes(String key, int[] indexes) {
+		return Arrays.copyOfRange(indexes, 1, indexes[0] + 1);
+	}
+
+	/**
+	 * Returns the unit at the given position, decoding it if this has not been
+	 * done before.
+	 */
+	public synchronized IInstallableUnit getUnit(int index) {
+		IInstallableUnit unit = units[index];
+		if (unit == null) {
+			unit = readInstallableUnit(new Cursor(buffer.getInt(indexOffset + index * INDEX_ENTRY_SIZE + 8)));
+			units[index] = unit;
+		}
+		return unit;
+	}
+
+	private IInstallableUnit readInstallableUnit(Cursor cursor) {
+		byte kind = cursor.readByte();
+		InstallableUnitDescription description;
+		if (kind == UNIT_PATCH)
+			description = new InstallableUnitPatchDescription();
+		else if (kind == UNIT_FRAGMENT)
+			description = new InstallableUnitFragmentDescription();
+		else
+			description = new InstallableUnitDescription();
+		description.setId(cursor.readString());
+		description.setVersion(cursor.readVersion());
+		description.setSingleton(cursor.readBoolean());
+
+		if (kind == UNIT_PATCH) {
+			InstallableUnitPatchDescription patch = (InstallableUnitPatchDescription) description;
+			IRequirement[][] scope = new IRequirement[cursor.readInt()][];
+			for (int i = 0; i < scope.length; i++)
+				scope[i] = cursor.readRequirements();
+			IRequirementChange[] changes = new IRequirementChange[cursor.readInt()];
+			for (int i = 0; i < changes.length; i++)
+				changes[i] = MetadataFactory.createRequirementChange(cursor.readRequirement(), cursor.readRequirement());
+			patch.setRequirementChanges(changes);
+			patch.setApplicabilityScope(scope);
+			IRequirement lifeCycle = cursor.readRequirement();
+			if (lifeCycle != null)
+				patch.setLifeCycle(lifeCycle);
+		} else if (kind == UNIT_FRAGMENT) {
+			((InstallableUnitFragmentDescription) description).setHost(cursor.readRequirements());
+		}
+
+		if (cursor.readBoolean())
+			description.setUpdateDescriptor(readUpdateDescriptor(cursor));
+		for (Map.Entry<String, String> property : readProperties(cursor).entrySet())
+			description.setProperty(property.getKey(), property.getValue());
+		description.setMetaRequirements(cursor.readRequirements());
+		description.setCapabilities(readProvidedCapabilities(cursor));
+		description.setRequirements(cursor.readRequirements());
+		String filter = cursor.readString();
+		if (filter != null)
+			description.setFilter(InstallableUnit.parseFilter(filter));
+
+		IArtifactKey[] artifacts = new IArtifactKey[cursor.readInt()];
+		for (int i = 0; i < artifacts.length; i++) {
+			String classifier = cursor.readString();
+			String id = cursor.readString();
+			artifacts[i] = new ArtifactKey(classifier, id, cursor.readVersion());
+		}
+		description.setArtifacts(artifacts);
+
+		String touchpointId = cursor.readString();
+		description.setTouchpointType(MetadataFactory.createTouchpointType(touchpointId, cursor.readVersion()));
+
+		int touchpointDataCount = cursor.readInt();
+		for (int i = 0; i < touchpointDataCount; i++) {
+			int instructionCount = cursor.readInt();
+			Map<String, ITouchpointInstruction> instructions = new LinkedHashMap<>(instructionCount);
+			for (int j = 0; j < instructionCount; j++) {
+				String key = cursor.readString();
+				String body = cursor.readString();
+				instructions.put(key, MetadataFactory.createTouchpointInstruction(body, cursor.readString()));
+			}
+			description.addTouchpointData(MetadataFactory.createTouchpointData(instructions));
+		}
+
+		ILicense[] licenses = new ILicense[cursor.readInt()];
+		for (int i = 0; i < licenses.length; i++) {
+			URI location = cursor.readURI();
+			licenses[i] = MetadataFactory.createLicense(location, cursor.readString());
+		}
+		description.setLicenses(licenses);
+
+		if (cursor.readBoolean()) {
+			URI location = cursor.readURI();
+			description.setCopyright(MetadataFactory.createCopyright(location, cursor.readString()));
+		}
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	private IUpdateDescriptor readUpdateDescriptor(Cursor cursor) {
+		if (cursor.readBoolean()) {
+			String id = cursor.readString();
+			VersionRange range = cursor.readRange();
+			int severity = cursor.readInt();
+			String description = cursor.readString();
+			return MetadataFactory.createUpdateDescriptor(id, range, severity, description, cursor.readURI());
+		}
+		IMatchExpression<IInstallableUnit> match = readMatchExpression(cursor);
+		int severity = cursor.readInt();
+		String description = cursor.readString();
+		return MetadataFactory.createUpdateDescriptor(Collections.singleton(match), severity, description, cursor.readURI());
+	}
+
+	private Map<String, String> readProperties(Cursor cursor) {
+		int count = cursor.readInt();
+		Map<String, String> properties = new LinkedHashMap<>(count);
+		for (int i = 0; i < count; i++)
+			properties.put(cursor.readString(), cursor.readString());
+		return properties;
+	}
+
+	private IProvidedCapability[] readProvidedCapabilities(Cursor cursor) {
+		IProvidedCapability[] capabilities = new IProvidedCapability[cursor.readInt()];
+		for (int i = 0; i < capabilities.length; i++) {
+			String namespace = cursor.readString();
+			String name = cursor.readString();
+			Version version = cursor.readVersion();
+			int propertyCount = cursor.readInt();
+			if (propertyCount == 0) {
+				capabilities[i] = MetadataFactory.createProvidedCapability(namespace, name, version);
+				continue;
+			}
+			Map<String, Object> properties = new HashMap<>();
+			for (int j = 0; j < propertyCount; j++) {
+				String key = cursor.readString();
+				byte type = cursor.readByte();
+				if (type == PROPERTY_LIST) {
+					byte elementType = cursor.readByte();
+					List<Object> values = new ArrayList<>();
+					int size = cursor.readInt();
+					for (int k = 0; k < size; k++)
+						values.add(parseScalar(elementType, cursor.readString()));
+					properties.put(key, values);
+				} else {
+					properties.put(key, parseScalar(type, cursor.readString()));
+				}
+			}
+			properties.put(namespace, name);
+			properties.put(IProvidedCapability.PROPERTY_VERSION, version);
+			capabilities[i] = MetadataFactory.createProvidedCapability(namespace, properties);
+		}
+		return capabilities;
+	}
+
+	private static Object parseScalar(byte type, String value) {
+		switch (type) {
+			case PROPERTY_INTEGER :
+				return Integer.parseInt(value);
+			case PROPERTY_LONG :
+				return Long.parseLong(value);
+			case PROPERTY_FLOAT :
+				return Float.parseFloat(value);
+			case PROPERTY_DOUBLE :
+				return Double.parseDouble(value);
+			case PROPERTY_BYTE :
+				return Byte.parseByte(value);
+			case PROPERTY_SHORT :
+				return Short.parseShort(value);
+			case PROPERTY_CHARACTER :
+				return value.charAt(0);
+			case PROPERTY_BOOLEAN :
+				return Boolean.parseBoolean(value);
+			case PROPERTY_VERSION :
+				return Version.create(value);
+			default :
+				return value;
+		}
+	}
+
+	private IMatchExpression<IInstallableUnit> readMatchExpression(Cursor cursor) {
+		String match = cursor.readString();
+		return MetadataParser.createMatchExpression(match, cursor.readString());
+	}
+
+	IRequirement requirement(int index) {
+		if (index < 0)
+			return null;
+		IRequirement requirement = requirements[index];
+		if (requirement != null)
+			return requirement;
+
+		Cursor cursor = new Cursor(buffer.getInt(requirementsOffset + 4 * index));
+		byte kind = cursor.readByte();
+		String namespace = null;
+		String name = null;
+		VersionRange range = null;
+		String propertiesMatch = null;
+		IMatchExpression<IInstallableUnit> match = null;
+		if (kind == REQUIREMENT_RANGE) {
+			namespace = cursor.readString();
+			name = cursor.readString();
+			range = cursor.readRange();
+		} else if (kind == REQUIREMENT_PROPERTIES) {
+			namespace = cursor.readString();
+			propertiesMatch = cursor.readString();
+		} else {
+			match = readMatchExpression(cursor);
+		}
+		int min = cursor.readInt();
+		int max = cursor.readInt();
+		boolean greedy = cursor.readBoolean();
+		String filterText = cursor.readString();
+		IMatchExpression<IInstallableUnit> filter = filterText == null ? null : InstallableUnit.parseFilter(filterText);
+		String description = cursor.readString();
+
+		if (kind == REQUIREMENT_RANGE)
+			requirement = MetadataFactory.createRequirement(namespace, name, range, filter, min, max, greedy, description);
+		else if (kind == REQUIREMENT_PROPERTIES)
+			requirement = MetadataFactory.createRequirement(namespace, ExpressionUtil.parseLDAP(propertiesMatch), filter, min, max, greedy, description);
+		else
+			requirement = MetadataFactory.createRequirement(match, filter, min, max, greedy, description);
+		requirements[index] = requirement;
+		return requirement;
+	}
+
+	String string(int index) {
+		if (index < 0)
+			return null;
+		String value = strings[index];
+		if (value == null) {
+			int start = buffer.getInt(stringsOffset + 4 * index);
+			int end = buffer.getInt(stringsOffset + 4 * (index + 1));
+			byte[] bytes = new byte[end - start];
+			buffer.get(stringData + start, bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+			strings[index] = value;
+		}
+		return value;
+	}
+
+	Version version(int index) {
+		if (index < 0)
+			return null;
+		Version value = versions[index];
+		if (value == null) {
+			value = Version.create(string(buffer.getInt(versionsOffset + 4 * index)));
+			versions[index] = value;
+		}
+		return value;
+	}
+
+	VersionRange range(int index) {
+		if (index < 0)
+			return null;
+		VersionRange value = ranges[index];
+		if (value == null) {
+			value = VersionRange.create(string(buffer.getInt(rangesOffset + 4 * index)));
+			ranges[index] = value;
+		}
+		return value;
+	}
+}
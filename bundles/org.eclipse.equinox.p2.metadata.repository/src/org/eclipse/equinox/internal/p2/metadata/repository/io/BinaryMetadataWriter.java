@@ -0,0 +1,417 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository.io;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.RequiredCapability;
+import org.eclipse.equinox.internal.p2.metadata.RequiredPropertiesMatch;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.expression.*;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.IRepositoryReference;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+
+/**
+ * Writes a metadata repository in the binary format described by
+ * {@link BinaryMetadataConstants}. This is the binary counterpart of
+ * {@link MetadataWriter} and is read back by {@link BinaryMetadataReader}.
+ */
+public class BinaryMetadataWriter implements BinaryMetadataConstants {
+
+	private final OutputStream output;
+
+	private final Map<String, Integer> stringIndexes = new HashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final Map<Version, Integer> versionIndexes = new HashMap<>();
+	private final List<Version> versions = new ArrayList<>();
+	private final Map<VersionRange, Integer> rangeIndexes = new HashMap<>();
+	private final List<VersionRange> ranges = new ArrayList<>();
+	// requirements are only equal regardless of their description, so it is part of the key
+	private final Map<List<Object>, Integer> requirementIndexes = new HashMap<>();
+	private final List<Integer> requirementOffsets = new ArrayList<>();
+	private final ByteArrayOutputStream requirementBytes = new ByteArrayOutputStream();
+	private final DataOutputStream requirementData = new DataOutputStream(requirementBytes);
+
+	public BinaryMetadataWriter(OutputStream output) {
+		this.output = output;
+	}
+
+	/**
+	 * Writes the given repository, including all its installable units and
+	 * references, to the output stream of this writer.
+	 */
+	public void write(IMetadataRepository repository) throws IOException {
+		ByteArrayOutputStream repositoryBytes = new ByteArrayOutputStream();
+		writeRepository(new DataOutputStream(repositoryBytes), repository);
+
+		ByteArrayOutputStream unitBytes = new ByteArrayOutputStream();
+		DataOutputStream unitData = new DataOutputStream(unitBytes);
+		List<int[]> index = new ArrayList<>();
+		List<int[]> capabilities = new ArrayList<>();
+		for (IInstallableUnit iu : repository.query(QueryUtil.createIUAnyQuery(), null)) {
+			IInstallableUnit unit = iu.unresolved();
+			for (IProvidedCapability capability : unit.getProvidedCapabilities())
+				capabilities.add(new int[] {string(capability.getNamespace()), string(capability.getName()), index.size()});
+			index.add(new int[] {string(unit.getId()), version(unit.getVersion()), unitData.size()});
+			writeInstallableUnit(unitData, iu);
+		}
+
+		byte[][] encodedStrings = new byte[strings.size()][];
+		long stringBytes = 0;
+		for (int i = 0; i < encodedStrings.length; i++) {
+			encodedStrings[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+			stringBytes += encodedStrings[i].length;
+		}
+
+		long stringsOffset = HEADER_SIZE;
+		long versionsOffset = stringsOffset + 4L * (strings.size() + 1) + stringBytes;
+		long rangesOffset = versionsOffset + 4L * versions.size();
+		long requirementsOffset = rangesOffset + 4L * ranges.size();
+		long requirementRecords = requirementsOffset + 4L * requirementOffsets.size();
+		long repositoryOffset = requirementRecords + requirementData.size();
+		long indexOffset = repositoryOffset + repositoryBytes.size();
+		long capabilitiesOffset = indexOffset + (long) INDEX_ENTRY_SIZE * index.size();
+		long unitsOffset = capabilitiesOffset + (long) CAPABILITY_ENTRY_SIZE * capabilities.size();
+		if (unitsOffset + unitData.size() > Integer.MAX_VALUE)
+			throw new IOException("Repository too large for the binary metadata format"); //$NON-NLS-1$
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(strings.size());
+		out.writeInt((int) stringsOffset);
+		out.writeInt(versions.size());
+		out.writeInt((int) versionsOffset);
+		out.writeInt(ranges.size());
+		out.writeInt((int) rangesOffset);
+		out.writeInt(requirementOffsets.size());
+		out.writeInt((int) requirementsOffset);
+		out.writeInt((int) repositoryOffset);
+		out.writeInt(index.size());
+		out.writeInt((int) indexOffset);
+		out.writeInt(capabilities.size());
+		out.writeInt((int) capabilitiesOffset);
+
+		int offset = 0;
+		for (byte[] encoded : encodedStrings) {
+			out.writeInt(offset);
+			offset += encoded.length;
+		}
+		out.writeInt(offset);
+		for (byte[] encoded : encodedStrings)
+			out.write(encoded);
+
+		// versions and ranges are pooled by their textual form, which is what the XML format stores as well
+		for (Version version : versions)
+			out.writeInt(stringIndexes.get(version.toString()));
+		for (VersionRange range : ranges)
+			out.writeInt(stringIndexes.get(range.toString()));
+
+		for (int requirementOffset : requirementOffsets)
+			out.writeInt((int) requirementRecords + requirementOffset);
+		requirementBytes.writeTo(out);
+
+		repositoryBytes.writeTo(out);
+
+		for (int[] entry : index) {
+			out.writeInt(entry[0]);
+			out.writeInt(entry[1]);
+			out.writeInt((int) unitsOffset + entry[2]);
+		}
+		for (int[] entry : capabilities) {
+			out.writeInt(entry[0]);
+			out.writeInt(entry[1]);
+			out.writeInt(entry[2]);
+		}
+		unitBytes.writeTo(out);
+		out.flush();
+	}
+
+	private void writeRepository(DataOutputStream out, IMetadataRepository repository) throws IOException {
+		out.writeInt(string(repository.getName()));
+		out.writeInt(string(repository.getType()));
+		out.writeInt(string(repository.getVersion()));
+		out.writeInt(string(repository.getProvider()));
+		out.writeInt(string(repository.getDescription()));
+		writeProperties(out, repository.getProperties());
+		Collection<IRepositoryReference> references = repository.getReferences();
+		out.writeInt(references.size());
+		for (IRepositoryReference reference : references) {
+			out.writeInt(string(reference.getLocation().toString()));
+			out.writeInt(string(reference.getNickname()));
+			out.writeInt(reference.getType());
+			out.writeInt(reference.getOptions());
+		}
+	}
+
+	protected void writeInstallableUnit(DataOutputStream out, IInstallableUnit resolvedIU) throws IOException {
+		IInstallableUnit iu = resolvedIU.unresolved();
+		if (iu instanceof IInstallableUnitPatch)
+			out.writeByte(UNIT_PATCH);
+		else if (iu instanceof IInstallableUnitFragment && !((IInstallableUnitFragment) iu).getHost().isEmpty())
+			out.writeByte(UNIT_FRAGMENT);
+		else
+			out.writeByte(UNIT);
+		out.writeInt(string(iu.getId()));
+		out.writeInt(version(iu.getVersion()));
+		out.writeBoolean(iu.isSingleton());
+
+		if (iu instanceof IInstallableUnitPatch) {
+			IInstallableUnitPatch patch = (IInstallableUnitPatch) iu;
+			IRequirement[][] scope = patch.getApplicabilityScope();
+			out.writeInt(scope.length);
+			for (IRequirement[] applyOn : scope)
+				writeRequirements(out, Arrays.asList(applyOn));
+			List<IRequirementChange> changes = patch.getRequirementsChange();
+			out.writeInt(changes.size());
+			for (IRequirementChange change : changes) {
+				out.writeInt(requirement(change.applyOn()));
+				out.writeInt(requirement(change.newValue()));
+			}
+			out.writeInt(requirement(patch.getLifeCycle()));
+		} else if (iu instanceof IInstallableUnitFragment && !((IInstallableUnitFragment) iu).getHost().isEmpty()) {
+			writeRequirements(out, ((IInstallableUnitFragment) iu).getHost());
+		}
+
+		writeUpdateDescriptor(out, resolvedIU.getUpdateDescriptor());
+		writeProperties(out, iu.getProperties());
+		writeRequirements(out, iu.getMetaRequirements());
+		writeProvidedCapabilities(out, iu.getProvidedCapabilities());
+		writeRequirements(out, iu.getRequirements());
+		out.writeInt(string(iu.getFilter() == null ? null : iu.getFilter().getParameters()[0].toString()));
+
+		Collection<IArtifactKey> artifacts = iu.getArtifacts();
+		out.writeInt(artifacts.size());
+		for (IArtifactKey key : artifacts) {
+			out.writeInt(string(key.getClassifier()));
+			out.writeInt(string(key.getId()));
+			out.writeInt(version(key.getVersion()));
+		}
+
+		ITouchpointType touchpointType = iu.getTouchpointType();
+		out.writeInt(string(touchpointType.getId()));
+		out.writeInt(version(touchpointType.getVersion()));
+
+		Collection<ITouchpointData> touchpointData = iu.getTouchpointData();
+		out.writeInt(touchpointData.size());
+		for (ITouchpointData data : touchpointData) {
+			Map<String, ITouchpointInstruction> instructions = data.getInstructions();
+			out.writeInt(instructions.size());
+			for (Map.Entry<String, ITouchpointInstruction> entry : instructions.entrySet()) {
+				out.writeInt(string(entry.getKey()));
+				out.writeInt(string(entry.getValue().getBody()));
+				out.writeInt(string(entry.getValue().getImportAttribute()));
+			}
+		}
+
+		Collection<ILicense> licenses = iu.getLicenses();
+		List<ILicense> nonNullLicenses = new ArrayList<>(licenses.size());
+		for (ILicense license : licenses)
+			if (license != null)
+				nonNullLicenses.add(license);
+		out.writeInt(nonNullLicenses.size());
+		for (ILicense license : nonNullLicenses) {
+			out.writeInt(string(license.getLocation() == null ? null : license.getLocation().toString()));
+			out.writeInt(string(license.getBody()));
+		}
+
+		ICopyright copyright = iu.getCopyright();
+		out.writeBoolean(copyright != null);
+		if (copyright != null) {
+			out.writeInt(string(copyright.getLocation() == null ? null : copyright.getLocation().toString()));
+			out.writeInt(string(copyright.getBody()));
+		}
+	}
+
+	private void writeUpdateDescriptor(DataOutputStream out, IUpdateDescriptor descriptor) throws IOException {
+		out.writeBoolean(descriptor != null);
+		if (descriptor == null)
+			return;
+		if (descriptor.getIUsBeingUpdated().size() > 1)
+			throw new IllegalStateException();
+		IMatchExpression<IInstallableUnit> singleUD = descriptor.getIUsBeingUpdated().iterator().next();
+		boolean simple = RequiredCapability.isVersionRangeRequirement(singleUD);
+		out.writeBoolean(simple);
+		if (simple) {
+			out.writeInt(string(RequiredCapability.extractName(singleUD)));
+			out.writeInt(range(RequiredCapability.extractRange(singleUD)));
+		} else {
+			writeMatchExpression(out, singleUD);
+		}
+		out.writeInt(descriptor.getSeverity());
+		out.writeInt(string(descriptor.getDescription()));
+		out.writeInt(string(descriptor.getLocation() == null ? null : descriptor.getLocation().toString()));
+	}
+
+	private void writeProperties(DataOutputStream out, Map<String, String> properties) throws IOException {
+		out.writeInt(properties.size());
+		for (Map.Entry<String, String> entry : properties.entrySet()) {
+			out.writeInt(string(entry.getKey()));
+			out.writeInt(string(entry.getValue()));
+		}
+	}
+
+	private void writeProvidedCapabilities(DataOutputStream out, Collection<IProvidedCapability> capabilities) throws IOException {
+		out.writeInt(capabilities.size());
+		for (IProvidedCapability capability : capabilities) {
+			out.writeInt(string(capability.getNamespace()));
+			out.writeInt(string(capability.getName()));
+			out.writeInt(version(capability.getVersion()));
+
+			Map<String, Object> props = new LinkedHashMap<>(capability.getProperties());
+			props.remove(capability.getNamespace());
+			props.remove(IProvidedCapability.PROPERTY_VERSION);
+			out.writeInt(props.size());
+			for (Map.Entry<String, Object> entry : props.entrySet()) {
+				out.writeInt(string(entry.getKey()));
+				Object value = entry.getValue();
+				if (value instanceof Collection<?>) {
+					Collection<?> values = (Collection<?>) value;
+					out.writeByte(PROPERTY_LIST);
+					out.writeByte(values.isEmpty() ? PROPERTY_STRING : propertyType(values.iterator().next()));
+					out.writeInt(values.size());
+					for (Object element : values)
+						out.writeInt(string(element.toString()));
+				} else {
+					out.writeByte(propertyType(value));
+					out.writeInt(string(value.toString()));
+				}
+			}
+		}
+	}
+
+	private static byte propertyType(Object value) {
+		if (value instanceof Integer)
+			return PROPERTY_INTEGER;
+		if (value instanceof Long)
+			return PROPERTY_LONG;
+		if (value instanceof Float)
+			return PROPERTY_FLOAT;
+		if (value instanceof Double)
+			return PROPERTY_DOUBLE;
+		if (value instanceof Byte)
+			return PROPERTY_BYTE;
+		if (value instanceof Short)
+			return PROPERTY_SHORT;
+		if (value instanceof Character)
+			return PROPERTY_CHARACTER;
+		if (value instanceof Boolean)
+			return PROPERTY_BOOLEAN;
+		if (value instanceof Version)
+			return PROPERTY_VERSION;
+		return PROPERTY_STRING;
+	}
+
+	private void writeRequirements(DataOutputStream out, Collection<IRequirement> requirements) throws IOException {
+		out.writeInt(requirements.size());
+		for (IRequirement requirement : requirements)
+			out.writeInt(requirement(requirement));
+	}
+
+	/**
+	 * Returns the index of the given requirement in the requirement table, adding
+	 * it to the table first if needed.
+	 */
+	private int requirement(IRequirement requirement) throws IOException {
+		if (requirement == null)
+			return -1;
+		List<Object> key = Arrays.asList(requirement, requirement.getDescription());
+		Integer index = requirementIndexes.get(key);
+		if (index != null)
+			return index.intValue();
+
+		// encode into a scratch buffer first, the record may intern further strings
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		IMatchExpression<IInstallableUnit> match = requirement.getMatches();
+		if (RequiredCapability.isVersionRangeRequirement(match)) {
+			out.writeByte(REQUIREMENT_RANGE);
+			out.writeInt(string(RequiredCapability.extractNamespace(match)));
+			out.writeInt(string(RequiredCapability.extractName(match)));
+			out.writeInt(range(RequiredCapability.extractRange(match)));
+		} else if (RequiredPropertiesMatch.isPropertiesMatchRequirement(match)) {
+			out.writeByte(REQUIREMENT_PROPERTIES);
+			out.writeInt(string(RequiredPropertiesMatch.extractNamespace(match)));
+			out.writeInt(string(RequiredPropertiesMatch.extractPropertiesMatch(match).toString()));
+		} else {
+			out.writeByte(REQUIREMENT_EXPRESSION);
+			writeMatchExpression(out, match);
+		}
+		out.writeInt(requirement.getMin());
+		out.writeInt(requirement.getMax());
+		out.writeBoolean(requirement.isGreedy());
+		out.writeInt(string(requirement.getFilter() == null ? null : requirement.getFilter().getParameters()[0].toString()));
+		out.writeInt(string(requirement.getDescription()));
+
+		index = requirementOffsets.size();
+		requirementOffsets.add(requirementData.size());
+		bytes.writeTo(requirementData);
+		requirementIndexes.put(key, index);
+		return index.intValue();
+	}
+
+	private void writeMatchExpression(DataOutputStream out, IMatchExpression<IInstallableUnit> match) throws IOException {
+		out.writeInt(string(ExpressionUtil.getOperand(match).toString()));
+		Object[] params = match.getParameters();
+		if (params.length > 0) {
+			IExpressionFactory factory = ExpressionUtil.getFactory();
+			IExpression[] constantArray = new IExpression[params.length];
+			for (int idx = 0; idx < params.length; ++idx)
+				constantArray[idx] = factory.constant(params[idx]);
+			out.writeInt(string(factory.array(constantArray).toString()));
+		} else {
+			out.writeInt(-1);
+		}
+	}
+
+	private int string(String value) {
+		if (value == null)
+			return -1;
+		Integer index = stringIndexes.get(value);
+		if (index == null) {
+			index = strings.size();
+			strings.add(value);
+			stringIndexes.put(value, index);
+		}
+		return index.intValue();
+	}
+
+	private int version(Version value) {
+		if (value == null)
+			return -1;
+		Integer index = versionIndexes.get(value);
+		if (index == null) {
+			string(value.toString());
+			index = versions.size();
+			versions.add(value);
+			versionIndexes.put(value, index);
+		}
+		return index.intValue();
+	}
+
+	private int range(VersionRange value) {
+		if (value == null)
+			return -1;
+		Integer index = rangeIndexes.get(value);
+		if (index == null) {
+			string(value.toString());
+			index = ranges.size();
+			ranges.add(value);
+			rangeIndexes.put(value, index);
+		}
+		return index.intValue();
+	}
+}
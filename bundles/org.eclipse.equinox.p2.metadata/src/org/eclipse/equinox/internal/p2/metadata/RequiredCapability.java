@@ -208,6 +208,18 @@ public class RequiredCapability extends Requirement implements IRequiredCapabili
 		return PREDEFINED.contains(ExpressionUtil.getOperand(matchExpression));
 	}
 
+	/**
+	 * Returns the number of parameters used by the given version range requirement.
+	 */
+	static int getParameterCount(IMatchExpression<IInstallableUnit> matchExpression) {
+		IExpression expr = ExpressionUtil.getOperand(matchExpression);
+		if (expr.equals(ALL))
+			return 2;
+		if (expr.equals(STRICT) || expr.equals(OPEN_I) || expr.equals(OPEN_N))
+			return 3;
+		return 4;
+	}
+
 	private static void assertVersionRangeRequirement(IMatchExpression<IInstallableUnit> matchExpression) {
 		if (!isVersionRangeRequirement(matchExpression)) {
 			throw new IllegalArgumentException();
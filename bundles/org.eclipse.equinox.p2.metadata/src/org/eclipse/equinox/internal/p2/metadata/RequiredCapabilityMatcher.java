@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata;
+
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+
+/**
+ * Matches installable units against a requirement on a capability with a given
+ * namespace, name and version range, which is what most requirements are. The
+ * provided capabilities are compared directly, giving the same result as the
+ * match expression of the requirement without evaluating it.
+ *
+ * @see RequiredCapability#isVersionRangeRequirement(IMatchExpression)
+ */
+public final class RequiredCapabilityMatcher {
+	private final String namespace;
+	private final String name;
+	/** The range of versions, <code>null</code> when any version matches */
+	private final VersionRange range;
+
+	private RequiredCapabilityMatcher(String namespace, String name, VersionRange range) {
+		this.namespace = namespace;
+		this.name = name;
+		this.range = VersionRange.emptyRange.equals(range) ? null : range;
+	}
+
+	/**
+	 * Creates a matcher for the given match expression.
+	 * @return the matcher or <code>null</code> when the expression is not a
+	 * version range requirement
+	 */
+	public static RequiredCapabilityMatcher create(IMatchExpression<IInstallableUnit> matchExpression) {
+		if (!RequiredCapability.isVersionRangeRequirement(matchExpression))
+			return null;
+		Object[] parameters = matchExpression.getParameters();
+		int count = RequiredCapability.getParameterCount(matchExpression);
+		if (parameters.length != count || !(parameters[0] instanceof String && parameters[1] instanceof String))
+			return null;
+		for (int idx = 2; idx < count; ++idx)
+			if (!(parameters[idx] instanceof Version))
+				return null;
+		return new RequiredCapabilityMatcher(RequiredCapability.extractNamespace(matchExpression), RequiredCapability.extractName(matchExpression), RequiredCapability.extractRange(matchExpression));
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns whether the given unit provides a matching capability.
+	 */
+	public boolean isMatch(IInstallableUnit unit) {
+		if (unit instanceof InstallableUnit) {
+			for (IProvidedCapability capability : ((InstallableUnit) unit).providedCapabilities)
+				if (isMatch(capability))
+					return true;
+			return false;
+		}
+		for (IProvidedCapability capability : unit.getProvidedCapabilities())
+			if (isMatch(capability))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns whether the given capability matches.
+	 */
+	public boolean isMatch(IProvidedCapability capability) {
+		return namespace.equals(capability.getNamespace()) && name.equals(capability.getName()) && (range == null || range.isIncluded(capability.getVersion()));
+	}
+
+	@Override
+	public String toString() {
+		return namespace + "; " + name + ' ' + (range == null ? VersionRange.emptyRange : range); //$NON-NLS-1$
+	}
+}
@@ -51,8 +51,10 @@ class At extends Binary {
 			lval = lm.invoke(instance);
 		} else
 			lval = lhs.evaluate(context);
+		return at(lval, rhs.evaluate(context));
+	}
 
-		Object rval = rhs.evaluate(context);
+	static Object at(Object lval, Object rval) {
 		if (lval == null)
 			throw new IllegalArgumentException("Unable to use [] on null"); //$NON-NLS-1$
 
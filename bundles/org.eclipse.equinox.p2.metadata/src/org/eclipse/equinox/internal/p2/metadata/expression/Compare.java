@@ -36,9 +36,10 @@ final class Compare extends Binary {
 
 	@Override
 	public Object evaluate(IEvaluationContext context) {
-		Object lhsVal = lhs.evaluate(context);
-		Object rhsVal = rhs.evaluate(context);
+		return Boolean.valueOf(compare(lhs.evaluate(context), rhs.evaluate(context), compareLess, equalOK));
+	}
 
+	static boolean compare(Object lhsVal, Object rhsVal, boolean compareLess, boolean equalOK) {
 		// Handle collections as per the OSGi LDAP spec
 		if (lhsVal instanceof Collection<?>) {
 			for (Object lhsItem : (Collection<?>) lhsVal) {
@@ -60,7 +61,7 @@ final class Compare extends Binary {
 		}
 
 		int cmpResult = CoercingComparator.coerceAndCompare(lhsVal, rhsVal);
-		return Boolean.valueOf(cmpResult == 0 ? equalOK : (cmpResult < 0 ? compareLess : !compareLess));
+		return cmpResult == 0 ? equalOK : (cmpResult < 0 ? compareLess : !compareLess);
 	}
 
 	@Override
@@ -29,9 +29,10 @@ final class Equals extends Binary {
 
 	@Override
 	public Object evaluate(IEvaluationContext context) {
-		Object lhsVal = lhs.evaluate(context);
-		Object rhsVal = rhs.evaluate(context);
+		return Boolean.valueOf(equals(lhs.evaluate(context), rhs.evaluate(context), negate));
+	}
 
+	static boolean equals(Object lhsVal, Object rhsVal, boolean negate) {
 		// Handle collections as per the OSGi LDAP spec
 		if (lhsVal instanceof Collection<?>) {
 			for (Object lhsItem : (Collection<?>) lhsVal) {
@@ -0,0 +1,582 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.expression;
+
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.ProvidedCapability;
+import org.eclipse.equinox.internal.p2.metadata.expression.Expression.VariableFinder;
+import org.eclipse.equinox.internal.p2.metadata.expression.Member.DynamicMember;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
+import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
+
+/**
+ * Compiles boolean expressions into trees of evaluators, one kind of evaluator
+ * for each kind of expression. A compiled expression keeps the parameters and the
+ * values of the variables it binds in the slots of a frame. It evaluates without
+ * creating evaluation contexts, looking up variables by name or boxing booleans.
+ * <p>
+ * The common kinds of expressions are compiled. A part of an expression that is
+ * not and that does not use a variable bound by the compiled expression is left
+ * to the interpreter. Any other expression is not compiled and callers keep
+ * interpreting it.
+ */
+public final class ExpressionCompiler {
+
+	/**
+	 * A compiled expression testing the value of a variable.
+	 */
+	public static final class CompiledExpression {
+		private final Evaluator root;
+		private final int parameterCount;
+		private final int frameSize;
+		private final boolean usesContext;
+
+		CompiledExpression(Evaluator root, int parameterCount, int frameSize, boolean usesContext) {
+			this.root = root;
+			this.parameterCount = parameterCount;
+			this.frameSize = frameSize;
+			this.usesContext = usesContext;
+		}
+
+		/**
+		 * Returns the number of parameters used by the expression.
+		 */
+		public int getParameterCount() {
+			return parameterCount;
+		}
+
+		/**
+		 * Returns whether the expression needs an evaluation context, because
+		 * some of its parts are left to the interpreter.
+		 */
+		public boolean usesContext() {
+			return usesContext;
+		}
+
+		/**
+		 * Creates a frame holding the given parameters. A frame can be used for
+		 * several tests, one at a time.
+		 */
+		public Object[] createFrame(Object[] parameters) {
+			Object[] frame = new Object[frameSize];
+			System.arraycopy(parameters, 0, frame, 0, parameterCount);
+			return frame;
+		}
+
+		/**
+		 * Creates a frame holding the parameters of the given context.
+		 */
+		public Object[] createFrame(IEvaluationContext context) {
+			Object[] frame = new Object[frameSize];
+			for (int idx = 0; idx < parameterCount; ++idx)
+				frame[idx] = context.getParameter(idx);
+			return frame;
+		}
+
+		/**
+		 * Returns whether the expression is true for the given value. The context
+		 * is only used when {@link #usesContext()} is <code>true</code>.
+		 */
+		public boolean isMatch(Object[] frame, IEvaluationContext context, Object value) {
+			frame[parameterCount] = value;
+			return root.test(frame, context);
+		}
+	}
+
+	abstract static class Evaluator {
+		abstract Object evaluate(Object[] frame, IEvaluationContext context);
+
+		boolean test(Object[] frame, IEvaluationContext context) {
+			return evaluate(frame, context) == Boolean.TRUE;
+		}
+	}
+
+	abstract static class Predicate extends Evaluator {
+		@Override
+		final Object evaluate(Object[] frame, IEvaluationContext context) {
+			return Boolean.valueOf(test(frame, context));
+		}
+
+		@Override
+		abstract boolean test(Object[] frame, IEvaluationContext context);
+	}
+
+	static final class Constant extends Evaluator {
+		private final Object value;
+
+		Constant(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		Object evaluate(Object[] frame, IEvaluationContext context) {
+			return value;
+		}
+	}
+
+	static final class Slot extends Evaluator {
+		private final int slot;
+
+		Slot(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		Object evaluate(Object[] frame, IEvaluationContext context) {
+			return frame[slot];
+		}
+	}
+
+	static final class ContextVariable extends Evaluator {
+		private final Variable variable;
+
+		ContextVariable(Variable variable) {
+			this.variable = variable;
+		}
+
+		@Override
+		Object evaluate(Object[] frame, IEvaluationContext context) {
+			return context.getValue(variable);
+		}
+	}
+
+	static final class Interpreted extends Evaluator {
+		private final Expression expression;
+
+		Interpreted(Expression expression) {
+			this.expression = expression;
+		}
+
+		@Override
+		Object evaluate(Object[] frame, IEvaluationContext context) {
+			return expression.evaluate(context);
+		}
+	}
+
+	static final class AndPredicate extends Predicate {
+		private final Evaluator[] operands;
+
+		AndPredicate(Evaluator[] operands) {
+			this.operands = operands;
+		}
+
+		@Override
+		boolean test(Object[] frame, IEvaluationContext context) {
+			for (Evaluator operand : operands)
+				if (!operand.test(frame, context))
+					return false;
+			return true;
+		}
+	}
+
+	static final class OrPredicate extends Predicate {
+		private final Evaluator[] operands;
+
+		OrPredicate(Evaluator[] operands) {
+			this.operands = operands;
+		}
+
+		@Override
+		boolean test(Object[] frame, IEvaluationContext context) {
+			for (Evaluator operand : operands)
+				if (operand.test(frame, context))
+					return true;
+			return false;
+		}
+	}
+
+	static final class NotPredicate extends Predicate {
+		private final Evaluator operand;
+
+		NotPredicate(Evaluator operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		boolean test(Object[] frame, IEvaluationContext context) {
+			return !operand.test(frame, context);
+		}
+	}
+
+	static final class EqualsPredicate extends Predicate {
+		private final Evaluator lhs;
+		private final Evaluator rhs;
+		private final boolean negate;
+
+		EqualsPredicate(Evaluator lhs, Evaluator rhs, boolean negate) {
+			this.lhs = lhs;
+			this.rhs = rhs;
+			this.negate = negate;
+		}
+
+		@Override
+		boolean test(Object[] frame, IEvaluationContext context) {
+			return Equals.equals(lhs.evaluate(frame, context), rhs.evaluate(frame, context), negate);
+		}
+	}
+
+	static final class ComparePredicate extends Predicate {
+		private final Evaluator lhs;
+		private final Evaluator rhs;
+		private final boolean compareLess;
+		private final boolean equalOK;
+
+		ComparePredicate(Evaluator lhs, Evaluator rhs, boolean compareLess, boolean equalOK) {
+			this.lhs = lhs;
+			this.rhs = rhs;
+			this.compareLess = compareLess;
+			this.equalOK = equalOK;
+		}
+
+		@Override
+		boolean test(Object[] frame, IEvaluationContext context) {
+			return Compare.compare(lhs.evaluate(frame, context), rhs.evaluate(frame, context), compareLess, equalOK);
+		}
+	}
+
+	static final class MatchesPredicate extends Predicate {
+		private final Matches matches;
+		private final Evaluator lhs;
+		private final Evaluator rhs;
+
+		MatchesPredicate(Matches matches, Evaluator lhs, Evaluator rhs) {
+			this.matches = matches;
+			this.lhs = lhs;
+			this.rhs = rhs;
+		}
+
+		@Override
+		boolean test(Object[] frame, IEvaluationContext context) {
+			return matches.match(lhs.evaluate(frame, context), rhs.evaluate(frame, context));
+		}
+	}
+
+	/**
+	 * Tests the elements of a collection, binding each of them to a slot in turn.
+	 * An <code>exists</code> is true when the body is true for one element, an
+	 * <code>all</code> when the body is true for every element.
+	 */
+	static final class CollectionPredicate extends Predicate {
+		private final Evaluator collection;
+		private final int slot;
+		private final Evaluator body;
+		private final boolean exists;
+
+		CollectionPredicate(Evaluator collection, int slot, Evaluator body, boolean exists) {
+			this.collection = collection;
+			this.slot = slot;
+			this.body = body;
+			this.exists = exists;
+		}
+
+		@Override
+		boolean test(Object[] frame, IEvaluationContext context) {
+			Object value = collection.evaluate(frame, context);
+			if (value instanceof Object[]) {
+				for (Object element : (Object[]) value) {
+					frame[slot] = element;
+					if (body.test(frame, context) == exists)
+						return exists;
+				}
+				return !exists;
+			}
+			if (value instanceof List<?> && value instanceof RandomAccess) {
+				List<?> list = (List<?>) value;
+				for (int idx = 0, top = list.size(); idx < top; ++idx) {
+					frame[slot] = list.get(idx);
+					if (body.test(frame, context) == exists)
+						return exists;
+				}
+				return !exists;
+			}
+			Iterator<?> itor = value instanceof IRepeatableIterator<?> ? ((IRepeatableIterator<?>) value).getCopy() : RepeatableIterator.create(value);
+			while (itor.hasNext()) {
+				frame[slot] = itor.next();
+				if (body.test(frame, context) == exists)
+					return exists;
+			}
+			return !exists;
+		}
+	}
+
+	static final class MemberAccess extends Evaluator {
+		private final Evaluator operand;
+		private final DynamicMember member;
+
+		MemberAccess(Evaluator operand, DynamicMember member) {
+			this.operand = operand;
+			this.member = member;
+		}
+
+		@Override
+		Object evaluate(Object[] frame, IEvaluationContext context) {
+			return member.invoke(operand.evaluate(frame, context));
+		}
+	}
+
+	/**
+	 * Reads a member of a provided capability straight from the capability,
+	 * which is what requirements spend most of their time on.
+	 */
+	static final class CapabilityMemberAccess extends Evaluator {
+		private final Evaluator operand;
+		private final DynamicMember member;
+
+		CapabilityMemberAccess(Evaluator operand, DynamicMember member) {
+			this.operand = operand;
+			this.member = member;
+		}
+
+		@Override
+		Object evaluate(Object[] frame, IEvaluationContext context) {
+			Object self = operand.evaluate(frame, context);
+			if (self != null && self.getClass() == ProvidedCapability.class) {
+				ProvidedCapability capability = (ProvidedCapability) self;
+				String name = member.getName();
+				if (name == ProvidedCapability.MEMBER_NAME)
+					return capability.getName();
+				if (name == ProvidedCapability.MEMBER_NAMESPACE)
+					return capability.getNamespace();
+				return capability.getVersion();
+			}
+			return member.invoke(self);
+		}
+	}
+
+	/**
+	 * Keyed access to a member, with the shortcuts of {@link At} for the
+	 * properties of installable units.
+	 */
+	static final class MemberAt extends Evaluator {
+		private final Evaluator operand;
+		private final DynamicMember member;
+		private final Evaluator key;
+
+		MemberAt(Evaluator operand, DynamicMember member, Evaluator key) {
+			this.operand = operand;
+			this.member = member;
+			this.key = key;
+		}
+
+		@Override
+		Object evaluate(Object[] frame, IEvaluationContext context) {
+			Object instance = operand.evaluate(frame, context);
+			if (instance instanceof IInstallableUnit) {
+				String name = member.getName();
+				if (InstallableUnit.MEMBER_TRANSLATED_PROPERTIES == name || InstallableUnit.MEMBER_PROFILE_PROPERTIES == name) {
+					IIndexProvider<?> indexProvider = context == null ? null : context.getIndexProvider();
+					if (indexProvider == null)
+						throw new UnsupportedOperationException("No managed properties available to QL"); //$NON-NLS-1$
+					return indexProvider.getManagedProperty(instance, name, key.evaluate(frame, context));
+				}
+				if (InstallableUnit.MEMBER_PROPERTIES == name)
+					return ((IInstallableUnit) instance).getProperty((String) key.evaluate(frame, context));
+			}
+			Object lval = member.invoke(instance);
+			return At.at(lval, key.evaluate(frame, context));
+		}
+	}
+
+	static final class KeyedAt extends Evaluator {
+		private final Evaluator lhs;
+		private final Evaluator rhs;
+
+		KeyedAt(Evaluator lhs, Evaluator rhs) {
+			this.lhs = lhs;
+			this.rhs = rhs;
+		}
+
+		@Override
+		Object evaluate(Object[] frame, IEvaluationContext context) {
+			return At.at(lhs.evaluate(frame, context), rhs.evaluate(frame, context));
+		}
+	}
+
+	private static final Optional<CompiledExpression> NOT_COMPILED = Optional.empty();
+
+	@SuppressWarnings("serial")
+	private static final Map<Expression, Optional<CompiledExpression>> matchCache = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		public boolean removeEldestEntry(Map.Entry<Expression, Optional<CompiledExpression>> expr) {
+			return size() > 256;
+		}
+	};
+
+	/**
+	 * Returns the compiled form of the predicate of a match expression, the candidate
+	 * being {@link ExpressionFactory#THIS}. The compiled forms are shared by the
+	 * match expressions with equal predicates, such as the ones of requirements.
+	 */
+	static Optional<CompiledExpression> compileMatch(Expression predicate) {
+		synchronized (matchCache) {
+			Optional<CompiledExpression> compiled = matchCache.get(predicate);
+			if (compiled == null) {
+				CompiledExpression result = compile(predicate, ExpressionFactory.THIS);
+				compiled = result == null ? NOT_COMPILED : Optional.of(result);
+				matchCache.put(predicate, compiled);
+			}
+			return compiled;
+		}
+	}
+
+	/**
+	 * Compiles a boolean expression testing the value of the given variable.
+	 * @return the compiled expression or <code>null</code> when it must be interpreted
+	 */
+	public static CompiledExpression compile(Expression expression, Variable variable) {
+		ExpressionCompiler compiler = new ExpressionCompiler(countParameters(expression));
+		compiler.bound.add(variable);
+		Evaluator root = compiler.compile(expression);
+		if (root == null)
+			return null;
+		return new CompiledExpression(root, compiler.parameterCount, compiler.parameterCount + compiler.maxBound, compiler.usesContext);
+	}
+
+	private static int countParameters(Expression expression) {
+		int[] count = new int[1];
+		expression.accept(e -> {
+			if (e instanceof Parameter)
+				count[0] = Math.max(count[0], ((Parameter) e).position + 1);
+			return true;
+		});
+		return count[0];
+	}
+
+	private final int parameterCount;
+	private final List<Variable> bound = new ArrayList<>();
+	private int maxBound = 1;
+	private boolean usesContext;
+
+	private ExpressionCompiler(int parameterCount) {
+		this.parameterCount = parameterCount;
+	}
+
+	private Evaluator compile(Expression expression) {
+		Evaluator result = compileSupported(expression);
+		if (result == null && !usesBoundVariable(expression)) {
+			usesContext = true;
+			result = new Interpreted(expression);
+		}
+		return result;
+	}
+
+	private Evaluator compileSupported(Expression expression) {
+		if (expression instanceof Literal)
+			return new Constant(((Literal) expression).value);
+		if (expression instanceof Parameter)
+			return new Slot(((Parameter) expression).position);
+		if (expression instanceof Variable)
+			return compileVariable((Variable) expression);
+		if (expression instanceof And || expression instanceof Or) {
+			Evaluator[] operands = compileAll(((NAry) expression).operands);
+			if (operands == null)
+				return null;
+			return expression instanceof And ? new AndPredicate(operands) : new OrPredicate(operands);
+		}
+		if (expression instanceof Not) {
+			Evaluator operand = compile(((Not) expression).operand);
+			return operand == null ? null : new NotPredicate(operand);
+		}
+		if (expression instanceof Equals || expression instanceof Compare || expression instanceof Matches || expression instanceof At)
+			return compileBinary((Binary) expression);
+		if (expression instanceof DynamicMember) {
+			DynamicMember member = (DynamicMember) expression;
+			Evaluator operand = compile(member.operand);
+			if (operand == null)
+				return null;
+			String name = member.getName();
+			if (name == ProvidedCapability.MEMBER_NAME || name == ProvidedCapability.MEMBER_NAMESPACE || name == ProvidedCapability.MEMBER_VERSION)
+				return new CapabilityMemberAccess(operand, member);
+			return new MemberAccess(operand, member);
+		}
+		if (expression instanceof Exists || expression instanceof All)
+			return compileCollectionFilter((CollectionFilter) expression);
+		return null;
+	}
+
+	private Evaluator compileVariable(Variable variable) {
+		for (int idx = 0; idx < bound.size(); ++idx)
+			if (bound.get(idx) == variable)
+				return new Slot(parameterCount + idx);
+		usesContext = true;
+		return new ContextVariable(variable);
+	}
+
+	private Evaluator compileBinary(Binary binary) {
+		if (binary instanceof At && binary.lhs instanceof DynamicMember) {
+			DynamicMember member = (DynamicMember) binary.lhs;
+			String name = member.getName();
+			if (InstallableUnit.MEMBER_TRANSLATED_PROPERTIES == name || InstallableUnit.MEMBER_PROFILE_PROPERTIES == name)
+				usesContext = true;
+			Evaluator operand = compile(member.operand);
+			Evaluator key = compile(binary.rhs);
+			return operand == null || key == null ? null : new MemberAt(operand, member, key);
+		}
+		Evaluator lhs = compile(binary.lhs);
+		Evaluator rhs = compile(binary.rhs);
+		if (lhs == null || rhs == null)
+			return null;
+		if (binary instanceof Equals)
+			return new EqualsPredicate(lhs, rhs, ((Equals) binary).negate);
+		if (binary instanceof Compare) {
+			Compare compare = (Compare) binary;
+			return new ComparePredicate(lhs, rhs, compare.compareLess, compare.equalOK);
+		}
+		if (binary instanceof Matches)
+			return new MatchesPredicate((Matches) binary, lhs, rhs);
+		return new KeyedAt(lhs, rhs);
+	}
+
+	private Evaluator compileCollectionFilter(CollectionFilter filter) {
+		LambdaExpression lambda = filter.lambda;
+		// collections held by variables, such as everything, are left to the
+		// interpreter that looks for an index to iterate over
+		if (lambda.getClass() != LambdaExpression.class || filter.operand instanceof Variable && !bound.contains(filter.operand))
+			return null;
+		Evaluator collection = compile(filter.operand);
+		if (collection == null)
+			return null;
+		int slot = parameterCount + bound.size();
+		bound.add(lambda.getItemVariable());
+		maxBound = Math.max(maxBound, bound.size());
+		try {
+			Evaluator body = compile(lambda.operand);
+			return body == null ? null : new CollectionPredicate(collection, slot, body, filter instanceof Exists);
+		} finally {
+			bound.remove(bound.size() - 1);
+		}
+	}
+
+	private Evaluator[] compileAll(Expression[] expressions) {
+		Evaluator[] result = new Evaluator[expressions.length];
+		for (int idx = 0; idx < expressions.length; ++idx) {
+			result[idx] = compile(expressions[idx]);
+			if (result[idx] == null)
+				return null;
+		}
+		return result;
+	}
+
+	private boolean usesBoundVariable(Expression expression) {
+		for (Variable variable : bound) {
+			VariableFinder finder = new VariableFinder(variable);
+			expression.accept(finder);
+			if (finder.isFound())
+				return true;
+		}
+		return false;
+	}
+}
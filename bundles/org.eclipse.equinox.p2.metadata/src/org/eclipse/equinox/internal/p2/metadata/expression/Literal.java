@@ -97,7 +97,7 @@ public final class Literal extends Expression {
 
 	@Override
 	public int hashCode() {
-		return 31 + value.hashCode();
+		return 31 + (value == null ? 0 : value.hashCode());
 	}
 
 	@Override
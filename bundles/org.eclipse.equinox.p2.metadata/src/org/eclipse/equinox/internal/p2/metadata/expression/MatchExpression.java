@@ -14,7 +14,11 @@
 package org.eclipse.equinox.internal.p2.metadata.expression;
 
 import java.util.Arrays;
+import java.util.Optional;
 import org.eclipse.equinox.internal.p2.core.helpers.CollectionUtils;
+import org.eclipse.equinox.internal.p2.metadata.RequiredCapabilityMatcher;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler.CompiledExpression;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.expression.*;
 
 /**
@@ -25,6 +29,8 @@ import org.eclipse.equinox.p2.metadata.expression.*;
 public class MatchExpression<T> extends Unary implements IMatchExpression<T> {
 	private static final Object[] noParams = new Object[0];
 	private final Object[] parameters;
+	private Optional<CompiledExpression> compiled;
+	private Optional<RequiredCapabilityMatcher> capabilityMatcher;
 
 	MatchExpression(Expression expression, Object[] parameters) {
 		super(expression);
@@ -86,15 +92,60 @@ public class MatchExpression<T> extends Unary implements IMatchExpression<T> {
 
 	@Override
 	public boolean isMatch(IEvaluationContext context, T value) {
+		if (value instanceof IInstallableUnit) {
+			RequiredCapabilityMatcher matcher = getRequiredCapabilityMatcher();
+			if (matcher != null)
+				return matcher.isMatch((IInstallableUnit) value);
+		}
+		CompiledExpression compiledExpression = getCompiled();
+		if (compiledExpression != null)
+			return compiledExpression.isMatch(compiledExpression.createFrame(parameters), context, value);
 		ExpressionFactory.THIS.setValue(context, value);
 		return Boolean.TRUE == operand.evaluate(context);
 	}
 
 	@Override
 	public boolean isMatch(T value) {
+		if (value instanceof IInstallableUnit) {
+			RequiredCapabilityMatcher matcher = getRequiredCapabilityMatcher();
+			if (matcher != null)
+				return matcher.isMatch((IInstallableUnit) value);
+		}
+		CompiledExpression compiledExpression = getCompiled();
+		if (compiledExpression != null)
+			return compiledExpression.isMatch(compiledExpression.createFrame(parameters), compiledExpression.usesContext() ? createContext() : null, value);
 		return isMatch(createContext(), value);
 	}
 
+	/**
+	 * Returns the matcher to use instead of this expression when it is the match
+	 * expression of a requirement on a capability version range, or <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public RequiredCapabilityMatcher getRequiredCapabilityMatcher() {
+		Optional<RequiredCapabilityMatcher> result = capabilityMatcher;
+		if (result == null) {
+			result = Optional.ofNullable(RequiredCapabilityMatcher.create((IMatchExpression<IInstallableUnit>) this));
+			capabilityMatcher = result;
+		}
+		return result.orElse(null);
+	}
+
+	/**
+	 * Returns the compiled form of the predicate or <code>null</code> when it
+	 * is interpreted.
+	 */
+	private CompiledExpression getCompiled() {
+		Optional<CompiledExpression> result = compiled;
+		if (result == null) {
+			result = ExpressionCompiler.compileMatch(operand);
+			if (result.isPresent() && result.get().getParameterCount() > parameters.length)
+				result = Optional.empty();
+			compiled = result;
+		}
+		return result.orElse(null);
+	}
+
 	@Override
 	public void toLDAPString(StringBuilder bld) {
 		operand.toLDAPString(bld);
@@ -14,6 +14,8 @@
 package org.eclipse.equinox.internal.p2.metadata.expression;
 
 import java.util.Iterator;
+import java.util.Optional;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler.CompiledExpression;
 import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
 
 /**
@@ -21,6 +23,8 @@ import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
  * <code>collection</code> for which the <code>filter</code> yields <code>true</code>.
  */
 final class Select extends CollectionFilter {
+	private Optional<CompiledExpression> compiledFilter;
+
 	Select(Expression collection, LambdaExpression lambda) {
 		super(collection, lambda);
 	}
@@ -32,6 +36,16 @@ final class Select extends CollectionFilter {
 
 	@Override
 	protected Iterator<?> evaluateAsIterator(final IEvaluationContext context, Iterator<?> itor) {
+		CompiledExpression filter = getCompiledFilter();
+		if (filter != null) {
+			Object[] frame = filter.createFrame(context);
+			return new MatchIteratorFilter<Object>(itor) {
+				@Override
+				protected boolean isMatch(Object val) {
+					return filter.isMatch(frame, context, val);
+				}
+			};
+		}
 		return new MatchIteratorFilter<Object>(itor) {
 			@Override
 			protected boolean isMatch(Object val) {
@@ -41,6 +55,15 @@ final class Select extends CollectionFilter {
 		};
 	}
 
+	private CompiledExpression getCompiledFilter() {
+		Optional<CompiledExpression> result = compiledFilter;
+		if (result == null) {
+			result = lambda.getClass() == LambdaExpression.class ? Optional.ofNullable(ExpressionCompiler.compile(lambda.operand, lambda.getItemVariable())) : Optional.empty();
+			compiledFilter = result;
+		}
+		return result.orElse(null);
+	}
+
 	@Override
 	public int getExpressionType() {
 		return TYPE_SELECT;
@@ -24,11 +24,12 @@ import java.util.Set;
 import org.eclipse.equinox.internal.p2.metadata.IRequiredCapability;
 import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
 import org.eclipse.equinox.internal.p2.metadata.ProvidedCapability;
-import org.eclipse.equinox.internal.p2.metadata.RequiredCapability;
+import org.eclipse.equinox.internal.p2.metadata.RequiredCapabilityMatcher;
 import org.eclipse.equinox.internal.p2.metadata.expression.CollectionFilter;
 import org.eclipse.equinox.internal.p2.metadata.expression.Expression;
 import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
 import org.eclipse.equinox.internal.p2.metadata.expression.LambdaExpression;
+import org.eclipse.equinox.internal.p2.metadata.expression.MatchExpression;
 import org.eclipse.equinox.internal.p2.metadata.expression.Matches;
 import org.eclipse.equinox.internal.p2.metadata.expression.Member;
 import org.eclipse.equinox.internal.p2.metadata.expression.Parameter;
@@ -75,6 +76,36 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 		}
 	}
 
+	/**
+	 * Creates an index that does not hold any content itself. Subclasses using this
+	 * constructor must override {@link #getUnitsByName(String)} and
+	 * {@link #getUnitsByNamespace(String)}.
+	 */
+	protected CapabilityIndex() {
+		nameMap = null;
+		namespaceMap = null;
+	}
+
+	/**
+	 * Returns the units providing a capability with the given name, either as a
+	 * single {@link IInstallableUnit}, a collection of them, or <code>null</code>.
+	 */
+	protected Object getUnitsByName(String name) {
+		return nameMap.get(name);
+	}
+
+	/**
+	 * Returns the units providing a capability in the given namespace, either as a
+	 * single {@link IInstallableUnit}, a collection of them, or <code>null</code>.
+	 */
+	protected Object getUnitsByNamespace(String namespace) {
+		return namespaceMap.get(namespace);
+	}
+
+	private Object getUnits(boolean byNamespace, String key) {
+		return byNamespace ? getUnitsByNamespace(key) : getUnitsByName(key);
+	}
+
 	private Object getRequirementIDs(IEvaluationContext ctx, IExpression requirement, Object queriedKeys) {
 		switch (requirement.getExpressionType()) {
 			case IExpression.TYPE_AND :
@@ -137,13 +168,22 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 		// index usage query
 		//
 		IMatchExpression<IInstallableUnit> rm = ((IRequirement) rhsObj).getMatches();
-		return RequiredCapability.isVersionRangeRequirement(rm) ? concatenateUnique(queriedKeys, rm.getParameters()[0]) : getRequirementIDs(rm.createContext(), ((Unary) rm).operand, queriedKeys);
+		RequiredCapabilityMatcher matcher = getRequiredCapabilityMatcher(rm);
+		return matcher != null ? concatenateUnique(queriedKeys, matcher.getName()) : getRequirementIDs(rm.createContext(), ((Unary) rm).operand, queriedKeys);
 	}
 
 	@Override
 	public Iterator<IInstallableUnit> getCandidates(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
+		if (variable == ExpressionFactory.THIS && booleanExpr instanceof MatchExpression<?>) {
+			// The match expression of a requirement on a capability, the candidates are
+			// the units providing a capability with the required name
+			RequiredCapabilityMatcher matcher = getRequiredCapabilityMatcher((IMatchExpression<IInstallableUnit>) booleanExpr);
+			if (matcher != null)
+				return getUnitsIterator(getUnitsByName(matcher.getName()));
+		}
+
 		Object queriedKeys = null;
-		Map<String, ?> indexMapToUse = nameMap;
+		boolean byNamespace = false;
 
 		// booleanExpression must be a collection filter on providedCapabilities
 		// or an IInstallableUnit used in a match expression.
@@ -176,7 +216,7 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 						// in a performant way as this reduces the result set significantly
 						queriedKeys = getQueriedIDs(ctx, lambda.getItemVariable(), ProvidedCapability.MEMBER_NAMESPACE, lambda.getOperand(), queriedKeys);
 						if (queriedKeys != null) {
-							indexMapToUse = namespaceMap;
+							byNamespace = true;
 							break;
 						}
 					}
@@ -227,7 +267,8 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 				// index usage query
 				//
 				IMatchExpression<IInstallableUnit> rm = ((IRequirement) rhsObj).getMatches();
-				queriedKeys = RequiredCapability.isVersionRangeRequirement(rm) ? concatenateUnique(queriedKeys, rm.getParameters()[0]) : getRequirementIDs(rm.createContext(), ((Unary) rm).operand, queriedKeys);
+				RequiredCapabilityMatcher matcher = getRequiredCapabilityMatcher(rm);
+				queriedKeys = matcher != null ? concatenateUnique(queriedKeys, matcher.getName()) : getRequirementIDs(rm.createContext(), ((Unary) rm).operand, queriedKeys);
 				break;
 
 			default :
@@ -246,21 +287,26 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 		} else if (queriedKeys instanceof Collection<?>) {
 			matchingIUs = new HashSet<>();
 			for (Object key : (Collection<Object>) queriedKeys)
-				collectMatchingIUs(indexMapToUse, (String) key, matchingIUs);
+				collectMatchingIUs(getUnits(byNamespace, (String) key), matchingIUs);
 		} else {
-			Object v = indexMapToUse.get(queriedKeys);
-			if (v == null)
-				matchingIUs = Collections.emptySet();
-			else if (v instanceof IInstallableUnit)
-				matchingIUs = Collections.singleton((IInstallableUnit) v);
-			else
-				matchingIUs = (Collection<IInstallableUnit>) v;
+			return getUnitsIterator(getUnits(byNamespace, (String) queriedKeys));
 		}
 		return matchingIUs.iterator();
 	}
 
-	private static void collectMatchingIUs(Map<String, ?> indexToUse, String name, Collection<IInstallableUnit> collector) {
-		Object v = indexToUse.get(name);
+	private static Iterator<IInstallableUnit> getUnitsIterator(Object v) {
+		if (v == null)
+			return Collections.emptyIterator();
+		if (v instanceof IInstallableUnit)
+			return Collections.singleton((IInstallableUnit) v).iterator();
+		return ((Collection<IInstallableUnit>) v).iterator();
+	}
+
+	private static RequiredCapabilityMatcher getRequiredCapabilityMatcher(IMatchExpression<IInstallableUnit> matchExpression) {
+		return matchExpression instanceof MatchExpression<?> ? ((MatchExpression<IInstallableUnit>) matchExpression).getRequiredCapabilityMatcher() : RequiredCapabilityMatcher.create(matchExpression);
+	}
+
+	private static void collectMatchingIUs(Object v, Collection<IInstallableUnit> collector) {
 		if (v == null)
 			return;
 		if (v instanceof IInstallableUnit)
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.index;
+
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.index.IIndex;
+import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
+import org.eclipse.equinox.p2.query.CompoundQueryable;
+import org.eclipse.equinox.p2.query.IQueryable;
+
+/**
+ * A queryable combining the installable units of several queryables, like a
+ * {@link CompoundQueryable}, that materializes them once: the units of all the
+ * children are deduplicated in the order of the children, and a single id index
+ * and capability index are built over them. An indexed lookup then costs the same
+ * as in a single repository, whatever the number of children and whether they are
+ * indexed or not.
+ * <p>
+ * The materialized units are rebuilt when a child changes. An index provider is
+ * known to have changed when it hands out another id index. Other children, and
+ * children whose id index is only a compound view over their own children, are
+ * assumed not to change.
+ */
+public class MergedQueryable extends IndexProvider<IInstallableUnit> {
+	/**
+	 * The key of a boolean property asking to query several metadata repositories
+	 * through a merged queryable rather than a compound one. Composite metadata
+	 * repositories look it up in their agent, provisioning contexts in their own
+	 * properties and then in their agent.
+	 */
+	public static final String PROP_MERGED_INDEX = "org.eclipse.equinox.p2.metadata.mergedIndex"; //$NON-NLS-1$
+
+	private final List<IQueryable<IInstallableUnit>> queryables;
+	private final CompoundQueryable<IInstallableUnit> compound;
+	private Object[] stamps;
+	private Set<IInstallableUnit> units;
+	private IIndex<IInstallableUnit> idIndex;
+	private IIndex<IInstallableUnit> capabilityIndex;
+
+	public MergedQueryable(Collection<? extends IQueryable<IInstallableUnit>> queryables) {
+		this.queryables = List.copyOf(queryables);
+		this.compound = new CompoundQueryable<>(this.queryables);
+	}
+
+	@Override
+	public synchronized Iterator<IInstallableUnit> everything() {
+		validate();
+		return units.iterator();
+	}
+
+	@Override
+	public synchronized boolean contains(IInstallableUnit element) {
+		validate();
+		return units.contains(element);
+	}
+
+	@Override
+	public synchronized IIndex<IInstallableUnit> getIndex(String memberName) {
+		if (InstallableUnit.MEMBER_PROVIDED_CAPABILITIES.equals(memberName)) {
+			validate();
+			if (capabilityIndex == null)
+				capabilityIndex = new CapabilityIndex(units.iterator());
+			return capabilityIndex;
+		}
+		if (InstallableUnit.MEMBER_ID.equals(memberName)) {
+			validate();
+			if (idIndex == null)
+				idIndex = new IdIndex(units.iterator());
+			return idIndex;
+		}
+		return null;
+	}
+
+	@Override
+	public Object getManagedProperty(Object client, String memberName, Object key) {
+		return compound.getManagedProperty(client, memberName, key);
+	}
+
+	/*
+	 * Materializes the units of the children, unless they did not change since the
+	 * last time.
+	 */
+	private void validate() {
+		Object[] current = new Object[queryables.size()];
+		for (int i = 0; i < current.length; i++)
+			current[i] = getStamp(queryables.get(i));
+		if (units != null && Arrays.equals(current, stamps))
+			return;
+		Set<IInstallableUnit> merged = new LinkedHashSet<>();
+		compound.everything().forEachRemaining(merged::add);
+		units = Collections.unmodifiableSet(merged);
+		stamps = current;
+		idIndex = null;
+		capabilityIndex = null;
+	}
+
+	private static Object getStamp(IQueryable<IInstallableUnit> queryable) {
+		if (queryable instanceof IIndexProvider<?>) {
+			@SuppressWarnings("unchecked")
+			IIndex<IInstallableUnit> index = ((IIndexProvider<IInstallableUnit>) queryable).getIndex(InstallableUnit.MEMBER_ID);
+			if (index != null && !(index instanceof CompoundIndex<?>))
+				return index;
+		}
+		return queryable;
+	}
+}
@@ -90,7 +90,11 @@ public abstract class Version implements Comparable<Version>, Serializable {
 	public static Version create(String version) {
 		Version v = null;
 		if (version != null && version.length() > 0) {
-			SoftReference<Version> vRef = POOL.get(version);
+			// WeakHashMap.get also expunges stale entries, so it needs the lock too
+			SoftReference<Version> vRef;
+			synchronized (POOL) {
+				vRef = POOL.get(version);
+			}
 			v = vRef != null ? vRef.get() : null;
 			if (v == null) {
 				v = VersionParser.parse(version, 0, version.length());
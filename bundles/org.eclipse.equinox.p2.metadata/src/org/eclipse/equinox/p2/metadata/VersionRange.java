@@ -279,7 +279,11 @@ public class VersionRange implements Serializable {
 	public static VersionRange create(String versionRange) {
 		VersionRange v = null;
 		if (versionRange != null && versionRange.length() > 0) {
-			SoftReference<VersionRange> vRef = POOL.get(versionRange);
+			// WeakHashMap.get also expunges stale entries, so it needs the lock too
+			SoftReference<VersionRange> vRef;
+			synchronized (POOL) {
+				vRef = POOL.get(versionRange);
+			}
 			v = vRef != null ? vRef.get() : null;
 			if (v == null) {
 				v = new VersionRange(versionRange);
@@ -24,6 +24,7 @@ import static java.util.stream.Collectors.toMap;
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -32,6 +33,8 @@ import org.eclipse.equinox.frameworkadmin.BundleInfo;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
 import org.eclipse.equinox.internal.p2.publisher.Messages;
+import org.eclipse.equinox.internal.p2.publisher.ParallelismAdvice;
+import org.eclipse.equinox.internal.p2.publisher.PublishCache;
 import org.eclipse.equinox.internal.p2.publisher.eclipse.GeneratorBundleInfo;
 import org.eclipse.equinox.p2.metadata.*;
 import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
@@ -43,6 +46,7 @@ import org.eclipse.equinox.p2.publisher.actions.*;
 import org.eclipse.equinox.p2.query.IQueryResult;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
+import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactDescriptor;
 import org.eclipse.equinox.spi.p2.publisher.LocalizationHelper;
 import org.eclipse.equinox.spi.p2.publisher.PublisherHelper;
 import org.eclipse.osgi.framework.util.CaseInsensitiveDictionaryMap;
@@ -1028,6 +1032,12 @@ public class BundlesAction extends AbstractPublisherAction {
 	 */
 	protected void generateBundleIUs(BundleDescription[] bundleDescriptions, IPublisherInfo publisherInfo,
 			IPublisherResult result, IProgressMonitor monitor) {
+		int parallelism = ParallelismAdvice.getParallelism(publisherInfo);
+		if (parallelism > 1 && bundleDescriptions.length > 1) {
+			generateBundleIUsInParallel(bundleDescriptions, publisherInfo, result, parallelism, monitor);
+			return;
+		}
+		PublishCache publishCache = PublishCache.getPublishCache(publisherInfo);
 		// This assumes that hosts are processed before fragments because for each
 		// fragment the host
 		// is queried for the strings that should be translated.
@@ -1041,52 +1051,210 @@ public class BundlesAction extends AbstractPublisherAction {
 			}
 
 			// First check to see if there is already an IU around for this
-			IInstallableUnit bundleIU = queryForIU(result, bd.getSymbolicName(),
-					PublisherHelper.fromOSGiVersion(bd.getVersion()));
-			IArtifactKey bundleArtKey = createBundleArtifactKey(bd.getSymbolicName(), bd.getVersion().toString());
-			if (bundleIU == null) {
+			GeneratedBundle bundle = new GeneratedBundle(bd);
+			bundle.iu = queryForIU(result, bd.getSymbolicName(), PublisherHelper.fromOSGiVersion(bd.getVersion()));
+			bundle.createIU = bundle.iu == null;
+			if (bundle.createIU)
 				createAdviceFileAdvice(bd, publisherInfo);
-				// Create the bundle IU according to any shape advice we have
-				bundleIU = doCreateBundleIU(bd, bundleArtKey, publisherInfo);
+			// Create the bundle IU according to any shape advice we have
+			generateBundle(bundle, publisherInfo, publishCache);
+			publishBundle(bd, bundle.iu, bundle.artifactDescriptor, publisherInfo, result);
+		}
+	}
+
+	/**
+	 * Creates the artifact descriptor of a bundle, and its IU when asked to. When
+	 * the bundle did not change since it went into the publish cache, both come
+	 * from the cache.
+	 */
+	private void generateBundle(GeneratedBundle bundle, IPublisherInfo publisherInfo, PublishCache publishCache) {
+		BundleDescription bd = bundle.description;
+		File bundleLocation = new File(bd.getLocation());
+		boolean checksums = PublisherHelper.isArtifactGenerateChecksums(publisherInfo);
+		String fingerprint = publishCache == null ? null : getPublishCacheFingerprint(bd, publisherInfo);
+		PublishCache.Entry cached = publishCache == null ? null
+				: publishCache.get(bundleLocation, checksums, fingerprint);
+		if (cached != null && (!bundle.createIU || isBundleIU(cached.getInstallableUnit(), bd))) {
+			IArtifactDescriptor ad = PublisherHelper.createArtifactDescriptor(publisherInfo, bundle.key, null);
+			if (ad instanceof ArtifactDescriptor descriptor) {
+				descriptor.addProperties(cached.getArtifactProperties());
+				if (bundle.createIU)
+					bundle.iu = cached.getInstallableUnit();
+				bundle.artifactDescriptor = ad;
+				return;
 			}
+		}
 
-			File bundleLocation = new File(bd.getLocation());
-			IArtifactDescriptor ad = PublisherHelper.createArtifactDescriptor(publisherInfo, bundleArtKey, bundleLocation);
-			processArtifactPropertiesAdvice(bundleIU, ad, publisherInfo);
+		if (bundle.createIU)
+			bundle.iu = doCreateBundleIU(bd, bundle.key, publisherInfo);
+		bundle.artifactDescriptor = PublisherHelper.createArtifactDescriptor(publisherInfo, bundle.key, bundleLocation);
+		if (publishCache != null)
+			publishCache.put(bundleLocation, checksums, fingerprint, bundle.createIU ? bundle.iu : null,
+					bundle.artifactDescriptor.getProperties());
+	}
 
-			// Publish according to the shape on disk
-			if (bundleLocation.isDirectory()) {
-				publishArtifact(ad, bundleLocation, bundleLocation.listFiles(), publisherInfo);
-			} else {
-				publishArtifact(ad, bundleLocation, publisherInfo);
+	/**
+	 * Returns the fingerprint of the publisher configuration and of the advice that
+	 * go into the IU of a bundle. The advice is described by what it gives for an
+	 * IU that only has the id and the version of the bundle.
+	 */
+	private static String getPublishCacheFingerprint(BundleDescription bd, IPublisherInfo info) {
+		String id = bd.getSymbolicName();
+		Version version = PublisherHelper.fromOSGiVersion(bd.getVersion());
+		InstallableUnitDescription iu = new InstallableUnitDescription();
+		iu.setId(id);
+		iu.setVersion(version);
+		StringBuilder result = new StringBuilder();
+		result.append(info.getArtifactOptions()).append(Arrays.toString(info.getConfigurations()));
+		for (IPublisherAdvice advice : info.getAdvice(null, true, id, version, IPublisherAdvice.class)) {
+			if (!(advice instanceof IPropertyAdvice || advice instanceof ICapabilityAdvice
+					|| advice instanceof IUpdateDescriptorAdvice || advice instanceof ITouchpointAdvice
+					|| advice instanceof IBundleShapeAdvice))
+				continue;
+			result.append(';').append(advice.getClass().getName());
+			if (advice instanceof IPropertyAdvice propertyAdvice) {
+				Map<String, String> properties = propertyAdvice.getInstallableUnitProperties(iu);
+				result.append(properties == null ? null : new TreeMap<>(properties));
+			}
+			if (advice instanceof ICapabilityAdvice capabilityAdvice) {
+				result.append(Arrays.toString(capabilityAdvice.getProvidedCapabilities(iu)));
+				result.append(Arrays.toString(capabilityAdvice.getRequiredCapabilities(iu)));
+				result.append(Arrays.toString(capabilityAdvice.getMetaRequiredCapabilities(iu)));
+			}
+			if (advice instanceof IUpdateDescriptorAdvice updateDescriptorAdvice) {
+				IUpdateDescriptor descriptor = updateDescriptorAdvice.getUpdateDescriptor(iu);
+				if (descriptor != null)
+					result.append(descriptor.getIUsBeingUpdated()).append(descriptor.getSeverity())
+							.append(descriptor.getDescription()).append(descriptor.getLocation());
 			}
+			if (advice instanceof ITouchpointAdvice touchpointAdvice)
+				result.append(touchpointAdvice.getTouchpointData(MetadataFactory.createTouchpointData(Map.of())));
+			if (advice instanceof IBundleShapeAdvice shapeAdvice)
+				result.append(shapeAdvice.getShape());
+		}
+		return PublishCache.getFingerprint(result.toString());
+	}
 
-			IInstallableUnit fragment = null;
-			if (isFragment(bd)) {
-				String hostId = bd.getHost().getName();
-				VersionRange hostVersionRange = PublisherHelper.fromOSGiVersionRange(bd.getHost().getVersionRange());
+	private static boolean isBundleIU(IInstallableUnit iu, BundleDescription bd) {
+		return iu != null && iu.getId().equals(bd.getSymbolicName())
+				&& iu.getVersion().equals(PublisherHelper.fromOSGiVersion(bd.getVersion()));
+	}
 
-				IQueryResult<IInstallableUnit> hosts = queryForIUs(result, hostId, hostVersionRange);
+	/**
+	 * Publishes the artifact of a bundle and adds its IU, and the IUs that depend
+	 * on it, to the result.
+	 */
+	private void publishBundle(BundleDescription bd, IInstallableUnit bundleIU, IArtifactDescriptor ad,
+			IPublisherInfo publisherInfo, IPublisherResult result) {
+		File bundleLocation = new File(bd.getLocation());
+		processArtifactPropertiesAdvice(bundleIU, ad, publisherInfo);
+
+		// Publish according to the shape on disk
+		if (bundleLocation.isDirectory()) {
+			publishArtifact(ad, bundleLocation, bundleLocation.listFiles(), publisherInfo);
+		} else {
+			publishArtifact(ad, bundleLocation, publisherInfo);
+		}
 
-				for (IInstallableUnit host : hosts) {
-					String fragmentId = makeHostLocalizationFragmentId(bd.getSymbolicName());
-					fragment = queryForIU(result, fragmentId, PublisherHelper.fromOSGiVersion(bd.getVersion()));
-					if (fragment == null) {
-						String[] externalizedStrings = getExternalizedStrings(host);
-						fragment = createHostLocalizationFragment(bundleIU, bd, hostId, externalizedStrings);
-					}
+		IInstallableUnit fragment = null;
+		if (isFragment(bd)) {
+			String hostId = bd.getHost().getName();
+			VersionRange hostVersionRange = PublisherHelper.fromOSGiVersionRange(bd.getHost().getVersionRange());
+
+			IQueryResult<IInstallableUnit> hosts = queryForIUs(result, hostId, hostVersionRange);
+
+			for (IInstallableUnit host : hosts) {
+				String fragmentId = makeHostLocalizationFragmentId(bd.getSymbolicName());
+				fragment = queryForIU(result, fragmentId, PublisherHelper.fromOSGiVersion(bd.getVersion()));
+				if (fragment == null) {
+					String[] externalizedStrings = getExternalizedStrings(host);
+					fragment = createHostLocalizationFragment(bundleIU, bd, hostId, externalizedStrings);
 				}
 			}
+		}
+
+		result.addIU(bundleIU, IPublisherResult.ROOT);
+		if (fragment != null) {
+			result.addIU(fragment, IPublisherResult.NON_ROOT);
+		}
+
+		InstallableUnitDescription[] others = processAdditionalInstallableUnitsAdvice(bundleIU, publisherInfo);
+		for (int iuIndex = 0; others != null && iuIndex < others.length; iuIndex++) {
+			result.addIU(MetadataFactory.createInstallableUnit(others[iuIndex]), IPublisherResult.ROOT);
+		}
+	}
 
-			result.addIU(bundleIU, IPublisherResult.ROOT);
-			if (fragment != null) {
-				result.addIU(fragment, IPublisherResult.NON_ROOT);
+	/**
+	 * Publishes the bundles like {@link #generateBundleIUs(BundleDescription[], IPublisherInfo, IPublisherResult, IProgressMonitor)}
+	 * but creates their IUs and artifact descriptors, checksums included, on up to
+	 * <code>parallelism</code> threads. The advice files are read beforehand because
+	 * the advice must not change while the IUs are created. The artifacts are
+	 * published and the IUs added to the result on the calling thread, in the order
+	 * of the bundles, so hosts still come before their fragments and the result is
+	 * the same as the one of a sequential run.
+	 */
+	private void generateBundleIUsInParallel(BundleDescription[] bundleDescriptions, IPublisherInfo publisherInfo,
+			IPublisherResult result, int parallelism, IProgressMonitor monitor) {
+		List<GeneratedBundle> bundlesToPublish = new ArrayList<>(bundleDescriptions.length);
+		Set<IArtifactKey> createdKeys = new HashSet<>();
+		for (BundleDescription bd : bundleDescriptions) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
 			}
 
-			InstallableUnitDescription[] others = processAdditionalInstallableUnitsAdvice(bundleIU, publisherInfo);
-			for (int iuIndex = 0; others != null && iuIndex < others.length; iuIndex++) {
-				result.addIU(MetadataFactory.createInstallableUnit(others[iuIndex]), IPublisherResult.ROOT);
+			if (bd == null || bd.getSymbolicName() == null || bd.getVersion() == null) {
+				continue;
 			}
+
+			GeneratedBundle bundle = new GeneratedBundle(bd);
+			bundle.iu = queryForIU(result, bd.getSymbolicName(), PublisherHelper.fromOSGiVersion(bd.getVersion()));
+			// a bundle that occurs more than once gets the IU created for its first
+			// occurrence, which is in the result by the time the others are published
+			bundle.createIU = bundle.iu == null && createdKeys.add(bundle.key);
+			if (bundle.createIU)
+				createAdviceFileAdvice(bd, publisherInfo);
+			bundlesToPublish.add(bundle);
+		}
+
+		PublishCache publishCache = PublishCache.getPublishCache(publisherInfo);
+		ExecutorService executor = createExecutor(Math.min(parallelism, bundlesToPublish.size()));
+		try {
+			List<Future<GeneratedBundle>> createdBundles = new ArrayList<>(bundlesToPublish.size());
+			for (GeneratedBundle bundle : bundlesToPublish)
+				createdBundles.add(executor.submit(() -> {
+					generateBundle(bundle, publisherInfo, publishCache);
+					return bundle;
+				}));
+
+			for (Future<GeneratedBundle> createdBundle : createdBundles) {
+				GeneratedBundle bundle = await(createdBundle, monitor);
+				BundleDescription bd = bundle.description;
+				if (bundle.iu == null)
+					bundle.iu = queryForIU(result, bd.getSymbolicName(), PublisherHelper.fromOSGiVersion(bd.getVersion()));
+				publishBundle(bd, bundle.iu, bundle.artifactDescriptor, publisherInfo, result);
+			}
+		} catch (ExecutionException e) {
+			throw toUnchecked(e.getCause());
+		} finally {
+			shutdown(executor);
+		}
+	}
+
+	/**
+	 * A bundle being published. When the bundles are published in parallel, the
+	 * fields set by a worker thread are read by the calling thread once the task is
+	 * done.
+	 */
+	private static final class GeneratedBundle {
+		final BundleDescription description;
+		final IArtifactKey key;
+		boolean createIU;
+		IInstallableUnit iu;
+		IArtifactDescriptor artifactDescriptor;
+
+		GeneratedBundle(BundleDescription description) {
+			this.description = description;
+			this.key = createBundleArtifactKey(description.getSymbolicName(), description.getVersion().toString());
 		}
 	}
 
@@ -1131,6 +1299,9 @@ public class BundlesAction extends AbstractPublisherAction {
 	protected BundleDescription[] getBundleDescriptions(File[] bundleLocations, IProgressMonitor monitor) {
 		if (bundleLocations == null)
 			return new BundleDescription[0];
+		int parallelism = ParallelismAdvice.getParallelism(info);
+		if (parallelism > 1 && bundleLocations.length > 1)
+			return getBundleDescriptionsInParallel(bundleLocations, parallelism, monitor);
 		List<BundleDescription> result = new ArrayList<>(bundleLocations.length);
 		for (File bundleLocation : bundleLocations) {
 			if (monitor.isCanceled())
@@ -1150,6 +1321,84 @@ public class BundlesAction extends AbstractPublisherAction {
 		return result.toArray(new BundleDescription[0]);
 	}
 
+	/**
+	 * Reads the bundle descriptions on up to <code>parallelism</code> threads. The
+	 * descriptions and the errors are reported in the order of the locations.
+	 */
+	private BundleDescription[] getBundleDescriptionsInParallel(File[] bundleLocations, int parallelism,
+			IProgressMonitor monitor) {
+		ExecutorService executor = createExecutor(Math.min(parallelism, bundleLocations.length));
+		try {
+			List<Future<BundleDescription>> descriptions = new ArrayList<>(bundleLocations.length);
+			for (File bundleLocation : bundleLocations)
+				descriptions.add(executor.submit(() -> createBundleDescription(bundleLocation)));
+
+			List<BundleDescription> result = new ArrayList<>(bundleLocations.length);
+			for (int i = 0; i < bundleLocations.length; i++) {
+				BundleDescription description = null;
+				try {
+					description = await(descriptions.get(i), monitor);
+				} catch (ExecutionException e) {
+					if (!(e.getCause() instanceof IOException) && !(e.getCause() instanceof BundleException))
+						throw toUnchecked(e.getCause());
+					addPublishingErrorToFinalStatus(e.getCause(), bundleLocations[i]);
+				}
+				if (description != null) {
+					result.add(description);
+				}
+			}
+			return result.toArray(new BundleDescription[0]);
+		} finally {
+			shutdown(executor);
+		}
+	}
+
+	private static ExecutorService createExecutor(int threads) {
+		return Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "p2 publisher"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private static <T> T await(Future<T> future, IProgressMonitor monitor) throws ExecutionException {
+		while (true) {
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			try {
+				return future.get(100, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+		}
+	}
+
+	private static RuntimeException toUnchecked(Throwable t) {
+		if (t instanceof Error error)
+			throw error;
+		if (t instanceof RuntimeException runtimeException)
+			return runtimeException;
+		return new IllegalStateException(t);
+	}
+
+	/**
+	 * Drops the tasks that did not start and waits for the running ones, so that
+	 * none of them still reads the publisher info once the action is done.
+	 */
+	private static void shutdown(ExecutorService executor) {
+		executor.shutdownNow();
+		try {
+			while (!executor.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+				// the running tasks are short lived
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	private void addPublishingErrorToFinalStatus(Throwable t, File bundleLocation) {
 		finalStatus.add(new Status(IStatus.ERROR, Activator.ID,
 				NLS.bind(Messages.exception_errorPublishingBundle, bundleLocation, t.getMessage()), t));
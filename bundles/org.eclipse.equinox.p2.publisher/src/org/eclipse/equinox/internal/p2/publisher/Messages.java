@@ -33,6 +33,10 @@ public class Messages extends NLS {
 	public static String exception_invalidSiteReferenceInFeature;
 	public static String exception_repoMustBeURL;
 	public static String exception_sourcePath;
+	public static String exception_invalidParallelism;
+	public static String exception_publishCacheFormat;
+	public static String exception_publishCacheRead;
+	public static String exception_publishCacheWrite;
 	public static String exception_nonExistingJreLocationFile;
 
 	public static String message_bundlesPublisherMultistatus;
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.publisher;
+
+import java.util.Collection;
+import org.eclipse.equinox.p2.publisher.AbstractAdvice;
+import org.eclipse.equinox.p2.publisher.IPublisherInfo;
+
+/**
+ * Advises the publisher actions that support it to do their work on up to the
+ * given number of threads. Without this advice, the actions run sequentially.
+ */
+public class ParallelismAdvice extends AbstractAdvice {
+
+	private final int parallelism;
+
+	public ParallelismAdvice(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Returns the parallelism advised in the given publisher info, or 1 when there
+	 * is no such advice. When several advices are given, the largest one wins.
+	 */
+	public static int getParallelism(IPublisherInfo info) {
+		if (info == null)
+			return 1;
+		Collection<ParallelismAdvice> advice = info.getAdvice(null, true, null, null, ParallelismAdvice.class);
+		int result = 1;
+		for (ParallelismAdvice entry : advice)
+			result = Math.max(result, entry.getParallelism());
+		return result;
+	}
+}
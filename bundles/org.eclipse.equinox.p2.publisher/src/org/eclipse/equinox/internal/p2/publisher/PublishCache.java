@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.publisher;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.*;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.repository.helpers.ChecksumHelper;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.io.IUDeserializer;
+import org.eclipse.equinox.p2.metadata.io.IUSerializer;
+import org.eclipse.equinox.p2.publisher.AbstractAdvice;
+import org.eclipse.equinox.p2.publisher.IPublisherInfo;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Remembers, across publisher runs, the IU and the artifact descriptor
+ * properties generated for a file, so that they are not generated again as long
+ * as the file does not change. A file is considered unchanged when its size and
+ * modification time are the ones recorded, or else when its content hash is.
+ * <p>
+ * Each entry also records a fingerprint of the advice and publisher configuration
+ * that went into it, described by the caller, and is not used again when they
+ * change. Only the entries used during a run are saved, which drops the files
+ * that are not published anymore.
+ * </p>
+ */
+public class PublishCache extends AbstractAdvice {
+
+	private static final int FORMAT_VERSION = 2;
+	private static final String INDEX_ENTRY = "index"; //$NON-NLS-1$
+	private static final String UNITS_ENTRY = "units.xml"; //$NON-NLS-1$
+	private static final String HASH_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+	private static final String SHA_256_PROPERTY = IArtifactDescriptor.DOWNLOAD_CHECKSUM + ".sha-256"; //$NON-NLS-1$
+
+	/**
+	 * What the cache knows about a file.
+	 */
+	public static final class Entry {
+		final long size;
+		final long lastModified;
+		final String contentHash;
+		final boolean checksums;
+		final String fingerprint;
+		final Map<String, String> artifactProperties;
+		final IInstallableUnit installableUnit;
+
+		Entry(long size, long lastModified, String contentHash, boolean checksums, String fingerprint,
+				Map<String, String> artifactProperties, IInstallableUnit installableUnit) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.contentHash = contentHash;
+			this.checksums = checksums;
+			this.fingerprint = fingerprint;
+			this.artifactProperties = artifactProperties;
+			this.installableUnit = installableUnit;
+		}
+
+		/**
+		 * Returns the properties of the artifact descriptor generated for the file.
+		 */
+		public Map<String, String> getArtifactProperties() {
+			return artifactProperties;
+		}
+
+		/**
+		 * Returns the IU generated for the file, or <code>null</code> if only the
+		 * artifact descriptor properties are known.
+		 */
+		public IInstallableUnit getInstallableUnit() {
+			return installableUnit;
+		}
+	}
+
+	private final File location;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+	public PublishCache(File location) {
+		this.location = location;
+	}
+
+	public File getLocation() {
+		return location;
+	}
+
+	/**
+	 * Returns the publish cache advised in the given publisher info, or
+	 * <code>null</code> if there is none.
+	 */
+	public static PublishCache getPublishCache(IPublisherInfo info) {
+		if (info == null)
+			return null;
+		Collection<PublishCache> advice = info.getAdvice(null, true, null, null, PublishCache.class);
+		return advice.isEmpty() ? null : advice.iterator().next();
+	}
+
+	/**
+	 * Returns a fingerprint of the given description of the advice and publisher
+	 * configuration that go into what is generated for a file.
+	 */
+	public static String getFingerprint(String configuration) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+			return ChecksumHelper.toHexString(digest.digest(configuration.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			return configuration;
+		}
+	}
+
+	/**
+	 * Returns what the cache knows about the given file if the file did not
+	 * change since, or <code>null</code>. The entries recorded with a different
+	 * checksum setting or fingerprint are ignored.
+	 */
+	public Entry get(File file, boolean checksums, String fingerprint) {
+		if (!file.isFile())
+			return null;
+		String key = file.getAbsolutePath();
+		Entry entry = entries.get(key);
+		if (entry == null || entry.checksums != checksums || !entry.fingerprint.equals(fingerprint))
+			return null;
+		long size = file.length();
+		long lastModified = file.lastModified();
+		if (entry.size != size)
+			return null;
+		if (entry.lastModified != lastModified) {
+			// the file may have been touched without being modified, like on a fresh checkout
+			if (!entry.contentHash.equals(hash(file)))
+				return null;
+			entry = new Entry(size, lastModified, entry.contentHash, checksums, fingerprint,
+					entry.artifactProperties, entry.installableUnit);
+			entries.put(key, entry);
+		}
+		used.add(key);
+		return entry;
+	}
+
+	/**
+	 * Records the IU, if any, and the artifact descriptor properties generated for
+	 * the given file with the given fingerprint.
+	 */
+	public void put(File file, boolean checksums, String fingerprint, IInstallableUnit installableUnit,
+			Map<String, String> artifactProperties) {
+		if (!file.isFile())
+			return;
+		long size = file.length();
+		long lastModified = file.lastModified();
+		String contentHash = artifactProperties.get(SHA_256_PROPERTY);
+		if (contentHash == null)
+			contentHash = hash(file);
+		if (contentHash == null)
+			return;
+		String key = file.getAbsolutePath();
+		if (installableUnit == null) {
+			// keep the IU of a file that is published more than once
+			Entry existing = entries.get(key);
+			if (existing != null && existing.checksums == checksums && existing.fingerprint.equals(fingerprint)
+					&& existing.contentHash.equals(contentHash))
+				installableUnit = existing.installableUnit;
+		}
+		entries.put(key, new Entry(size, lastModified, contentHash, checksums, fingerprint,
+				new HashMap<>(artifactProperties), installableUnit));
+		used.add(key);
+	}
+
+	/**
+	 * Reads the cache from its location. A missing cache is empty, an unreadable
+	 * one is logged and ignored.
+	 */
+	public void load() {
+		entries.clear();
+		used.clear();
+		if (!location.isFile())
+			return;
+		try (ZipFile zip = new ZipFile(location)) {
+			ZipEntry unitsEntry = zip.getEntry(UNITS_ENTRY);
+			ZipEntry indexEntry = zip.getEntry(INDEX_ENTRY);
+			if (unitsEntry == null || indexEntry == null)
+				throw new IOException(NLS.bind(Messages.exception_publishCacheFormat, location));
+			List<IInstallableUnit> units;
+			try (InputStream input = zip.getInputStream(unitsEntry)) {
+				units = new ArrayList<>(new IUDeserializer().read(input));
+			}
+			try (DataInputStream input = new DataInputStream(new BufferedInputStream(zip.getInputStream(indexEntry)))) {
+				if (input.readInt() != FORMAT_VERSION)
+					return;
+				for (int count = input.readInt(); count > 0; count--) {
+					String key = input.readUTF();
+					long size = input.readLong();
+					long lastModified = input.readLong();
+					String contentHash = input.readUTF();
+					boolean checksums = input.readBoolean();
+					String fingerprint = input.readUTF();
+					int unit = input.readInt();
+					Map<String, String> properties = new HashMap<>();
+					for (int propertyCount = input.readInt(); propertyCount > 0; propertyCount--)
+						properties.put(input.readUTF(), input.readUTF());
+					entries.put(key, new Entry(size, lastModified, contentHash, checksums, fingerprint, properties,
+							unit < 0 ? null : units.get(unit)));
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			entries.clear();
+			LogHelper.log(new Status(IStatus.WARNING, Activator.ID,
+					NLS.bind(Messages.exception_publishCacheRead, location), e));
+		}
+	}
+
+	/**
+	 * Writes the entries used since the cache was loaded to its location.
+	 */
+	public void save() throws IOException {
+		List<String> keys = new ArrayList<>(used);
+		Collections.sort(keys);
+		List<IInstallableUnit> units = new ArrayList<>();
+		File parent = location.getAbsoluteFile().getParentFile();
+		if (parent != null)
+			parent.mkdirs();
+		File temp = new File(location.getAbsolutePath() + ".tmp"); //$NON-NLS-1$
+		try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			zip.putNextEntry(new ZipEntry(INDEX_ENTRY));
+			DataOutputStream output = new DataOutputStream(zip);
+			output.writeInt(FORMAT_VERSION);
+			output.writeInt(keys.size());
+			for (String key : keys) {
+				Entry entry = entries.get(key);
+				output.writeUTF(key);
+				output.writeLong(entry.size);
+				output.writeLong(entry.lastModified);
+				output.writeUTF(entry.contentHash);
+				output.writeBoolean(entry.checksums);
+				output.writeUTF(entry.fingerprint);
+				if (entry.installableUnit == null) {
+					output.writeInt(-1);
+				} else {
+					output.writeInt(units.size());
+					units.add(entry.installableUnit);
+				}
+				output.writeInt(entry.artifactProperties.size());
+				for (Map.Entry<String, String> property : entry.artifactProperties.entrySet()) {
+					output.writeUTF(property.getKey());
+					output.writeUTF(property.getValue());
+				}
+			}
+			output.flush();
+			zip.closeEntry();
+
+			zip.putNextEntry(new ZipEntry(UNITS_ENTRY));
+			new IUSerializer(zip).write(units);
+			zip.closeEntry();
+		}
+		Files.move(temp.toPath(), location.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static String hash(File file) {
+		try (InputStream input = new FileInputStream(file)) {
+			MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) != -1)
+				digest.update(buffer, 0, read);
+			return ChecksumHelper.toHexString(digest.digest());
+		} catch (IOException | NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+}
@@ -15,6 +15,7 @@
 package org.eclipse.equinox.p2.publisher;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -23,9 +24,12 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.app.IApplication;
 import org.eclipse.equinox.app.IApplicationContext;
 import org.eclipse.equinox.internal.p2.artifact.repository.CompositeArtifactRepository;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.metadata.repository.CompositeMetadataRepository;
 import org.eclipse.equinox.internal.p2.publisher.Activator;
 import org.eclipse.equinox.internal.p2.publisher.Messages;
+import org.eclipse.equinox.internal.p2.publisher.ParallelismAdvice;
+import org.eclipse.equinox.internal.p2.publisher.PublishCache;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
 import org.eclipse.equinox.p2.query.IQueryResult;
@@ -213,6 +217,17 @@ public abstract class AbstractPublisherApplication implements IApplication {
 
 		if (arg.equalsIgnoreCase("-contextArtifacts")) //$NON-NLS-1$
 			setContextRepositories(contextMetadataRepositories, processRepositoryList(parameter));
+
+		if (arg.equalsIgnoreCase("-parallelism")) { //$NON-NLS-1$
+			try {
+				publisherInfo.addAdvice(new ParallelismAdvice(Integer.parseInt(parameter)));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(NLS.bind(Messages.exception_invalidParallelism, parameter));
+			}
+		}
+
+		if (arg.equalsIgnoreCase("-publishCache")) //$NON-NLS-1$
+			publisherInfo.addAdvice(new PublishCache(new File(parameter)));
 	}
 
 	private URI[] processRepositoryList(String parameter) {
@@ -308,9 +323,14 @@ public abstract class AbstractPublisherApplication implements IApplication {
 			System.out.println(NLS.bind(Messages.message_generatingMetadata, publisherInfo.getSummary()));
 
 			long before = System.currentTimeMillis();
+			PublishCache publishCache = PublishCache.getPublishCache(publisherInfo);
+			if (publishCache != null)
+				publishCache.load();
 			IPublisherAction[] actions = createActions();
 			Publisher publisher = createPublisher(publisherInfo);
 			IStatus result = publisher.publish(actions, new NullProgressMonitor());
+			if (publishCache != null && !result.matches(IStatus.CANCEL))
+				savePublishCache(publishCache);
 			long after = System.currentTimeMillis();
 
 			if (!result.isOK()) {
@@ -338,6 +358,15 @@ public abstract class AbstractPublisherApplication implements IApplication {
 		return Integer.valueOf(1);
 	}
 
+	private void savePublishCache(PublishCache publishCache) {
+		try {
+			publishCache.save();
+		} catch (IOException e) {
+			LogHelper.log(new Status(IStatus.WARNING, Activator.ID,
+					NLS.bind(Messages.exception_publishCacheWrite, publishCache.getLocation()), e));
+		}
+	}
+
 	protected abstract IPublisherAction[] createActions();
 
 	protected Publisher createPublisher(PublisherInfo publisherInfo) {
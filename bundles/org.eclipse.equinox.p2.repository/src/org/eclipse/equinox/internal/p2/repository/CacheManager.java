@@ -20,6 +20,7 @@ import java.net.*;
 import java.util.HashSet;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.core.metrics.IProvisioningMetrics;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.SynchronousProvisioningListener;
 import org.eclipse.equinox.internal.provisional.p2.repository.IStateful;
@@ -48,6 +49,8 @@ public class CacheManager {
 
 	private final Transport transport;
 
+	private IProvisioningMetrics metrics;
+
 	/**
 	 * IStateful implementation of BufferedOutputStream. Class is used to get the status from
 	 * a download operation.
@@ -81,6 +84,8 @@ public class CacheManager {
 	private static final String DOWNLOADING = "downloading"; //$NON-NLS-1$
 	private static final String JAR_EXTENSION = ".jar"; //$NON-NLS-1$
 	private static final String XML_EXTENSION = ".xml"; //$NON-NLS-1$
+	private static final String DERIVED_EXTENSION = ".index"; //$NON-NLS-1$
+	private static final String DERIVED_SEPARATOR = "_"; //$NON-NLS-1$
 
 	private final HashSet<String> knownPrefixes = new HashSet<>(5);
 
@@ -133,6 +138,7 @@ public class CacheManager {
 			}
 
 			stale = lastModifiedRemote != lastModified;
+			recordCacheAccess(!stale);
 			if (!stale)
 				return cacheFile;
 
@@ -258,6 +264,7 @@ public class CacheManager {
 				remoteFile = xmlLocation;
 			}
 
+			recordCacheAccess(!stale);
 			if (!stale)
 				return cacheFile;
 
@@ -301,6 +308,13 @@ public class CacheManager {
 				safeDelete(new File(new File(cacheFile.getParentFile(), DOWNLOADING), cacheFile.getName()));
 			}
 		}
+		// derived files are found by name, they may have been written in an earlier session
+		String derivedSuffix = DERIVED_SEPARATOR + computeHash(repositoryLocation) + DERIVED_EXTENSION;
+		File[] derivedFiles = getCacheDirectory().listFiles((dir, name) -> name.endsWith(derivedSuffix));
+		if (derivedFiles != null) {
+			for (File derivedFile : derivedFiles)
+				safeDelete(derivedFile);
+		}
 	}
 
 	/**
@@ -317,6 +331,18 @@ public class CacheManager {
 		return files[1].exists() ? files[1] : null;
 	}
 
+	/**
+	 * Determines the local file used to persist data derived from the content of a
+	 * repository, such as an index. The file is deleted together with the other cache
+	 * files of the repository when the repository is removed.
+	 * @param repositoryLocation The location of the repository the data is derived from
+	 * @param prefix The prefix identifying the kind of derived data
+	 * @return A {@link File} pointing to the derived cache file, which may not exist.
+	 */
+	public File getDerivedCacheFile(URI repositoryLocation, String prefix) {
+		return new File(getCacheDirectory(), prefix + DERIVED_SEPARATOR + computeHash(repositoryLocation) + DERIVED_EXTENSION);
+	}
+
 	/**
 	 * Returns the file corresponding to the data area to be used by the cache manager.
 	 */
@@ -383,6 +409,19 @@ public class CacheManager {
 		return false;
 	}
 
+	private void recordCacheAccess(boolean hit) {
+		IProvisioningMetrics currentMetrics = metrics;
+		if (currentMetrics != null)
+			currentMetrics.recordCacheAccesses(IProvisioningMetrics.CACHE_REPOSITORY_INDEX, hit ? 1 : 0, hit ? 0 : 1);
+	}
+
+	/**
+	 * Sets the metrics recording the hits and misses of this cache, or <code>null</code>.
+	 */
+	public void setMetrics(IProvisioningMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	public void setEventBus(IProvisioningEventBus newBus) {
 		registerRepoEventListener(newBus);
 	}
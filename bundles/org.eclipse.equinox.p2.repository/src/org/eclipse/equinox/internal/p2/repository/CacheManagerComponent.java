@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.repository;
 
+import org.eclipse.equinox.internal.p2.core.metrics.IProvisioningMetrics;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.p2.core.IAgentLocation;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
@@ -26,6 +27,7 @@ public class CacheManagerComponent implements IAgentServiceFactory {
 		CacheManager cache = new CacheManager(agent.getService(IAgentLocation.class),
 				agent.getService(Transport.class));
 		cache.setEventBus(eventBus);
+		cache.setMetrics(agent.getService(IProvisioningMetrics.class));
 		return cache;
 	}
 
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository.helpers;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.ProvisionException;
+
+/**
+ * Loads the repositories at several locations, a bounded number of them at the
+ * same time. The outcomes are reported in the order of the locations, whatever
+ * the order in which the loads complete. The children of nested composite
+ * repositories are loaded by the threads of the outermost load, so the bound
+ * holds for the whole load.
+ */
+public class ConcurrentRepositoryLoader {
+
+	/**
+	 * The key of an agent property giving how many children of a composite repository
+	 * are loaded at the same time.
+	 */
+	public static final String PROP_MAX_CONCURRENT_COMPOSITE_LOADING = "eclipse.p2.composite.loading.maxConcurrent"; //$NON-NLS-1$
+	private static final int DEFAULT_MAX_CONCURRENT_COMPOSITE_LOADING = 4;
+
+	/**
+	 * Loads the repository at a location.
+	 */
+	@FunctionalInterface
+	public interface Loader<R> {
+		R load(URI location, IProgressMonitor monitor) throws ProvisionException;
+	}
+
+	/**
+	 * The outcome of loading the repository at a location, either the repository
+	 * or the reason it could not be loaded.
+	 */
+	public static final class Outcome<R> {
+		private final URI location;
+		private final R repository;
+		private final ProvisionException failure;
+
+		Outcome(URI location, R repository, ProvisionException failure) {
+			this.location = location;
+			this.repository = repository;
+			this.failure = failure;
+		}
+
+		public URI getLocation() {
+			return location;
+		}
+
+		public R getRepository() {
+			return repository;
+		}
+
+		public ProvisionException getFailure() {
+			return failure;
+		}
+	}
+
+	/**
+	 * The executor of the load running on the current thread, which the loads of
+	 * the children of a composite repository share.
+	 */
+	private static final ThreadLocal<ExecutorService> currentExecutor = new ThreadLocal<>();
+
+	private final int maxConcurrentLoads;
+
+	public ConcurrentRepositoryLoader(int maxConcurrentLoads) {
+		this.maxConcurrentLoads = Math.max(1, maxConcurrentLoads);
+	}
+
+	/**
+	 * Returns how many children of a composite repository the given agent loads at
+	 * the same time.
+	 */
+	public static int getMaxConcurrentCompositeLoading(IProvisioningAgent agent) {
+		String value = agent.getProperty(PROP_MAX_CONCURRENT_COMPOSITE_LOADING);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return DEFAULT_MAX_CONCURRENT_COMPOSITE_LOADING;
+	}
+
+	/**
+	 * Loads the repositories at the given locations and returns the outcomes in the
+	 * order of the locations. When <code>stopOnFailure</code> is set, the outcomes end
+	 * with the first failure in that order and the loads that have not started yet
+	 * are skipped. The method only returns once no load is running anymore.
+	 */
+	public <R> List<Outcome<R>> loadAll(List<URI> locations, Loader<R> loader, boolean stopOnFailure, IProgressMonitor monitor) {
+		List<Outcome<R>> outcomes = new ArrayList<>(locations.size());
+		SubMonitor subMonitor = SubMonitor.convert(monitor, locations.size());
+		if (locations.size() < 2 || maxConcurrentLoads == 1) {
+			for (URI location : locations) {
+				Outcome<R> outcome = load(location, loader, subMonitor.split(1));
+				outcomes.add(outcome);
+				if (stopOnFailure && outcome.getFailure() != null)
+					break;
+			}
+			return outcomes;
+		}
+
+		AtomicBoolean canceled = new AtomicBoolean();
+		// the children of a composite being loaded share the executor of the load
+		ExecutorService sharedExecutor = currentExecutor.get();
+		ExecutorService executor = sharedExecutor != null ? sharedExecutor : createExecutor(maxConcurrentLoads);
+		subMonitor.setWorkRemaining(locations.size() * LoadMonitor.TOTAL_WORK);
+		List<LoadMonitor> monitors = new ArrayList<>(locations.size());
+		List<FutureTask<Outcome<R>>> loads = new ArrayList<>(locations.size());
+		try {
+			for (URI location : locations) {
+				LoadMonitor loadMonitor = new LoadMonitor(canceled, subMonitor);
+				FutureTask<Outcome<R>> load = new FutureTask<>(() -> {
+					if (canceled.get())
+						return null;
+					ExecutorService previous = currentExecutor.get();
+					currentExecutor.set(executor);
+					try {
+						return load(location, loader, loadMonitor);
+					} finally {
+						currentExecutor.set(previous);
+					}
+				});
+				monitors.add(loadMonitor);
+				loads.add(load);
+				executor.execute(load);
+			}
+			for (int i = 0; i < loads.size(); i++) {
+				Outcome<R> outcome = await(loads.get(i), monitors, subMonitor);
+				monitors.get(i).reportDone(subMonitor);
+				outcomes.add(outcome);
+				if (stopOnFailure && outcome.getFailure() != null)
+					break;
+			}
+		} finally {
+			// skip the loads that did not start and let the running ones finish
+			canceled.set(true);
+			finish(loads);
+			if (sharedExecutor == null)
+				executor.shutdown();
+		}
+		return outcomes;
+	}
+
+	/*
+	 * The threads of the executor are the only ones loading repositories besides the
+	 * thread waiting for them, which runs the load it waits for itself when no thread
+	 * took it yet. So a load waiting for the loads of its children never waits for a
+	 * thread held by another waiting load.
+	 */
+	private static ExecutorService createExecutor(int maxConcurrentLoads) {
+		return Executors.newFixedThreadPool(maxConcurrentLoads - 1, r -> {
+			Thread thread = new Thread(r, "p2 repository loader"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private static <R> Outcome<R> load(URI location, Loader<R> loader, IProgressMonitor monitor) {
+		try {
+			return new Outcome<>(location, loader.load(location, monitor), null);
+		} catch (ProvisionException e) {
+			return new Outcome<>(location, null, e);
+		}
+	}
+
+	private static <R> Outcome<R> await(FutureTask<Outcome<R>> load, List<LoadMonitor> monitors, IProgressMonitor monitor) {
+		// runs the load here unless it is already running or done
+		load.run();
+		while (true) {
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			for (LoadMonitor loadMonitor : monitors)
+				loadMonitor.report(monitor);
+			try {
+				return load.get(100, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtimeException)
+					throw runtimeException;
+				if (e.getCause() instanceof Error error)
+					throw error;
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+
+	private static <R> void finish(List<FutureTask<Outcome<R>>> loads) {
+		for (FutureTask<Outcome<R>> load : loads) {
+			// the loads that did not start return at once
+			load.run();
+			try {
+				load.get();
+			} catch (ExecutionException e) {
+				// reported by the load waited for, or not waited for at all
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * The progress monitor of a load running concurrently with others. The work
+	 * reported by the load is accumulated and passed on to the monitor of all the
+	 * loads by the thread waiting for them, and the load is canceled along with
+	 * that monitor.
+	 */
+	private static final class LoadMonitor extends NullProgressMonitor {
+		static final int TOTAL_WORK = 100;
+
+		private final AtomicBoolean canceled;
+		private final IProgressMonitor parent;
+		private volatile double totalWork;
+		private final DoubleAdder worked = new DoubleAdder();
+		/** The work passed on to the monitor of all the loads, only used by the waiting thread */
+		private int reported;
+
+		LoadMonitor(AtomicBoolean canceled, IProgressMonitor parent) {
+			this.canceled = canceled;
+			this.parent = parent;
+		}
+
+		@Override
+		public void beginTask(String name, int total) {
+			totalWork = total;
+		}
+
+		@Override
+		public void worked(int work) {
+			internalWorked(work);
+		}
+
+		@Override
+		public void internalWorked(double work) {
+			worked.add(work);
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return canceled.get() || super.isCanceled() || parent.isCanceled();
+		}
+
+		void report(IProgressMonitor monitor) {
+			double total = totalWork;
+			if (total <= 0)
+				return;
+			int work = (int) Math.min(TOTAL_WORK, worked.sum() * TOTAL_WORK / total);
+			if (work > reported) {
+				monitor.worked(work - reported);
+				reported = work;
+			}
+		}
+
+		void reportDone(IProgressMonitor monitor) {
+			monitor.worked(TOTAL_WORK - reported);
+			reported = TOTAL_WORK;
+		}
+	}
+}
@@ -33,7 +33,8 @@ import org.eclipse.equinox.p2.repository.IRepository;
 public abstract class AbstractRepository<T> extends PlatformObject implements IRepository<T> {
 	private final IProvisioningAgent agent;
 	private String description;
-	private transient URI location;
+	// read without the lock, the location is needed by every lookup of some repositories
+	private transient volatile URI location;
 	private String name;
 	private Map<String, String> properties = new OrderedProperties();
 	private String provider;
@@ -88,7 +89,7 @@ public abstract class AbstractRepository<T> extends PlatformObject implements IR
 	 * @return the URI of the repository.
 	 */
 	@Override
-	public synchronized URI getLocation() {
+	public URI getLocation() {
 		return location;
 	}
 
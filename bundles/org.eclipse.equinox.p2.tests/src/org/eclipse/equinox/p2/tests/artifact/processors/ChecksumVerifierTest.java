@@ -13,18 +13,24 @@
  *******************************************************************************/
 package org.eclipse.equinox.p2.tests.artifact.processors;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.AdditionalMatchers.not;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.equinox.internal.p2.artifact.processors.checksum.ChecksumVerifier;
+import org.eclipse.equinox.internal.p2.repository.helpers.ChecksumHelper;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.artifact.IProcessingStepDescriptor;
 import org.junit.Test;
@@ -103,4 +109,35 @@ public class ChecksumVerifierTest {
 			assertEquals(Status.OK_STATUS, verifier.getStatus());
 		}
 	}
+
+	@Test
+	public void testBulkAndSingleByteWrites() throws IOException, NoSuchAlgorithmException {
+		byte[] data = new byte[100_000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) (i * 31);
+		String expected = ChecksumHelper.toHexString(MessageDigest.getInstance(digestAlgorithm).digest(data));
+		IProcessingStepDescriptor processingStepDescriptor = mock(IProcessingStepDescriptor.class);
+		when(processingStepDescriptor.getData()).thenReturn(expected);
+
+		// two linked verifiers, as for the download and the artifact checksums
+		ChecksumVerifier first = new ChecksumVerifier(digestAlgorithm, providerName, algorithmId, false, 0);
+		ChecksumVerifier second = new ChecksumVerifier(digestAlgorithm, providerName, algorithmId, false, 0);
+		first.initialize(null, processingStepDescriptor, null);
+		second.initialize(null, processingStepDescriptor, null);
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		second.link(destination, new NullProgressMonitor());
+		first.link(second, new NullProgressMonitor());
+
+		for (int i = 0; i < 10; i++)
+			first.write(data[i]);
+		first.write(data, 10, 50_000);
+		for (int i = 50_010; i < 50_020; i++)
+			first.write(data[i]);
+		first.write(data, 50_020, data.length - 50_020);
+		first.close();
+
+		assertArrayEquals(data, destination.toByteArray());
+		assertEquals(Status.OK_STATUS, first.getStatus());
+		assertEquals(Status.OK_STATUS, second.getStatus());
+	}
 }
@@ -24,7 +24,7 @@ import org.junit.runners.Suite;
 		ArtifactLockingTest.class, ArtifactOutputStreamTest.class, ArtifactRepositoryManagerTest.class,
 		ArtifactRepositoryMissingSizeData.class, ArtifactRepositoryWithReferenceDescriptors.class,
 		BatchExecuteArtifactRepositoryTest.class, Bug252308.class, Bug265577.class, Bug351944.class,
-		CompositeArtifactRepositoryTest.class, CorruptedJar.class, FoldersRepositoryTest.class,
+		CompositeArtifactRepositoryTest.class, CorruptedJar.class, DownloadSchedulerTest.class, FoldersRepositoryTest.class,
 		JarURLArtifactRepositoryTest.class, MD5Tests.class, MirrorSelectorTest.class,
 		MirrorRequestTest.class, SimpleArtifactRepositoryTest.class, TransferTest.class, PGPVerifierTest.class
 })
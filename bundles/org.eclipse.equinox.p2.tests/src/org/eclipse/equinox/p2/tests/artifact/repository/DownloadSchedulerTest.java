@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.artifact.repository;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.artifact.repository.simple.*;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.repository.artifact.*;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests for the {@link DownloadScheduler} used by {@link SimpleArtifactRepository#getArtifacts}.
+ */
+public class DownloadSchedulerTest extends AbstractProvisioningTest {
+
+	private SimpleArtifactRepository repository;
+
+	class RecordingRequest implements IArtifactRequest {
+		private final IArtifactKey key;
+		private final List<IArtifactKey> started;
+		private final AtomicInteger running;
+		private final AtomicInteger maxRunning;
+		private IStatus result;
+
+		RecordingRequest(IArtifactKey key, List<IArtifactKey> started, AtomicInteger running, AtomicInteger maxRunning) {
+			this.key = key;
+			this.started = started;
+			this.running = running;
+			this.maxRunning = maxRunning;
+		}
+
+		@Override
+		public IArtifactKey getArtifactKey() {
+			return key;
+		}
+
+		@Override
+		public void perform(IArtifactRepository sourceRepository, IProgressMonitor monitor) {
+			synchronized (started) {
+				started.add(key);
+			}
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				// ignore
+			}
+			running.decrementAndGet();
+			result = Status.OK_STATUS;
+		}
+
+		@Override
+		public IStatus getResult() {
+			return result;
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		Map<String, String> properties = new HashMap<>();
+		properties.put(SimpleArtifactRepository.PROP_FORCE_THREADING, "true");
+		properties.put(SimpleArtifactRepository.PROP_MAX_THREADS, "3");
+		repository = (SimpleArtifactRepository) getArtifactRepositoryManager().createRepository(getTempFolder().toURI(), "scheduler", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, properties);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getArtifactRepositoryManager().removeRepository(repository.getLocation());
+		delete(URIUtil.toFile(repository.getLocation()));
+		super.tearDown();
+	}
+
+	private IArtifactKey addArtifact(String id, long size) {
+		IArtifactKey key = new ArtifactKey("osgi.bundle", id, Version.create("1.0.0"));
+		SimpleArtifactDescriptor descriptor = new SimpleArtifactDescriptor(key);
+		descriptor.setProperty(IArtifactDescriptor.DOWNLOAD_SIZE, Long.toString(size));
+		repository.addDescriptor(descriptor, new NullProgressMonitor());
+		return key;
+	}
+
+	public void testAllRequestsPerformedWithinThreadLimit() {
+		List<IArtifactKey> started = new ArrayList<>();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		IArtifactRequest[] requests = new IArtifactRequest[20];
+		for (int i = 0; i < requests.length; i++)
+			requests[i] = new RecordingRequest(addArtifact("bundle" + i, i), started, running, maxRunning);
+
+		IStatus status = repository.getArtifacts(requests, new NullProgressMonitor());
+		assertOK("1.0", status);
+		assertEquals("1.1", requests.length, started.size());
+		assertEquals("1.2", requests.length, new HashSet<>(started).size());
+		assertTrue("1.3", maxRunning.get() <= 3);
+	}
+
+	public void testLargestArtifactStartsFirst() {
+		List<IArtifactKey> started = new ArrayList<>();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		IArtifactRequest small = new RecordingRequest(addArtifact("small", 10), started, running, maxRunning);
+		IArtifactRequest medium = new RecordingRequest(addArtifact("medium", 1000), started, running, maxRunning);
+		IArtifactRequest large = new RecordingRequest(addArtifact("large", 100000), started, running, maxRunning);
+		IArtifactRequest unknown = new RecordingRequest(new ArtifactKey("osgi.bundle", "unknown", Version.create("1.0.0")), started, running, maxRunning);
+
+		// a single thread processes the queue in scheduling order
+		MultiStatus status = new MultiStatus("test", IStatus.OK, "", null);
+		assertTrue("1.0", new DownloadScheduler().perform(repository, new IArtifactRequest[] {small, unknown, medium, large}, 1, new NullProgressMonitor(), status));
+		assertOK("1.1", status);
+		assertEquals("1.2", Arrays.asList(large.getArtifactKey(), medium.getArtifactKey(), small.getArtifactKey(), unknown.getArtifactKey()), started);
+	}
+
+	public void testCancelledBatchReturns() {
+		List<IArtifactKey> started = new ArrayList<>();
+		AtomicInteger running = new AtomicInteger();
+		IArtifactRequest[] requests = new IArtifactRequest[5];
+		for (int i = 0; i < requests.length; i++)
+			requests[i] = new RecordingRequest(addArtifact("cancelled" + i, i), started, running, new AtomicInteger());
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		MultiStatus status = new MultiStatus("test", IStatus.OK, "", null);
+		assertFalse("1.0", new DownloadScheduler().perform(repository, requests, 3, monitor, status));
+		assertTrue("1.1", started.isEmpty());
+	}
+
+	public void testCustomSchedulerFromAgent() {
+		AtomicInteger scheduled = new AtomicInteger();
+		DownloadScheduler scheduler = new DownloadScheduler() {
+			@Override
+			public boolean perform(SimpleArtifactRepository repo, IArtifactRequest[] requests, int maxThreads, IProgressMonitor monitor, MultiStatus overallStatus) {
+				scheduled.addAndGet(requests.length);
+				return super.perform(repo, requests, maxThreads, monitor, overallStatus);
+			}
+		};
+		getAgent().registerService(DownloadScheduler.class.getName(), scheduler);
+		try {
+			List<IArtifactKey> started = new ArrayList<>();
+			AtomicInteger counter = new AtomicInteger();
+			IArtifactRequest[] requests = {new RecordingRequest(addArtifact("a", 1), started, counter, new AtomicInteger()), new RecordingRequest(addArtifact("b", 2), started, counter, new AtomicInteger())};
+			assertOK("1.0", repository.getArtifacts(requests, new NullProgressMonitor()));
+			assertEquals("1.1", 2, scheduled.get());
+		} finally {
+			getAgent().unregisterService(DownloadScheduler.class.getName(), scheduler);
+		}
+	}
+}
@@ -25,9 +25,14 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -384,6 +389,65 @@ public class SimpleArtifactRepositoryTest extends AbstractProvisioningTest {
 		System.out.println("Total time: " + (end - start));
 	}
 
+	public void testReadDuringBatch() throws Exception {
+		File folder = getTestFolder("ArtifactRepository_testReadDuringBatch");
+		repositoryURI = folder.toURI();
+
+		final IArtifactRepository repo = getArtifactRepositoryManager().createRepository(repositoryURI, "test", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<>());
+		IArtifactKey key = new ArtifactKey("osgi.bundle", "a", Version.create("1.0.0"));
+		repo.addDescriptor(new ArtifactDescriptor(key), new NullProgressMonitor());
+
+		// the batch holds the lock of the repository, readers must not wait for it to complete
+		CompletableFuture<Boolean> read = new CompletableFuture<>();
+		IStatus status = repo.executeBatch(monitor -> {
+			repo.addDescriptor(new ArtifactDescriptor(new ArtifactKey("osgi.bundle", "b", Version.create("1.0.0"))), monitor);
+			new Thread(() -> read.complete(repo.contains(key) && repo.getArtifactDescriptors(key).length == 1)).start();
+			try {
+				read.get(10, TimeUnit.SECONDS);
+			} catch (InterruptedException | ExecutionException | TimeoutException e) {
+				throw new IllegalStateException(e);
+			}
+		}, new NullProgressMonitor());
+		assertOK("batch", status);
+		assertTrue(read.getNow(Boolean.FALSE));
+		assertTrue(repo.contains(new ArtifactKey("osgi.bundle", "b", Version.create("1.0.0"))));
+	}
+
+	public void testLocalTransfer() throws Exception {
+		File folder = getTestFolder("ArtifactRepository_testLocalTransfer");
+		repositoryFile = folder;
+		IArtifactRepository source = getArtifactRepositoryManager().createRepository(new File(folder, "source").toURI(), "source", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<>());
+		IArtifactRepository target = getArtifactRepositoryManager().createRepository(new File(folder, "target").toURI(), "target", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<>());
+		IArtifactRepository linked = getArtifactRepositoryManager().createRepository(new File(folder, "linked").toURI(), "linked", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<>());
+		byte[] content = new byte[3 * 1024 * 1024 + 17];
+		Arrays.fill(content, (byte) 'p');
+		IArtifactDescriptor descriptor = new ArtifactDescriptor(new ArtifactKey("osgi.bundle", "a", Version.create("1.0.0")));
+		try (OutputStream stream = source.getOutputStream(descriptor)) {
+			stream.write(content);
+		}
+		try {
+			// without processing steps the bytes do not go through the JVM
+			try (OutputStream stream = target.getOutputStream(descriptor)) {
+				assertOK("copy", source.getRawArtifact(descriptor, stream, new NullProgressMonitor()));
+			}
+			System.setProperty(SimpleArtifactRepository.PROPERTY_ECLIPSE_P2_HARD_LINKS, "true");
+			try (OutputStream stream = linked.getOutputStream(descriptor)) {
+				assertOK("link", source.getRawArtifact(descriptor, stream, new NullProgressMonitor()));
+			}
+		} finally {
+			System.clearProperty(SimpleArtifactRepository.PROPERTY_ECLIPSE_P2_HARD_LINKS);
+			getArtifactRepositoryManager().removeRepository(source.getLocation());
+			getArtifactRepositoryManager().removeRepository(target.getLocation());
+			getArtifactRepositoryManager().removeRepository(linked.getLocation());
+		}
+		for (IArtifactRepository repo : new IArtifactRepository[] {target, linked}) {
+			assertTrue(repo.contains(descriptor));
+			assertEquals(Integer.toString(content.length), repo.getArtifactDescriptors(descriptor.getArtifactKey())[0].getProperty(IArtifactDescriptor.DOWNLOAD_SIZE));
+			File file = ((SimpleArtifactRepository) repo).getArtifactFile(descriptor);
+			assertTrue(Arrays.equals(content, Files.readAllBytes(file.toPath())));
+		}
+	}
+
 	@SuppressWarnings("removal")
 	public void testQuery() throws Exception {
 		File folder = getTestFolder("ArtifactRepository_testQuery");
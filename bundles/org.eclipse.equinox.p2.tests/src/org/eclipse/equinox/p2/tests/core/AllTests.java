@@ -22,7 +22,7 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ AggregateQueryTest.class, BackupTest.class, CollectorTest.class,
 		CompoundQueryableTest.class,
-		FileUtilsTest.class, OrderedPropertiesTest.class, ProvisioningAgentTest.class, QueryTest.class,
+		FileUtilsTest.class, OrderedPropertiesTest.class, ProvisioningAgentTest.class, ProvisioningMetricsTest.class, QueryTest.class,
 		URLUtilTest.class })
 public class AllTests {
 // test suite
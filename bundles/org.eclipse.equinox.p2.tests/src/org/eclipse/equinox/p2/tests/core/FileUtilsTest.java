@@ -14,11 +14,15 @@
  *******************************************************************************/
 package org.eclipse.equinox.p2.tests.core;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Enumeration;
+import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -178,6 +182,38 @@ public class FileUtilsTest extends AbstractProvisioningTest {
 		assertExists("2.5", archive, "b/");
 	}
 
+	public void testZipFolderToStream() throws IOException {
+		File folder = new File(getTempFolder(), "bundle");
+		File manifestFile = new File(folder, "META-INF/MANIFEST.MF");
+		manifestFile.getParentFile().mkdirs();
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+		manifest.getMainAttributes().putValue("Bundle-SymbolicName", "bundle");
+		try (FileOutputStream output = new FileOutputStream(manifestFile)) {
+			manifest.write(output);
+		}
+		new File(folder, "a").mkdirs();
+		Files.writeString(new File(folder, "a/a.txt").toPath(), "a");
+		Files.writeString(new File(folder, "b.txt").toPath(), "b");
+
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		long written = FileUtils.zip(folder, destination);
+		assertEquals(destination.size(), written);
+
+		// the manifest comes first, so it is found when reading the stream
+		try (JarInputStream input = new JarInputStream(new ByteArrayInputStream(destination.toByteArray()))) {
+			assertNotNull(input.getManifest());
+			assertEquals("bundle", input.getManifest().getMainAttributes().getValue("Bundle-SymbolicName"));
+			int entries = 0;
+			for (ZipEntry entry = input.getNextEntry(); entry != null; entry = input.getNextEntry()) {
+				assertFalse(entry.getName(), entry.getName().startsWith("META-INF/MANIFEST"));
+				entries++;
+			}
+			// META-INF/, a/, a/a.txt and b.txt
+			assertEquals(4, entries);
+		}
+	}
+
 	public void testZipDynamicPathComputer() {
 		File temp = getTempFolder();
 
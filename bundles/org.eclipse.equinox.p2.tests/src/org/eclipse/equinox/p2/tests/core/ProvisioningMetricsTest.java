@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.core;
+
+import org.eclipse.equinox.internal.p2.core.metrics.*;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class ProvisioningMetricsTest extends AbstractProvisioningTest {
+
+	public void testLatencyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentile(50));
+		for (int i = 1; i <= 100; i++)
+			histogram.record(i * 1000);
+		assertEquals(100, histogram.getCount());
+		assertEquals(1000, histogram.getMin());
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50500, histogram.getMean());
+		// the percentiles are the upper bounds of power of two buckets
+		long median = histogram.getPercentile(50);
+		assertTrue(Long.toString(median), median >= 50000 && median < 2 * 50000);
+		assertEquals(100000, histogram.getPercentile(100));
+	}
+
+	public void testMetricsService() {
+		IProvisioningMetrics metrics = getAgent().getService(IProvisioningMetrics.class);
+		assertNotNull(metrics);
+		metrics.reset();
+		metrics.recordTime(IProvisioningMetrics.PLANNER_SOLVE, 2000000);
+		metrics.count(IProvisioningMetrics.DOWNLOAD_FAILURES, 2);
+		assertEquals(1, metrics.getTimer(IProvisioningMetrics.PLANNER_SOLVE).getCount());
+		assertEquals(2, metrics.getCount(IProvisioningMetrics.DOWNLOAD_FAILURES));
+		metrics.reset();
+		assertNull(metrics.getTimer(IProvisioningMetrics.PLANNER_SOLVE));
+		assertEquals(0, metrics.getCount(IProvisioningMetrics.DOWNLOAD_FAILURES));
+	}
+
+	public void testJSON() {
+		ProvisioningMetrics metrics = new ProvisioningMetrics();
+		metrics.recordTime(IProvisioningMetrics.ENGINE_PHASE + "install", 3000000);
+		metrics.count(IProvisioningMetrics.DOWNLOAD_FAILURES, 1);
+		metrics.recordTransfer("http://example.org/\"repo\"", 1000, 500000000);
+		metrics.recordCacheAccesses(IProvisioningMetrics.CACHE_REPOSITORY_INDEX, 3, 1);
+		String json = metrics.toJSON();
+		assertTrue(json, json.contains("\"engine.phase.install\": {\"count\": 1, \"totalMillis\": 3.000"));
+		assertTrue(json, json.contains("\"repository.download.failures\": 1"));
+		assertTrue(json, json.contains("\"http://example.org/\\\"repo\\\"\": {\"count\": 1, \"bytes\": 1000, \"totalMillis\": 500.000, \"bytesPerSecond\": 2000}"));
+		assertTrue(json, json.contains("\"repository.index\": {\"hits\": 3, \"misses\": 1, \"hitRate\": 0.7500}"));
+	}
+}
@@ -15,17 +15,17 @@ package org.eclipse.equinox.p2.tests.engine;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.URIUtil;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.artifact.repository.simple.SimpleArtifactDescriptor;
 import org.eclipse.equinox.internal.p2.engine.DownloadManager;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
 import org.eclipse.equinox.p2.engine.ProvisioningContext;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
-import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
-import org.eclipse.equinox.p2.repository.artifact.IArtifactRequest;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.repository.artifact.*;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
 
 /**
@@ -236,6 +236,107 @@ public class DownloadManagerTest extends AbstractProvisioningTest {
 
 	}
 
+	public void testConcurrentFetchFailsOverToNextRepository() throws Exception {
+		IArtifactKey key = new ArtifactKey("osgi.bundle", "concurrent", Version.create("1.0.0"));
+		IArtifactRepository first = createArtifactRepository(getTempFolder().toURI(), null);
+		IArtifactRepository second = createArtifactRepository(getTempFolder().toURI(), null);
+		first.addDescriptor(new SimpleArtifactDescriptor(key), null);
+		second.addDescriptor(new SimpleArtifactDescriptor(key), null);
+
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		context.setArtifactRepositories(first.getLocation(), second.getLocation());
+		context.setProperty(DownloadManager.PROP_CONCURRENT_FETCH, "true");
+		DownloadManager manager = createDownloadManager(context);
+
+		// only the second repository is able to deliver the artifact
+		List<IArtifactRepository> tried = Collections.synchronizedList(new ArrayList<>());
+		IArtifactRequest request = createArtifactRequest(key, second, tried);
+		manager.add(request);
+		IStatus result = manager.start(null);
+		assertTrue(result.getMessage(), result.isOK());
+		assertEquals(2, tried.size());
+		assertTrue(tried.contains(first));
+		assertTrue(tried.contains(second));
+
+		getArtifactRepositoryManager().removeRepository(first.getLocation());
+		getArtifactRepositoryManager().removeRepository(second.getLocation());
+	}
+
+	public void testConcurrentFetchReportsMissingArtifact() throws Exception {
+		IArtifactKey key = new ArtifactKey("osgi.bundle", "missing", Version.create("1.0.0"));
+		IArtifactRepository repository = createArtifactRepository(getTempFolder().toURI(), null);
+		repository.addDescriptor(new SimpleArtifactDescriptor(key), null);
+
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		context.setArtifactRepositories(repository.getLocation());
+		context.setProperty(DownloadManager.PROP_CONCURRENT_FETCH, "true");
+		DownloadManager manager = createDownloadManager(context);
+
+		List<IArtifactRepository> tried = Collections.synchronizedList(new ArrayList<>());
+		manager.add(createArtifactRequest(key, null, tried));
+		IStatus result = manager.start(null);
+		assertEquals(IStatus.ERROR, result.getSeverity());
+		assertEquals(Collections.singletonList(repository), tried);
+
+		getArtifactRepositoryManager().removeRepository(repository.getLocation());
+	}
+
+	public void testConcurrentFetchEndsAfterError() throws Exception {
+		IArtifactKey key = new ArtifactKey("osgi.bundle", "error", Version.create("1.0.0"));
+		IArtifactRepository repository = createArtifactRepository(getTempFolder().toURI(), null);
+		repository.addDescriptor(new SimpleArtifactDescriptor(key), null);
+
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		context.setArtifactRepositories(repository.getLocation());
+		context.setProperty(DownloadManager.PROP_CONCURRENT_FETCH, "true");
+		DownloadManager manager = createDownloadManager(context);
+
+		manager.add(new IArtifactRequest() {
+			@Override
+			public IArtifactKey getArtifactKey() {
+				return key;
+			}
+
+			@Override
+			public void perform(IArtifactRepository sourceRepository, IProgressMonitor monitor) {
+				throw new NoClassDefFoundError("thrown by the test");
+			}
+
+			@Override
+			public IStatus getResult() {
+				return null;
+			}
+		});
+		// the fetch must end instead of waiting for the failed download forever
+		IStatus result = manager.start(null);
+		assertEquals(IStatus.ERROR, result.getSeverity());
+		assertTrue(result.getException() instanceof NoClassDefFoundError);
+
+		getArtifactRepositoryManager().removeRepository(repository.getLocation());
+	}
+
+	private IArtifactRequest createArtifactRequest(IArtifactKey key, IArtifactRepository succeedOn, List<IArtifactRepository> tried) {
+		return new IArtifactRequest() {
+			private IStatus result;
+
+			@Override
+			public IArtifactKey getArtifactKey() {
+				return key;
+			}
+
+			@Override
+			public void perform(IArtifactRepository sourceRepository, IProgressMonitor monitor) {
+				tried.add(sourceRepository);
+				result = sourceRepository == succeedOn ? Status.OK_STATUS : Status.error("not available in " + sourceRepository.getLocation());
+			}
+
+			@Override
+			public IStatus getResult() {
+				return result;
+			}
+		};
+	}
+
 	private DownloadManager createDownloadManager(ProvisioningContext context) {
 		return new DownloadManager(context, getAgent());
 	}
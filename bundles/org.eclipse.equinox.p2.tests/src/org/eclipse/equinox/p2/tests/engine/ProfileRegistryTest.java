@@ -18,6 +18,7 @@ import java.io.FileFilter;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -639,6 +640,122 @@ public class ProfileRegistryTest extends AbstractProvisioningTest {
 		assertEquals(1, filesFound.length);
 	}
 
+	public void testLazyLoading() throws ProvisionException {
+		File folder = getTempFolder();
+		folder.mkdirs();
+		SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+		for (int i = 0; i < 5; i++)
+			profileRegistry.addProfile(getName() + i, Map.of("index", Integer.toString(i)));
+		profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false, true, 2);
+		assertEquals("3", profileRegistry.getProfile(getName() + 3).getProperty("index"));
+		assertTrue(profileRegistry.containsProfile(getName() + 4));
+		assertNull(profileRegistry.getProfile(getName() + 5));
+		// more profiles than the cache holds
+		assertEquals(5, profileRegistry.getProfiles().length);
+		for (int i = 0; i < 5; i++)
+			assertEquals(Integer.toString(i), profileRegistry.getProfile(getName() + i).getProperty("index"));
+
+		profileRegistry.removeProfile(getName() + 0);
+		profileRegistry.addProfile(getName() + 5, Map.of("index", "5"));
+		profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false, true, 2);
+		assertNull(profileRegistry.getProfile(getName() + 0));
+		assertEquals("5", profileRegistry.getProfile(getName() + 5).getProperty("index"));
+		assertEquals(5, profileRegistry.getProfiles().length);
+	}
+
+	public void testLazyLoadingSubProfiles() throws IOException, ProvisionException {
+		File folder = getTempFolder();
+		folder.mkdirs();
+		String parentId = getName() + "Parent";
+		String subProfileId = getName() + "Sub";
+		try {
+			System.setProperty(EngineActivator.PROP_PROFILE_FORMAT, EngineActivator.PROFILE_FORMAT_UNCOMPRESSED);
+			SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			profileRegistry.addProfile(parentId);
+			profileRegistry.addProfile(subProfileId);
+			for (int i = 0; i < 3; i++)
+				profileRegistry.addProfile(getName() + i);
+			// the registry does not write the parent of a profile, a profile file naming it is read all the same
+			File subProfileFile = new File(folder, subProfileId + ".profile").listFiles((FileFilter) pathname -> pathname.getName().endsWith(".profile"))[0];
+			String content = Files.readString(subProfileFile.toPath());
+			Files.writeString(subProfileFile.toPath(), content.replace("id='" + subProfileId + "'", "id='" + subProfileId + "' parentId='" + parentId + "'"));
+
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false, true, 1);
+			Profile parent = (Profile) profileRegistry.getProfile(parentId);
+			assertEquals(List.of(subProfileId), parent.getSubProfileIds());
+			for (int i = 0; i < 3; i++)
+				assertNotNull(profileRegistry.getProfile(getName() + i));
+			assertEquals(parentId, ((Profile) profileRegistry.getProfile(subProfileId)).getParentProfile().getProfileId());
+			assertTrue(profileRegistry.containsProfile(subProfileId));
+			// the parents are kept for the next registry
+			assertTrue(new File(folder, "parents.properties").isFile());
+			try {
+				profileRegistry.removeProfile(parentId, parent.getTimestamp());
+				fail("The current state of a profile must not be removed");
+			} catch (ProvisionException e) {
+				// expected
+			}
+
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false, true, 1);
+			profileRegistry.removeProfile(parentId);
+			assertFalse(new File(folder, parentId + ".profile").exists());
+			assertFalse(new File(folder, subProfileId + ".profile").exists());
+			assertFalse(profileRegistry.containsProfile(subProfileId));
+			assertEquals(3, profileRegistry.getProfiles().length);
+		} finally {
+			System.clearProperty(EngineActivator.PROP_PROFILE_FORMAT);
+		}
+	}
+
+	public void testDeltaHistory() throws ProvisionException {
+		File folder = getTempFolder();
+		folder.mkdirs();
+		try {
+			System.setProperty(SimpleProfileRegistry.PROP_HISTORY_DELTAS, "true");
+			System.setProperty(SimpleProfileRegistry.PROP_CHECKPOINT_INTERVAL, "3");
+			SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			Profile profile = (Profile) profileRegistry.addProfile(getName(), Map.of("index", "0"));
+			IInstallableUnit[] ius = new IInstallableUnit[6];
+			for (int i = 1; i < ius.length; i++) {
+				ius[i] = createIU("iu" + i, Version.create("1.0.0"));
+				profile.addInstallableUnit(ius[i]);
+				profile.setInstallableUnitProperty(ius[i], "index", Integer.toString(i));
+				if (i > 1)
+					profile.removeInstallableUnit(ius[i - 1]);
+				profile.setProperty("index", Integer.toString(i));
+				saveProfile(profileRegistry, profile);
+			}
+			long[] timestamps = profileRegistry.listProfileTimestamps(getName());
+			assertEquals(6, timestamps.length);
+			File[] deltas = new File(folder, getName() + ".profile").listFiles((FileFilter) pathname -> pathname.getName().endsWith(".delta.gz"));
+			assertEquals(4, deltas.length);
+
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			IProfile first = profileRegistry.getProfile(getName(), timestamps[0]);
+			assertEquals("0", first.getProperty("index"));
+			assertTrue(first.query(QueryUtil.createIUAnyQuery(), null).isEmpty());
+			for (int i = 1; i < timestamps.length; i++) {
+				IProfile state = profileRegistry.getProfile(getName(), timestamps[i]);
+				assertEquals(timestamps[i], state.getTimestamp());
+				assertEquals(Integer.toString(i), state.getProperty("index"));
+				assertEquals(List.of(ius[i]), List.copyOf(state.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet()));
+				assertEquals(Integer.toString(i), state.getInstallableUnitProperty(ius[i], "index"));
+			}
+
+			// removing states keeps the older ones readable
+			profileRegistry.removeProfile(getName(), timestamps[1]);
+			profileRegistry.removeProfile(getName(), timestamps[2]);
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			assertEquals(4, profileRegistry.listProfileTimestamps(getName()).length);
+			assertEquals("0", profileRegistry.getProfile(getName(), timestamps[0]).getProperty("index"));
+			assertEquals("3", profileRegistry.getProfile(getName(), timestamps[3]).getProperty("index"));
+			assertNull(profileRegistry.getProfile(getName(), timestamps[2]));
+		} finally {
+			System.clearProperty(SimpleProfileRegistry.PROP_HISTORY_DELTAS);
+			System.clearProperty(SimpleProfileRegistry.PROP_CHECKPOINT_INTERVAL);
+		}
+	}
+
 	public void testRemoveProfileTimestamps() throws ProvisionException {
 		assertNull(registry.getProfile(PROFILE_NAME));
 		Map<String, String> properties = new HashMap<>();
@@ -14,9 +14,12 @@
  *******************************************************************************/
 package org.eclipse.equinox.p2.tests.engine;
 
+import java.io.File;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Collections;
 import org.eclipse.equinox.internal.p2.director.ProfileChangeRequest;
+import org.eclipse.equinox.internal.p2.engine.RepositoryLoader;
 import org.eclipse.equinox.p2.engine.IProvisioningPlan;
 import org.eclipse.equinox.p2.engine.ProvisioningContext;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -203,4 +206,29 @@ public class ProvisioningContextTest extends AbstractProvisioningTest {
 		plan = getPlanner(getAgent()).getProvisioningPlan(request, context, getMonitor());
 		assertTrue("resolve should pass", plan.getStatus().isOK());
 	}
+
+	public void testConcurrentLoading() {
+		// a reference cycle and a repository that cannot be loaded
+		repoC.addReferences(Collections.singletonList(new RepositoryReference(repoA.getLocation(), null, IRepository.TYPE_METADATA, IRepository.ENABLED)));
+		URI missing = new File(getTempFolder(), "missing").toURI();
+		URI[] locations = new URI[] {repoA.getLocation(), missing, repoC.getLocation()};
+
+		ProvisioningContext sequential = new ProvisioningContext(getAgent());
+		sequential.setMetadataRepositories(locations);
+		sequential.setArtifactRepositories(new URI[0]);
+		sequential.setProperty(ProvisioningContext.FOLLOW_REPOSITORY_REFERENCES, "true");
+		sequential.setProperty(RepositoryLoader.PROP_MAX_CONCURRENT_LOADS, "1");
+		ProvisioningContext concurrent = new ProvisioningContext(getAgent());
+		concurrent.setMetadataRepositories(locations);
+		concurrent.setArtifactRepositories(new URI[0]);
+		concurrent.setProperty(ProvisioningContext.FOLLOW_REPOSITORY_REFERENCES, "true");
+		concurrent.setProperty(RepositoryLoader.PROP_MAX_CONCURRENT_LOADS, "4");
+
+		assertEquals(sequential.getMetadata(getMonitor()).query(QueryUtil.ALL_UNITS, getMonitor()).toUnmodifiableSet(), concurrent.getMetadata(getMonitor()).query(QueryUtil.ALL_UNITS, getMonitor()).toUnmodifiableSet());
+		IQuery<IArtifactRepository> all = new ExpressionMatchQuery<>(IArtifactRepository.class, ExpressionUtil.TRUE_EXPRESSION);
+		IArtifactRepository[] expected = sequential.getArtifactRepositories(getMonitor()).query(all, getMonitor()).toArray(IArtifactRepository.class);
+		IArtifactRepository[] actual = concurrent.getArtifactRepositories(getMonitor()).query(all, getMonitor()).toArray(IArtifactRepository.class);
+		assertEquals(3, expected.length);
+		assertEquals(Arrays.asList(expected), Arrays.asList(actual));
+	}
 }
@@ -14,8 +14,11 @@
 package org.eclipse.equinox.p2.tests.gc;
 
 import java.io.File;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -63,4 +66,24 @@ public class GCCleanTest extends AbstractProvisioningTest {
 		assertEquals("1.0", 0, repository.query(ArtifactKeyQuery.ALL_KEYS, null).toSet().size());
 
 	}
+
+	public void testRemoveUnmarked() throws Exception {
+		File folder = getTestFolder("GCCleanTest.testRemoveUnmarked");
+		IArtifactRepository repository = getArtifactRepositoryManager().createRepository(folder.toURI(), "test", IArtifactRepositoryManager.TYPE_SIMPLE_REPOSITORY, new HashMap<>());
+		IArtifactKey[] keys = new IArtifactKey[6];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = new ArtifactKey("osgi.bundle", "b", Version.createOSGi(1, i, 0));
+			try (OutputStream output = repository.getOutputStream(repository.createArtifactDescriptor(keys[i]))) {
+				output.write(i);
+			}
+		}
+
+		new CoreGarbageCollector().clean(new IArtifactKey[] {keys[2]}, repository);
+
+		Set<IArtifactKey> remaining = repository.query(ArtifactKeyQuery.ALL_KEYS, null).toSet();
+		assertEquals("1.0", Collections.singleton(keys[2]), remaining);
+		File[] files = new File(folder, "plugins").listFiles();
+		assertEquals("1.1", 1, files.length);
+		assertEquals("1.2", "b_1.2.0.jar", files[0].getName());
+	}
 }
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.gc;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.equinox.internal.p2.engine.Profile;
+import org.eclipse.equinox.internal.p2.engine.SimpleProfileRegistry;
+import org.eclipse.equinox.internal.p2.garbagecollector.GarbageCollector;
+import org.eclipse.equinox.internal.p2.garbagecollector.MarkSet;
+import org.eclipse.equinox.internal.p2.garbagecollector.MarkSetProvider;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests the reuse of the MarkSets of the registered profiles by the {@link GarbageCollector}.
+ * The two providers are contributed by the plugin.xml of the test bundle, and only
+ * the first one is declared as cacheable.
+ */
+public class GarbageCollectorTest extends AbstractProvisioningTest {
+
+	static final Map<String, Integer> cachedTraversals = new ConcurrentHashMap<>();
+	static final Map<String, Integer> uncachedTraversals = new ConcurrentHashMap<>();
+
+	public static class CachedMarkSetProvider extends MarkSetProvider {
+		@Override
+		public MarkSet[] getMarkSets(IProvisioningAgent agent, IProfile profile) {
+			cachedTraversals.merge(profile.getProfileId(), 1, Integer::sum);
+			return new MarkSet[0];
+		}
+
+		@Override
+		public IArtifactRepository getRepository(IProvisioningAgent agent, IProfile profile) {
+			return null;
+		}
+	}
+
+	public static class UncachedMarkSetProvider extends MarkSetProvider {
+		@Override
+		public MarkSet[] getMarkSets(IProvisioningAgent agent, IProfile profile) {
+			uncachedTraversals.merge(profile.getProfileId(), 1, Integer::sum);
+			return new MarkSet[0];
+		}
+
+		@Override
+		public IArtifactRepository getRepository(IProvisioningAgent agent, IProfile profile) {
+			return null;
+		}
+	}
+
+	private static int getTraversals(Map<String, Integer> traversals, IProfile profile) {
+		return traversals.getOrDefault(profile.getProfileId(), 0);
+	}
+
+	private static boolean isCached(GarbageCollector gc, String profileId) throws Exception {
+		Field field = GarbageCollector.class.getDeclaredField("markSetCache");
+		field.setAccessible(true);
+		return ((Map<?, ?>) field.get(gc)).keySet().stream().anyMatch(key -> ((String) key).endsWith('/' + profileId));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cachedTraversals.clear();
+		uncachedTraversals.clear();
+	}
+
+	public void testMarkSetsOfUnchangedProfilesAreReused() throws Exception {
+		IProfile profileA = createProfile("GarbageCollectorTest.A");
+		IProfile profileB = createProfile("GarbageCollectorTest.B");
+		GarbageCollector gc = new GarbageCollector(getAgent());
+
+		gc.runGC(profileA);
+		// once as the collected profile and once as a registered profile
+		assertEquals("1.0", 2, getTraversals(cachedTraversals, profileA));
+		assertEquals("1.1", 1, getTraversals(cachedTraversals, profileB));
+		assertEquals("1.2", 1, getTraversals(uncachedTraversals, profileB));
+
+		// the collected profile is always traversed, the registered ones come from the cache
+		gc.runGC(profileA);
+		assertEquals("2.0", 3, getTraversals(cachedTraversals, profileA));
+		assertEquals("2.1", 1, getTraversals(cachedTraversals, profileB));
+		// unless their provider is not cacheable
+		assertEquals("2.2", 2, getTraversals(uncachedTraversals, profileB));
+
+		// a commit changes the timestamp of the profile
+		SimpleProfileRegistry registry = (SimpleProfileRegistry) getProfileRegistry();
+		Profile changed = (Profile) registry.getProfile(profileB.getProfileId());
+		registry.lockProfile(changed);
+		try {
+			changed.setProperty("x", "1");
+			registry.updateProfile(changed);
+		} finally {
+			registry.unlockProfile(changed);
+		}
+		gc.runGC(profileA);
+		assertEquals("3.0", 2, getTraversals(cachedTraversals, profileB));
+
+		// a removed profile is dropped from the cache
+		assertTrue("4.0", isCached(gc, profileB.getProfileId()));
+		getProfileRegistry().removeProfile(profileB.getProfileId());
+		gc.runGC(profileA);
+		assertEquals("4.1", 2, getTraversals(cachedTraversals, profileB));
+		assertFalse("4.2", isCached(gc, profileB.getProfileId()));
+		assertTrue("4.3", isCached(gc, profileA.getProfileId()));
+	}
+}
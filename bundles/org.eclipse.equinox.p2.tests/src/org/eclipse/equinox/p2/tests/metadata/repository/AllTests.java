@@ -22,8 +22,8 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-		BatchExecuteMetadataRepositoryTest.class, CompositeMetadataRepositoryTest.class,
-		JarURLMetadataRepositoryTest.class, LocalMetadataRepositoryTest.class, SPIMetadataRepositoryTest.class,
+		BatchExecuteMetadataRepositoryTest.class, BinaryMetadataRepositoryTest.class, CompositeMetadataRepositoryTest.class,
+		JarURLMetadataRepositoryTest.class, LocalMetadataRepositoryTest.class, PersistentCapabilityIndexTest.class, SPIMetadataRepositoryTest.class,
 		StandaloneSerializationTest.class, MetadataRepositoryManagerTest.class, NoFailOver.class,
 		SiteIndexFileTest.class, XZedRepositoryTest.class
 })
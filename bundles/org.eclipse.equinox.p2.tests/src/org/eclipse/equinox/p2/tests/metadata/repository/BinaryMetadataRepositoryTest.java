@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.metadata.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.internal.p2.metadata.repository.BinaryMetadataRepository;
+import org.eclipse.equinox.internal.p2.metadata.repository.BinaryMetadataRepositoryFactory;
+import org.eclipse.equinox.internal.p2.metadata.repository.LocalMetadataRepository;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataReader;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.BinaryMetadataWriter;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.query.IQueryResult;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.IRepository;
+import org.eclipse.equinox.p2.repository.IRepositoryManager;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
+import org.eclipse.equinox.p2.repository.spi.RepositoryReference;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests for the binary metadata repository format written next to a local repository.
+ */
+public class BinaryMetadataRepositoryTest extends AbstractProvisioningTest {
+	private File repoLocation;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		repoLocation = getTempFolder();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getMetadataRepositoryManager().removeRepository(repoLocation.toURI());
+		delete(repoLocation);
+		super.tearDown();
+	}
+
+	private IMetadataRepository createBinaryRepository() throws Exception {
+		IMetadataRepository repo = getMetadataRepositoryManager().createRepository(repoLocation.toURI(), "BinaryRepo", IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, Map.of(LocalMetadataRepository.PROP_BINARY, "true"));
+		repo.addReferences(List.of(new RepositoryReference(URI.create("https://example.org/updates"), "updates", IRepository.TYPE_METADATA, IRepository.ENABLED)));
+		repo.addInstallableUnits(List.of(createRichIU(), createIU("plain", Version.create("1.0.0")), createIU("plain", Version.create("2.0.0"))));
+		return repo;
+	}
+
+	private IInstallableUnit createRichIU() {
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId("rich");
+		description.setVersion(Version.create("1.2.3.qualifier"));
+		description.setSingleton(true);
+		description.setProperty(IInstallableUnit.PROP_NAME, "Rich unit");
+		description.setFilter("(osgi.os=linux)");
+		Map<String, Object> capabilityProperties = new HashMap<>();
+		capabilityProperties.put("osgi.ee", "JavaSE");
+		capabilityProperties.put("versions", List.of(Version.create("11.0.0"), Version.create("17.0.0")));
+		description.setCapabilities(new IProvidedCapability[] {MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, "rich", Version.create("1.2.3.qualifier")), MetadataFactory.createProvidedCapability("osgi.ee", capabilityProperties)});
+		description.setRequirements(new IRequirement[] {MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "plain", new VersionRange("[1.0.0,2.0.0)"), "(osgi.arch=x86_64)", true, false, true), MetadataFactory.createRequirement("osgi.ee", "(&(osgi.ee=JavaSE)(version=17))", null, 1, 1, true), MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "plain", VersionRange.emptyRange, null, 0, 0, false, "never")});
+		description.setUpdateDescriptor(MetadataFactory.createUpdateDescriptor("rich", new VersionRange("[0.0.0,1.2.3)"), IUpdateDescriptor.HIGH, "update"));
+		description.setArtifacts(new IArtifactKey[] {new ArtifactKey("osgi.bundle", "rich", Version.create("1.2.3.qualifier"))});
+		description.setTouchpointType(MetadataFactory.createTouchpointType("org.eclipse.equinox.p2.osgi", Version.create("1.0.0")));
+		description.addTouchpointData(MetadataFactory.createTouchpointData(Map.of("manifest", "Bundle-SymbolicName: rich")));
+		description.setLicenses(new ILicense[] {MetadataFactory.createLicense(URI.create("https://example.org/license"), "license text")});
+		description.setCopyright(MetadataFactory.createCopyright(null, "copyright text"));
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	public void testBinaryFileWritten() throws Exception {
+		createBinaryRepository();
+		assertTrue("1.0", new File(repoLocation, "content.p2b").exists());
+		assertTrue("1.1", new File(repoLocation, "content.xml").exists());
+	}
+
+	public void testLoadBinaryRepository() throws Exception {
+		IMetadataRepository original = createBinaryRepository();
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		manager.removeRepository(repoLocation.toURI());
+
+		IMetadataRepository loaded = manager.loadRepository(repoLocation.toURI(), null);
+		assertTrue("1.0", loaded instanceof BinaryMetadataRepository);
+		assertFalse("1.1", loaded.isModifiable());
+		assertEquals("1.2", "BinaryRepo", loaded.getName());
+		assertEquals("1.3", "true", loaded.getProperty(LocalMetadataRepository.PROP_BINARY));
+		assertEquals("1.4", original.getReferences(), new HashSet<>(loaded.getReferences()));
+		assertEquals("1.5", original.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet(), loaded.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+
+		IInstallableUnit expected = original.query(QueryUtil.createIUQuery("rich"), null).iterator().next();
+		IQueryResult<IInstallableUnit> result = loaded.query(QueryUtil.createIUQuery("rich"), null);
+		assertEquals("2.0", 1, queryResultSize(result));
+		IInstallableUnit actual = result.iterator().next();
+		assertEquals("2.1", expected.isSingleton(), actual.isSingleton());
+		assertEquals("2.2", expected.getProperties(), actual.getProperties());
+		assertEquals("2.3", expected.getFilter(), actual.getFilter());
+		assertEquals("2.4", new ArrayList<>(expected.getProvidedCapabilities()), new ArrayList<>(actual.getProvidedCapabilities()));
+		assertEquals("2.5", new ArrayList<>(expected.getRequirements()), new ArrayList<>(actual.getRequirements()));
+		assertEquals("2.6", expected.getUpdateDescriptor().getIUsBeingUpdated(), actual.getUpdateDescriptor().getIUsBeingUpdated());
+		assertEquals("2.7", expected.getUpdateDescriptor().getSeverity(), actual.getUpdateDescriptor().getSeverity());
+		assertEquals("2.8", new ArrayList<>(expected.getArtifacts()), new ArrayList<>(actual.getArtifacts()));
+		assertEquals("2.9", expected.getTouchpointType(), actual.getTouchpointType());
+		assertEquals("2.10", new ArrayList<>(expected.getTouchpointData()), new ArrayList<>(actual.getTouchpointData()));
+		assertEquals("2.11", new ArrayList<>(expected.getLicenses()), new ArrayList<>(actual.getLicenses()));
+		assertEquals("2.12", expected.getCopyright().getBody(), actual.getCopyright().getBody());
+
+		assertEquals("3.0", 2, queryResultSize(loaded.query(QueryUtil.createIUQuery("plain"), null)));
+		assertEquals("3.1", 1, queryResultSize(loaded.query(QueryUtil.createIUQuery("rich", new VersionRange("[1.0.0,2.0.0)")), null)));
+		assertTrue("3.2", loaded.contains(expected));
+		assertFalse("3.3", loaded.contains(createIU("missing")));
+	}
+
+	public void testCapabilityQueries() throws Exception {
+		IMetadataRepository original = createBinaryRepository();
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		manager.removeRepository(repoLocation.toURI());
+		IMetadataRepository loaded = manager.loadRepository(repoLocation.toURI(), null);
+		assertTrue("1.0", loaded instanceof BinaryMetadataRepository);
+
+		IRequirement[] requirements = {MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "plain", new VersionRange("[1.0.0,2.0.0)"), null, false, false), MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "rich", VersionRange.emptyRange, null, false, false), MetadataFactory.createRequirement("osgi.ee", "(&(osgi.ee=JavaSE)(version=17))", null, 1, 1, true), MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "missing", VersionRange.emptyRange, null, false, false)};
+		for (IRequirement requirement : requirements)
+			assertEquals(requirement.toString(), original.query(QueryUtil.createMatchQuery(requirement.getMatches()), null).toUnmodifiableSet(), loaded.query(QueryUtil.createMatchQuery(requirement.getMatches()), null).toUnmodifiableSet());
+
+		// the capability table of the file locates the units without decoding them
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new BinaryMetadataWriter(bytes).write(original);
+		BinaryMetadataReader reader = new BinaryMetadataReader(ByteBuffer.wrap(bytes.toByteArray()));
+		int[] plain = reader.getUnitIndexesByCapabilityName("plain");
+		assertEquals("2.0", 2, plain.length);
+		for (int index : plain)
+			assertEquals("2.1", "plain", reader.getUnitId(index));
+		assertEquals("2.2", 1, reader.getUnitIndexesByCapabilityNamespace("osgi.ee").length);
+		assertEquals("2.3", 3, reader.getUnitIndexesByCapabilityNamespace(IInstallableUnit.NAMESPACE_IU_ID).length);
+		assertEquals("2.4", 0, reader.getUnitIndexesByCapabilityName("missing").length);
+	}
+
+	public void testModifiableLoadUsesXML() throws Exception {
+		createBinaryRepository();
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		manager.removeRepository(repoLocation.toURI());
+
+		IMetadataRepository loaded = manager.loadRepository(repoLocation.toURI(), IRepositoryManager.REPOSITORY_HINT_MODIFIABLE, null);
+		assertTrue("1.0", loaded instanceof LocalMetadataRepository);
+		assertEquals("1.1", 3, queryResultSize(loaded.query(QueryUtil.createIUAnyQuery(), null)));
+	}
+
+	public void testModifiableLoadAfterBinaryLoad() throws Exception {
+		createBinaryRepository();
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		manager.removeRepository(repoLocation.toURI());
+
+		assertTrue("1.0", manager.loadRepository(repoLocation.toURI(), null) instanceof BinaryMetadataRepository);
+		IMetadataRepository loaded = manager.loadRepository(repoLocation.toURI(), IRepositoryManager.REPOSITORY_HINT_MODIFIABLE, null);
+		assertTrue("1.1", loaded instanceof LocalMetadataRepository);
+		assertTrue("1.2", loaded.isModifiable());
+	}
+
+	public void testIndexFileOrderRespected() throws Exception {
+		createBinaryRepository();
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		manager.removeRepository(repoLocation.toURI());
+		writeBuffer(new File(repoLocation, "p2.index"), new StringBuilder("version=1\nmetadata.repository.factory.order=content.xml,!\n"));
+
+		assertTrue("1.0", manager.loadRepository(repoLocation.toURI(), null) instanceof LocalMetadataRepository);
+	}
+
+	public void testRequirementDescriptions() throws Exception {
+		// requirements that only differ in their description are equal
+		IRequirement never = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "plain", VersionRange.emptyRange, null, 0, 0, false, "never");
+		IRequirement notEver = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "plain", VersionRange.emptyRange, null, 0, 0, false, "not ever");
+		IMetadataRepository repo = getMetadataRepositoryManager().createRepository(repoLocation.toURI(), "BinaryRepo", IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, Map.of(LocalMetadataRepository.PROP_BINARY, "true"));
+		repo.addInstallableUnits(List.of(createIU("first", Version.create("1.0.0"), new IRequirement[] {never}), createIU("second", Version.create("1.0.0"), new IRequirement[] {notEver})));
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		manager.removeRepository(repoLocation.toURI());
+
+		IMetadataRepository loaded = manager.loadRepository(repoLocation.toURI(), null);
+		assertTrue("1.0", loaded instanceof BinaryMetadataRepository);
+		IInstallableUnit first = loaded.query(QueryUtil.createIUQuery("first"), null).iterator().next();
+		IInstallableUnit second = loaded.query(QueryUtil.createIUQuery("second"), null).iterator().next();
+		assertEquals("1.1", "never", first.getRequirements().iterator().next().getDescription());
+		assertEquals("1.2", "not ever", second.getRequirements().iterator().next().getDescription());
+	}
+
+	public void testStaleBinaryIgnored() throws Exception {
+		createBinaryRepository();
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		manager.removeRepository(repoLocation.toURI());
+		File content = new File(repoLocation, "content.xml");
+		content.setLastModified(new File(repoLocation, "content.p2b").lastModified() + 10000);
+
+		assertTrue("1.0", manager.loadRepository(repoLocation.toURI(), null) instanceof LocalMetadataRepository);
+	}
+
+	public void testRemoteLocationNotProbed() throws Exception {
+		// only local repositories write binary content, remote ones are not asked for it
+		BinaryMetadataRepositoryFactory factory = new BinaryMetadataRepositoryFactory();
+		factory.setAgent(getAgent());
+		try {
+			factory.load(URI.create("https://example.org/updates"), 0, null);
+			fail("1.0");
+		} catch (ProvisionException e) {
+			assertEquals("1.1", ProvisionException.REPOSITORY_NOT_FOUND, e.getStatus().getCode());
+		}
+	}
+
+	public void testBinaryFileRemovedWhenDisabled() throws Exception {
+		IMetadataRepository repo = createBinaryRepository();
+		repo.setProperty(LocalMetadataRepository.PROP_BINARY, "false");
+		assertFalse("1.0", new File(repoLocation, "content.p2b").exists());
+	}
+}
@@ -747,4 +747,52 @@ public class CompositeMetadataRepositoryTest extends AbstractProvisioningTest {
 		assertTrue("Successfully loaded child should be available in repo manager", manager.contains(URIUtil.append(repo.getLocation(), "one")));
 
 	}
+
+	public void testChildrenLoadedConcurrentlyKeepTheirOrder() throws ProvisionException {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		File compositeFile = getTestFolder(getUniqueString());
+		URI compositeLocation = compositeFile.toURI();
+		CompositeMetadataRepository composite = (CompositeMetadataRepository) manager.createRepository(compositeLocation, "Composite", IMetadataRepositoryManager.TYPE_COMPOSITE_REPOSITORY, null);
+		// more children than loaded at the same time, one of them missing
+		URI[] children = new URI[10];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = URIUtil.append(compositeLocation, "child" + i);
+			if (i == 3)
+				continue;
+			IMetadataRepository child = manager.createRepository(children[i], "Child " + i, IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, null);
+			child.addInstallableUnits(Arrays.asList(createIU("shared", Version.createOSGi(i, 0, 0)), createIU("unit" + i)));
+		}
+		PrintStream out = System.out;
+		try {
+			System.setOut(new PrintStream(new StringBufferStream()));
+			for (URI child : children)
+				composite.addChild(child);
+			for (URI child : children)
+				manager.removeRepository(child);
+			manager.removeRepository(compositeLocation);
+
+			IMetadataRepository loaded = manager.loadRepository(compositeLocation, null);
+			assertEquals("1.0", Arrays.asList(children), ((CompositeMetadataRepository) loaded).getChildren());
+			assertEquals("1.1", 18, queryResultSize(loaded.query(QueryUtil.createIUAnyQuery(), null)));
+			// the first child gives the unit found first
+			IQueryResult<IInstallableUnit> first = loaded.query(QueryUtil.createLimitQuery(QueryUtil.createIUQuery("shared"), 1), null);
+			assertEquals("1.2", Version.createOSGi(0, 0, 0), first.iterator().next().getVersion());
+
+			// an atomic composite fails on the missing child and forgets the children it loaded
+			loaded.setProperty(CompositeMetadataRepository.PROP_ATOMIC_LOADING, Boolean.toString(true));
+			for (URI child : children)
+				manager.removeRepository(child);
+			manager.removeRepository(compositeLocation);
+			try {
+				manager.loadRepository(compositeLocation, null);
+				fail("2.0");
+			} catch (ProvisionException e) {
+				assertEquals("2.1", ProvisionException.REPOSITORY_FAILED_READ, e.getStatus().getCode());
+			}
+			for (URI child : children)
+				assertFalse("2.2 " + child, manager.contains(child));
+		} finally {
+			System.setOut(out);
+		}
+	}
 }
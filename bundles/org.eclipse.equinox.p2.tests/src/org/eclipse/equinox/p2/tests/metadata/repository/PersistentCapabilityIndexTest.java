@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.metadata.repository;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.repository.PersistentCapabilityIndex;
+import org.eclipse.equinox.internal.p2.metadata.repository.SimpleMetadataRepositoryFactory;
+import org.eclipse.equinox.internal.p2.repository.CacheManager;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.IRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests for the capability index that local repositories persist in the cache directory.
+ */
+public class PersistentCapabilityIndexTest extends AbstractProvisioningTest {
+	private static final IRequirement PACKAGE_REQUIREMENT = MetadataFactory.createRequirement("java.package", "org.example", new VersionRange("[1.0.0,2.0.0)"), null, false, false);
+	private File repoLocation;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		repoLocation = getTempFolder();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getMetadataRepositoryManager().removeRepository(repoLocation.toURI());
+		delete(repoLocation);
+		super.tearDown();
+	}
+
+	private IInstallableUnit createExporter(String id, String packageVersion) {
+		IProvidedCapability[] capabilities = {MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, id, Version.create("1.0.0")), MetadataFactory.createProvidedCapability("java.package", "org.example", Version.create(packageVersion))};
+		return createIU(id, Version.create("1.0.0"), capabilities);
+	}
+
+	private IMetadataRepository createRepository() throws Exception {
+		IMetadataRepository repo = getMetadataRepositoryManager().createRepository(repoLocation.toURI(), "IndexRepo", IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, null);
+		repo.addInstallableUnits(List.of(createExporter("a", "1.0.0"), createExporter("b", "1.5.0"), createExporter("c", "2.0.0")));
+		return repo;
+	}
+
+	/**
+	 * Reads the repository from disk again, without going through the manager that
+	 * would return the repository it already knows.
+	 */
+	private IMetadataRepository loadRepository() throws ProvisionException {
+		SimpleMetadataRepositoryFactory factory = new SimpleMetadataRepositoryFactory();
+		factory.setAgent(getAgent());
+		return factory.load(repoLocation.toURI(), 0, null);
+	}
+
+	private File getIndexFile() {
+		return getAgent().getService(CacheManager.class).getDerivedCacheFile(repoLocation.toURI(), "capabilities");
+	}
+
+	private Set<IInstallableUnit> queryPackage(IMetadataRepository repo) {
+		return repo.query(QueryUtil.createMatchQuery(PACKAGE_REQUIREMENT.getMatches()), null).toUnmodifiableSet();
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testIndexPersisted() throws Exception {
+		createRepository();
+		IMetadataRepository repo = loadRepository();
+		assertNotNull("1.0", repo.getProperty(IRepository.PROP_TIMESTAMP));
+		assertEquals("1.1", 2, queryPackage(repo).size());
+		assertTrue("1.2", getIndexFile().exists());
+		assertTrue("1.3", ((IIndexProvider<IInstallableUnit>) repo).getIndex(InstallableUnit.MEMBER_PROVIDED_CAPABILITIES) instanceof PersistentCapabilityIndex);
+	}
+
+	public void testIndexNotPersistedForNewRepository() throws Exception {
+		IMetadataRepository repo = createRepository();
+		assertEquals("1.0", 2, queryPackage(repo).size());
+		assertFalse("1.1", getIndexFile().exists());
+	}
+
+	public void testIndexReusedByFreshLoad() throws Exception {
+		createRepository();
+		assertEquals("1.0", 2, queryPackage(loadRepository()).size());
+		File indexFile = getIndexFile();
+		assertTrue("1.1", indexFile.exists());
+		long lastModified = indexFile.lastModified() - 10000;
+		indexFile.setLastModified(lastModified);
+
+		assertEquals("1.2", 2, queryPackage(loadRepository()).size());
+		assertEquals("1.3", lastModified, indexFile.lastModified());
+	}
+
+	public void testIndexRewrittenForChangedContentFile() throws Exception {
+		createRepository();
+		assertEquals("1.0", 2, queryPackage(loadRepository()).size());
+		File indexFile = getIndexFile();
+		long lastModified = indexFile.lastModified() - 10000;
+		indexFile.setLastModified(lastModified);
+		// content written by another tool keeps the timestamp property of the repository
+		File content = new File(repoLocation, "content.xml");
+		content.setLastModified(content.lastModified() + 10000);
+
+		assertEquals("1.1", 2, queryPackage(loadRepository()).size());
+		assertTrue("1.2", lastModified != indexFile.lastModified());
+	}
+
+	public void testIndexFollowsChanges() throws Exception {
+		createRepository();
+		IMetadataRepository repo = loadRepository();
+		assertEquals("1.0", 2, queryPackage(repo).size());
+		File indexFile = getIndexFile();
+		long lastModified = indexFile.lastModified() - 10000;
+		indexFile.setLastModified(lastModified);
+		repo.addInstallableUnits(List.of(createExporter("d", "1.9.0")));
+		Set<IInstallableUnit> result = queryPackage(repo);
+		assertEquals("1.1", 3, result.size());
+		assertTrue("1.2", result.stream().anyMatch(iu -> iu.getId().equals("d")));
+		repo.removeInstallableUnits(List.of(createExporter("a", "1.0.0")));
+		assertEquals("1.3", 2, queryPackage(repo).size());
+		// the index of a modified repository is not written
+		assertEquals("1.4", lastModified, indexFile.lastModified());
+	}
+
+	public void testDamagedIndexRebuilt() throws Exception {
+		createRepository();
+		assertEquals("1.0", 2, queryPackage(loadRepository()).size());
+		File indexFile = getIndexFile();
+		Files.write(indexFile.toPath(), new byte[] {1, 2, 3});
+		assertEquals("1.1", 2, queryPackage(loadRepository()).size());
+		assertTrue("1.2", indexFile.length() > 3);
+	}
+
+	public void testIndexRemovedWithRepository() throws Exception {
+		createRepository();
+		queryPackage(loadRepository());
+		assertTrue("1.0", getIndexFile().exists());
+		getMetadataRepositoryManager().removeRepository(repoLocation.toURI());
+		assertFalse("1.1", getIndexFile().exists());
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.planner;
+
+import java.io.File;
+import java.util.*;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.director.*;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.query.IQueryable;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests that slicing in parallel gives the same slice as slicing sequentially.
+ */
+public class ParallelSlicerTest extends AbstractProvisioningTest {
+
+	private List<IInstallableUnit> slice(Slicer slicer, boolean parallel, Collection<IInstallableUnit> roots) {
+		slicer.setParallel(parallel);
+		IQueryable<IInstallableUnit> result = slicer.slice(roots, new NullProgressMonitor());
+		assertNotNull(result);
+		List<IInstallableUnit> units = new ArrayList<>();
+		result.query(QueryUtil.createIUAnyQuery(), null).forEach(units::add);
+		return units;
+	}
+
+	private List<String> getMessages(Slicer slicer) {
+		return Arrays.stream(slicer.getStatus().getChildren()).map(IStatus::getMessage).toList();
+	}
+
+	public void testSliceRCP() throws Exception {
+		File repoFile = getTestData("Repo for permissive slicer test", "testData/permissiveSlicer");
+		IMetadataRepository repo = getMetadataRepositoryManager().loadRepository(repoFile.toURI(), new NullProgressMonitor());
+		Set<IInstallableUnit> roots = repo.query(QueryUtil.createIUQuery("org.eclipse.rcp.feature.group"), null).toUnmodifiableSet();
+
+		List<IInstallableUnit> sequential = slice(new PermissiveSlicer(repo, Collections.emptyMap(), true, false, true, false, false), false, roots);
+		List<IInstallableUnit> parallel = slice(new PermissiveSlicer(repo, Collections.emptyMap(), true, false, true, false, false), true, roots);
+		assertEquals(66, parallel.size());
+		assertEquals(new HashSet<>(sequential), new HashSet<>(parallel));
+	}
+
+	public void testParallelSliceIsDeterministic() {
+		List<IInstallableUnit> units = new ArrayList<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 300; i++) {
+			IRequirement[] requirements = new IRequirement[random.nextInt(5)];
+			for (int j = 0; j < requirements.length; j++) {
+				String target = random.nextInt(20) == 0 ? "missing" + i : "iu" + random.nextInt(300);
+				requirements[j] = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, target, new VersionRange("[1.0.0,3.0.0)"), null, random.nextInt(4) == 0, false, random.nextInt(5) != 0);
+			}
+			units.add(createIU("iu" + i, Version.create(random.nextInt(3) + 1 + ".0.0"), requirements));
+		}
+		QueryableArray possibilities = new QueryableArray(units);
+		List<IInstallableUnit> roots = units.subList(0, 3);
+
+		Slicer sequentialSlicer = new Slicer(possibilities, Collections.emptyMap(), false);
+		List<IInstallableUnit> sequential = slice(sequentialSlicer, false, roots);
+		Slicer parallelSlicer = new Slicer(possibilities, Collections.emptyMap(), false);
+		List<IInstallableUnit> parallel = slice(parallelSlicer, true, roots);
+		assertEquals(new HashSet<>(sequential), new HashSet<>(parallel));
+		assertEquals(new HashSet<>(getMessages(sequentialSlicer)), new HashSet<>(getMessages(parallelSlicer)));
+
+		for (int i = 0; i < 5; i++) {
+			Slicer slicer = new Slicer(possibilities, Collections.emptyMap(), false);
+			assertEquals(parallel, slice(slicer, true, roots));
+			assertEquals(getMessages(parallelSlicer), getMessages(slicer));
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.planner;
+
+import java.util.Set;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.equinox.internal.p2.director.*;
+import org.eclipse.equinox.p2.engine.*;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests that a planner session computes the same plans as the planner does for each request on its own.
+ */
+public class PlannerSessionTest extends AbstractProvisioningTest {
+	private IInstallableUnit a1;
+	private IInstallableUnit a2;
+	private IInstallableUnit b1;
+	private IInstallableUnit c1;
+	private IInstallableUnit d1;
+	private IInstallableUnit e1;
+	private IProfile profile;
+	private SimplePlanner planner;
+	private ProvisioningContext context;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		a1 = createIU("A", Version.create("1.0.0"), true);
+		a2 = createIU("A", Version.create("2.0.0"), true);
+		b1 = createIU("B", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "A", new VersionRange("[1.0.0,3.0.0)")));
+		c1 = createIU("C", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "A", new VersionRange("[1.0.0,2.0.0)")));
+		d1 = createIU("D", Version.create("1.0.0"), createRequiredCapabilities(IInstallableUnit.NAMESPACE_IU_ID, "Missing", VersionRange.emptyRange));
+		IRequirement optionalB = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "B", VersionRange.emptyRange, null, true, false, true);
+		e1 = createIU("E", Version.create("1.0.0"), new IRequirement[] {optionalB});
+
+		createTestMetdataRepository(new IInstallableUnit[] {a1, a2, b1, c1, d1, e1});
+
+		profile = createProfile("TestProfile." + getName());
+		planner = (SimplePlanner) createPlanner();
+		context = new ProvisioningContext(getAgent());
+	}
+
+	private IProvisioningPlan install(PlannerSession session, IInstallableUnit... ius) {
+		ProfileChangeRequest request = new ProfileChangeRequest(profile);
+		request.addInstallableUnits(ius);
+		return session == null ? planner.getProvisioningPlan(request, context, null) : session.getProvisioningPlan(request, null);
+	}
+
+	private Set<IInstallableUnit> getAdditions(IProvisioningPlan plan) {
+		return plan.getAdditions().query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+	}
+
+	private void assertSamePlan(IProvisioningPlan expected, IProvisioningPlan actual) {
+		assertEquals(expected.getStatus().getSeverity(), actual.getStatus().getSeverity());
+		assertEquals(getAdditions(expected), getAdditions(actual));
+	}
+
+	public void testSuccessiveRequests() {
+		try (PlannerSession session = planner.createSession(profile, context)) {
+			IInstallableUnit[][] requests = {{b1}, {c1}, {b1, c1}, {e1}, {e1, c1}, {b1}};
+			for (IInstallableUnit[] request : requests) {
+				IProvisioningPlan actual = install(session, request);
+				assertEquals(IStatus.OK, actual.getStatus().getSeverity());
+				assertSamePlan(install(null, request), actual);
+			}
+			assertEquals(requests.length, session.getRetainedResolutions());
+			// only the requests for C and E reach units outside of the retained slice
+			assertEquals(3, session.getEncodings());
+		}
+	}
+
+	public void testRepeatedRequest() {
+		try (PlannerSession session = planner.createSession(profile, context)) {
+			// requests in the same millisecond are answered from the retained encoding as well
+			IProvisioningPlan first = install(session, b1);
+			IProvisioningPlan second = install(session, b1);
+			assertSamePlan(first, second);
+			assertEquals(2, session.getRetainedResolutions());
+			assertEquals(1, session.getEncodings());
+		}
+	}
+
+	public void testEncodingRebuilt() {
+		try (PlannerSession session = planner.createSession(profile, context)) {
+			for (int i = 0; i <= PlannerSession.MAX_RETAINED_REQUESTS; i++)
+				assertInstallOperand(install(session, b1), a2);
+			assertEquals(PlannerSession.MAX_RETAINED_REQUESTS + 1, session.getRetainedResolutions());
+			assertEquals(2, session.getEncodings());
+		}
+	}
+
+	public void testVersionSelection() {
+		try (PlannerSession session = planner.createSession(profile, context)) {
+			IProvisioningPlan plan = install(session, b1);
+			assertInstallOperand(plan, a2);
+			plan = install(session, b1, c1);
+			assertInstallOperand(plan, a1);
+			assertNoOperand(plan, a2);
+			plan = install(session, e1);
+			assertInstallOperand(plan, b1);
+			assertInstallOperand(plan, a2);
+		}
+	}
+
+	public void testUnsatisfiableRequest() {
+		try (PlannerSession session = planner.createSession(profile, context)) {
+			assertEquals(IStatus.OK, install(session, b1).getStatus().getSeverity());
+			IProvisioningPlan plan = install(session, d1);
+			assertEquals(IStatus.ERROR, plan.getStatus().getSeverity());
+			assertSamePlan(install(null, d1), plan);
+			assertEquals(1, session.getRetainedResolutions());
+			// the session is still usable after a failure
+			assertSamePlan(install(null, c1), install(session, c1));
+			assertEquals(2, session.getRetainedResolutions());
+		}
+	}
+}
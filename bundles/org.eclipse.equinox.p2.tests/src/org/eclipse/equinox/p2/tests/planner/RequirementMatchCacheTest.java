@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.planner;
+
+import java.util.List;
+import org.eclipse.equinox.internal.p2.director.QueryableArray;
+import org.eclipse.equinox.internal.p2.director.RequirementMatchCache;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class RequirementMatchCacheTest extends AbstractProvisioningTest {
+	private final IInstallableUnit a1 = createIU("A", Version.create("1.0.0"));
+	private final IInstallableUnit a2 = createIU("A", Version.create("2.0.0"));
+	private final IInstallableUnit a3 = createIU("A", Version.create("3.0.0"));
+	private final IRequirement requirement = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "A", VersionRange.emptyRange, null, false, false);
+
+	public void testMatchesAreSortedAndRemembered() {
+		RequirementMatchCache cache = new RequirementMatchCache(new QueryableArray(List.of(a3, a1, a2)));
+		IInstallableUnit[] matches = cache.getMatches(requirement);
+		assertEquals(List.of(a1, a2, a3), List.of(matches));
+		assertSame(matches, cache.getMatches(requirement));
+		// an equal requirement shares the matches
+		assertSame(matches, cache.getMatches(MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "A", VersionRange.emptyRange, null, false, false)));
+		assertEquals(1, cache.getMisses());
+		assertEquals(2, cache.getHits());
+	}
+
+	public void testRestrictedCache() {
+		RequirementMatchCache cache = new RequirementMatchCache(new QueryableArray(List.of(a1, a2)));
+		RequirementMatchCache restricted = new RequirementMatchCache(cache, List.of(a2, a3));
+		assertEquals(List.of(a2, a3), List.of(restricted.getMatches(requirement)));
+		assertEquals(1, cache.getMisses());
+		assertEquals(0, restricted.getMatches(MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "B", VersionRange.emptyRange, null, false, false)).length);
+	}
+}
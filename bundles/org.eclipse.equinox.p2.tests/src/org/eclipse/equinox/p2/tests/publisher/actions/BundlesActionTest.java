@@ -35,6 +35,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -50,6 +51,8 @@ import org.eclipse.equinox.internal.p2.metadata.OSGiVersion;
 import org.eclipse.equinox.internal.p2.metadata.RequiredCapability;
 import org.eclipse.equinox.internal.p2.metadata.RequiredPropertiesMatch;
 import org.eclipse.equinox.internal.p2.metadata.TranslationSupport;
+import org.eclipse.equinox.internal.p2.publisher.ParallelismAdvice;
+import org.eclipse.equinox.internal.p2.publisher.PublishCache;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.IProvidedCapability;
@@ -71,6 +74,7 @@ import org.eclipse.equinox.p2.publisher.actions.ICapabilityAdvice;
 import org.eclipse.equinox.p2.publisher.actions.IPropertyAdvice;
 import org.eclipse.equinox.p2.publisher.actions.ITouchpointAdvice;
 import org.eclipse.equinox.p2.publisher.actions.IUpdateDescriptorAdvice;
+import org.eclipse.equinox.p2.publisher.eclipse.BundleShapeAdvice;
 import org.eclipse.equinox.p2.publisher.eclipse.BundlesAction;
 import org.eclipse.equinox.p2.publisher.eclipse.IBundleShapeAdvice;
 import org.eclipse.equinox.p2.query.IQueryResult;
@@ -80,6 +84,7 @@ import org.eclipse.equinox.p2.tests.TestActivator;
 import org.eclipse.equinox.p2.tests.TestData;
 import org.eclipse.equinox.p2.tests.publisher.TestArtifactRepository;
 import org.eclipse.equinox.spi.p2.publisher.PublisherHelper;
+import org.eclipse.osgi.service.resolver.BundleDescription;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
@@ -516,6 +521,84 @@ public class BundlesActionTest extends ActionTest {
 		assertThat(ius.size(), is(1));
 	}
 
+	public void testParallelPublishingMatchesSequential() throws Exception {
+		List<File> locations = new ArrayList<>();
+		locations.add(new File(TestActivator.getTestDataFolder(), "FragmentPublisherTest/foo"));
+		locations.add(new File(TestActivator.getTestDataFolder(), "FragmentPublisherTest/foo.fragment"));
+		locations.addAll(Arrays.asList(new File(TestActivator.getTestDataFolder(), "bug331683").listFiles()));
+		locations.addAll(Arrays.asList(TEST_BASE.listFiles()));
+		File[] bundleLocations = locations.toArray(new File[locations.size()]);
+
+		PublisherResult sequentialResult = new PublisherResult();
+		IStatus sequentialStatus = new BundlesAction(bundleLocations).perform(new PublisherInfo(), sequentialResult,
+				new NullProgressMonitor());
+
+		PublisherInfo info = new PublisherInfo();
+		info.addAdvice(new ParallelismAdvice(4));
+		PublisherResult parallelResult = new PublisherResult();
+		IStatus parallelStatus = new BundlesAction(bundleLocations).perform(info, parallelResult,
+				new NullProgressMonitor());
+
+		assertEquals(sequentialStatus.getSeverity(), parallelStatus.getSeverity());
+		assertEquals(sequentialStatus.getChildren().length, parallelStatus.getChildren().length);
+		for (String type : new String[] { IPublisherResult.ROOT, IPublisherResult.NON_ROOT }) {
+			Collection<IInstallableUnit> expected = sequentialResult.getIUs(null, type);
+			Collection<IInstallableUnit> actual = parallelResult.getIUs(null, type);
+			assertEquals(type, expected.size(), actual.size());
+			assertTrue(type, actual.containsAll(expected));
+		}
+		// the localization fragment of the host is created because the host comes first
+		assertEquals(1, parallelResult.getIUs("foo.fragment.translated_host_properties", IPublisherResult.NON_ROOT).size());
+	}
+
+	public void testPublishCacheReusesUnchangedBundles() throws Exception {
+		File cacheLocation = new File(getTempFolder(), "publishCache.zip");
+		int[] createdIUs = new int[1];
+		class CountingBundlesAction extends BundlesAction {
+			CountingBundlesAction(File[] locations) {
+				super(locations);
+			}
+
+			@Override
+			protected IInstallableUnit doCreateBundleIU(BundleDescription bd, IArtifactKey key, IPublisherInfo info) {
+				createdIUs[0]++;
+				return super.doCreateBundleIU(bd, key, info);
+			}
+		}
+
+		PublishCache cache = new PublishCache(cacheLocation);
+		cache.load();
+		PublisherInfo info = new PublisherInfo();
+		info.addAdvice(cache);
+		PublisherResult firstResult = new PublisherResult();
+		new CountingBundlesAction(new File[] { TEST_FILE2 }).perform(info, firstResult, new NullProgressMonitor());
+		cache.save();
+		assertEquals(1, createdIUs[0]);
+
+		cache = new PublishCache(cacheLocation);
+		cache.load();
+		info = new PublisherInfo();
+		info.addAdvice(cache);
+		PublisherResult secondResult = new PublisherResult();
+		new CountingBundlesAction(new File[] { TEST_FILE2 }).perform(info, secondResult, new NullProgressMonitor());
+		assertEquals(1, createdIUs[0]);
+
+		IInstallableUnit expected = firstResult.getIUs(TEST2_PROV_BUNDLE_NAME, IPublisherResult.ROOT).iterator().next();
+		IInstallableUnit actual = secondResult.getIUs(TEST2_PROV_BUNDLE_NAME, IPublisherResult.ROOT).iterator().next();
+		assertEquals(expected, actual);
+		assertEquals(expected.getProvidedCapabilities(), actual.getProvidedCapabilities());
+		assertEquals(new HashSet<>(expected.getRequirements()), new HashSet<>(actual.getRequirements()));
+
+		// the entry is not used with different advice
+		cache = new PublishCache(cacheLocation);
+		cache.load();
+		info = new PublisherInfo();
+		info.addAdvice(cache);
+		info.addAdvice(new BundleShapeAdvice(TEST2_PROV_BUNDLE_NAME, null, IBundleShapeAdvice.DIR));
+		new CountingBundlesAction(new File[] { TEST_FILE2 }).perform(info, new PublisherResult(), new NullProgressMonitor());
+		assertEquals(2, createdIUs[0]);
+	}
+
 	public void testMultiRequired() throws Exception {
 		File testData = new File(TestActivator.getTestDataFolder(), "requireMultiple");
 		IInstallableUnit iu = BundlesAction.createBundleIU(BundlesAction.createBundleDescription(testData), null,
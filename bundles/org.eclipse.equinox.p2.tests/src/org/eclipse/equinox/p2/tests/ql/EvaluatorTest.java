@@ -27,6 +27,7 @@ import java.util.Set;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.equinox.internal.p2.director.QueryableArray;
 import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.IProvidedCapability;
@@ -431,4 +432,49 @@ public class EvaluatorTest extends AbstractProvisioningTest {
 
 		assertTrue("Query results are inconsistent.", set.size() == rt2.toSet().size());
 	}
+
+	public void testCompiledMatchesInterpreted() throws Exception {
+		assertCompiledMatchesInterpreted("/testData/metadataRepo/qltest");
+		assertCompiledMatchesInterpreted("/testData/metadataRepo/wsdlTestRepo");
+	}
+
+	private void assertCompiledMatchesInterpreted(String uri) throws Exception {
+		IMetadataRepository repo = getMDR(uri);
+		Set<IInstallableUnit> ius = repo.query(QueryUtil.createIUAnyQuery(), new NullProgressMonitor()).toUnmodifiableSet();
+		IInstallableUnit selectionContext = InstallableUnit.contextIU(Map.of("osgi.os", "linux", "osgi.ws", "gtk", "osgi.arch", "x86_64"));
+
+		List<IMatchExpression<IInstallableUnit>> expressions = new ArrayList<>();
+		expressions.add(MetadataFactory.createRequirement("osgi.bundle", "org.eclipse.core.runtime", VersionRange.create("[3.0,4)"), null, false, false).getMatches());
+		expressions.add(MetadataFactory.createRequirement("java.package", "org.eclipse.osgi.util", VersionRange.emptyRange, null, false, false).getMatches());
+		expressions.add(factory.matchExpression(parser.parse("properties[$0] == $1"), QueryUtil.PROP_TYPE_GROUP, "true"));
+		expressions.add(factory.matchExpression(parser.parse("providedCapabilities.exists(p | p.namespace == $0 && p.version >= $1)"), "java.package", Version.create("1.0.0")));
+		expressions.add(factory.matchExpression(parser.parse("requirements.exists(r | this ~= r) || !(id ~= /org.eclipse.*/)")));
+		expressions.add(factory.matchExpression(parser.parse("providedCapabilities.all(c | c.name != null) && version > $0"), Version.create("1.0.0")));
+		IRequirement[][] applicability = {{MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "tooling.source.default", null, null, false, false), MetadataFactory.createRequirement("org.eclipse.equinox.p2.flavor", "tooling", null, null, false, false)}};
+		expressions.add(factory.matchExpression(parser.parse("$0.exists(rcs | rcs.all(rc | this ~= rc))"), (Object) applicability));
+		expressions.add(factory.matchExpression(parser.parse("!(id ~= /tooling.*/)")));
+		expressions.add(factory.matchExpression(parser.parse("this ~= class('org.eclipse.equinox.p2.metadata.IInstallableUnitFragment')")));
+		int matches = 0;
+		for (IInstallableUnit iu : ius) {
+			for (IMatchExpression<IInstallableUnit> expression : expressions) {
+				boolean match = expression.isMatch(iu);
+				assertEquals(expression.toString(), match, interpret(expression, iu));
+				if (match)
+					matches++;
+			}
+			IMatchExpression<IInstallableUnit> filter = iu.getFilter();
+			if (filter != null)
+				assertEquals(filter.toString(), interpret(filter, selectionContext), filter.isMatch(selectionContext));
+		}
+		assertTrue(uri, matches > 0);
+
+		IQueryResult<IInstallableUnit> selected = repo.query(QueryUtil.createQuery("select(x | x.properties[$0] == $1 && x.providedCapabilities.exists(p | p.version >= $2))", QueryUtil.PROP_TYPE_GROUP, "true", Version.emptyVersion), null);
+		assertEquals(repo.query(QueryUtil.createIUGroupQuery(), null).toUnmodifiableSet(), selected.toUnmodifiableSet());
+	}
+
+	private static boolean interpret(IMatchExpression<IInstallableUnit> expression, IInstallableUnit iu) {
+		IEvaluationContext context = expression.createContext();
+		ExpressionFactory.THIS.setValue(context, iu);
+		return expression.evaluate(context) == Boolean.TRUE;
+	}
 }
@@ -14,16 +14,20 @@
 package org.eclipse.equinox.p2.tests.ql;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.equinox.internal.p2.director.PermissiveSlicer;
 import org.eclipse.equinox.internal.p2.director.QueryableArray;
 import org.eclipse.equinox.internal.p2.director.Slicer;
+import org.eclipse.equinox.internal.p2.metadata.IRequiredCapability;
 import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
 import org.eclipse.equinox.internal.p2.metadata.expression.MatchIteratorFilter;
 import org.eclipse.equinox.internal.p2.metadata.repository.CompositeMetadataRepository;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -33,7 +37,9 @@ import org.eclipse.equinox.p2.metadata.MetadataFactory;
 import org.eclipse.equinox.p2.metadata.Version;
 import org.eclipse.equinox.p2.metadata.VersionRange;
 import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
+import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
 import org.eclipse.equinox.p2.metadata.expression.IExpressionParser;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
 import org.eclipse.equinox.p2.publisher.actions.JREAction;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
@@ -255,6 +261,47 @@ public class PerformanceTest extends AbstractProvisioningTest {
 		System.out.println();
 	}
 
+	public void testRequirementMatcherVersusExpressionPerformance() throws Exception {
+
+		IMetadataRepository repo = getMDR("/testData/galileoM7");
+		Set<IInstallableUnit> ius = repo.query(QueryUtil.createIUAnyQuery(), new NullProgressMonitor()).toUnmodifiableSet();
+		List<IRequirement> requirements = new ArrayList<>();
+		for (IInstallableUnit iu : ius) {
+			for (IRequirement requirement : iu.getRequirements())
+				if (requirement instanceof IRequiredCapability && requirements.size() < 200)
+					requirements.add(requirement);
+		}
+		long matcherMS = 0;
+		long exprMS = 0;
+
+		for (int i = 0; i < 5; ++i) {
+			int matcherMatches = 0;
+			long start = System.currentTimeMillis();
+			for (IRequirement requirement : requirements)
+				for (IInstallableUnit iu : ius)
+					if (iu.satisfies(requirement))
+						matcherMatches++;
+			matcherMS += (System.currentTimeMillis() - start);
+
+			int exprMatches = 0;
+			start = System.currentTimeMillis();
+			for (IRequirement requirement : requirements) {
+				IMatchExpression<IInstallableUnit> matches = requirement.getMatches();
+				IEvaluationContext context = matches.createContext();
+				for (IInstallableUnit iu : ius) {
+					ExpressionFactory.THIS.setValue(context, iu);
+					if (matches.evaluate(context) == Boolean.TRUE)
+						exprMatches++;
+				}
+			}
+			exprMS += (System.currentTimeMillis() - start);
+			assertEquals(exprMatches, matcherMatches);
+		}
+		System.out.println("RequiredCapabilityMatcher took: " + matcherMS + " milliseconds");
+		System.out.println("Match expression took: " + exprMS + " milliseconds");
+		System.out.println();
+	}
+
 	public void testCapabilityQueryPerformanceEE() throws Exception {
 
 		IMetadataRepository repo = getMDR("/testData/galileoM7");
@@ -14,12 +14,19 @@
 package org.eclipse.equinox.p2.tests.ql;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.director.QueryableArray;
+import org.eclipse.equinox.internal.p2.metadata.index.MergedQueryable;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.IRequirement;
 import org.eclipse.equinox.p2.metadata.MetadataFactory;
+import org.eclipse.equinox.p2.query.Collector;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
+import org.eclipse.equinox.p2.query.IQueryable;
 import org.eclipse.equinox.p2.query.QueryUtil;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
@@ -70,6 +77,46 @@ public class TestIndexes extends AbstractProvisioningTest {
 		assertEquals(queryResultSize(result), 487);
 	}
 
+	public void testMergedIndex() throws Exception {
+		IMetadataRepository repo = getMDR("/testData/galileoM7");
+		List<IInstallableUnit> all = new ArrayList<>();
+		repo.query(QueryUtil.createIUAnyQuery(), getMonitor()).forEach(all::add);
+		// split the units over overlapping children, one of them without indexes
+		List<IQueryable<IInstallableUnit>> children = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			List<IInstallableUnit> units = all.subList(i * all.size() / 20, Math.min(all.size(), (i + 2) * all.size() / 20));
+			if (i == 7) {
+				Collector<IInstallableUnit> collector = new Collector<>();
+				units.forEach(collector::accept);
+				children.add(collector);
+			} else
+				children.add(new QueryableArray(units));
+		}
+		IQueryable<IInstallableUnit> compound = QueryUtil.compoundQueryable(children);
+		MergedQueryable merged = new MergedQueryable(children);
+
+		IRequirement requirement = MetadataFactory.createRequirement("org.eclipse.equinox.p2.iu", "org.eclipse.core.resources", null, null, 1, 2, true);
+		List<IQuery<IInstallableUnit>> queries = List.of(QueryUtil.createIUAnyQuery(), //
+				QueryUtil.createQuery("select(x | x.id == $0 || x.id == $1)", "org.eclipse.sdk.feature.group", "org.eclipse.sdk.feature.jar"), //
+				QueryUtil.createQuery("select(x | x ~= $0)", requirement), //
+				QueryUtil.createMatchQuery("id ~= /*.feature.group/ && properties['org.eclipse.equinox.p2.type.group'] == true && providedCapabilities.exists(p | p.namespace == 'org.eclipse.equinox.p2.iu' && p.name == id)"), //
+				QueryUtil.createLatestIUQuery());
+		for (IQuery<IInstallableUnit> query : queries)
+			assertEquals(query.toString(), compound.query(query, getMonitor()).toUnmodifiableSet(), merged.query(query, getMonitor()).toUnmodifiableSet());
+		assertEquals(all.size(), queryResultSize(merged.query(QueryUtil.createIUAnyQuery(), getMonitor())));
+		int count = 0;
+		for (Iterator<IInstallableUnit> iterator = merged.everything(); iterator.hasNext(); iterator.next())
+			count++;
+		assertEquals("units are deduplicated", all.size(), count);
+
+		// a change of an indexed child is seen by the merged queryable
+		IMetadataRepository changing = createTestMetdataRepository(new IInstallableUnit[] {createIU("first")});
+		merged = new MergedQueryable(List.of(repo, changing));
+		assertTrue(merged.query(QueryUtil.createIUQuery("second"), getMonitor()).isEmpty());
+		changing.addInstallableUnits(List.of(createIU("second")));
+		assertEquals(1, queryResultSize(merged.query(QueryUtil.createIUQuery("second"), getMonitor())));
+	}
+
 	private IMetadataRepository getMDR(String uri) throws Exception {
 		URI metadataRepo = getTestData("1.1", uri).toURI();
 
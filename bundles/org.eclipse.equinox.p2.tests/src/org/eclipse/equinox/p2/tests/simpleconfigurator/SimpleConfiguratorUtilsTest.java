@@ -21,6 +21,7 @@ import java.net.URISyntaxException;
 import java.util.List;
 import org.eclipse.equinox.internal.simpleconfigurator.Activator;
 import org.eclipse.equinox.internal.simpleconfigurator.utils.BundleInfo;
+import org.eclipse.equinox.internal.simpleconfigurator.utils.BundlesInfoSnapshot;
 import org.eclipse.equinox.internal.simpleconfigurator.utils.SimpleConfiguratorUtils;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
 
@@ -215,4 +216,30 @@ public class SimpleConfiguratorUtilsTest extends AbstractProvisioningTest {
 			assertEquals(4, SimpleConfiguratorUtils.readConfiguration(bundleInfoFile.toURL(), null).size());
 		}
 	}
+
+	public void testBundlesInfoSnapshot() throws IOException {
+		File folder = getTempFolder();
+		File bundlesInfo = new File(folder, "bundles.info");
+		copy("1.0", getTestData("1.0", "testData/simpleConfiguratorTest/3.4.bundles.info"), bundlesInfo);
+		URI baseURI = folder.toURI();
+		List<BundleInfo> infos = SimpleConfiguratorUtils.readConfiguration(bundlesInfo.toURL(), baseURI);
+
+		File snapshotFile = new File(folder, "bundles.info.snapshot");
+		BundlesInfoSnapshot snapshot = BundlesInfoSnapshot.create(bundlesInfo.toURL(), baseURI, true);
+		assertNull("1.0", snapshot.read(snapshotFile));
+		snapshot.write(snapshotFile, infos);
+
+		List<BundleInfo> snapshotInfos = BundlesInfoSnapshot.create(bundlesInfo.toURL(), baseURI, true).read(snapshotFile);
+		assertEquals("2.0", infos.size(), snapshotInfos.size());
+		for (int i = 0; i < infos.size(); i++) {
+			assertEquals("2.1", infos.get(i), snapshotInfos.get(i));
+			assertEquals("2.2", infos.get(i).getBaseLocation(), snapshotInfos.get(i).getBaseLocation());
+			assertEquals("2.3", infos.get(i).getStartLevel(), snapshotInfos.get(i).getStartLevel());
+			assertEquals("2.4", infos.get(i).isMarkedAsStarted(), snapshotInfos.get(i).isMarkedAsStarted());
+		}
+
+		assertNull("3.0", BundlesInfoSnapshot.create(bundlesInfo.toURL(), baseURI, false).read(snapshotFile));
+		assertTrue("3.1", bundlesInfo.setLastModified(bundlesInfo.lastModified() - 10000));
+		assertNull("3.2", BundlesInfoSnapshot.create(bundlesInfo.toURL(), baseURI, true).read(snapshotFile));
+	}
 }
@@ -15,8 +15,9 @@ package org.eclipse.equinox.p2.tests.touchpoint.natives;
 
 import java.io.*;
 import java.util.*;
-import org.eclipse.equinox.internal.p2.touchpoint.natives.IBackupStore;
-import org.eclipse.equinox.internal.p2.touchpoint.natives.NativeTouchpoint;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.eclipse.equinox.internal.p2.touchpoint.natives.*;
 import org.eclipse.equinox.internal.p2.touchpoint.natives.actions.ActionConstants;
 import org.eclipse.equinox.internal.p2.touchpoint.natives.actions.UnzipAction;
 import org.eclipse.equinox.p2.engine.IProfile;
@@ -292,6 +293,47 @@ public class UnzipActionTest extends AbstractProvisioningTest {
 		testUnzip(parameters, getTempFolder(), new String[] {a, b}, new String[] {c});
 	}
 
+	/**
+	 * Tests that the entries of a larger zip all get extracted and that the files
+	 * they overwrite are backed up and restored.
+	 */
+	public void testUnzipManyEntriesBackupRestore() throws IOException {
+		File folder = getTempFolder();
+		File zipFile = new File(folder, "many.zip");
+		File installFolder = new File(folder, "install");
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
+			for (int i = 0; i < 64; i++) {
+				out.putNextEntry(new ZipEntry("dir" + i % 4 + "/file" + i + ".txt"));
+				out.write(("zipped-" + i).getBytes());
+				out.closeEntry();
+			}
+		}
+		for (int i = 0; i < 64; i += 2) {
+			writeToFile(new File(installFolder, "dir" + i % 4 + "/file" + i + ".txt"), "ORIGINAL-" + i);
+		}
+
+		SimpleBackupStore store = new SimpleBackupStore(null, "testUnzipManyEntriesBackupRestore");
+		File[] unzipped = Util.unzipFile(zipFile, installFolder, null, null, new String[] {"**/file63.txt"}, store, "", null);
+		assertEquals(63, unzipped.length);
+		for (int i = 0; i < 63; i++) {
+			assertFileContent("1." + i, new File(installFolder, "dir" + i % 4 + "/file" + i + ".txt"), "zipped-" + i);
+		}
+		assertFalse(new File(installFolder, "dir3/file63.txt").exists());
+
+		for (File file : unzipped) {
+			file.delete();
+		}
+		store.restore();
+		for (int i = 0; i < 64; i++) {
+			File file = new File(installFolder, "dir" + i % 4 + "/file" + i + ".txt");
+			if (i % 2 == 0) {
+				assertFileContent("2." + i, file, "ORIGINAL-" + i);
+			} else {
+				assertFalse("2." + i, file.exists());
+			}
+		}
+	}
+
 	private void testUnzip(Map<String, String> params, File installFolder, String[] shoudlExistNames, String[] shoudlNotExistNames) {
 
 		ArrayList<File> shoudlExist = new ArrayList<>();
@@ -18,10 +18,10 @@ package org.eclipse.equinox.internal.p2.touchpoint.natives;
 import java.io.*;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.p2.core.*;
@@ -139,13 +139,24 @@ public class Util {
 	 * exclude/exclude pattern (that can be null, case when everything is unzipped).
 	 * If a path is specified, the path is consider as entry point in zip, as when
 	 * the to directory in zip would have been the specified path.
+	 * 
+	 * The existing files are backed up before any entry is extracted, the entries
+	 * are then inflated in parallel.
 	 */
 	public static File[] unzipFile(File zipFile, File outputDir, String path, String[] includePatterns,
 			String[] excludePatterns, IBackupStore store, String taskName, IProgressMonitor monitor)
 			throws IOException {
-		try (InputStream in = new FileInputStream(zipFile)) {
-			return unzipStream(in, zipFile.length(), outputDir, path, includePatterns, excludePatterns, store, taskName,
-					monitor);
+		try {
+			ZipFile zip = openZipFile(zipFile);
+			if (zip == null) {
+				try (InputStream in = new FileInputStream(zipFile)) {
+					return unzipStream(in, zipFile.length(), outputDir, path, includePatterns, excludePatterns, store,
+							taskName, monitor);
+				}
+			}
+			try (zip) {
+				return unzipZipFile(zip, outputDir, new EntryFilter(path, includePatterns, excludePatterns), store);
+			}
 		} catch (IOException e) {
 			// add the file name to the message
 			IOException ioExc = new IOException(NLS.bind(Messages.Util_Error_Unzipping, zipFile, e.getMessage()), e);
@@ -153,6 +164,135 @@ public class Util {
 		}
 	}
 
+	private static ZipFile openZipFile(File zipFile) throws IOException {
+		try {
+			return new ZipFile(zipFile);
+		} catch (ZipException e) {
+			// no readable central directory, the entries may still be read sequentially
+			return null;
+		}
+	}
+
+	private static File[] unzipZipFile(ZipFile zip, File outputDir, EntryFilter filter, IBackupStore store)
+			throws IOException {
+		if (zip.size() == 0) {
+			throw new IOException(Messages.Util_Invalid_Zip_File_Format);
+		}
+		ArrayList<File> unzippedFiles = new ArrayList<>();
+		// the last entry of a path wins, as when the entries are extracted in order
+		Map<File, ZipEntry> toExtract = new LinkedHashMap<>();
+		for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+			ZipEntry ze = entries.nextElement();
+			String name = filter.getTargetName(ze.getName());
+			if (name == null) {
+				continue;
+			}
+			File outFile = createSubPathFile(outputDir, name);
+			unzippedFiles.add(outFile);
+			if (ze.isDirectory()) {
+				outFile.mkdirs();
+			} else {
+				if (!toExtract.containsKey(outFile)) {
+					if (outFile.exists()) {
+						if (store != null) {
+							store.backup(outFile);
+						} else {
+							outFile.delete();
+						}
+					} else {
+						outFile.getParentFile().mkdirs();
+					}
+				}
+				toExtract.put(outFile, ze);
+			}
+		}
+		extractEntries(zip, toExtract);
+		return unzippedFiles.toArray(new File[unzippedFiles.size()]);
+	}
+
+	private static void extractEntries(ZipFile zip, Map<File, ZipEntry> toExtract) throws IOException {
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), toExtract.size());
+		if (threads < 2) {
+			for (Map.Entry<File, ZipEntry> file : toExtract.entrySet()) {
+				extractEntry(zip, file.getValue(), file.getKey());
+			}
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "p2 unzip"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		List<Future<Void>> extractions = new ArrayList<>(toExtract.size());
+		try {
+			for (Map.Entry<File, ZipEntry> file : toExtract.entrySet()) {
+				extractions.add(executor.submit(() -> {
+					extractEntry(zip, file.getValue(), file.getKey());
+					return null;
+				}));
+			}
+			for (Future<Void> extraction : extractions) {
+				await(extraction);
+			}
+		} finally {
+			// no file may be written anymore once the caller restores the backup
+			for (Future<Void> extraction : extractions) {
+				extraction.cancel(false);
+			}
+			executor.shutdown();
+			awaitTermination(executor);
+		}
+	}
+
+	private static void extractEntry(ZipFile zip, ZipEntry ze, File outFile) throws IOException {
+		try (InputStream in = zip.getInputStream(ze)) {
+			copyStream(in, false, new FileOutputStream(outFile), true);
+		} catch (FileNotFoundException e) {
+			// TEMP: ignore this for now in case we're trying to replace
+			// a running eclipse.exe
+			// TODO: This is very questionable as it will shadow any other
+			// issue with extraction!!
+		}
+		outFile.setLastModified(ze.getTime());
+	}
+
+	private static void await(Future<Void> extraction) throws IOException {
+		try {
+			extraction.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private static void awaitTermination(ExecutorService executor) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (executor.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				// the running extractions must still complete
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 * Unzip from an InputStream to an output directory using backup of overwritten
 	 * files if backup store is not null.
@@ -184,13 +324,57 @@ public class Util {
 				throw new IOException(Messages.Util_Invalid_Zip_File_Format);
 			}
 
+			EntryFilter filter = new EntryFilter(path, includePatterns, excludePatterns);
+			ArrayList<File> unzippedFiles = new ArrayList<>();
+			do {
+				String name = filter.getTargetName(ze.getName());
+				if (name != null) {
+					File outFile = createSubPathFile(outputDir, name);
+					unzippedFiles.add(outFile);
+					if (ze.isDirectory()) {
+						outFile.mkdirs();
+					} else {
+						if (outFile.exists()) {
+							if (store != null) {
+								store.backup(outFile);
+							} else {
+								outFile.delete();
+							}
+						} else {
+							outFile.getParentFile().mkdirs();
+						}
+						try {
+							copyStream(in, false, new FileOutputStream(outFile), true);
+						} catch (FileNotFoundException e) {
+							// TEMP: ignore this for now in case we're trying to replace
+							// a running eclipse.exe
+							// TODO: This is very questionable as it will shadow any other
+							// issue with extraction!!
+						}
+						outFile.setLastModified(ze.getTime());
+					}
+				}
+				in.closeEntry();
+			} while ((ze = in.getNextEntry()) != null);
+			return unzippedFiles.toArray(new File[unzippedFiles.size()]);
+		}
+
+	}
+
+	/**
+	 * Selects the zip entries to extract by path and include/exclude patterns, and
+	 * gives their names relative to the path.
+	 */
+	private static class EntryFilter {
+		private final Pattern pathRegex;
+		private final Collection<Pattern> includeRegexp = new ArrayList<>();
+		private final Collection<Pattern> excludeRegexp = new ArrayList<>();
+
+		EntryFilter(String path, String[] includePatterns, String[] excludePatterns) {
 			if (path != null && path.trim().length() == 0) {
 				path = null;
 			}
-			Pattern pathRegex = path == null ? null : createAntStylePattern("(" + path + ")(*)"); //$NON-NLS-1$ //$NON-NLS-2$
-
-			Collection<Pattern> includeRegexp = new ArrayList<>();
-			Collection<Pattern> excludeRegexp = new ArrayList<>();
+			pathRegex = path == null ? null : createAntStylePattern("(" + path + ")(*)"); //$NON-NLS-1$ //$NON-NLS-2$
 			if (includePatterns != null) {
 				for (String pattern : includePatterns) {
 					if (pattern != null) {
@@ -205,66 +389,45 @@ public class Util {
 					}
 				}
 			}
-			ArrayList<File> unzippedFiles = new ArrayList<>();
-			do {
-				String name = ze.getName();
-				if (pathRegex == null || pathRegex.matcher(name).matches()) {
-					boolean unzip = includeRegexp.isEmpty();
-					for (Pattern pattern : includeRegexp) {
-						unzip = pattern.matcher(name).matches();
-						if (unzip) {
-							break;
-						}
-					}
-					if (unzip && !excludeRegexp.isEmpty()) {
-						for (Pattern pattern : excludeRegexp) {
-							if (pattern.matcher(name).matches()) {
-								unzip = false;
-								break;
-							}
-						}
+		}
+
+		/**
+		 * Returns the name to extract the entry to, or <code>null</code> if the entry
+		 * is not extracted.
+		 */
+		String getTargetName(String name) {
+			if (pathRegex != null && !pathRegex.matcher(name).matches()) {
+				return null;
+			}
+			boolean unzip = includeRegexp.isEmpty();
+			for (Pattern pattern : includeRegexp) {
+				unzip = pattern.matcher(name).matches();
+				if (unzip) {
+					break;
+				}
+			}
+			if (unzip && !excludeRegexp.isEmpty()) {
+				for (Pattern pattern : excludeRegexp) {
+					if (pattern.matcher(name).matches()) {
+						unzip = false;
+						break;
 					}
-					if (unzip) {
-						if (pathRegex != null) {
-							Matcher matcher = pathRegex.matcher(name);
-							if (matcher.matches()) {
-								name = matcher.group(2);
-								if (name.startsWith("/")) { //$NON-NLS-1$
-									name = name.substring(1);
-								}
-							}
-						}
-						File outFile = createSubPathFile(outputDir, name);
-						unzippedFiles.add(outFile);
-						if (ze.isDirectory()) {
-							outFile.mkdirs();
-						} else {
-							if (outFile.exists()) {
-								if (store != null) {
-									store.backup(outFile);
-								} else {
-									outFile.delete();
-								}
-							} else {
-								outFile.getParentFile().mkdirs();
-							}
-							try {
-								copyStream(in, false, new FileOutputStream(outFile), true);
-							} catch (FileNotFoundException e) {
-								// TEMP: ignore this for now in case we're trying to replace
-								// a running eclipse.exe
-								// TODO: This is very questionable as it will shadow any other
-								// issue with extraction!!
-							}
-							outFile.setLastModified(ze.getTime());
-						}
+				}
+			}
+			if (!unzip) {
+				return null;
+			}
+			if (pathRegex != null) {
+				Matcher matcher = pathRegex.matcher(name);
+				if (matcher.matches()) {
+					name = matcher.group(2);
+					if (name.startsWith("/")) { //$NON-NLS-1$
+						name = name.substring(1);
 					}
 				}
-				in.closeEntry();
-			} while ((ze = in.getNextEntry()) != null);
-			return unzippedFiles.toArray(new File[unzippedFiles.size()]);
+			}
+			return name;
 		}
-
 	}
 
 	private static File createSubPathFile(File root, String subPath) throws IOException {
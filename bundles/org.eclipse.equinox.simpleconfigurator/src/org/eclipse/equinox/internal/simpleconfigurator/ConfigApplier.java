@@ -18,7 +18,7 @@ package org.eclipse.equinox.internal.simpleconfigurator;
 import java.io.*;
 import java.net.*;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.eclipse.equinox.internal.simpleconfigurator.utils.*;
@@ -27,6 +27,7 @@ import org.osgi.framework.*;
 import org.osgi.framework.hooks.resolver.ResolverHookFactory;
 import org.osgi.framework.namespace.*;
 import org.osgi.framework.startlevel.BundleStartLevel;
+import org.osgi.framework.startlevel.FrameworkStartLevel;
 import org.osgi.framework.wiring.*;
 import org.osgi.resource.Namespace;
 import org.osgi.resource.Requirement;
@@ -36,6 +37,7 @@ import org.osgi.service.resolver.ResolutionException;
 class ConfigApplier {
 
 	private static final String LAST_BUNDLES_INFO = "last.bundles.info"; //$NON-NLS-1$
+	private static final String STARTUP_SNAPSHOT = "bundles.info.snapshot"; //$NON-NLS-1$
 	private static final String PROP_DEVMODE = "osgi.dev"; //$NON-NLS-1$
 
 	private final BundleContext manipulatingContext;
@@ -48,6 +50,7 @@ class ConfigApplier {
 	private final URI baseLocation;
 	private boolean deepRefresh;
 	private int maxRefreshTry;
+	private int startThreads;
 
 	ConfigApplier(BundleContext context, Bundle callingBundle) {
 		deepRefresh = Boolean.parseBoolean(context.getProperty("equinox.simpleconfigurator.deeprefresh"));
@@ -57,6 +60,8 @@ class ConfigApplier {
 		} else {
 			maxRefreshTry = 10;
 		}
+		String startThreadsValue = context.getProperty("equinox.simpleconfigurator.startThreads");
+		startThreads = startThreadsValue == null ? 1 : Integer.parseInt(startThreadsValue);
 		manipulatingContext = context;
 		this.callingBundle = callingBundle;
 		runningOnEquinox = "Eclipse".equals(context.getProperty(Constants.FRAMEWORK_VENDOR)); //$NON-NLS-1$
@@ -72,9 +77,20 @@ class ConfigApplier {
 	}
 
 	void install(URL url, boolean exclusiveMode) throws IOException {
-		List<BundleInfo> bundleInfoList = SimpleConfiguratorUtils.readConfiguration(url, baseLocation);
+		// an unchanged configuration was already parsed and diffed against last.bundles.info
+		File snapshotFile = manipulatingContext.getDataFile(STARTUP_SNAPSHOT);
+		BundlesInfoSnapshot snapshot = snapshotFile == null ? null : BundlesInfoSnapshot.create(url, baseLocation, exclusiveMode);
+		List<BundleInfo> bundleInfoList = null;
+		if (snapshot != null && (exclusiveMode || getLastBundleInfo().isFile()))
+			bundleInfoList = snapshot.read(snapshotFile);
+		boolean unchanged = bundleInfoList != null;
+		if (!unchanged) {
+			if (snapshotFile != null)
+				snapshotFile.delete();
+			bundleInfoList = SimpleConfiguratorUtils.readConfiguration(url, baseLocation);
+		}
 		if (Activator.DEBUG)
-			System.out.println("applyConfiguration() bundleInfoList.size()=" + bundleInfoList.size());
+			System.out.println("applyConfiguration() bundleInfoList.size()=" + bundleInfoList.size() + (unchanged ? " (from startup snapshot)" : ""));
 		if (bundleInfoList.size() == 0)
 			return;
 
@@ -96,13 +112,14 @@ class ConfigApplier {
 		}
 
 		HashSet<BundleInfo> toUninstall = null;
-		if (!exclusiveMode) {
+		boolean lastStateSaved = exclusiveMode;
+		if (!exclusiveMode && !unchanged) {
 			BundleInfo[] lastInstalledBundles = getLastState();
 			if (lastInstalledBundles != null) {
 				toUninstall = new HashSet<>(Arrays.asList(lastInstalledBundles));
 				toUninstall.removeAll(Arrays.asList(expectedState));
 			}
-			saveStateAsLast(url);
+			lastStateSaved = saveStateAsLast(url);
 		}
 
 		Set<Bundle> prevouslyResolved = getResolvedBundles();
@@ -175,6 +192,18 @@ class ConfigApplier {
 			}
 		}
 		startBundles(toStart.toArray(new Bundle[toStart.size()]));
+		if (snapshot != null && !unchanged && lastStateSaved)
+			saveSnapshot(snapshot, snapshotFile, bundleInfoList);
+	}
+
+	private void saveSnapshot(BundlesInfoSnapshot snapshot, File snapshotFile, List<BundleInfo> bundleInfoList) {
+		try {
+			snapshot.write(snapshotFile, bundleInfoList);
+		} catch (IOException e) {
+			if (Activator.DEBUG)
+				e.printStackTrace();
+			snapshotFile.delete();
+		}
 	}
 
 	/**
@@ -383,7 +412,7 @@ class ConfigApplier {
 		return removedBundles;
 	}
 
-	private void saveStateAsLast(URL url) {
+	private boolean saveStateAsLast(URL url) {
 
 		File lastBundlesTxt = getLastBundleInfo();
 		try (OutputStream destinationStream = new FileOutputStream(lastBundlesTxt)) {
@@ -396,11 +425,13 @@ class ConfigApplier {
 				}
 			}
 			SimpleConfiguratorUtils.transferStreams(sourceStreams, destinationStream);
+			return true;
 		} catch (URISyntaxException e) {
 			// nothing, was discovered when starting framework
 		} catch (IOException e) {
 			//nothing
 		}
+		return false;
 	}
 
 	private File getLastBundleInfo() {
@@ -546,28 +577,93 @@ class ConfigApplier {
 	}
 
 	private void startBundles(Bundle[] bundles) {
+		if (startThreads > 1) {
+			startBundlesConcurrently(bundles);
+			return;
+		}
+		for (Bundle bundle : bundles)
+			startBundle(bundle);
+	}
+
+	/*
+	 * Starting a bundle above the active start level only marks it as started, the
+	 * framework activates it later on. The bundles activated right away are started
+	 * one start level after the other, the bundles of a start level concurrently.
+	 */
+	private void startBundlesConcurrently(Bundle[] bundles) {
+		FrameworkStartLevel frameworkStartLevel = manipulatingContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION).adapt(FrameworkStartLevel.class);
+		int activeStartLevel = frameworkStartLevel == null ? 0 : frameworkStartLevel.getStartLevel();
+		SortedMap<Integer, List<Bundle>> activatedBundles = new TreeMap<>();
+		List<Bundle> deferredBundles = new ArrayList<>();
 		for (Bundle bundle : bundles) {
-			if (bundle.getState() == Bundle.UNINSTALLED) {
-				System.err.println("Could not start: " + bundle.getSymbolicName() + '(' + bundle.getLocation() + ':' + bundle.getBundleId() + ')' + ". It's state is uninstalled.");
-				continue;
-			}
-			if (bundle.getState() == Bundle.STARTING && (bundle == callingBundle || bundle == manipulatingContext.getBundle()))
-				continue;
-			if (isFragment(bundle))
-				continue;
-			if (bundle.getBundleId() == 0)
-				continue;
+			BundleStartLevel bundleStartLevel = bundle.getState() == Bundle.UNINSTALLED ? null : bundle.adapt(BundleStartLevel.class);
+			if (bundleStartLevel != null && bundleStartLevel.getStartLevel() <= activeStartLevel)
+				activatedBundles.computeIfAbsent(bundleStartLevel.getStartLevel(), level -> new ArrayList<>()).add(bundle);
+			else
+				deferredBundles.add(bundle);
+		}
 
+		if (!activatedBundles.isEmpty()) {
+			ExecutorService executor = Executors.newFixedThreadPool(startThreads, r -> {
+				Thread thread = new Thread(r, "Simple Configurator bundle starter"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
 			try {
-				bundle.start();
-				if (Activator.DEBUG)
-					System.out.println("started Bundle:" + bundle.getSymbolicName() + '(' + bundle.getLocation() + ':' + bundle.getBundleId() + ')'); //$NON-NLS-1$
-			} catch (BundleException e) {
-				e.printStackTrace();
-				//				FrameworkLogEntry entry = new FrameworkLogEntry(FrameworkAdaptor.FRAMEWORK_SYMBOLICNAME, NLS.bind(EclipseAdaptorMsg.ECLIPSE_STARTUP_FAILED_START, bundle.getLocation()), 0, e, null);
-				//				log.log(entry);
+				for (List<Bundle> sameStartLevel : activatedBundles.values()) {
+					List<Callable<Void>> starts = new ArrayList<>(sameStartLevel.size());
+					for (Bundle bundle : sameStartLevel) {
+						starts.add(() -> {
+							startBundle(bundle);
+							return null;
+						});
+					}
+					for (Future<Void> start : executor.invokeAll(starts))
+						getResult(start);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				executor.shutdown();
 			}
 		}
+		for (Bundle bundle : deferredBundles)
+			startBundle(bundle);
+	}
+
+	private static void getResult(Future<Void> start) throws InterruptedException {
+		try {
+			start.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException)
+				throw runtimeException;
+			if (e.getCause() instanceof Error error)
+				throw error;
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void startBundle(Bundle bundle) {
+		if (bundle.getState() == Bundle.UNINSTALLED) {
+			System.err.println("Could not start: " + bundle.getSymbolicName() + '(' + bundle.getLocation() + ':' + bundle.getBundleId() + ')' + ". It's state is uninstalled.");
+			return;
+		}
+		if (bundle.getState() == Bundle.STARTING && (bundle == callingBundle || bundle == manipulatingContext.getBundle()))
+			return;
+		if (isFragment(bundle))
+			return;
+		if (bundle.getBundleId() == 0)
+			return;
+
+		try {
+			bundle.start();
+			if (Activator.DEBUG)
+				System.out.println("started Bundle:" + bundle.getSymbolicName() + '(' + bundle.getLocation() + ':' + bundle.getBundleId() + ')'); //$NON-NLS-1$
+		} catch (BundleException e) {
+			e.printStackTrace();
+			//				FrameworkLogEntry entry = new FrameworkLogEntry(FrameworkAdaptor.FRAMEWORK_SYMBOLICNAME, NLS.bind(EclipseAdaptorMsg.ECLIPSE_STARTUP_FAILED_START, bundle.getLocation()), 0, e, null);
+			//				log.log(entry);
+		}
 	}
 
 	/**
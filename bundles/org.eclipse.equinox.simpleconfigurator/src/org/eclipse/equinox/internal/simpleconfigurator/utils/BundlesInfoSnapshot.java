@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse contributors - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.internal.simpleconfigurator.utils;
+
+import java.io.*;
+import java.net.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.equinox.internal.simpleconfigurator.Activator;
+
+/*
+ * A binary copy of the bundles read from a bundles.info file and its extensions.
+ * The snapshot is keyed by the location and timestamp of the bundles.info file,
+ * the timestamp and list of the extension info files and the base location, so
+ * an unchanged configuration can be applied again without parsing it.
+ */
+public class BundlesInfoSnapshot {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private final String configuration;
+	private final long lastModified;
+	private final long length;
+	private final String baseLocation;
+	private final long extendedTimestamp;
+	private final String infoFiles;
+	private final boolean exclusiveMode;
+
+	private BundlesInfoSnapshot(String configuration, long lastModified, long length, String baseLocation, long extendedTimestamp, String infoFiles, boolean exclusiveMode) {
+		this.configuration = configuration;
+		this.lastModified = lastModified;
+		this.length = length;
+		this.baseLocation = baseLocation;
+		this.extendedTimestamp = extendedTimestamp;
+		this.infoFiles = infoFiles;
+		this.exclusiveMode = exclusiveMode;
+	}
+
+	/**
+	 * Returns the snapshot key of the configuration at the given URL, or
+	 * <code>null</code> if the configuration cannot be snapshotted because it is
+	 * not a local file.
+	 */
+	public static BundlesInfoSnapshot create(URL url, URI base, boolean exclusiveMode) {
+		if (url == null || !"file".equals(url.getProtocol())) //$NON-NLS-1$
+			return null;
+		File bundlesInfo = new File(url.getFile());
+		if (!bundlesInfo.isFile())
+			return null;
+		StringBuilder infoFiles = new StringBuilder();
+		if (Activator.EXTENDED) {
+			try {
+				for (File infoFile : SimpleConfiguratorUtils.getInfoFiles())
+					infoFiles.append(infoFile.getAbsolutePath()).append(File.pathSeparatorChar);
+			} catch (IOException | URISyntaxException e) {
+				return null;
+			}
+		}
+		return new BundlesInfoSnapshot(url.toExternalForm(), SimpleConfiguratorUtils.getFileLastModified(bundlesInfo), bundlesInfo.length(), base == null ? "" : base.toString(), SimpleConfiguratorUtils.getExtendedTimeStamp(), infoFiles.toString(), exclusiveMode); //$NON-NLS-1$
+	}
+
+	/**
+	 * Reads the bundles stored in the given snapshot file.
+	 *
+	 * @return the bundles, or <code>null</code> if the snapshot file is missing,
+	 * unreadable or was written for another state of the configuration
+	 */
+	public List<BundleInfo> read(File snapshotFile) {
+		if (snapshotFile == null || !snapshotFile.isFile())
+			return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+			if (in.readInt() != FORMAT_VERSION)
+				return null;
+			if (!configuration.equals(in.readUTF()) || lastModified != in.readLong() || length != in.readLong() || !baseLocation.equals(in.readUTF()) || extendedTimestamp != in.readLong() || !infoFiles.equals(in.readUTF()) || exclusiveMode != in.readBoolean())
+				return null;
+			int size = in.readInt();
+			List<BundleInfo> bundles = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				String symbolicName = readString(in);
+				String version = readString(in);
+				URI location = new URI(in.readUTF());
+				String base = readString(in);
+				int startLevel = in.readInt();
+				boolean markedAsStarted = in.readBoolean();
+				BundleInfo bundle = new BundleInfo(symbolicName, version, location, startLevel, markedAsStarted);
+				if (base != null)
+					bundle.setBaseLocation(new URI(base));
+				bundles.add(bundle);
+			}
+			return bundles;
+		} catch (IOException | URISyntaxException e) {
+			if (Activator.DEBUG) {
+				System.out.println("Ignoring unreadable startup snapshot " + snapshotFile); //$NON-NLS-1$
+				e.printStackTrace();
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the given bundles to the snapshot file under the key of this snapshot.
+	 * The file is replaced only once it is complete.
+	 */
+	public void write(File snapshotFile, List<BundleInfo> bundles) throws IOException {
+		File tempFile = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(configuration);
+			out.writeLong(lastModified);
+			out.writeLong(length);
+			out.writeUTF(baseLocation);
+			out.writeLong(extendedTimestamp);
+			out.writeUTF(infoFiles);
+			out.writeBoolean(exclusiveMode);
+			out.writeInt(bundles.size());
+			for (BundleInfo bundle : bundles) {
+				writeString(out, bundle.getSymbolicName());
+				writeString(out, bundle.getVersion());
+				out.writeUTF(bundle.getLocation().toString());
+				writeString(out, bundle.getBaseLocation() == null ? null : bundle.getBaseLocation().toString());
+				out.writeInt(bundle.getStartLevel());
+				out.writeBoolean(bundle.isMarkedAsStarted());
+			}
+		} catch (IOException e) {
+			tempFile.delete();
+			throw e;
+		}
+		Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null)
+			out.writeUTF(value);
+	}
+}